@@ -0,0 +1,19 @@
+package org.hjug.git;
+
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * The Java files changed by a commit
+ */
+@Value
+public class CommitChanges {
+
+    String commitId;
+    int commitTime;
+
+    /**
+     * Blob IDs of the files added or modified by the commit, keyed by path, and null for the files it deleted
+     */
+    Map<String, String> changedFiles;
+}
@@ -12,16 +12,29 @@ import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.*;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.util.io.NullOutputStream;
+import org.hjug.instrumentation.PhaseTimer;
+import org.hjug.instrumentation.events.FileLogEvent;
+import org.hjug.instrumentation.events.GitDiffEvent;
 
 @Slf4j
 public class GitLogReader implements AutoCloseable {
 
     static final String JAVA_FILE_TYPE = ".java";
 
+    /**
+     * File logs by repository directory, for the commit at HEAD when they were read.
+     * Shared by all readers while caching is enabled, so a long-running process walks the history of
+     * each file once per HEAD commit instead of once per report.
+     */
+    private static final ConcurrentMap<String, HeadFileLogs> FILE_LOG_CACHE = new ConcurrentHashMap<>();
+
+    private static volatile boolean fileLogCaching;
+
     private Repository gitRepository;
 
     private Git git;
@@ -91,7 +104,60 @@ public class GitLogReader implements AutoCloseable {
      * @throws GitAPIException
      */
     public ScmLogInfo fileLog(String path) throws GitAPIException, IOException {
+        PhaseTimer.count("git.fileLogs", 1);
+        FileLogEvent event = new FileLogEvent();
+        event.begin();
         ObjectId branchId = gitRepository.resolve("HEAD");
+        if (!fileLogCaching || branchId == null) {
+            ScmLogInfo logInfo = walkFileLog(branchId, path);
+            commitFileLogEvent(event, logInfo, false);
+            return logInfo;
+        }
+
+        String repositoryKey = gitRepository.getDirectory().getAbsolutePath();
+        HeadFileLogs headFileLogs = FILE_LOG_CACHE.compute(
+                repositoryKey,
+                (key, cached) -> cached != null && cached.head.equals(branchId) ? cached : new HeadFileLogs(branchId));
+        ScmLogInfo cached = headFileLogs.logsByPath.get(path);
+        boolean cacheHit = cached != null;
+        if (!cacheHit) {
+            cached = walkFileLog(branchId, path);
+            headFileLogs.logsByPath.put(path, cached);
+        } else {
+            PhaseTimer.count("git.fileLogCacheHits", 1);
+        }
+        commitFileLogEvent(event, cached, cacheHit);
+        // callers set the class name and change proneness on the returned info, so each gets its own copy
+        return new ScmLogInfo(
+                cached.getPath(),
+                null,
+                cached.getEarliestCommit(),
+                cached.getMostRecentCommit(),
+                cached.getCommitCount());
+    }
+
+    /**
+     * Keeps the file logs read by every reader in memory until HEAD moves to another commit.
+     * Meant for long-running processes that report on the same repository repeatedly.
+     */
+    public static void setFileLogCaching(boolean enabled) {
+        fileLogCaching = enabled;
+        if (!enabled) {
+            FILE_LOG_CACHE.clear();
+        }
+    }
+
+    private static void commitFileLogEvent(FileLogEvent event, ScmLogInfo logInfo, boolean cached) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setPath(logInfo.getPath());
+            event.setCommits(logInfo.getCommitCount());
+            event.setCached(cached);
+            event.commit();
+        }
+    }
+
+    private ScmLogInfo walkFileLog(ObjectId branchId, String path) throws GitAPIException, IOException {
         Iterable<RevCommit> revCommits = git.log().add(branchId).addPath(path).call();
 
         int commitCount = 0;
@@ -108,6 +174,7 @@ public class GitLogReader implements AutoCloseable {
             }
             commitCount++;
         }
+        PhaseTimer.count("git.fileLogCommitsWalked", commitCount);
 
         if (commitCount == 0) {
             return new ScmLogInfo(path, null, earliestCommit, earliestCommit, commitCount);
@@ -118,13 +185,20 @@ public class GitLogReader implements AutoCloseable {
 
     // based on https://stackoverflow.com/questions/27361538/how-to-show-changes-between-commits-with-jgit
     public TreeMap<Integer, Integer> captureChangeCountByCommitTimestamp() throws IOException, GitAPIException {
+        try (PhaseTimer.Phase phase = PhaseTimer.start("git.changeCountByCommit")) {
+            ObjectId branchId = gitRepository.resolve("HEAD");
+            List<RevCommit> commitList = new ArrayList<>();
+            git.log().add(branchId).call().forEach(commitList::add);
+            phase.count("commits", commitList.size());
+            PhaseTimer.count("git.commitsWalked", commitList.size());
+            return captureChangeCountByCommitTimestamp(commitList);
+        }
+    }
 
+    private TreeMap<Integer, Integer> captureChangeCountByCommitTimestamp(List<RevCommit> commitList)
+            throws IOException {
         TreeMap<Integer, Integer> changesByCommitTimestamp = new TreeMap<>();
 
-        ObjectId branchId = gitRepository.resolve("HEAD");
-        List<RevCommit> commitList = new ArrayList<>();
-        git.log().add(branchId).call().forEach(commitList::add);
-
         if (commitList.isEmpty()) {
             return changesByCommitTimestamp;
         }
@@ -161,7 +235,145 @@ public class GitLogReader implements AutoCloseable {
         return changesByCommitTimestamp;
     }
 
+    /**
+     * Returns the Java files changed by each of the most recent commits along the first parent of HEAD, oldest first.
+     * The oldest commit lists every Java file in its tree, so applying the changes in order rebuilds the tree of each commit.
+     *
+     * @param maxCommits the number of commits to walk back from HEAD
+     */
+    public List<CommitChanges> walkJavaFileChanges(int maxCommits) throws IOException {
+        ObjectId branchId = gitRepository.resolve("HEAD");
+        if (branchId == null) {
+            return new ArrayList<>();
+        }
+
+        List<RevCommit> commitList = new ArrayList<>();
+        try (RevWalk revWalk = new RevWalk(gitRepository)) {
+            revWalk.setFirstParent(true);
+            revWalk.markStart(revWalk.parseCommit(branchId));
+            for (RevCommit revCommit : revWalk) {
+                if (commitList.size() == maxCommits) {
+                    break;
+                }
+                commitList.add(revCommit);
+            }
+        }
+        Collections.reverse(commitList);
+        PhaseTimer.count("git.commitsWalked", commitList.size());
+
+        List<CommitChanges> commitChanges = new ArrayList<>(commitList.size());
+        try (PhaseTimer.Phase phase = PhaseTimer.start("git.walkJavaFileChanges")) {
+            for (int i = 0; i < commitList.size(); i++) {
+                RevCommit commit = commitList.get(i);
+                Map<String, String> changedFiles =
+                        i == 0 ? listJavaFiles(commit) : diffJavaFiles(commitList.get(i - 1), commit);
+                commitChanges.add(new CommitChanges(commit.getName(), commit.getCommitTime(), changedFiles));
+                phase.count("changedFiles", changedFiles.size());
+            }
+            phase.count("commits", commitList.size());
+        }
+        return commitChanges;
+    }
+
+    /**
+     * Returns the commit HEAD forked from the ref at, the best common ancestor of the two,
+     * so the changes from it to HEAD are only those made since HEAD forked, e.g. on a pull request branch
+     *
+     * @param ref a branch, tag or commit ID
+     * @return the commit ID, or null if the ref or HEAD cannot be resolved or they have no common ancestor
+     */
+    public String findMergeBase(String ref) throws IOException {
+        ObjectId headId = gitRepository.resolve("HEAD");
+        ObjectId refId = gitRepository.resolve(ref);
+        if (headId == null || refId == null) {
+            return null;
+        }
+
+        try (RevWalk revWalk = new RevWalk(gitRepository)) {
+            revWalk.setRevFilter(RevFilter.MERGE_BASE);
+            revWalk.markStart(revWalk.parseCommit(headId));
+            revWalk.markStart(revWalk.parseCommit(refId));
+            RevCommit mergeBase = revWalk.next();
+            return mergeBase == null ? null : mergeBase.getName();
+        }
+    }
+
+    /**
+     * Returns every Java file in the tree of a commit with the ID of its blob
+     */
+    public Map<String, String> listJavaFiles(String commitId) throws IOException {
+        try (RevWalk revWalk = new RevWalk(gitRepository)) {
+            return listJavaFiles(revWalk.parseCommit(ObjectId.fromString(commitId)));
+        }
+    }
+
+    /**
+     * Returns the Java files changed from a commit to HEAD with the ID of their blob at HEAD, or null if deleted
+     */
+    public Map<String, String> diffJavaFilesToHead(String commitId) throws IOException {
+        try (RevWalk revWalk = new RevWalk(gitRepository)) {
+            return diffJavaFiles(
+                    revWalk.parseCommit(ObjectId.fromString(commitId)),
+                    revWalk.parseCommit(gitRepository.resolve("HEAD")));
+        }
+    }
+
+    /**
+     * Copies the content of a blob listed by {@link #walkJavaFileChanges(int)} or {@link #listJavaFiles(String)}
+     * to the stream
+     */
+    public void copyBlob(String blobId, OutputStream out) throws IOException {
+        gitRepository.open(ObjectId.fromString(blobId), Constants.OBJ_BLOB).copyTo(out);
+    }
+
+    private Map<String, String> listJavaFiles(RevCommit commit) throws IOException {
+        Map<String, String> javaFiles = new HashMap<>();
+        try (TreeWalk treeWalk = new TreeWalk(gitRepository)) {
+            treeWalk.setRecursive(true);
+            treeWalk.reset(commit.getTree());
+            while (treeWalk.next()) {
+                if (treeWalk.getPathString().endsWith(JAVA_FILE_TYPE)) {
+                    javaFiles.put(
+                            treeWalk.getPathString(), treeWalk.getObjectId(0).getName());
+                }
+            }
+        }
+        return javaFiles;
+    }
+
+    private Map<String, String> diffJavaFiles(RevCommit older, RevCommit newer) throws IOException {
+        Map<String, String> changedFiles = new HashMap<>();
+        // getDiffEntries(a, b) lists the changes from the tree of a to the tree of b
+        for (DiffEntry entry : getDiffEntries(older, newer)) {
+            if (entry.getOldPath().endsWith(JAVA_FILE_TYPE) && entry.getChangeType() != DiffEntry.ChangeType.ADD) {
+                changedFiles.put(entry.getOldPath(), null);
+            }
+            if (entry.getNewPath().endsWith(JAVA_FILE_TYPE) && entry.getChangeType() != DiffEntry.ChangeType.DELETE) {
+                changedFiles.put(entry.getNewPath(), entry.getNewId().name());
+            }
+        }
+        return changedFiles;
+    }
+
     private List<DiffEntry> getDiffEntries(RevCommit newCommit, RevCommit oldCommit) throws IOException {
+        GitDiffEvent event = new GitDiffEvent();
+        event.begin();
+        List<DiffEntry> diffEntries = scanDiffEntries(newCommit, oldCommit);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setFromCommit(newCommit.getName());
+            event.setToCommit(oldCommit.getName());
+            event.setChangedFiles(diffEntries.size());
+            event.setChangedJavaFiles((int) diffEntries.stream()
+                    .filter(entry -> entry.getNewPath().endsWith(JAVA_FILE_TYPE)
+                            || entry.getOldPath().endsWith(JAVA_FILE_TYPE))
+                    .count());
+            event.commit();
+        }
+        return diffEntries;
+    }
+
+    private List<DiffEntry> scanDiffEntries(RevCommit newCommit, RevCommit oldCommit) throws IOException {
         try (ObjectReader reader = gitRepository.newObjectReader();
                 DiffFormatter df = new DiffFormatter(NullOutputStream.INSTANCE)) {
             df.setRepository(gitRepository);
@@ -197,4 +409,13 @@ public class GitLogReader implements AutoCloseable {
 
         return changesByCommitTimestamp;
     }
+
+    private static final class HeadFileLogs {
+        private final ObjectId head;
+        private final ConcurrentMap<String, ScmLogInfo> logsByPath = new ConcurrentHashMap<>();
+
+        private HeadFileLogs(ObjectId head) {
+            this.head = head.copy();
+        }
+    }
 }
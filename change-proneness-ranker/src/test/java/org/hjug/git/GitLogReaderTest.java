@@ -66,6 +66,37 @@ public class GitLogReaderTest {
         Assertions.assertEquals(secondCommit.getCommitTime(), scmLogInfo.getMostRecentCommit());
     }
 
+    @Test
+    void testFileLogCachingUntilHeadMoves() throws IOException, GitAPIException, InterruptedException {
+        GitLogReader.setFileLogCaching(true);
+        try {
+            String attributeHandler = "AttributeHandler.java";
+            writeFile(attributeHandler, "class AttributeHandler {}");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("message").call();
+
+            ScmLogInfo first = new GitLogReader(git).fileLog(attributeHandler);
+            first.setClassName("AttributeHandler");
+            ScmLogInfo cached = new GitLogReader(git).fileLog(attributeHandler);
+
+            Assertions.assertNotSame(first, cached);
+            Assertions.assertNull(cached.getClassName());
+            Assertions.assertEquals(1, cached.getCommitCount());
+
+            // Sleeping for one second to guarantee commits have different time stamps
+            Thread.sleep(1000);
+            writeFile(attributeHandler, "class AttributeHandler { int count; }");
+            git.add().addFilepattern(".").call();
+            RevCommit secondCommit = git.commit().setMessage("message").call();
+
+            ScmLogInfo afterCommit = new GitLogReader(git).fileLog(attributeHandler);
+            Assertions.assertEquals(2, afterCommit.getCommitCount());
+            Assertions.assertEquals(secondCommit.getCommitTime(), afterCommit.getMostRecentCommit());
+        } finally {
+            GitLogReader.setFileLogCaching(false);
+        }
+    }
+
     @Test
     void testWalkFirstCommit() throws IOException, GitAPIException {
         GitLogReader gitLogReader = new GitLogReader(git);
@@ -113,6 +144,72 @@ public class GitLogReaderTest {
                 2, commitCounts.get(secondCommit.getCommitTime()).intValue());
     }
 
+    @Test
+    void testWalkJavaFileChanges() throws Exception {
+        GitLogReader gitLogReader = new GitLogReader(git);
+
+        writeFile("A.java", "class A {}");
+        writeFile("B.java", "class B {}");
+        writeFile("README.md", "readme");
+        git.add().addFilepattern(".").call();
+        RevCommit firstCommit = git.commit().setMessage("message").call();
+
+        writeFile("A.java", "class A { B b; }");
+        writeFile("README.md", "changed");
+        git.rm().addFilepattern("B.java").call();
+        git.add().addFilepattern(".").call();
+        RevCommit secondCommit = git.commit().setMessage("message").call();
+
+        List<CommitChanges> changes = gitLogReader.walkJavaFileChanges(10);
+
+        Assertions.assertEquals(2, changes.size());
+        Assertions.assertEquals(firstCommit.getName(), changes.get(0).getCommitId());
+        Assertions.assertEquals(
+                Set.of("A.java", "B.java"), changes.get(0).getChangedFiles().keySet());
+        Assertions.assertEquals(secondCommit.getName(), changes.get(1).getCommitId());
+        Assertions.assertEquals(
+                Set.of("A.java", "B.java"), changes.get(1).getChangedFiles().keySet());
+        Assertions.assertNull(changes.get(1).getChangedFiles().get("B.java"));
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        gitLogReader.copyBlob(changes.get(1).getChangedFiles().get("A.java"), content);
+        Assertions.assertEquals("class A { B b; }", content.toString(UTF_8));
+
+        List<CommitChanges> lastCommit = gitLogReader.walkJavaFileChanges(1);
+        Assertions.assertEquals(1, lastCommit.size());
+        // the oldest commit walked lists its whole tree
+        Assertions.assertEquals(
+                Set.of("A.java"), lastCommit.get(0).getChangedFiles().keySet());
+    }
+
+    @Test
+    void testDiffJavaFilesToHeadFromMergeBase() throws Exception {
+        GitLogReader gitLogReader = new GitLogReader(git);
+
+        writeFile("A.java", "class A {}");
+        writeFile("B.java", "class B {}");
+        git.add().addFilepattern(".").call();
+        RevCommit forkCommit = git.commit().setMessage("message").call();
+        git.branchCreate().setName("base").call();
+
+        writeFile("A.java", "class A { C c; }");
+        writeFile("C.java", "class C {}");
+        git.rm().addFilepattern("B.java").call();
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("message").call();
+
+        String mergeBase = gitLogReader.findMergeBase("base");
+        Assertions.assertEquals(forkCommit.getName(), mergeBase);
+        Assertions.assertNull(gitLogReader.findMergeBase("no-such-branch"));
+
+        Assertions.assertEquals(
+                Set.of("A.java", "B.java"),
+                gitLogReader.listJavaFiles(mergeBase).keySet());
+        Map<String, String> changedFiles = gitLogReader.diffJavaFilesToHead(mergeBase);
+        Assertions.assertEquals(Set.of("A.java", "B.java", "C.java"), changedFiles.keySet());
+        Assertions.assertNull(changedFiles.get("B.java"));
+    }
+
     private void writeFile(String name, String content) throws IOException {
         File file = new File(git.getRepository().getWorkTree(), name);
         try (FileOutputStream outputStream = new FileOutputStream(file)) {
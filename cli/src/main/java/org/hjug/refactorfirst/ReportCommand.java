@@ -4,14 +4,27 @@ import static picocli.CommandLine.Option;
 
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.project.MavenProject;
+import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.hjug.graphbuilder.CodebaseGraphSnapshot;
+import org.hjug.graphbuilder.GraphBuilderConfig;
+import org.hjug.graphbuilder.JavaGraphBuilder;
+import org.hjug.instrumentation.PhaseTimer;
 import org.hjug.refactorfirst.report.CsvReport;
+import org.hjug.refactorfirst.report.DiffReport;
 import org.hjug.refactorfirst.report.HtmlReport;
 import org.hjug.refactorfirst.report.SimpleHtmlReport;
+import org.hjug.refactorfirst.report.TrendReport;
 import org.hjug.refactorfirst.report.json.JsonReportExecutor;
 import picocli.CommandLine.Command;
 
@@ -43,6 +56,55 @@ public class ReportCommand implements Callable<Integer> {
             description = "Minify HTML output")
     private boolean minifiyHtml;
 
+    @Option(
+            names = {"-ps", "--paged-sections"},
+            defaultValue = "false",
+            description = "Write the rows of each HTML report table to a data file loaded a page at a time when the"
+                    + " table is viewed")
+    private boolean pagedSections;
+
+    @Option(
+            names = {"-st", "--show-timings"},
+            defaultValue = "false",
+            description = "Add the time, CPU time and memory each phase of the analysis took to the footer of the HTML"
+                    + " report.  They are always written to refactor-first-report-timings.json")
+    private boolean showTimings;
+
+    @Option(
+            names = {"-crs", "--cycle-removal-strategy"},
+            defaultValue = "auto",
+            description =
+                    "Cycle removal algorithm: auto, exact, pageRank, or greedy.  auto picks one per strongly connected"
+                            + " component")
+    private String cycleRemovalStrategy;
+
+    @Option(
+            names = {"-cp", "--classpath"},
+            description =
+                    "Dependency jars and class directories, separated by the platform path separator, used to resolve"
+                            + " library types.  The types in each jar are cached in ~/.refactorfirst/type-tables")
+    private String classpath;
+
+    @Option(
+            names = {"-pcs", "--parse-chunk-size"},
+            defaultValue = "0",
+            description = "Parse this many Java files at a time to bound the heap used while parsing.  Types declared"
+                    + " in other chunks are resolved from --classes-dir, without which all files are parsed together."
+                    + "  0 parses all files together")
+    private int parseChunkSize;
+
+    @Option(
+            names = {"-hb", "--heap-budget"},
+            defaultValue = "0",
+            description = "Heap in use, in megabytes, above which the parse chunk size is halved.  0 keeps the chunk"
+                    + " size fixed")
+    private long heapBudgetMegabytes;
+
+    @Option(
+            names = {"-cd", "--classes-dir"},
+            description = "Compiled classes of the base directory, e.g. target/classes, used to parse in chunks")
+    private File classesDirectory;
+
     @Option(
             names = {"-xt", "--exclude-tests"},
             defaultValue = "true",
@@ -80,6 +142,45 @@ public class ReportCommand implements Callable<Integer> {
             description = "Base directory of the project")
     private File baseDir;
 
+    @Option(
+            names = {"--daemon"},
+            defaultValue = "false",
+            description = "Keep running and regenerate the report on request, reusing the parsed codebase until its"
+                    + " sources change.  Requests must send the token written to ~/.refactorfirst/daemon-<port>.token in"
+                    + " the X-RefactorFirst-Token header")
+    private boolean daemon;
+
+    @Option(
+            names = {"--port"},
+            defaultValue = "7531",
+            description = "Local port the daemon listens on")
+    private int port;
+
+    @Option(
+            names = {"-ws", "--write-snapshot"},
+            description = "Write the parsed codebase graph to a binary snapshot file, so later reports can be"
+                    + " generated from it with --from-snapshot")
+    private File writeSnapshot;
+
+    @Option(
+            names = {"-fs", "--from-snapshot"},
+            description = "Generate the report from a snapshot written by --write-snapshot instead of parsing the"
+                    + " base directory")
+    private File fromSnapshot;
+
+    @Option(
+            names = {"-tc", "--trend-commits"},
+            defaultValue = "500",
+            description = "Number of recent commits measured by the TREND report")
+    private int trendCommits;
+
+    @Option(
+            names = {"-br", "--base-ref"},
+            description =
+                    "Branch, tag or commit the DIFF report compares HEAD with, from the commit HEAD forked from it"
+                            + " at.  The graph of that commit is cached in ~/.refactorfirst/snapshots")
+    private String baseRef;
+
     @Option(
             names = {"-t", "--type"},
             description = "Report type: ${COMPLETION-CANDIDATES}",
@@ -92,9 +193,57 @@ public class ReportCommand implements Callable<Integer> {
         // TODO: add support for inferring arguments from gradle properties
         inferArgumentsFromMavenProject();
         populateDefaultArguments();
+        if (daemon) {
+            return new ReportDaemon(this, baseDir, port).run();
+        }
+
+        PhaseTimer.startRun();
+        CodebaseGraphDTO codebaseGraph;
+        try {
+            codebaseGraph = loadCodebaseGraph();
+        } catch (IOException e) {
+            log.error("Could not read or write the codebase graph snapshot", e);
+            return 1;
+        }
+        if (fromSnapshot != null && codebaseGraph == null) {
+            log.error("{} is not a codebase graph snapshot written by this version", fromSnapshot);
+            return 1;
+        }
+        writeReport(codebaseGraph);
+        return 0;
+    }
+
+    /**
+     * @return the graph in the snapshot to report on, the graph written to a new snapshot,
+     * or null to have the report build the graph
+     */
+    private CodebaseGraphDTO loadCodebaseGraph() throws IOException {
+        if (fromSnapshot != null) {
+            return CodebaseGraphSnapshot.read(fromSnapshot.toPath());
+        }
+        if (writeSnapshot == null) {
+            return null;
+        }
+        CodebaseGraphDTO codebaseGraph = buildCodebaseGraph();
+        CodebaseGraphSnapshot.write(codebaseGraph, writeSnapshot.toPath());
+        log.info("Wrote the codebase graph snapshot to {}", writeSnapshot);
+        return codebaseGraph;
+    }
+
+    /**
+     * @param codebaseGraph the graph to report on, or null to build it from the base directory
+     */
+    void writeReport(CodebaseGraphDTO codebaseGraph) {
         switch (reportType) {
             case SIMPLE_HTML:
                 SimpleHtmlReport simpleHtmlReport = new SimpleHtmlReport();
+                simpleHtmlReport.setCycleRemovalStrategy(cycleRemovalStrategy);
+                simpleHtmlReport.setClasspath(classpathEntries());
+                simpleHtmlReport.setParseChunkSize(parseChunkSize);
+                simpleHtmlReport.setHeapBudgetMegabytes(heapBudgetMegabytes);
+                simpleHtmlReport.setClassesDirectory(classesDirectory());
+                simpleHtmlReport.setCodebaseGraph(codebaseGraph);
+                simpleHtmlReport.setShowTimings(showTimings);
                 simpleHtmlReport.execute(
                         backEdgeAnalysisCount,
                         analyzeCycles,
@@ -106,9 +255,17 @@ public class ReportCommand implements Callable<Integer> {
                         projectVersion,
                         baseDir,
                         outputDirectory);
-                return 0;
+                return;
             case HTML:
                 HtmlReport htmlReport = new HtmlReport();
+                htmlReport.setCycleRemovalStrategy(cycleRemovalStrategy);
+                htmlReport.setPagedSections(pagedSections);
+                htmlReport.setClasspath(classpathEntries());
+                htmlReport.setParseChunkSize(parseChunkSize);
+                htmlReport.setHeapBudgetMegabytes(heapBudgetMegabytes);
+                htmlReport.setClassesDirectory(classesDirectory());
+                htmlReport.setCodebaseGraph(codebaseGraph);
+                htmlReport.setShowTimings(showTimings);
                 htmlReport.execute(
                         backEdgeAnalysisCount,
                         analyzeCycles,
@@ -120,18 +277,72 @@ public class ReportCommand implements Callable<Integer> {
                         projectVersion,
                         baseDir,
                         outputDirectory);
-                return 0;
+                return;
             case JSON:
                 JsonReportExecutor jsonReportExecutor = new JsonReportExecutor();
-                jsonReportExecutor.execute(baseDir, outputDirectory);
-                return 0;
+                jsonReportExecutor.setCycleRemovalStrategy(cycleRemovalStrategy);
+                jsonReportExecutor.setClasspath(classpathEntries());
+                jsonReportExecutor.setCodebaseGraph(codebaseGraph);
+                jsonReportExecutor.execute(excludeTests, testSourceDirectory, baseDir, outputDirectory);
+                return;
             case CSV:
                 CsvReport csvReport = new CsvReport();
                 csvReport.execute(showDetails, projectName, projectVersion, outputDirectory, baseDir);
-                return 0;
+                return;
+            case TREND:
+                TrendReport trendReport = new TrendReport();
+                trendReport.setCycleRemovalStrategy(cycleRemovalStrategy);
+                trendReport.setClasspath(classpathEntries());
+                trendReport.execute(trendCommits, excludeTests, testSourceDirectory, baseDir, outputDirectory);
+                return;
+            case DIFF:
+                if (baseRef == null) {
+                    log.error("The DIFF report needs a --base-ref to compare with");
+                    return;
+                }
+                DiffReport diffReport = new DiffReport();
+                diffReport.setClasspath(classpathEntries());
+                diffReport.execute(baseRef, excludeTests, testSourceDirectory, baseDir, outputDirectory);
+                return;
         }
+    }
 
-        return 0;
+    /**
+     * @return whether the report type is built from the codebase graph
+     */
+    boolean usesCodebaseGraph() {
+        return reportType == ReportType.SIMPLE_HTML || reportType == ReportType.HTML || reportType == ReportType.JSON;
+    }
+
+    CodebaseGraphDTO buildCodebaseGraph() throws IOException {
+        String testSources = testSourceDirectory == null || testSourceDirectory.isEmpty()
+                ? "src" + File.separator + "test"
+                : testSourceDirectory;
+        return new JavaGraphBuilder()
+                .getCodebaseGraphDTO(
+                        baseDir.getPath(),
+                        GraphBuilderConfig.builder()
+                                .excludeTests(excludeTests)
+                                .testSourceDirectory(testSources)
+                                .classpath(classpathEntries())
+                                .parseChunkSize(parseChunkSize)
+                                .heapBudgetMegabytes(heapBudgetMegabytes)
+                                .classesDirectory(classesDirectory())
+                                .build());
+    }
+
+    private Path classesDirectory() {
+        return classesDirectory == null ? null : classesDirectory.toPath();
+    }
+
+    private List<Path> classpathEntries() {
+        if (classpath == null || classpath.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(classpath.split(File.pathSeparator))
+                .filter(entry -> !entry.isEmpty())
+                .map(Paths::get)
+                .collect(Collectors.toList());
     }
 
     private void populateDefaultArguments() {
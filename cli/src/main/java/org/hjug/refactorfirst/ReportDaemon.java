@@ -0,0 +1,398 @@
+package org.hjug.refactorfirst;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.*;
+import lombok.extern.slf4j.Slf4j;
+import org.hjug.git.GitLogReader;
+import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.hjug.instrumentation.PhaseTimer;
+
+/**
+ * Keeps the codebase graph and git file logs of a project in memory between reports.
+ *
+ * The daemon listens on a local port:
+ * POST /report writes the report and responds with the time it took,
+ * GET /status describes the cached graph, and POST /shutdown stops the daemon.
+ * Every request must send the token of the run, which is written to a file only the user can read,
+ * in the {@value #TOKEN_HEADER} header. Requests with a Host or Origin other than the loopback address are refused,
+ * so web pages cannot drive the daemon.
+ * Java sources under the base directory are watched, and the graph is rebuilt shortly after they change,
+ * so a report requested afterwards only renders.
+ */
+@Slf4j
+class ReportDaemon {
+
+    static final String TOKEN_HEADER = "X-RefactorFirst-Token";
+
+    static final Path DEFAULT_TOKEN_DIRECTORY = Paths.get(System.getProperty("user.home"), ".refactorfirst");
+
+    private static final long REBUILD_DELAY_MILLIS = 300;
+
+    // build output and VCS metadata change on every build without changing the sources
+    private static final Set<String> IGNORED_DIRECTORIES = Set.of(".git", "target", "build", ".idea", "node_modules");
+
+    private static final Set<String> LOOPBACK_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]");
+
+    private final ReportCommand reportCommand;
+    private final Path baseDir;
+    private final int port;
+    private final Path tokenDirectory;
+    private final String token = newToken();
+
+    // graph builds and reports run one at a time, in the order they were requested
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "refactor-first-daemon");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CountDownLatch shutdown = new CountDownLatch(1);
+
+    private volatile CodebaseGraphDTO codebaseGraph;
+    private volatile boolean sourcesChanged = true;
+    private volatile long graphBuiltAt;
+    private ScheduledFuture<?> scheduledRebuild;
+
+    private HttpServer server;
+    private WatchService watchService;
+    private Path tokenFile;
+
+    ReportDaemon(ReportCommand reportCommand, File baseDir, int port) {
+        this(reportCommand, baseDir, port, DEFAULT_TOKEN_DIRECTORY);
+    }
+
+    /**
+     * @param port the port to listen on, or 0 for any free port
+     * @param tokenDirectory directory the token file of the run is written to
+     */
+    ReportDaemon(ReportCommand reportCommand, File baseDir, int port, Path tokenDirectory) {
+        this.reportCommand = reportCommand;
+        this.baseDir = baseDir.toPath().toAbsolutePath().normalize();
+        this.port = port;
+        this.tokenDirectory = tokenDirectory;
+    }
+
+    int run() {
+        try {
+            start();
+        } catch (IOException e) {
+            log.error("Unable to start the daemon", e);
+            stop();
+            return 1;
+        }
+        try {
+            shutdown.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stop();
+        }
+        return 0;
+    }
+
+    /**
+     * Starts listening and watching the sources, returning once requests are accepted
+     */
+    void start() throws IOException {
+        GitLogReader.setFileLogCaching(true);
+        watchService = FileSystems.getDefault().newWatchService();
+        registerDirectories(watchService, baseDir);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/report", exchange -> {
+            if (isAllowed(exchange)) {
+                handleReport(exchange);
+            }
+        });
+        server.createContext("/status", exchange -> {
+            if (isAllowed(exchange)) {
+                handleStatus(exchange);
+            }
+        });
+        server.createContext("/shutdown", exchange -> {
+            if (isAllowed(exchange)) {
+                handleShutdown(exchange);
+            }
+        });
+        server.start();
+        tokenFile = tokenDirectory.resolve("daemon-" + getPort() + ".token");
+        writeToken(tokenFile, token);
+
+        Thread watcher = new Thread(() -> watch(watchService), "refactor-first-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        if (reportCommand.usesCodebaseGraph()) {
+            worker.submit(this::rebuildInBackground);
+        }
+        log.info(
+                "Listening on http://localhost:{}, watching {}. Send the token in {} as the {} header",
+                getPort(),
+                baseDir,
+                tokenFile,
+                TOKEN_HEADER);
+    }
+
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        worker.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Could not close the watch service", e);
+            }
+        }
+        if (tokenFile != null) {
+            try {
+                Files.deleteIfExists(tokenFile);
+            } catch (IOException e) {
+                log.warn("Could not delete {}: {}", tokenFile, e.getMessage());
+            }
+        }
+        GitLogReader.setFileLogCaching(false);
+    }
+
+    /**
+     * @return true once a shutdown was requested
+     */
+    boolean awaitShutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        return shutdown.await(timeout, unit);
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    Path getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * Responds with an error unless the request is from this machine and carries the token of the run
+     */
+    private boolean isAllowed(HttpExchange exchange) throws IOException {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        String origin = exchange.getRequestHeaders().getFirst("Origin");
+        if (host == null || !isLoopback(host) || (origin != null && !isLoopbackOrigin(origin))) {
+            respond(exchange, 403, "Only local requests are accepted\n");
+            return false;
+        }
+        String requestToken = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+        if (requestToken == null
+                || !MessageDigest.isEqual(
+                        token.getBytes(StandardCharsets.UTF_8), requestToken.getBytes(StandardCharsets.UTF_8))) {
+            respond(exchange, 401, "Send the token in " + tokenFile + " as the " + TOKEN_HEADER + " header\n");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param authority a host, optionally followed by a port
+     */
+    private static boolean isLoopback(String authority) {
+        if (authority == null) {
+            return false;
+        }
+        int portSeparator = authority.lastIndexOf(':');
+        String host = portSeparator > authority.lastIndexOf(']') ? authority.substring(0, portSeparator) : authority;
+        return LOOPBACK_HOSTS.contains(host.toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean isLoopbackOrigin(String origin) {
+        try {
+            return isLoopback(new URI(origin).getRawAuthority());
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder token = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        return token.toString();
+    }
+
+    /**
+     * Writes the token to a file that only the user can read, where the file system supports it
+     */
+    private static void writeToken(Path tokenFile, String token) throws IOException {
+        Files.createDirectories(tokenFile.getParent());
+        Files.deleteIfExists(tokenFile);
+        if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(
+                    tokenFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        Files.write(tokenFile, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleReport(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "Use POST\n");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            worker.submit(() -> {
+                        PhaseTimer.startRun();
+                        if (reportCommand.usesCodebaseGraph()) {
+                            rebuildIfSourcesChanged();
+                        }
+                        reportCommand.writeReport(codebaseGraph);
+                        return null;
+                    })
+                    .get();
+            respond(exchange, 200, "Report written in " + (System.nanoTime() - start) / 1_000_000 + " ms\n");
+        } catch (ExecutionException e) {
+            log.error("Unable to write the report", e.getCause());
+            respond(exchange, 500, "Unable to write the report: " + e.getCause() + "\n");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "Interrupted\n");
+        }
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        CodebaseGraphDTO graph = codebaseGraph;
+        String status = graph == null
+                ? "No graph built yet\n"
+                : "Graph of " + graph.getClassReferencesGraph().vertexSet().size() + " classes built "
+                        + (System.currentTimeMillis() - graphBuiltAt) / 1000 + " s ago"
+                        + (sourcesChanged ? ", sources changed since" : "") + "\n";
+        respond(exchange, 200, status);
+    }
+
+    private void handleShutdown(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "Use POST\n");
+            return;
+        }
+        respond(exchange, 200, "Stopping\n");
+        shutdown.countDown();
+    }
+
+    private void rebuildIfSourcesChanged() throws IOException {
+        if (!sourcesChanged && codebaseGraph != null) {
+            return;
+        }
+        // cleared first, so changes made while parsing trigger another rebuild
+        sourcesChanged = false;
+        long start = System.nanoTime();
+        try {
+            codebaseGraph = reportCommand.buildCodebaseGraph();
+        } catch (IOException | RuntimeException e) {
+            // the graph is out of date until a rebuild succeeds, e.g. once a half-saved file is complete
+            sourcesChanged = true;
+            throw e;
+        }
+        graphBuiltAt = System.currentTimeMillis();
+        log.info("Codebase graph rebuilt in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Rebuilds on the worker when no request waits for the result, so failures are logged rather than lost
+     */
+    private void rebuildInBackground() {
+        try {
+            rebuildIfSourcesChanged();
+        } catch (Exception e) {
+            log.error("Unable to rebuild the codebase graph", e);
+        }
+    }
+
+    private void watch(WatchService watchService) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                boolean javaSourceChanged = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        javaSourceChanged = true;
+                        continue;
+                    }
+                    Path changed = directory.resolve((Path) event.context());
+                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+                        registerDirectories(watchService, changed);
+                        javaSourceChanged = true;
+                    } else if (changed.toString().endsWith(".java")) {
+                        javaSourceChanged = true;
+                    }
+                }
+                key.reset();
+                if (javaSourceChanged) {
+                    sourcesChanged = true;
+                    scheduleRebuild();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the daemon is stopping
+        } catch (IOException e) {
+            log.error("Stopped watching {}", baseDir, e);
+        }
+    }
+
+    /**
+     * Rebuilds once changes have settled, so saving many files at once, e.g. on a branch switch, parses once
+     */
+    private synchronized void scheduleRebuild() {
+        if (!reportCommand.usesCodebaseGraph()) {
+            return;
+        }
+        if (scheduledRebuild != null) {
+            scheduledRebuild.cancel(false);
+        }
+        scheduledRebuild = worker.schedule(this::rebuildInBackground, REBUILD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void registerDirectories(WatchService watchService, Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root)
+                        && IGNORED_DIRECTORIES.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
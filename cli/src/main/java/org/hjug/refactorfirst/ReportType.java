@@ -4,5 +4,7 @@ public enum ReportType {
     SIMPLE_HTML,
     HTML,
     JSON,
-    CSV;
+    CSV,
+    TREND,
+    DIFF;
 }
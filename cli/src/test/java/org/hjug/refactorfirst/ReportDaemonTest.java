@@ -0,0 +1,180 @@
+package org.hjug.refactorfirst;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReportDaemonTest {
+
+    @TempDir
+    public Path tempFolder;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final AtomicInteger reportsWritten = new AtomicInteger();
+
+    private ReportDaemon daemon;
+    private String token;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        File baseDir = Files.createDirectories(tempFolder.resolve("project")).toFile();
+        ReportCommand reportCommand = new ReportCommand() {
+            @Override
+            boolean usesCodebaseGraph() {
+                return false;
+            }
+
+            @Override
+            void writeReport(CodebaseGraphDTO codebaseGraph) {
+                reportsWritten.incrementAndGet();
+            }
+        };
+        daemon = new ReportDaemon(reportCommand, baseDir, 0, tempFolder.resolve("tokens"));
+        daemon.start();
+        token = new String(Files.readAllBytes(daemon.getTokenFile()), UTF_8);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        daemon.stop();
+    }
+
+    @Test
+    void writesReportsReportsStatusAndShutsDown() throws Exception {
+        HttpResponse<String> report = send(post("/report").header(ReportDaemon.TOKEN_HEADER, token));
+        Assertions.assertEquals(200, report.statusCode());
+        Assertions.assertEquals(1, reportsWritten.get());
+
+        HttpResponse<String> status = send(request("/status").GET().header(ReportDaemon.TOKEN_HEADER, token));
+        Assertions.assertEquals(200, status.statusCode());
+        Assertions.assertEquals("No graph built yet\n", status.body());
+
+        HttpResponse<String> shutdown = send(post("/shutdown").header(ReportDaemon.TOKEN_HEADER, token));
+        Assertions.assertEquals(200, shutdown.statusCode());
+        Assertions.assertTrue(daemon.awaitShutdown(5, TimeUnit.SECONDS));
+
+        Path tokenFile = daemon.getTokenFile();
+        daemon.stop();
+        Assertions.assertFalse(Files.exists(tokenFile));
+    }
+
+    @Test
+    void refusesRequestsWithoutTheToken() throws Exception {
+        Assertions.assertEquals(401, send(post("/report")).statusCode());
+        Assertions.assertEquals(
+                401,
+                send(post("/shutdown").header(ReportDaemon.TOKEN_HEADER, "not the token"))
+                        .statusCode());
+        Assertions.assertEquals(0, reportsWritten.get());
+        Assertions.assertFalse(daemon.awaitShutdown(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void refusesRequestsFromOtherOrigins() throws Exception {
+        HttpResponse<String> report =
+                send(post("/report").header(ReportDaemon.TOKEN_HEADER, token).header("Origin", "http://example.com"));
+
+        Assertions.assertEquals(403, report.statusCode());
+        Assertions.assertEquals(0, reportsWritten.get());
+    }
+
+    @Test
+    void rebuildsAgainAfterAFailedRebuild() throws Exception {
+        CodebaseGraphDTO firstGraph = emptyGraph();
+        CodebaseGraphDTO secondGraph = emptyGraph();
+        AtomicInteger builds = new AtomicInteger();
+        List<CodebaseGraphDTO> reportedGraphs = new CopyOnWriteArrayList<>();
+        ReportCommand reportCommand = new ReportCommand() {
+            @Override
+            boolean usesCodebaseGraph() {
+                return true;
+            }
+
+            @Override
+            CodebaseGraphDTO buildCodebaseGraph() throws IOException {
+                switch (builds.incrementAndGet()) {
+                    case 1:
+                        return firstGraph;
+                    case 2:
+                        throw new IOException("half-saved file");
+                    default:
+                        return secondGraph;
+                }
+            }
+
+            @Override
+            void writeReport(CodebaseGraphDTO codebaseGraph) {
+                reportedGraphs.add(codebaseGraph);
+            }
+        };
+        Path baseDir = Files.createDirectories(tempFolder.resolve("watched"));
+        daemon.stop();
+        daemon = new ReportDaemon(reportCommand, baseDir.toFile(), 0, tempFolder.resolve("tokens"));
+        daemon.start();
+        token = new String(Files.readAllBytes(daemon.getTokenFile()), UTF_8);
+        awaitBuilds(builds, 1);
+
+        Files.write(baseDir.resolve("A.java"), "class A {".getBytes(UTF_8));
+        awaitBuilds(builds, 2);
+
+        HttpResponse<String> status = send(request("/status").GET().header(ReportDaemon.TOKEN_HEADER, token));
+        Assertions.assertTrue(status.body().contains("sources changed since"), status.body());
+
+        HttpResponse<String> report = send(post("/report").header(ReportDaemon.TOKEN_HEADER, token));
+        Assertions.assertEquals(200, report.statusCode());
+        Assertions.assertEquals(3, builds.get());
+        Assertions.assertSame(secondGraph, reportedGraphs.get(0));
+    }
+
+    private static CodebaseGraphDTO emptyGraph() {
+        return new CodebaseGraphDTO(
+                new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class),
+                new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class),
+                Map.of(),
+                Map.of(),
+                List.of(),
+                List.of());
+    }
+
+    private static void awaitBuilds(AtomicInteger builds, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (builds.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assertions.assertEquals(count, builds.get());
+        // lets the worker finish the build it was counted at
+        Thread.sleep(100);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + daemon.getPort() + path));
+    }
+
+    private HttpRequest.Builder post(String path) {
+        return request(path).POST(HttpRequest.BodyPublishers.noBody());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,89 @@
+package org.hjug.graphbuilder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import lombok.Value;
+
+/**
+ * The class references found in one source root, before references to classes outside the codebase are removed.
+ *
+ * Fragments of the modules of a multi-module build are merged into one CodebaseGraphDTO by
+ * {@link JavaGraphBuilder#mergeFragments(Map)}, so references between modules are kept.
+ * Source file paths are relative to the source root the fragment was built from.
+ */
+@Value
+public class CodebaseGraphFragment {
+
+    private static final String HEADER = "# refactorfirst graph fragment v1";
+
+    Set<String> packages;
+    Map<String, String> classToSourceFilePathMapping;
+    List<ClassReference> classReferences;
+
+    @Value
+    public static class ClassReference {
+        String from;
+        String to;
+        double weight;
+    }
+
+    /**
+     * Writes the fragment as tab separated lines: packages (P), class source paths (S) and class references (R)
+     */
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (String aPackage : new TreeSet<>(packages)) {
+                writer.write("P\t" + aPackage);
+                writer.newLine();
+            }
+            for (Map.Entry<String, String> entry : new TreeMap<>(classToSourceFilePathMapping).entrySet()) {
+                writer.write("S\t" + entry.getKey() + "\t" + entry.getValue());
+                writer.newLine();
+            }
+            for (ClassReference reference : classReferences) {
+                writer.write("R\t" + reference.getFrom() + "\t" + reference.getTo() + "\t" + reference.getWeight());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * @return the fragment written to the file, or null if the file was not written by this version
+     */
+    public static CodebaseGraphFragment read(Path file) throws IOException {
+        Set<String> packages = new HashSet<>();
+        Map<String, String> classToSourceFilePathMapping = new HashMap<>();
+        List<ClassReference> classReferences = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                return null;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                switch (fields[0]) {
+                    case "P":
+                        packages.add(fields[1]);
+                        break;
+                    case "S":
+                        classToSourceFilePathMapping.put(fields[1], fields[2]);
+                        break;
+                    case "R":
+                        classReferences.add(new ClassReference(fields[1], fields[2], Double.parseDouble(fields[3])));
+                        break;
+                    default:
+                        throw new IOException("Unexpected line in graph fragment " + file + ": " + line);
+                }
+            }
+        }
+        return new CodebaseGraphFragment(packages, classToSourceFilePathMapping, classReferences);
+    }
+}
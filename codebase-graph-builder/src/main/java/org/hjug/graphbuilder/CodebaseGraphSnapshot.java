@@ -0,0 +1,408 @@
+package org.hjug.graphbuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import org.hjug.graphbuilder.metrics.ClassMetrics;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.MethodDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyMetric;
+import org.hjug.graphbuilder.metrics.MethodMetrics;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+/**
+ * A versioned binary snapshot of a {@link CodebaseGraphDTO}, so reports can be generated again,
+ * or by other tools, without parsing the codebase.
+ *
+ * Every string is written once to a string table and referred to by its index, -1 for null.
+ * The class and package graphs are written in compressed sparse row form: the vertexes,
+ * the offset of each vertex's outgoing edges, and the target and weight of each edge.
+ * Edges are identified by their position in that order, which is how the class relationships
+ * in each package relationship are written.
+ * Disharmonies keep the metric values they were ranked by and the metrics the reports use,
+ * not the attributes and methods the metrics were computed from.
+ *
+ * Snapshots are read from a memory mapped file, so the sections are decoded straight from the page cache.
+ */
+public final class CodebaseGraphSnapshot {
+
+    private static final int MAGIC = 0x52464753; // RFGS
+    private static final int VERSION = 1;
+
+    private CodebaseGraphSnapshot() {}
+
+    public static void write(CodebaseGraphDTO codebaseGraph, Path file) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            Map<DefaultWeightedEdge, Integer> classEdgeIds =
+                    writeGraph(out, strings, codebaseGraph.getClassReferencesGraph());
+            Map<DefaultWeightedEdge, Integer> packageEdgeIds =
+                    writeGraph(out, strings, codebaseGraph.getPackageReferencesGraph());
+            writeRelationshipsInPackageRelationships(
+                    out, codebaseGraph.getClassRelationshipsInPackageRelationship(), classEdgeIds, packageEdgeIds);
+
+            Map<String, String> sourceFilePaths = codebaseGraph.getClassToSourceFilePathMapping();
+            out.writeInt(sourceFilePaths.size());
+            for (Map.Entry<String, String> entry : sourceFilePaths.entrySet()) {
+                out.writeInt(intern(strings, entry.getKey()));
+                out.writeInt(intern(strings, entry.getValue()));
+            }
+
+            out.writeInt(codebaseGraph.getClassDisharmonies().size());
+            for (ClassDisharmony disharmony : codebaseGraph.getClassDisharmonies()) {
+                writeClassDisharmony(out, strings, disharmony);
+            }
+            out.writeInt(codebaseGraph.getMethodDisharmonies().size());
+            for (MethodDisharmony disharmony : codebaseGraph.getMethodDisharmonies()) {
+                writeMethodDisharmony(out, strings, disharmony);
+            }
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        // written aside and moved into place, so a reader never maps a partly written snapshot
+        Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeStringTable(out, strings.keySet());
+            body.writeTo(out);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return the codebase graph in the snapshot, or null if the file is not a snapshot written by this version
+     */
+    public static CodebaseGraphDTO read(Path file) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.remaining() < 8 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+            return null;
+        }
+
+        String[] strings = readStringTable(in);
+        Graph<String, DefaultWeightedEdge> classGraph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        List<DefaultWeightedEdge> classEdges = readGraph(in, strings, classGraph);
+        Graph<String, DefaultWeightedEdge> packageGraph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        List<DefaultWeightedEdge> packageEdges = readGraph(in, strings, packageGraph);
+
+        Map<DefaultWeightedEdge, Set<DefaultWeightedEdge>> classRelationshipsInPackageRelationship = new HashMap<>();
+        int[] relationshipOffsets = readInts(in, packageEdges.size() + 1);
+        for (int packageEdge = 0; packageEdge < packageEdges.size(); packageEdge++) {
+            int count = relationshipOffsets[packageEdge + 1] - relationshipOffsets[packageEdge];
+            if (count > 0) {
+                Set<DefaultWeightedEdge> classRelationships = new HashSet<>();
+                for (int i = 0; i < count; i++) {
+                    classRelationships.add(classEdges.get(in.getInt()));
+                }
+                classRelationshipsInPackageRelationship.put(packageEdges.get(packageEdge), classRelationships);
+            }
+        }
+
+        int sourceFilePathCount = in.getInt();
+        Map<String, String> classToSourceFilePathMapping = new HashMap<>();
+        for (int i = 0; i < sourceFilePathCount; i++) {
+            classToSourceFilePathMapping.put(string(strings, in.getInt()), string(strings, in.getInt()));
+        }
+
+        int classDisharmonyCount = in.getInt();
+        List<ClassDisharmony> classDisharmonies = new ArrayList<>(classDisharmonyCount);
+        for (int i = 0; i < classDisharmonyCount; i++) {
+            classDisharmonies.add(readClassDisharmony(in, strings));
+        }
+        int methodDisharmonyCount = in.getInt();
+        List<MethodDisharmony> methodDisharmonies = new ArrayList<>(methodDisharmonyCount);
+        for (int i = 0; i < methodDisharmonyCount; i++) {
+            methodDisharmonies.add(readMethodDisharmony(in, strings));
+        }
+
+        return new CodebaseGraphDTO(
+                classGraph,
+                packageGraph,
+                classRelationshipsInPackageRelationship,
+                classToSourceFilePathMapping,
+                classDisharmonies,
+                methodDisharmonies);
+    }
+
+    private static void writeStringTable(DataOutputStream out, Collection<String> strings) throws IOException {
+        // offsets first, so a string can be found without decoding the ones before it
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        for (String string : strings) {
+            encoded.add(string.getBytes(StandardCharsets.UTF_8));
+        }
+        out.writeInt(encoded.size());
+        int offset = 0;
+        out.writeInt(offset);
+        for (byte[] bytes : encoded) {
+            offset += bytes.length;
+            out.writeInt(offset);
+        }
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+    }
+
+    private static String[] readStringTable(ByteBuffer in) {
+        int count = in.getInt();
+        int[] offsets = readInts(in, count + 1);
+        String[] strings = new String[count];
+        byte[] bytes = new byte[offsets[count]];
+        in.get(bytes);
+        for (int i = 0; i < count; i++) {
+            strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /**
+     * @return the ID of each edge, its position in the order the edges were written
+     */
+    private static Map<DefaultWeightedEdge, Integer> writeGraph(
+            DataOutputStream out, Map<String, Integer> strings, Graph<String, DefaultWeightedEdge> graph)
+            throws IOException {
+        Map<String, Integer> vertexIds = new HashMap<>();
+        out.writeInt(graph.vertexSet().size());
+        for (String vertex : graph.vertexSet()) {
+            vertexIds.put(vertex, vertexIds.size());
+            out.writeInt(intern(strings, vertex));
+        }
+
+        Map<DefaultWeightedEdge, Integer> edgeIds = new HashMap<>();
+        List<DefaultWeightedEdge> edges = new ArrayList<>(graph.edgeSet().size());
+        out.writeInt(0);
+        for (String vertex : graph.vertexSet()) {
+            for (DefaultWeightedEdge edge : graph.outgoingEdgesOf(vertex)) {
+                edgeIds.put(edge, edges.size());
+                edges.add(edge);
+            }
+            out.writeInt(edges.size());
+        }
+        for (DefaultWeightedEdge edge : edges) {
+            out.writeInt(vertexIds.get(graph.getEdgeTarget(edge)));
+        }
+        for (DefaultWeightedEdge edge : edges) {
+            out.writeDouble(graph.getEdgeWeight(edge));
+        }
+        return edgeIds;
+    }
+
+    /**
+     * @return the edges added to the graph, in the order they were written
+     */
+    private static List<DefaultWeightedEdge> readGraph(
+            ByteBuffer in, String[] strings, Graph<String, DefaultWeightedEdge> graph) {
+        int vertexCount = in.getInt();
+        String[] vertexes = new String[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            vertexes[i] = string(strings, in.getInt());
+            graph.addVertex(vertexes[i]);
+        }
+        int[] offsets = readInts(in, vertexCount + 1);
+        int edgeCount = offsets[vertexCount];
+        int[] targets = readInts(in, edgeCount);
+
+        List<DefaultWeightedEdge> edges = new ArrayList<>(edgeCount);
+        for (int source = 0; source < vertexCount; source++) {
+            for (int edge = offsets[source]; edge < offsets[source + 1]; edge++) {
+                DefaultWeightedEdge added = graph.addEdge(vertexes[source], vertexes[targets[edge]]);
+                graph.setEdgeWeight(added, in.getDouble());
+                edges.add(added);
+            }
+        }
+        return edges;
+    }
+
+    private static void writeRelationshipsInPackageRelationships(
+            DataOutputStream out,
+            Map<DefaultWeightedEdge, Set<DefaultWeightedEdge>> classRelationshipsInPackageRelationship,
+            Map<DefaultWeightedEdge, Integer> classEdgeIds,
+            Map<DefaultWeightedEdge, Integer> packageEdgeIds)
+            throws IOException {
+        List<int[]> classEdgesOfPackageEdge = new ArrayList<>(Collections.nCopies(packageEdgeIds.size(), new int[0]));
+        for (Map.Entry<DefaultWeightedEdge, Set<DefaultWeightedEdge>> entry :
+                classRelationshipsInPackageRelationship.entrySet()) {
+            Integer packageEdge = packageEdgeIds.get(entry.getKey());
+            if (packageEdge != null) {
+                classEdgesOfPackageEdge.set(
+                        packageEdge,
+                        entry.getValue().stream()
+                                .map(classEdgeIds::get)
+                                .filter(Objects::nonNull)
+                                .mapToInt(Integer::intValue)
+                                .toArray());
+            }
+        }
+
+        int offset = 0;
+        out.writeInt(offset);
+        for (int[] classEdges : classEdgesOfPackageEdge) {
+            offset += classEdges.length;
+            out.writeInt(offset);
+        }
+        for (int[] classEdges : classEdgesOfPackageEdge) {
+            for (int classEdge : classEdges) {
+                out.writeInt(classEdge);
+            }
+        }
+    }
+
+    private static void writeClassDisharmony(
+            DataOutputStream out, Map<String, Integer> strings, ClassDisharmony disharmony) throws IOException {
+        out.writeInt(intern(strings, disharmony.getClassName()));
+        out.writeInt(intern(strings, disharmony.getDisharmonyType()));
+        out.writeInt(intern(strings, disharmony.getDescription()));
+        out.writeInt(intern(strings, disharmony.getDuplicationPartners()));
+
+        ClassMetrics metrics = disharmony.getMetrics();
+        out.writeBoolean(metrics != null);
+        if (metrics != null) {
+            out.writeInt(intern(strings, metrics.getFullyQualifiedName()));
+            out.writeInt(intern(strings, metrics.getSourceFilePath()));
+            out.writeInt(intern(strings, metrics.getClassName()));
+            out.writeInt(intern(strings, metrics.getPackageName()));
+            out.writeInt(intern(strings, metrics.getParentClass()));
+            out.writeInt(metrics.getLinesOfCode());
+            out.writeInt(metrics.getNumberOfAttributes());
+            out.writeInt(metrics.getNumberOfPublicAttributes());
+            out.writeInt(metrics.getAccessToForeignData());
+            out.writeDouble(metrics.getTightClassCohesion());
+            out.writeInt(metrics.getNumberOfProtectedMembers());
+        }
+
+        writeMetricValues(out, strings, disharmony.getMetricValues());
+    }
+
+    private static ClassDisharmony readClassDisharmony(ByteBuffer in, String[] strings) {
+        String className = string(strings, in.getInt());
+        String disharmonyType = string(strings, in.getInt());
+        String description = string(strings, in.getInt());
+        String duplicationPartners = string(strings, in.getInt());
+
+        ClassMetrics metrics = null;
+        if (in.get() != 0) {
+            metrics = new ClassMetrics(string(strings, in.getInt()));
+            metrics.setSourceFilePath(string(strings, in.getInt()));
+            metrics.setClassName(string(strings, in.getInt()));
+            metrics.setPackageName(string(strings, in.getInt()));
+            metrics.setParentClass(string(strings, in.getInt()));
+            metrics.setLinesOfCode(in.getInt());
+            metrics.setNumberOfAttributes(in.getInt());
+            metrics.setNumberOfPublicAttributes(in.getInt());
+            metrics.setAccessToForeignData(in.getInt());
+            metrics.setTightClassCohesion(in.getDouble());
+            metrics.setNumberOfProtectedMembers(in.getInt());
+        }
+
+        ClassDisharmony disharmony =
+                new ClassDisharmony(className, disharmonyType, description, metrics, readMetricValues(in, strings));
+        disharmony.setDuplicationPartners(duplicationPartners);
+        return disharmony;
+    }
+
+    private static void writeMethodDisharmony(
+            DataOutputStream out, Map<String, Integer> strings, MethodDisharmony disharmony) throws IOException {
+        out.writeInt(intern(strings, disharmony.getClassName()));
+        out.writeInt(intern(strings, disharmony.getMethodSignature()));
+        out.writeInt(intern(strings, disharmony.getDisharmonyType()));
+        out.writeInt(intern(strings, disharmony.getDescription()));
+
+        MethodMetrics metrics = disharmony.getMetrics();
+        out.writeBoolean(metrics != null);
+        if (metrics != null) {
+            out.writeInt(intern(strings, metrics.getMethodName()));
+            out.writeInt(intern(strings, metrics.getSignature()));
+            out.writeInt(metrics.getLinesOfCode());
+            out.writeInt(metrics.getCyclomaticComplexity());
+            out.writeInt(metrics.getMaxNestingDepth());
+            out.writeInt(metrics.getNumberOfParameters());
+            out.writeInt(metrics.getChangingMethodCount());
+            out.writeInt(metrics.getChangingClassCount());
+            out.writeBoolean(metrics.isAccessor());
+            out.writeBoolean(metrics.isConstructor());
+        }
+
+        writeMetricValues(out, strings, disharmony.getMetricValues());
+    }
+
+    private static MethodDisharmony readMethodDisharmony(ByteBuffer in, String[] strings) {
+        String className = string(strings, in.getInt());
+        String methodSignature = string(strings, in.getInt());
+        String disharmonyType = string(strings, in.getInt());
+        String description = string(strings, in.getInt());
+
+        MethodMetrics metrics = null;
+        if (in.get() != 0) {
+            metrics = new MethodMetrics(string(strings, in.getInt()), string(strings, in.getInt()));
+            metrics.setLinesOfCode(in.getInt());
+            metrics.setCyclomaticComplexity(in.getInt());
+            metrics.setMaxNestingDepth(in.getInt());
+            metrics.setNumberOfParameters(in.getInt());
+            metrics.setChangingMethodCount(in.getInt());
+            metrics.setChangingClassCount(in.getInt());
+            metrics.setAccessor(in.get() != 0);
+            metrics.setConstructor(in.get() != 0);
+        }
+
+        return new MethodDisharmony(
+                className, methodSignature, disharmonyType, description, metrics, readMetricValues(in, strings));
+    }
+
+    private static void writeMetricValues(
+            DataOutputStream out, Map<String, Integer> strings, List<DisharmonyMetric> metricValues)
+            throws IOException {
+        out.writeInt(metricValues.size());
+        for (DisharmonyMetric metric : metricValues) {
+            out.writeInt(intern(strings, metric.getName()));
+            out.writeDouble(metric.getValue());
+            out.writeByte(metric.getDirection().ordinal());
+            out.writeInt(metric.getRank() != null ? metric.getRank() : -1);
+        }
+    }
+
+    private static List<DisharmonyMetric> readMetricValues(ByteBuffer in, String[] strings) {
+        int count = in.getInt();
+        List<DisharmonyMetric> metricValues = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DisharmonyMetric metric = new DisharmonyMetric(
+                    string(strings, in.getInt()), in.getDouble(), DisharmonyMetric.Direction.values()[in.get()]);
+            int rank = in.getInt();
+            if (rank >= 0) {
+                metric.setRank(rank);
+            }
+            metricValues.add(metric);
+        }
+        return metricValues;
+    }
+
+    private static int[] readInts(ByteBuffer in, int count) {
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static int intern(Map<String, Integer> strings, String string) {
+        return string == null ? -1 : strings.computeIfAbsent(string, key -> strings.size());
+    }
+
+    private static String string(String[] strings, int id) {
+        return id < 0 ? null : strings[id];
+    }
+}
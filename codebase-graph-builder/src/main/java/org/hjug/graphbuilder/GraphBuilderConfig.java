@@ -1,5 +1,7 @@
 package org.hjug.graphbuilder;
 
+import java.nio.file.Path;
+import java.util.List;
 import lombok.Builder;
 import lombok.Value;
 
@@ -13,6 +15,61 @@ public class GraphBuilderConfig {
     @Builder.Default
     String testSourceDirectory = "src/test";
 
+    /**
+     * Spread Significant Duplication detection across the common ForkJoin pool
+     */
+    @Builder.Default
+    boolean parallelDuplicationDetection = true;
+
+    /**
+     * Run the disharmony detectors concurrently across the common ForkJoin pool
+     */
+    @Builder.Default
+    boolean parallelDisharmonyDetection = true;
+
+    /**
+     * Keep the text of normalized method body lines after they are interned.
+     * Duplication detection only needs the line IDs.
+     */
+    @Builder.Default
+    boolean retainNormalizedBodyLines = false;
+
+    /**
+     * Parse this many Java files at a time, each chunk with its own parser, so syntax trees and type caches
+     * are released once their dependencies and metrics have been collected. 0 parses all files together.
+     * Types declared in another chunk are resolved from {@link #classesDirectory}, so files are only parsed
+     * in chunks when it is set.
+     */
+    @Builder.Default
+    int parseChunkSize = 0;
+
+    /**
+     * Heap in use, in megabytes, above which the parse chunk size is halved. 0 keeps the chunk size fixed.
+     */
+    @Builder.Default
+    long heapBudgetMegabytes = 0;
+
+    /**
+     * Compiled classes of the sources being parsed, e.g. target/classes.
+     * Each parse chunk resolves the types declared in the other chunks from it.
+     */
+    @Builder.Default
+    Path classesDirectory = null;
+
+    /**
+     * Dependency jars and class directories used to attribute types declared outside the codebase.
+     * Without them, library types are unknown to the parser.
+     */
+    @Builder.Default
+    List<Path> classpath = List.of();
+
+    /**
+     * Directory holding the type table of each classpath jar, keyed by the jar's checksum.
+     * Null uses .refactorfirst/type-tables in the user's home directory.
+     */
+    @Builder.Default
+    Path typeTableCacheDirectory = null;
+
     public static GraphBuilderConfig defaultConfig() {
         return GraphBuilderConfig.builder().build();
     }
@@ -0,0 +1,104 @@
+package org.hjug.graphbuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * On-disk cache of graph fragments keyed by a hash of the sources they were built from,
+ * so unchanged modules of a multi-module build are not parsed again.
+ */
+@Slf4j
+public class GraphFragmentCache {
+
+    public static final Path DEFAULT_DIRECTORY =
+            Paths.get(System.getProperty("user.home"), ".refactorfirst", "graph-fragments");
+
+    private final Path directory;
+
+    /**
+     * @param directory the cache directory, or null for .refactorfirst/graph-fragments in the user's home directory
+     */
+    public GraphFragmentCache(Path directory) {
+        this.directory = directory != null ? directory : DEFAULT_DIRECTORY;
+    }
+
+    /**
+     * @return a hash of the path and content of each Java file the graph builder would parse in the source root
+     */
+    public static String sourceHash(Path sourceRoot, GraphBuilderConfig config) throws IOException {
+        MessageDigest digest = Digests.sha256();
+        digest.update(("excludeTests=" + config.isExcludeTests() + "\ntestSourceDirectory="
+                        + config.getTestSourceDirectory() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        File srcDirectory = sourceRoot.toFile();
+        Path root = Paths.get(srcDirectory.getAbsolutePath());
+        List<Path> javaFiles = JavaGraphBuilder.listSourcePaths(srcDirectory, config).stream()
+                .filter(path -> path.toString().endsWith(".java") && Files.isRegularFile(path))
+                .sorted()
+                .collect(Collectors.toList());
+        for (Path javaFile : javaFiles) {
+            digest.update(root.relativize(javaFile)
+                    .toString()
+                    .replace(File.separatorChar, '/')
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(javaFile));
+            digest.update((byte) 0);
+        }
+        return Digests.hex(digest.digest());
+    }
+
+    /**
+     * @param typeTableCacheDirectory where jar checksums are remembered, or null for the default directory
+     * @return a hash of the content of the classpath, which changes when a jar or class directory on it is rebuilt
+     */
+    public static String classpathHash(Collection<Path> classpath, Path typeTableCacheDirectory) throws IOException {
+        return combine(new TypeTableCache(typeTableCacheDirectory).checksums(classpath));
+    }
+
+    /**
+     * @return a hash of the parts, in order, for fragments that depend on more than their own sources
+     */
+    public static String combine(Collection<String> parts) {
+        MessageDigest digest = Digests.sha256();
+        for (String part : parts) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return Digests.hex(digest.digest());
+    }
+
+    /**
+     * @return the cached fragment, or null if none was stored with the key
+     */
+    public CodebaseGraphFragment get(String key) {
+        Path file = directory.resolve(key + ".graph");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return CodebaseGraphFragment.read(file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable graph fragment {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(String key, CodebaseGraphFragment fragment) throws IOException {
+        Files.createDirectories(directory);
+        // fragments of several modules are written concurrently, so each is written aside and moved into place
+        Path tempFile = Files.createTempFile(directory, key, ".tmp");
+        fragment.write(tempFile);
+        Files.move(tempFile, directory.resolve(key + ".graph"), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
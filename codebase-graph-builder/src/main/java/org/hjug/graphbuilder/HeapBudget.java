@@ -0,0 +1,84 @@
+package org.hjug.graphbuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Adapts the number of source files parsed at a time to a heap budget, and tracks the peak heap use of a run.
+ *
+ * After each chunk, the heap still in use after the last garbage collection is compared with the budget:
+ * the chunk size is halved while it is over the budget, and grown back towards the configured size
+ * while it is under half of it.
+ */
+class HeapBudget {
+
+    private final long budgetBytes;
+    private final int maxChunkSize;
+    private final LongSupplier heapInUse;
+    private final List<MemoryPoolMXBean> heapPools;
+
+    /**
+     * @param budgetBytes heap in use above which chunks shrink, or 0 to keep the chunk size fixed
+     * @param maxChunkSize the configured chunk size, which chunks never grow beyond
+     */
+    HeapBudget(long budgetBytes, int maxChunkSize) {
+        this(budgetBytes, maxChunkSize, null);
+    }
+
+    HeapBudget(long budgetBytes, int maxChunkSize, LongSupplier heapInUse) {
+        this.budgetBytes = budgetBytes;
+        this.maxChunkSize = maxChunkSize;
+        this.heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+        this.heapInUse = heapInUse != null ? heapInUse : this::liveHeapEstimate;
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    int nextChunkSize(int chunkSize) {
+        if (budgetBytes <= 0) {
+            return chunkSize;
+        }
+        long inUse = heapInUse.getAsLong();
+        if (inUse > budgetBytes) {
+            return Math.max(1, chunkSize / 2);
+        }
+        if (inUse < budgetBytes / 2) {
+            return Math.min(maxChunkSize, chunkSize + Math.max(1, chunkSize / 2));
+        }
+        return chunkSize;
+    }
+
+    /**
+     * @return the sum of the peak usage of each heap pool since this budget was created
+     */
+    long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    private long liveHeapEstimate() {
+        long inUse = 0;
+        boolean collected = false;
+        for (MemoryPoolMXBean pool : heapPools) {
+            // null for pools that do not report their usage after a collection
+            MemoryUsage afterCollection = pool.getCollectionUsage();
+            if (afterCollection != null) {
+                inUse += afterCollection.getUsed();
+                collected = true;
+            }
+        }
+        if (!collected) {
+            inUse = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+        return inUse;
+    }
+}
@@ -2,26 +2,34 @@ package org.hjug.graphbuilder;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
-import org.hjug.graphbuilder.metrics.ClassMetrics;
+import org.hjug.graphbuilder.metrics.DisharmonyDetectionEngine;
 import org.hjug.graphbuilder.metrics.DisharmonyDetector;
 import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
 import org.hjug.graphbuilder.metrics.DisharmonyDetector.MethodDisharmony;
 import org.hjug.graphbuilder.metrics.GraphMetricsCollector;
-import org.hjug.graphbuilder.metrics.MetricsCollectingVisitor;
+import org.hjug.graphbuilder.visitor.FusedJavaVisitor;
 import org.hjug.graphbuilder.visitor.JavaVisitor;
+import org.hjug.instrumentation.PhaseTimer;
+import org.hjug.instrumentation.events.ParseSourceFileEvent;
+import org.hjug.instrumentation.events.VisitSourceFileEvent;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultDirectedWeightedGraph;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.openrewrite.ExecutionContext;
 import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Parser;
+import org.openrewrite.SourceFile;
 import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.tree.J;
 
 @Slf4j
 public class JavaGraphBuilder {
@@ -52,7 +60,7 @@ public class JavaGraphBuilder {
      * @return CodebaseGraphDTO
      * @throws IOException
      */
-    private CodebaseGraphDTO getCodebaseGraphDTO(String repositoryPath, GraphBuilderConfig config) throws IOException {
+    public CodebaseGraphDTO getCodebaseGraphDTO(String repositoryPath, GraphBuilderConfig config) throws IOException {
         if (repositoryPath == null || repositoryPath.isEmpty()) {
             throw new IllegalArgumentException("Source directory cannot be null or empty");
         }
@@ -63,9 +71,6 @@ public class JavaGraphBuilder {
             throws IOException {
         File srcDirectory = new File(repositoryPath);
 
-        JavaParser javaParser = JavaParser.fromJavaVersion().build();
-        ExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
-
         final Graph<String, DefaultWeightedEdge> classReferencesGraph =
                 new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
         final Graph<String, DefaultWeightedEdge> packageReferencesGraph =
@@ -74,29 +79,13 @@ public class JavaGraphBuilder {
         final GraphDependencyCollector dependencyCollector =
                 new GraphDependencyCollector(classReferencesGraph, packageReferencesGraph);
 
-        final JavaVisitor<ExecutionContext> javaVisitor = new JavaVisitor<>(repositoryPath, dependencyCollector);
-
         GraphMetricsCollector metricsCollector =
                 new GraphMetricsCollector(classReferencesGraph, packageReferencesGraph);
-        MetricsCollectingVisitor metricsVisitor = new MetricsCollectingVisitor(metricsCollector);
+        // dependencies and metrics are collected in one traversal of each compilation unit
+        final JavaVisitor<ExecutionContext> javaVisitor = new FusedJavaVisitor(
+                repositoryPath, dependencyCollector, metricsCollector, config.isRetainNormalizedBodyLines());
 
-        try (Stream<Path> pathStream = Files.walk(Paths.get(srcDirectory.getAbsolutePath()))) {
-            List<Path> list;
-            if (config.isExcludeTests()) {
-                list = pathStream
-                        .filter(file -> !file.toString().contains(config.getTestSourceDirectory()))
-                        .collect(Collectors.toList());
-            } else {
-                list = pathStream.collect(Collectors.toList());
-            }
-
-            javaParser
-                    .parse(list, Paths.get(srcDirectory.getAbsolutePath()), ctx)
-                    .forEach(cu -> {
-                        javaVisitor.visit(cu, ctx);
-                        metricsVisitor.visit(cu, ctx);
-                    });
-        }
+        parseSources(srcDirectory, config, javaVisitor);
 
         removeClassesNotInCodebase(dependencyCollector.getPackagesInCodebase(), classReferencesGraph);
         removePackagesNotInCodebase(dependencyCollector.getPackagesInCodebase(), packageReferencesGraph);
@@ -106,9 +95,28 @@ public class JavaGraphBuilder {
                 .keySet()
                 .retainAll(packageReferencesGraph.edgeSet());
 
-        metricsCollector.finalizeMetrics();
-        DisharmonyDetector detector = new DisharmonyDetector();
-        Collection<ClassMetrics> metrics = metricsCollector.getAllClassMetrics().values();
+        try (PhaseTimer.Phase phase = PhaseTimer.start("graph.finalizeMetrics")) {
+            metricsCollector.finalizeMetrics();
+            phase.count("classes", metricsCollector.getAllClassMetrics().size());
+        }
+        DisharmonyDetectionEngine.Result disharmonies;
+        try (PhaseTimer.Phase phase = PhaseTimer.start("graph.detectDisharmonies")) {
+            DisharmonyDetector detector = config.isParallelDuplicationDetection()
+                    ? new DisharmonyDetector(ForkJoinPool.commonPool())
+                    : new DisharmonyDetector();
+            disharmonies = new DisharmonyDetectionEngine(
+                            detector, config.isParallelDisharmonyDetection() ? ForkJoinPool.commonPool() : null)
+                    .detect(metricsCollector.getAllClassMetrics().values());
+            phase.count("classDisharmonies", disharmonies.getClassDisharmonies().size())
+                    .count(
+                            "methodDisharmonies",
+                            disharmonies.getMethodDisharmonies().size());
+        }
+        PhaseTimer.count("classes", classReferencesGraph.vertexSet().size());
+        PhaseTimer.count("classRelationships", classReferencesGraph.edgeSet().size());
+        PhaseTimer.count("packages", packageReferencesGraph.vertexSet().size());
+        PhaseTimer.count(
+                "packageRelationships", packageReferencesGraph.edgeSet().size());
 
         return new CodebaseGraphDTO(
                 classReferencesGraph,
@@ -116,31 +124,446 @@ public class JavaGraphBuilder {
                 dependencyCollector.getClassRelationshipsInPackageRelationship(),
                 javaVisitor.getClassToSourceFilePathMapping(), // hudson.model.FilePath ->
                 // file:///C:/Code/RefactorFirst/cost-benefit-calculator/hudson/model/FilePath.java
-                getClassDisharmonies(detector, metrics),
-                getMethodDisharmonies(detector, metrics));
+                disharmonies.getClassDisharmonies(),
+                disharmonies.getMethodDisharmonies());
     }
 
-    private static List<MethodDisharmony> getMethodDisharmonies(
-            DisharmonyDetector detector, Collection<ClassMetrics> metrics) {
-        List<MethodDisharmony> methodDisharmonies = new ArrayList<>();
-        methodDisharmonies.addAll(detector.detectBrainMethods(List.copyOf(metrics)));
-        methodDisharmonies.addAll(detector.detectFeatureEnvy(List.copyOf(metrics)));
-        methodDisharmonies.addAll(detector.detectIntensiveCoupling(List.copyOf(metrics)));
-        methodDisharmonies.addAll(detector.detectDispersedCoupling(List.copyOf(metrics)));
-        methodDisharmonies.addAll(detector.detectShotgunSurgery(List.copyOf(metrics)));
-        return methodDisharmonies;
+    /**
+     * Given a source root, return the class references found in it without removing references to classes
+     * outside of it, so that fragments of several source roots can be merged with {@link #mergeFragments(Map)}.
+     * Disharmonies are not detected for fragments.
+     *
+     * @param repositoryPath The source root to analyze
+     * @param config The configuration for the graph builder
+     * @return CodebaseGraphFragment with source file paths relative to the source root
+     * @throws IOException
+     */
+    public CodebaseGraphFragment getCodebaseGraphFragment(String repositoryPath, GraphBuilderConfig config)
+            throws IOException {
+        if (repositoryPath == null || repositoryPath.isEmpty()) {
+            throw new IllegalArgumentException("Source directory cannot be null or empty");
+        }
+        File srcDirectory = new File(repositoryPath);
+
+        final Graph<String, DefaultWeightedEdge> classReferencesGraph =
+                new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        final GraphDependencyCollector dependencyCollector = new GraphDependencyCollector(
+                classReferencesGraph, new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class));
+        final JavaVisitor<ExecutionContext> javaVisitor = new JavaVisitor<>(repositoryPath, dependencyCollector);
+
+        parseSources(srcDirectory, config, javaVisitor);
+
+        return toFragment(dependencyCollector, javaVisitor);
     }
 
-    private static List<ClassDisharmony> getClassDisharmonies(
-            DisharmonyDetector detector, Collection<ClassMetrics> metrics) {
+    /**
+     * Analyzes some of the Java files of a source root, each on its own, so the analysis of a file can be reused
+     * for as long as the file is unchanged, e.g. while replaying the history of a repository.
+     * The Java files of the source root that the files reach through their packages and imports are given to
+     * the parser only to resolve the types the files refer to.
+     * Types referred to only by their fully qualified names are resolved only if they are declared in one of those.
+     *
+     * @param repositoryPath The source root the files are in
+     * @param sourceFiles The paths of the files to analyze, relative to the source root
+     * @param config The configuration for the graph builder
+     * @return the analysis of each file, keyed by the path it was given with
+     * @throws IOException
+     */
+    public Map<String, SourceFileAnalysis> analyzeSourceFiles(
+            String repositoryPath, Collection<String> sourceFiles, GraphBuilderConfig config) throws IOException {
+        if (repositoryPath == null || repositoryPath.isEmpty()) {
+            throw new IllegalArgumentException("Source directory cannot be null or empty");
+        }
+        File srcDirectory = new File(repositoryPath);
+        Path relativeTo = Paths.get(srcDirectory.getAbsolutePath());
+        Map<Path, String> pathsToAnalyze = new LinkedHashMap<>();
+        for (String sourceFile : sourceFiles) {
+            pathsToAnalyze.put(relativeTo.resolve(sourceFile).normalize(), sourceFile);
+        }
+
+        // only the files the analyzed files can reach through their packages and imports are attributed,
+        // rather than every file of the source root
+        Map<Path, SourceFileHeader> headers = new HashMap<>();
+        SourceFileHeader.readAll(listSourcePaths(srcDirectory, config))
+                .forEach((path, header) -> headers.put(path.normalize(), header));
+        List<Parser.Input> typeSources = SourceFileHeader.reachableFrom(headers, pathsToAnalyze.keySet()).stream()
+                .filter(path -> !pathsToAnalyze.containsKey(path))
+                .map(path -> new Parser.Input(path, () -> {
+                    try {
+                        return Files.newInputStream(path);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }))
+                .collect(Collectors.toList());
+
+        List<Path> classpath = config.getClasspath().isEmpty()
+                ? List.of()
+                : new TypeTableCache(config.getTypeTableCacheDirectory()).resolve(config.getClasspath());
+        JavaParser.Builder<?, ?> builder = JavaParser.fromJavaVersion().dependsOn(typeSources);
+        if (!classpath.isEmpty()) {
+            builder.classpath(classpath);
+        }
+        JavaParser javaParser = builder.build();
+        ExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+        DisharmonyDetectionEngine detectionEngine = new DisharmonyDetectionEngine(new DisharmonyDetector());
+
+        Map<String, SourceFileAnalysis> analyses = new HashMap<>();
+        javaParser.parse(pathsToAnalyze.keySet(), relativeTo, ctx).forEach(sourceFile -> {
+            final GraphDependencyCollector dependencyCollector = new GraphDependencyCollector(
+                    new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class),
+                    new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class));
+            GraphMetricsCollector metricsCollector = new GraphMetricsCollector(
+                    new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class),
+                    new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class));
+            final JavaVisitor<ExecutionContext> javaVisitor =
+                    new FusedJavaVisitor(repositoryPath, dependencyCollector, metricsCollector, false);
+            javaVisitor.visit(sourceFile, ctx);
+
+            // local disharmonies only depend on the class itself, so they can be found a file at a time
+            metricsCollector.finalizeMetrics();
+            DisharmonyDetectionEngine.Result disharmonies = detectionEngine.detectLocal(
+                    metricsCollector.getAllClassMetrics().values());
+
+            analyses.put(
+                    pathsToAnalyze.get(
+                            relativeTo.resolve(sourceFile.getSourcePath()).normalize()),
+                    new SourceFileAnalysis(
+                            toFragment(dependencyCollector, javaVisitor),
+                            disharmonies.getClassDisharmonies(),
+                            disharmonies.getMethodDisharmonies()));
+        });
+        javaParser.reset();
+        return analyses;
+    }
+
+    private static CodebaseGraphFragment toFragment(
+            GraphDependencyCollector dependencyCollector, JavaVisitor<ExecutionContext> javaVisitor) {
+        Graph<String, DefaultWeightedEdge> classReferencesGraph = dependencyCollector.getClassReferencesGraph();
+        List<CodebaseGraphFragment.ClassReference> classReferences = new ArrayList<>();
+        for (DefaultWeightedEdge edge : classReferencesGraph.edgeSet()) {
+            classReferences.add(new CodebaseGraphFragment.ClassReference(
+                    classReferencesGraph.getEdgeSource(edge),
+                    classReferencesGraph.getEdgeTarget(edge),
+                    classReferencesGraph.getEdgeWeight(edge)));
+        }
+        return new CodebaseGraphFragment(
+                new HashSet<>(dependencyCollector.getPackagesInCodebase()),
+                new HashMap<>(javaVisitor.getClassToSourceFilePathMapping()),
+                classReferences);
+    }
+
+    /**
+     * Merges the fragments of several source roots into one graph, keeping the references between source roots
+     * and removing references to classes outside all of them.
+     *
+     * @param fragmentsBySourceRoot fragments keyed by the path of their source root relative to the project,
+     *                              ending with a separator, which is prefixed to their source file paths
+     * @return CodebaseGraphDTO without disharmonies
+     */
+    public CodebaseGraphDTO mergeFragments(Map<String, CodebaseGraphFragment> fragmentsBySourceRoot) {
+        return merge(fragmentsBySourceRoot.entrySet());
+    }
+
+    /**
+     * Merges fragments whose source file paths are already relative to the project, such as those of
+     * {@link #analyzeSourceFiles(String, Collection, GraphBuilderConfig)}.
+     *
+     * @return CodebaseGraphDTO without disharmonies
+     */
+    public CodebaseGraphDTO mergeFragments(Collection<CodebaseGraphFragment> fragments) {
+        return merge(fragments.stream().map(fragment -> Map.entry("", fragment)).collect(Collectors.toList()));
+    }
+
+    /**
+     * Updates a codebase graph for changed files without parsing the files that did not change.
+     * The references from the classes declared in the changed files are replaced by those in the analyses of the files,
+     * and the graph is merged again as from fragments.
+     * Local disharmonies of the classes declared in the changed files are replaced too.
+     * Other disharmonies depend on the whole codebase and cannot be found from the changed files alone,
+     * so the patched graph has none of them rather than outdated ones.
+     *
+     * @see DisharmonyDetectionEngine#NON_LOCAL_TYPES
+     *
+     * @param codebaseGraph the graph before the files changed
+     * @param changedSourceFiles paths of the changed and deleted files, relative to the source root of the graph
+     * @param analyses analyses of the changed files that were not deleted,
+     *                 from {@link #analyzeSourceFiles(String, Collection, GraphBuilderConfig)}
+     * @return CodebaseGraphDTO of the codebase after the files changed
+     */
+    public CodebaseGraphDTO patchCodebaseGraph(
+            CodebaseGraphDTO codebaseGraph,
+            Collection<String> changedSourceFiles,
+            Collection<SourceFileAnalysis> analyses) {
+        Set<String> changedFiles = new HashSet<>(changedSourceFiles);
+        Set<String> replacedClasses = new HashSet<>();
+        codebaseGraph.getClassToSourceFilePathMapping().forEach((classFqn, path) -> {
+            if (isOneOf(path, changedFiles)) {
+                replacedClasses.add(classFqn);
+            }
+        });
+
+        Graph<String, DefaultWeightedEdge> classReferencesGraph = codebaseGraph.getClassReferencesGraph();
+        List<CodebaseGraphFragment.ClassReference> unchangedReferences = new ArrayList<>();
+        for (DefaultWeightedEdge edge : classReferencesGraph.edgeSet()) {
+            String from = classReferencesGraph.getEdgeSource(edge);
+            if (!replacedClasses.contains(from)) {
+                unchangedReferences.add(new CodebaseGraphFragment.ClassReference(
+                        from, classReferencesGraph.getEdgeTarget(edge), classReferencesGraph.getEdgeWeight(edge)));
+            }
+        }
+        Map<String, String> unchangedSourceFiles = new HashMap<>(codebaseGraph.getClassToSourceFilePathMapping());
+        unchangedSourceFiles.keySet().removeAll(replacedClasses);
+
+        List<CodebaseGraphFragment> fragments = new ArrayList<>();
+        fragments.add(new CodebaseGraphFragment(
+                new HashSet<>(codebaseGraph.getPackageReferencesGraph().vertexSet()),
+                unchangedSourceFiles,
+                unchangedReferences));
         List<ClassDisharmony> classDisharmonies = new ArrayList<>();
-        classDisharmonies.addAll(detector.detectGodClasses(List.copyOf(metrics)));
-        classDisharmonies.addAll(detector.detectDataClasses(List.copyOf(metrics)));
-        classDisharmonies.addAll(detector.detectBrainClasses(List.copyOf(metrics)));
-        classDisharmonies.addAll(detector.detectRefusedParentBequest(List.copyOf(metrics)));
-        classDisharmonies.addAll(detector.detectTraditionBreaker(List.copyOf(metrics)));
-        classDisharmonies.addAll(detector.detectSignificantDuplication(List.copyOf(metrics)));
-        return classDisharmonies;
+        for (ClassDisharmony disharmony : codebaseGraph.getClassDisharmonies()) {
+            if (!replacedClasses.contains(disharmony.getClassName())
+                    && DisharmonyDetectionEngine.isLocal(disharmony.getDisharmonyType())) {
+                classDisharmonies.add(disharmony);
+            }
+        }
+        List<MethodDisharmony> methodDisharmonies = new ArrayList<>();
+        for (MethodDisharmony disharmony : codebaseGraph.getMethodDisharmonies()) {
+            if (!replacedClasses.contains(disharmony.getClassName())
+                    && DisharmonyDetectionEngine.isLocal(disharmony.getDisharmonyType())) {
+                methodDisharmonies.add(disharmony);
+            }
+        }
+        for (SourceFileAnalysis analysis : analyses) {
+            fragments.add(analysis.getFragment());
+            classDisharmonies.addAll(analysis.getClassDisharmonies());
+            methodDisharmonies.addAll(analysis.getMethodDisharmonies());
+        }
+
+        CodebaseGraphDTO patched = mergeFragments(fragments);
+        return new CodebaseGraphDTO(
+                patched.getClassReferencesGraph(),
+                patched.getPackageReferencesGraph(),
+                patched.getClassRelationshipsInPackageRelationship(),
+                patched.getClassToSourceFilePathMapping(),
+                classDisharmonies,
+                methodDisharmonies);
+    }
+
+    /**
+     * @return true if the path is one of the paths, or ends with one of them, as paths outside the source root
+     * are left as URIs in the class to source file path mapping
+     */
+    private static boolean isOneOf(String path, Set<String> paths) {
+        if (paths.contains(path)) {
+            return true;
+        }
+        for (int slash = path.indexOf('/'); slash >= 0; slash = path.indexOf('/', slash + 1)) {
+            if (paths.contains(path.substring(slash + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CodebaseGraphDTO merge(Collection<Map.Entry<String, CodebaseGraphFragment>> fragmentsBySourceRoot) {
+        final Graph<String, DefaultWeightedEdge> classReferencesGraph =
+                new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        final Graph<String, DefaultWeightedEdge> packageReferencesGraph =
+                new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        final Map<DefaultWeightedEdge, Set<DefaultWeightedEdge>> classRelationshipsInPackageRelationship =
+                new HashMap<>();
+        final Map<String, String> classToSourceFilePathMapping = new HashMap<>();
+        final Set<String> packagesInCodebase = new HashSet<>();
+
+        for (Map.Entry<String, CodebaseGraphFragment> entry : fragmentsBySourceRoot) {
+            String sourceRoot = entry.getKey();
+            CodebaseGraphFragment fragment = entry.getValue();
+            packagesInCodebase.addAll(fragment.getPackages());
+            fragment.getClassToSourceFilePathMapping()
+                    .forEach((classFqn, path) -> classToSourceFilePathMapping.putIfAbsent(classFqn, sourceRoot + path));
+            for (CodebaseGraphFragment.ClassReference reference : fragment.getClassReferences()) {
+                DefaultWeightedEdge classEdge =
+                        addWeight(classReferencesGraph, reference.getFrom(), reference.getTo(), reference.getWeight());
+                String fromPackage = getPackage(reference.getFrom());
+                String toPackage = getPackage(reference.getTo());
+                if (!fromPackage.equals(toPackage)) {
+                    // each reference between classes also counts once towards their packages
+                    DefaultWeightedEdge packageEdge =
+                            addWeight(packageReferencesGraph, fromPackage, toPackage, reference.getWeight());
+                    classRelationshipsInPackageRelationship
+                            .computeIfAbsent(packageEdge, edge -> new HashSet<>())
+                            .add(classEdge);
+                }
+            }
+        }
+        packagesInCodebase.forEach(packageReferencesGraph::addVertex);
+
+        removeClassesNotInCodebase(packagesInCodebase, classReferencesGraph);
+        removePackagesNotInCodebase(packagesInCodebase, packageReferencesGraph);
+        classRelationshipsInPackageRelationship.keySet().retainAll(packageReferencesGraph.edgeSet());
+
+        return new CodebaseGraphDTO(
+                classReferencesGraph,
+                packageReferencesGraph,
+                classRelationshipsInPackageRelationship,
+                classToSourceFilePathMapping,
+                new ArrayList<>(),
+                new ArrayList<>());
+    }
+
+    private static DefaultWeightedEdge addWeight(
+            Graph<String, DefaultWeightedEdge> graph, String from, String to, double weight) {
+        graph.addVertex(from);
+        graph.addVertex(to);
+        DefaultWeightedEdge edge = graph.getEdge(from, to);
+        if (edge == null) {
+            edge = graph.addEdge(from, to);
+            graph.setEdgeWeight(edge, weight);
+        } else {
+            graph.setEdgeWeight(edge, graph.getEdgeWeight(edge) + weight);
+        }
+        return edge;
+    }
+
+    /**
+     * @return the files under the source directory, without those in the test source directory if tests are excluded
+     */
+    static List<Path> listSourcePaths(File srcDirectory, GraphBuilderConfig config) throws IOException {
+        try (Stream<Path> pathStream = Files.walk(Paths.get(srcDirectory.getAbsolutePath()))) {
+            if (config.isExcludeTests()) {
+                return pathStream
+                        .filter(file -> !file.toString().contains(config.getTestSourceDirectory()))
+                        .collect(Collectors.toList());
+            }
+            return pathStream.collect(Collectors.toList());
+        }
+    }
+
+    private void parseSources(File srcDirectory, GraphBuilderConfig config, JavaVisitor<ExecutionContext> javaVisitor)
+            throws IOException {
+        List<Path> classpath = config.getClasspath().isEmpty()
+                ? List.of()
+                : new TypeTableCache(config.getTypeTableCacheDirectory()).resolve(config.getClasspath());
+
+        HeapBudget heapBudget =
+                new HeapBudget(config.getHeapBudgetMegabytes() * 1024 * 1024, config.getParseChunkSize());
+        List<Path> list = listSourcePaths(srcDirectory, config);
+        long javaFiles =
+                list.stream().filter(path -> path.toString().endsWith(".java")).count();
+        // files are parsed lazily and visited as they are parsed, so parsing and visiting are timed as one phase
+        try (PhaseTimer.Phase phase = PhaseTimer.start("graph.parseAndVisit")) {
+            if (canParseInChunks(config)) {
+                List<Path> chunkClasspath = new ArrayList<>(classpath);
+                chunkClasspath.add(config.getClassesDirectory());
+                parseInChunks(list, srcDirectory, chunkClasspath, config.getParseChunkSize(), javaVisitor, heapBudget);
+            } else {
+                JavaParser javaParser = newJavaParser(classpath);
+                ExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+                parseAndVisit(javaParser.parse(list, Paths.get(srcDirectory.getAbsolutePath()), ctx), javaVisitor, ctx);
+            }
+            phase.count("files", javaFiles);
+        }
+        PhaseTimer.count("files", javaFiles);
+        PhaseTimer.max("peakParseHeapBytes", heapBudget.peakHeapBytes());
+        log.info("Peak heap usage while parsing: {} MB", heapBudget.peakHeapBytes() / (1024 * 1024));
+    }
+
+    /**
+     * A chunk only sees its own sources, so the types declared in other chunks have to come from
+     * the compiled classes of the codebase. Without them, references between chunks would be dropped.
+     */
+    private static boolean canParseInChunks(GraphBuilderConfig config) {
+        if (config.getParseChunkSize() <= 0) {
+            return false;
+        }
+        if (config.getClassesDirectory() == null || !Files.isDirectory(config.getClassesDirectory())) {
+            log.warn(
+                    "Parsing all files together: parsing in chunks needs the compiled classes directory of the"
+                            + " sources, but {} is not a directory",
+                    config.getClassesDirectory());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses the Java files a chunk at a time with a new parser and execution context for each chunk,
+     * so that the syntax trees and type cache of a chunk can be collected once its dependencies and metrics
+     * have been extracted. The classpath holds the compiled classes of the codebase, so types declared
+     * in other chunks are still resolved.
+     */
+    private void parseInChunks(
+            List<Path> paths,
+            File srcDirectory,
+            List<Path> classpath,
+            int chunkSize,
+            JavaVisitor<ExecutionContext> javaVisitor,
+            HeapBudget heapBudget) {
+        // Files.walk lists each directory together, so most chunks hold whole packages
+        List<Path> javaFiles =
+                paths.stream().filter(path -> path.toString().endsWith(".java")).collect(Collectors.toList());
+        Path relativeTo = Paths.get(srcDirectory.getAbsolutePath());
+
+        int from = 0;
+        while (from < javaFiles.size()) {
+            int to = Math.min(javaFiles.size(), from + chunkSize);
+            JavaParser javaParser = newJavaParser(classpath);
+            ExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+            parseAndVisit(javaParser.parse(javaFiles.subList(from, to), relativeTo, ctx), javaVisitor, ctx);
+            javaParser.reset();
+
+            log.debug("Parsed files {} to {} of {}", from + 1, to, javaFiles.size());
+            from = to;
+            chunkSize = heapBudget.nextChunkSize(chunkSize);
+        }
+    }
+
+    /**
+     * Visits each file as it is parsed, emitting a {@link ParseSourceFileEvent} and a {@link VisitSourceFileEvent}
+     * for it so that slow files can be told apart in flight recordings
+     */
+    private static void parseAndVisit(
+            Stream<SourceFile> sourceFiles, JavaVisitor<ExecutionContext> javaVisitor, ExecutionContext ctx) {
+        Iterator<SourceFile> iterator = sourceFiles.iterator();
+        while (true) {
+            ParseSourceFileEvent parseEvent = new ParseSourceFileEvent();
+            parseEvent.begin();
+            // the parser is lazy, so the next file is parsed when it is asked for
+            if (!iterator.hasNext()) {
+                return;
+            }
+            SourceFile sourceFile = iterator.next();
+            parseEvent.end();
+            String sourcePath = sourceFile.getSourcePath().toString();
+            int classes = sourceFile instanceof J.CompilationUnit
+                    ? ((J.CompilationUnit) sourceFile).getClasses().size()
+                    : 0;
+            if (parseEvent.shouldCommit()) {
+                parseEvent.setSourcePath(sourcePath);
+                parseEvent.setClasses(classes);
+                parseEvent.commit();
+            }
+
+            VisitSourceFileEvent visitEvent = new VisitSourceFileEvent();
+            visitEvent.begin();
+            javaVisitor.visit(sourceFile, ctx);
+            visitEvent.end();
+            if (visitEvent.shouldCommit()) {
+                visitEvent.setSourcePath(sourcePath);
+                visitEvent.setVisitor(javaVisitor.getClass().getSimpleName());
+                visitEvent.setClasses(classes);
+                visitEvent.commit();
+            }
+        }
+    }
+
+    private static JavaParser newJavaParser(List<Path> classpath) {
+        JavaParser.Builder<?, ?> builder = JavaParser.fromJavaVersion();
+        if (!classpath.isEmpty()) {
+            builder.classpath(classpath);
+        }
+        return builder.build();
     }
 
     // remove node if package not in codebase
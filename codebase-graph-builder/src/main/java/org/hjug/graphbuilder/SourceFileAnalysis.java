@@ -0,0 +1,27 @@
+package org.hjug.graphbuilder;
+
+import java.util.List;
+import lombok.Value;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.MethodDisharmony;
+
+/**
+ * What a single Java file contributes to the codebase graph, which stays the same for as long as the file is unchanged
+ */
+@Value
+public class SourceFileAnalysis {
+
+    CodebaseGraphFragment fragment;
+
+    /**
+     * Local class disharmonies of the classes declared in the file
+     *
+     * @see org.hjug.graphbuilder.metrics.DisharmonyDetectionEngine#isLocal(String)
+     */
+    List<ClassDisharmony> classDisharmonies;
+
+    /**
+     * Local method disharmonies of the classes declared in the file
+     */
+    List<MethodDisharmony> methodDisharmonies;
+}
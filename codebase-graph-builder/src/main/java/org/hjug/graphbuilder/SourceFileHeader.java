@@ -0,0 +1,140 @@
+package org.hjug.graphbuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.Value;
+
+/**
+ * The package and imports of a Java file, read without parsing it.
+ * They tell which other files the type names of the file can resolve to.
+ */
+@Value
+public class SourceFileHeader {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/|//[^\\n]*", Pattern.DOTALL);
+    private static final Pattern STATEMENT = Pattern.compile(
+            "\\G\\s*(?:(?:@[\\w.]+(?:\\([^)]*\\))?\\s*)*package\\s+([\\w.\\s]+);|import\\s+(?:static\\s+)?([\\w.\\s*]+);)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Empty for the default package
+     */
+    String packageName;
+
+    /**
+     * Imported names, without the static keyword. Wildcard imports end with ".*".
+     */
+    List<String> imports;
+
+    public static SourceFileHeader read(Path file) throws IOException {
+        return parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    public static SourceFileHeader parse(CharSequence source) {
+        String text = COMMENT.matcher(source).replaceAll(" ");
+        Matcher matcher = STATEMENT.matcher(text);
+        String packageName = "";
+        List<String> imports = new ArrayList<>();
+        while (matcher.find()) {
+            if (matcher.group(1) != null) {
+                packageName = WHITESPACE.matcher(matcher.group(1)).replaceAll("");
+            } else {
+                imports.add(WHITESPACE.matcher(matcher.group(2)).replaceAll(""));
+            }
+        }
+        return new SourceFileHeader(packageName, imports);
+    }
+
+    /**
+     * @return the header of each of the files, keyed by the file
+     */
+    public static Map<Path, SourceFileHeader> readAll(Collection<Path> files) throws IOException {
+        Map<Path, SourceFileHeader> headers = new HashMap<>();
+        for (Path file : files) {
+            if (file.toString().endsWith(".java") && Files.isRegularFile(file)) {
+                headers.put(file, read(file));
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * @return the file's own package and the packages its imports name, whose types its names can resolve to
+     */
+    public Set<String> resolutionPackages() {
+        Set<String> packages = new TreeSet<>();
+        packages.add(packageName);
+        for (String imported : imports) {
+            packages.add(imported.endsWith(".*") ? imported.substring(0, imported.length() - 2) : parentOf(imported));
+        }
+        return packages;
+    }
+
+    /**
+     * Follows the package and imports of each file to the files declaring the types they name, and from those on,
+     * so the files reached hold every type of the codebase that the given files can refer to by its simple name.
+     * Types referred to only by their fully qualified names are not followed.
+     *
+     * @param headers the header of every Java file of a source tree
+     * @param files the files to start from
+     * @return the files reached, including the files started from
+     */
+    public static Set<Path> reachableFrom(Map<Path, SourceFileHeader> headers, Collection<Path> files) {
+        Map<String, List<Path>> filesByPackage = new HashMap<>();
+        Map<String, Path> filesByType = new HashMap<>();
+        headers.forEach((file, header) -> {
+            filesByPackage
+                    .computeIfAbsent(header.getPackageName(), packageName -> new ArrayList<>())
+                    .add(file);
+            filesByType.put(qualify(header.getPackageName(), typeNameOf(file)), file);
+        });
+
+        Set<Path> reached = new LinkedHashSet<>(files);
+        Deque<Path> toVisit = new ArrayDeque<>(files);
+        while (!toVisit.isEmpty()) {
+            SourceFileHeader header = headers.get(toVisit.pop());
+            if (header == null) {
+                continue;
+            }
+            List<Path> referenced = new ArrayList<>(filesByPackage.getOrDefault(header.getPackageName(), List.of()));
+            for (String imported : header.getImports()) {
+                String name = imported.endsWith(".*") ? imported.substring(0, imported.length() - 2) : imported;
+                if (imported.endsWith(".*")) {
+                    referenced.addAll(filesByPackage.getOrDefault(name, List.of()));
+                }
+                // an import can name a nested type or a static member, which are declared in the file of an outer type
+                while (!name.isEmpty() && !filesByType.containsKey(name)) {
+                    name = parentOf(name);
+                }
+                if (!name.isEmpty()) {
+                    referenced.add(filesByType.get(name));
+                }
+            }
+            for (Path file : referenced) {
+                if (reached.add(file)) {
+                    toVisit.push(file);
+                }
+            }
+        }
+        return reached;
+    }
+
+    private static String typeNameOf(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.endsWith(".java") ? fileName.substring(0, fileName.length() - ".java".length()) : fileName;
+    }
+
+    private static String qualify(String packageName, String name) {
+        return packageName.isEmpty() ? name : packageName + "." + name;
+    }
+
+    private static String parentOf(String name) {
+        int lastDot = name.lastIndexOf('.');
+        return lastDot < 0 ? "" : name.substring(0, lastDot);
+    }
+}
@@ -0,0 +1,273 @@
+package org.hjug.graphbuilder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * On-disk cache of the types each classpath jar declares, keyed by the SHA-256 checksum of the jar.
+ *
+ * The type tables are used to trim the classpath handed to the parser: jars that declare no types,
+ * copies of a jar already on the classpath, and jars whose every type is shadowed by an earlier entry
+ * are dropped, since the compiler would never load a type from them.
+ * Checksums are remembered by jar path, size and modification time, so jars that have not changed
+ * since the last run are neither hashed nor scanned again.
+ */
+@Slf4j
+class TypeTableCache {
+
+    static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("user.home"), ".refactorfirst", "type-tables");
+
+    private static final String TABLE_HEADER = "# refactorfirst type table v1";
+    private static final String CHECKSUMS_FILE = "checksums.tsv";
+
+    private final Path directory;
+    private final Map<String, String> checksumsByJar = new HashMap<>();
+    private boolean checksumsChanged;
+    private int scannedJarCount;
+
+    TypeTableCache(Path directory) {
+        this.directory = directory != null ? directory : DEFAULT_DIRECTORY;
+    }
+
+    /**
+     * @param classpath jars and class directories, in lookup order
+     * @return the classpath entries that can contribute a type, in their original order
+     */
+    List<Path> resolve(Collection<Path> classpath) throws IOException {
+        if (classpath.isEmpty()) {
+            return List.of();
+        }
+        Files.createDirectories(directory);
+        readChecksums();
+
+        List<Path> resolved = new ArrayList<>();
+        Set<String> checksumsSeen = new HashSet<>();
+        Set<String> typesSeen = new HashSet<>();
+        for (Path entry : classpath) {
+            if (Files.isDirectory(entry)) {
+                // class directories are usually build output that changes between runs, so they are not cached
+                resolved.add(entry);
+                continue;
+            }
+            if (!Files.isRegularFile(entry) || !entry.toString().endsWith(".jar")) {
+                log.debug("Skipping classpath entry {}", entry);
+                continue;
+            }
+
+            String checksum = checksum(entry);
+            if (!checksumsSeen.add(checksum)) {
+                log.debug("Skipping {}, a copy of a jar already on the classpath", entry);
+                continue;
+            }
+            List<String> types = typeTable(entry, checksum);
+            if (typesSeen.addAll(types)) {
+                resolved.add(entry);
+            } else {
+                log.debug("Skipping {}, which declares no types not already on the classpath", entry);
+            }
+        }
+        writeChecksums();
+
+        log.info(
+                "Classpath: {} of {} entries declare {} types, {} jars scanned",
+                resolved.size(),
+                classpath.size(),
+                typesSeen.size(),
+                scannedJarCount);
+        return resolved;
+    }
+
+    /**
+     * @param classpath jars and class directories, in lookup order
+     * @return the checksum of each jar and a digest of the class files of each class directory, in classpath order,
+     * which change whenever the types an entry declares may have changed, e.g. when a SNAPSHOT jar or
+     * the output directory of a module is rebuilt
+     */
+    List<String> checksums(Collection<Path> classpath) throws IOException {
+        if (classpath.isEmpty()) {
+            return List.of();
+        }
+        Files.createDirectories(directory);
+        readChecksums();
+
+        List<String> checksums = new ArrayList<>();
+        for (Path entry : classpath) {
+            if (Files.isDirectory(entry)) {
+                checksums.add(directoryDigest(entry));
+            } else if (Files.isRegularFile(entry) && entry.toString().endsWith(".jar")) {
+                checksums.add(checksum(entry));
+            }
+        }
+        writeChecksums();
+        return checksums;
+    }
+
+    /**
+     * @return a digest of the path, size and modification time of each class file in the directory
+     */
+    private static String directoryDigest(Path classDirectory) throws IOException {
+        List<String> classFiles;
+        try (Stream<Path> paths = Files.walk(classDirectory)) {
+            classFiles = paths.filter(path -> path.toString().endsWith(".class"))
+                    .map(path -> {
+                        try {
+                            return classDirectory.relativize(path).toString().replace('\\', '/') + "|"
+                                    + Files.size(path) + "|"
+                                    + Files.getLastModifiedTime(path).toMillis();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        MessageDigest digest = Digests.sha256();
+        for (String classFile : classFiles) {
+            digest.update(classFile.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return Digests.hex(digest.digest());
+    }
+
+    /**
+     * @return the number of jars read to compute a checksum or a type table since this cache was created
+     */
+    int getScannedJarCount() {
+        return scannedJarCount;
+    }
+
+    private String checksum(Path jar) throws IOException {
+        String key = jarKey(jar);
+        String checksum = checksumsByJar.get(key);
+        if (checksum == null) {
+            checksum = sha256(jar);
+            checksumsByJar.put(key, checksum);
+            checksumsChanged = true;
+        }
+        return checksum;
+    }
+
+    private List<String> typeTable(Path jar, String checksum) throws IOException {
+        Path tableFile = directory.resolve(checksum + ".types");
+        if (Files.isRegularFile(tableFile)) {
+            List<String> lines = Files.readAllLines(tableFile, StandardCharsets.UTF_8);
+            if (!lines.isEmpty() && TABLE_HEADER.equals(lines.get(0))) {
+                return lines.subList(1, lines.size());
+            }
+        }
+
+        List<String> types = scanTypes(jar);
+        Path tempFile = Files.createTempFile(directory, checksum, ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            writer.write(TABLE_HEADER);
+            writer.newLine();
+            for (String type : types) {
+                writer.write(type);
+                writer.newLine();
+            }
+        }
+        moveIntoPlace(tempFile, tableFile);
+        return types;
+    }
+
+    /**
+     * @return the binary names of the classes in the jar, excluding module and package descriptors
+     */
+    private List<String> scanTypes(Path jar) throws IOException {
+        scannedJarCount++;
+        List<String> types = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (!name.endsWith(".class")
+                        || name.startsWith("META-INF/")
+                        || name.endsWith("module-info.class")
+                        || name.endsWith("package-info.class")) {
+                    continue;
+                }
+                types.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read classpath jar {}: {}", jar, e.getMessage());
+        }
+        Collections.sort(types);
+        return types;
+    }
+
+    private String sha256(Path jar) throws IOException {
+        scannedJarCount++;
+        MessageDigest digest = Digests.sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(jar), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) != -1) {
+                // read to the end so every byte is digested
+            }
+        }
+        return Digests.hex(digest.digest());
+    }
+
+    private static String jarKey(Path jar) throws IOException {
+        return jar.toAbsolutePath().normalize() + "|" + Files.size(jar) + "|"
+                + Files.getLastModifiedTime(jar).toMillis();
+    }
+
+    private void readChecksums() throws IOException {
+        Path checksumsFile = directory.resolve(CHECKSUMS_FILE);
+        if (!Files.isRegularFile(checksumsFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(checksumsFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                if (tab > 0) {
+                    checksumsByJar.put(line.substring(0, tab), line.substring(tab + 1));
+                }
+            }
+        }
+    }
+
+    private void writeChecksums() throws IOException {
+        if (!checksumsChanged) {
+            return;
+        }
+        Path tempFile = Files.createTempFile(directory, CHECKSUMS_FILE, ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : new TreeMap<>(checksumsByJar).entrySet()) {
+                writer.write(entry.getKey() + "\t" + entry.getValue());
+                writer.newLine();
+            }
+        }
+        moveIntoPlace(tempFile, directory.resolve(CHECKSUMS_FILE));
+        checksumsChanged = false;
+    }
+
+    // concurrent runs may share the cache directory, so files are replaced whole rather than written in place
+    private static void moveIntoPlace(Path tempFile, Path target) throws IOException {
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
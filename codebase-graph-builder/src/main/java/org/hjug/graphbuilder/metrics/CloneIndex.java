@@ -0,0 +1,173 @@
+package org.hjug.graphbuilder.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Inverted index from rolling hashes of windows of consecutive normalized body line IDs
+ * to the (method, offset) pairs where each window starts.
+ *
+ * Two methods can only share an exact clone of at least {@code windowSize} lines
+ * if they share a window hash, so only those pairs need to be compared line by line.
+ * Hash collisions can produce extra candidates, but never miss a pair.
+ */
+final class CloneIndex {
+
+    private static final long BASE = 1_000_003L;
+
+    private final int windowSize;
+    // window hash -> occurrences encoded as (method << 32 | offset), in method then offset order
+    private final Map<Long, List<Long>> occurrencesByHash = new HashMap<>();
+
+    CloneIndex(List<int[]> bodies, int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.windowSize = windowSize;
+
+        long highestPower = 1;
+        for (int i = 1; i < windowSize; i++) {
+            highestPower *= BASE;
+        }
+
+        for (int method = 0; method < bodies.size(); method++) {
+            int[] lines = bodies.get(method);
+            if (lines.length < windowSize) {
+                continue;
+            }
+
+            long hash = 0;
+            for (int i = 0; i < windowSize; i++) {
+                hash = hash * BASE + lines[i];
+            }
+            addOccurrence(hash, method, 0);
+
+            for (int offset = 1; offset + windowSize <= lines.length; offset++) {
+                hash = (hash - lines[offset - 1] * highestPower) * BASE + lines[offset + windowSize - 1];
+                addOccurrence(hash, method, offset);
+            }
+        }
+    }
+
+    private void addOccurrence(long hash, int method, int offset) {
+        occurrencesByHash.computeIfAbsent(hash, k -> new ArrayList<>(2)).add(((long) method << 32) | offset);
+    }
+
+    int getWindowSize() {
+        return windowSize;
+    }
+
+    int getDistinctWindowCount() {
+        return occurrencesByHash.size();
+    }
+
+    /**
+     * @return distinct pairs of methods (i, j) with i < j that share at least one window hash,
+     * encoded as (i << 32 | j) and sorted, so pairs come out in the same order as a nested loop over all methods
+     */
+    long[] candidatePairs() {
+        long[] pairs = pairsSharingWindows(occurrencesByHash.values());
+        Arrays.sort(pairs);
+        return distinct(pairs);
+    }
+
+    /**
+     * Same as {@link #candidatePairs()}, with the hash buckets sharded across the pool.
+     * Pairs found in several shards are only reported once.
+     */
+    long[] candidatePairs(ForkJoinPool pool) {
+        int shardCount = Math.max(1, pool.getParallelism() * 4);
+        List<List<List<Long>>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+        occurrencesByHash.forEach((hash, occurrences) -> {
+            if (occurrences.size() > 1) {
+                shards.get(Math.floorMod(Long.hashCode(hash), shardCount)).add(occurrences);
+            }
+        });
+
+        List<ForkJoinTask<long[]>> tasks = new ArrayList<>(shardCount);
+        for (List<List<Long>> shard : shards) {
+            tasks.add(pool.submit(() -> pairsSharingWindows(shard)));
+        }
+
+        List<long[]> shardPairs = new ArrayList<>(shardCount);
+        int pairCount = 0;
+        for (ForkJoinTask<long[]> task : tasks) {
+            long[] pairs = task.join();
+            shardPairs.add(pairs);
+            pairCount += pairs.length;
+        }
+
+        long[] pairs = new long[pairCount];
+        int offset = 0;
+        for (long[] shard : shardPairs) {
+            System.arraycopy(shard, 0, pairs, offset, shard.length);
+            offset += shard.length;
+        }
+        Arrays.parallelSort(pairs);
+        return distinct(pairs);
+    }
+
+    /**
+     * @return the pairs of distinct methods within each bucket, unsorted and possibly repeated across buckets
+     */
+    private static long[] pairsSharingWindows(Collection<List<Long>> buckets) {
+        long[] pairs = new long[16];
+        int pairCount = 0;
+        int[] methods = new int[16];
+
+        for (List<Long> occurrences : buckets) {
+            if (occurrences.size() < 2) {
+                continue;
+            }
+
+            // occurrences are in method order, so skipping repeats leaves the distinct methods in order
+            int methodsInWindow = 0;
+            for (long occurrence : occurrences) {
+                int method = (int) (occurrence >>> 32);
+                if (methodsInWindow == 0 || methods[methodsInWindow - 1] != method) {
+                    if (methodsInWindow == methods.length) {
+                        methods = Arrays.copyOf(methods, methods.length * 2);
+                    }
+                    methods[methodsInWindow++] = method;
+                }
+            }
+
+            for (int a = 0; a < methodsInWindow; a++) {
+                for (int b = a + 1; b < methodsInWindow; b++) {
+                    if (pairCount == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                    }
+                    pairs[pairCount++] = ((long) methods[a] << 32) | methods[b];
+                }
+            }
+        }
+        return Arrays.copyOf(pairs, pairCount);
+    }
+
+    private static long[] distinct(long[] sortedPairs) {
+        int distinct = 0;
+        for (int i = 0; i < sortedPairs.length; i++) {
+            if (distinct == 0 || sortedPairs[distinct - 1] != sortedPairs[i]) {
+                sortedPairs[distinct++] = sortedPairs[i];
+            }
+        }
+        return Arrays.copyOf(sortedPairs, distinct);
+    }
+
+    static int firstMethod(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    static int secondMethod(long pair) {
+        return (int) pair;
+    }
+}
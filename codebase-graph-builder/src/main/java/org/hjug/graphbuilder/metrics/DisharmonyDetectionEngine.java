@@ -0,0 +1,163 @@
+package org.hjug.graphbuilder.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import lombok.Value;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.MethodDisharmony;
+
+/**
+ * Runs every {@link DisharmonyDetector} check over one immutable snapshot of the class metrics.
+ *
+ * With a pool, the classes are split into chunks and each per-class detector runs on each chunk as a separate task,
+ * alongside Significant Duplication, which compares classes with each other.
+ * Results are merged in detector order and then class order, so they match running the detectors one after another.
+ */
+public class DisharmonyDetectionEngine {
+
+    // more chunks than threads, so that chunks holding larger classes still balance out
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Disharmonies found from the metrics of a class alone, without the metrics of other classes or the call graph
+     */
+    private static final Set<String> LOCAL_TYPES = Set.of(
+            DisharmonyTypes.GOD_CLASS,
+            DisharmonyTypes.DATA_CLASS,
+            DisharmonyTypes.BRAIN_CLASS,
+            DisharmonyTypes.BRAIN_METHOD,
+            DisharmonyTypes.FEATURE_ENVY,
+            DisharmonyTypes.INTENSIVE_COUPLING,
+            DisharmonyTypes.DISPERSED_COUPLING);
+
+    /**
+     * Disharmonies that depend on other classes, through their metrics, the call graph or duplicated lines
+     */
+    public static final List<String> NON_LOCAL_TYPES = List.of(
+            DisharmonyTypes.SHOTGUN_SURGERY,
+            DisharmonyTypes.REFUSED_PARENT_BEQUEST,
+            DisharmonyTypes.TRADITION_BREAKER,
+            DisharmonyTypes.SIGNIFICANT_DUPLICATION);
+
+    private final DisharmonyDetector detector;
+    private final ForkJoinPool pool;
+
+    public DisharmonyDetectionEngine(DisharmonyDetector detector) {
+        this(detector, null);
+    }
+
+    /**
+     * @param pool pool to spread the detectors across, or null to run them on the calling thread
+     */
+    public DisharmonyDetectionEngine(DisharmonyDetector detector, ForkJoinPool pool) {
+        this.detector = detector;
+        this.pool = pool;
+    }
+
+    @Value
+    public static class Result {
+        List<ClassDisharmony> classDisharmonies;
+        List<MethodDisharmony> methodDisharmonies;
+    }
+
+    public Result detect(Collection<ClassMetrics> metrics) {
+        List<ClassMetrics> allMetrics = List.copyOf(metrics);
+        Map<String, ClassMetrics> metricsByFqn = DisharmonyDetector.indexByFullyQualifiedName(allMetrics);
+        List<List<ClassMetrics>> chunks = chunk(allMetrics);
+
+        List<ForkJoinTask<List<ClassDisharmony>>> classTasks = new ArrayList<>();
+        submitPerChunk(classTasks, chunks, detector::detectGodClasses);
+        submitPerChunk(classTasks, chunks, detector::detectDataClasses);
+        submitPerChunk(classTasks, chunks, detector::detectBrainClasses);
+        submitPerChunk(classTasks, chunks, classes -> detector.detectRefusedParentBequest(classes, metricsByFqn));
+        submitPerChunk(classTasks, chunks, classes -> detector.detectTraditionBreaker(classes, metricsByFqn));
+        classTasks.add(submit(() -> detector.detectSignificantDuplication(allMetrics)));
+
+        List<ForkJoinTask<List<MethodDisharmony>>> methodTasks = new ArrayList<>();
+        submitPerChunk(methodTasks, chunks, detector::detectBrainMethods);
+        submitPerChunk(methodTasks, chunks, detector::detectFeatureEnvy);
+        submitPerChunk(methodTasks, chunks, detector::detectIntensiveCoupling);
+        submitPerChunk(methodTasks, chunks, detector::detectDispersedCoupling);
+        submitPerChunk(methodTasks, chunks, detector::detectShotgunSurgery);
+
+        return new Result(joinInOrder(classTasks), joinInOrder(methodTasks));
+    }
+
+    /**
+     * Runs only the detectors of local disharmonies, so the classes of one file can be checked on their own
+     *
+     * @see #isLocal(String)
+     */
+    public Result detectLocal(Collection<ClassMetrics> metrics) {
+        List<List<ClassMetrics>> chunks = chunk(List.copyOf(metrics));
+
+        List<ForkJoinTask<List<ClassDisharmony>>> classTasks = new ArrayList<>();
+        submitPerChunk(classTasks, chunks, detector::detectGodClasses);
+        submitPerChunk(classTasks, chunks, detector::detectDataClasses);
+        submitPerChunk(classTasks, chunks, detector::detectBrainClasses);
+
+        List<ForkJoinTask<List<MethodDisharmony>>> methodTasks = new ArrayList<>();
+        submitPerChunk(methodTasks, chunks, detector::detectBrainMethods);
+        submitPerChunk(methodTasks, chunks, detector::detectFeatureEnvy);
+        submitPerChunk(methodTasks, chunks, detector::detectIntensiveCoupling);
+        submitPerChunk(methodTasks, chunks, detector::detectDispersedCoupling);
+
+        return new Result(joinInOrder(classTasks), joinInOrder(methodTasks));
+    }
+
+    /**
+     * @return true if disharmonies of the type are found from the metrics of a class alone,
+     * so they only change when the file declaring the class changes
+     */
+    public static boolean isLocal(String disharmonyType) {
+        return LOCAL_TYPES.contains(disharmonyType);
+    }
+
+    private List<List<ClassMetrics>> chunk(List<ClassMetrics> allMetrics) {
+        if (pool == null || allMetrics.isEmpty()) {
+            return List.of(allMetrics);
+        }
+        int chunkCount = Math.min(allMetrics.size(), pool.getParallelism() * CHUNKS_PER_THREAD);
+        int chunkSize = (allMetrics.size() + chunkCount - 1) / chunkCount;
+        List<List<ClassMetrics>> chunks = new ArrayList<>(chunkCount);
+        for (int from = 0; from < allMetrics.size(); from += chunkSize) {
+            chunks.add(allMetrics.subList(from, Math.min(from + chunkSize, allMetrics.size())));
+        }
+        return chunks;
+    }
+
+    private <T> void submitPerChunk(
+            List<ForkJoinTask<List<T>>> tasks,
+            List<List<ClassMetrics>> chunks,
+            Function<List<ClassMetrics>, List<T>> detection) {
+        for (List<ClassMetrics> chunk : chunks) {
+            tasks.add(submit(() -> detection.apply(chunk)));
+        }
+    }
+
+    /**
+     * Without a pool the task is not started here, but run by {@link #joinInOrder(List)}
+     */
+    private <T> ForkJoinTask<List<T>> submit(Callable<List<T>> detection) {
+        ForkJoinTask<List<T>> task = ForkJoinTask.adapt(detection);
+        if (pool != null) {
+            pool.execute(task);
+        }
+        return task;
+    }
+
+    private <T> List<T> joinInOrder(List<ForkJoinTask<List<T>>> tasks) {
+        List<T> results = new ArrayList<>();
+        for (ForkJoinTask<List<T>> task : tasks) {
+            results.addAll(pool == null ? task.invoke() : task.join());
+        }
+        return results;
+    }
+}
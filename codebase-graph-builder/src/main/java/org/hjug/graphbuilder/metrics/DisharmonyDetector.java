@@ -1,11 +1,15 @@
 package org.hjug.graphbuilder.metrics;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import lombok.Data;
 import org.hjug.graphbuilder.metrics.DisharmonyMetric.Direction;
 
@@ -49,6 +53,23 @@ public class DisharmonyDetector {
     private static final int GOD_CLASS_ATFD_FEW = 5;
     private static final int GOD_CLASS_WMC_VERY_HIGH = 47;
 
+    // Candidate pairs compared by one Significant Duplication task before it stops splitting
+    private static final int DUPLICATION_PAIRS_PER_TASK = 1024;
+
+    private final ForkJoinPool duplicationPool;
+
+    public DisharmonyDetector() {
+        this(null);
+    }
+
+    /**
+     * @param duplicationPool pool to spread Significant Duplication detection across,
+     *                        or null to detect it on the calling thread
+     */
+    public DisharmonyDetector(ForkJoinPool duplicationPool) {
+        this.duplicationPool = duplicationPool;
+    }
+
     @Data
     public static class ClassDisharmony {
         private final String className;
@@ -285,10 +306,20 @@ public class DisharmonyDetector {
     }
 
     public List<ClassDisharmony> detectRefusedParentBequest(List<ClassMetrics> allMetrics) {
+        return detectRefusedParentBequest(allMetrics, indexByFullyQualifiedName(allMetrics));
+    }
+
+    /**
+     * @param classes the classes to check
+     * @param metricsByFqn metrics of every class, used to look up parent classes
+     */
+    public List<ClassDisharmony> detectRefusedParentBequest(
+            List<ClassMetrics> classes, Map<String, ClassMetrics> metricsByFqn) {
         List<ClassDisharmony> refusedBequestClasses = new ArrayList<>();
-        for (ClassMetrics metrics : allMetrics) {
-            if (hasRefusedParentBequest(metrics, allMetrics)) {
-                int parentProtected = getParentProtectedMembers(metrics, allMetrics);
+        for (ClassMetrics metrics : classes) {
+            ClassMetrics parentMetrics = getParentClassMetrics(metrics, metricsByFqn);
+            if (hasRefusedParentBequest(metrics, parentMetrics)) {
+                int parentProtected = getParentProtectedMembers(parentMetrics);
                 int usedParent = metrics.getNumberOfUsedParentMembers();
                 int overridden = metrics.getNumberOfOverriddenMethods();
                 int descNom = metrics.getNumberOfMethods();
@@ -318,9 +349,18 @@ public class DisharmonyDetector {
     }
 
     public List<ClassDisharmony> detectTraditionBreaker(List<ClassMetrics> allMetrics) {
+        return detectTraditionBreaker(allMetrics, indexByFullyQualifiedName(allMetrics));
+    }
+
+    /**
+     * @param classes the classes to check
+     * @param metricsByFqn metrics of every class, used to look up parent classes
+     */
+    public List<ClassDisharmony> detectTraditionBreaker(
+            List<ClassMetrics> classes, Map<String, ClassMetrics> metricsByFqn) {
         List<ClassDisharmony> traditionBreakerClasses = new ArrayList<>();
-        for (ClassMetrics metrics : allMetrics) {
-            if (isTraditionBreaker(metrics, allMetrics)) {
+        for (ClassMetrics metrics : classes) {
+            if (isTraditionBreaker(metrics, getParentClassMetrics(metrics, metricsByFqn))) {
                 int nom = metrics.getNumberOfMethods();
                 int nas = nom - metrics.getNumberOfOverriddenMethods();
                 double pnas = nom > 0 ? (double) nas / nom : 0.0;
@@ -445,10 +485,14 @@ public class DisharmonyDetector {
     }
 
     public boolean hasRefusedParentBequest(ClassMetrics metrics, List<ClassMetrics> allMetrics) {
+        return hasRefusedParentBequest(metrics, getParentClassMetrics(metrics, allMetrics));
+    }
+
+    private boolean hasRefusedParentBequest(ClassMetrics metrics, ClassMetrics parentMetrics) {
         if (metrics.getParentClass() == null) {
             return false;
         }
-        int parentProtectedMembers = getParentProtectedMembers(metrics, allMetrics);
+        int parentProtectedMembers = getParentProtectedMembers(parentMetrics);
         // BOvR: ratio of subclass methods that override base class methods, over total subclass methods (NOM)
         int nom = metrics.getNumberOfMethods();
         double bovr = nom > 0 ? (double) metrics.getNumberOfOverriddenMethods() / nom : 0.0;
@@ -467,10 +511,13 @@ public class DisharmonyDetector {
     }
 
     public boolean isTraditionBreaker(ClassMetrics metrics, List<ClassMetrics> allMetrics) {
+        return isTraditionBreaker(metrics, getParentClassMetrics(metrics, allMetrics));
+    }
+
+    private boolean isTraditionBreaker(ClassMetrics metrics, ClassMetrics parentMetrics) {
         if (metrics.getParentClass() == null) {
             return false;
         }
-        ClassMetrics parentMetrics = getParentClassMetrics(metrics, allMetrics);
         if (parentMetrics == null) {
             return false;
         }
@@ -500,16 +547,8 @@ public class DisharmonyDetector {
         return excessiveInterface && isLargeAndComplex;
     }
 
-    private int getParentProtectedMembers(ClassMetrics metrics, List<ClassMetrics> allMetrics) {
-        if (metrics.getParentClass() == null) {
-            return 0;
-        }
-        for (ClassMetrics parent : allMetrics) {
-            if (parent.getFullyQualifiedName().equals(metrics.getParentClass())) {
-                return parent.getNumberOfProtectedMembers();
-            }
-        }
-        return 0;
+    private int getParentProtectedMembers(ClassMetrics parentMetrics) {
+        return parentMetrics == null ? 0 : parentMetrics.getNumberOfProtectedMembers();
     }
 
     private ClassMetrics getParentClassMetrics(ClassMetrics metrics, List<ClassMetrics> allMetrics) {
@@ -524,6 +563,24 @@ public class DisharmonyDetector {
         return null;
     }
 
+    private ClassMetrics getParentClassMetrics(ClassMetrics metrics, Map<String, ClassMetrics> metricsByFqn) {
+        if (metrics.getParentClass() == null) {
+            return null;
+        }
+        return metricsByFqn.get(metrics.getParentClass());
+    }
+
+    /**
+     * @return metrics keyed by fully qualified name, keeping the first entry when a name appears more than once
+     */
+    static Map<String, ClassMetrics> indexByFullyQualifiedName(List<ClassMetrics> allMetrics) {
+        Map<String, ClassMetrics> metricsByFqn = new HashMap<>(allMetrics.size() * 2);
+        for (ClassMetrics metrics : allMetrics) {
+            metricsByFqn.putIfAbsent(metrics.getFullyQualifiedName(), metrics);
+        }
+        return metricsByFqn;
+    }
+
     private int countBrainMethods(ClassMetrics metrics) {
         int count = 0;
         for (MethodMetrics method : metrics.getMethods().values()) {
@@ -536,15 +593,16 @@ public class DisharmonyDetector {
 
     public List<ClassDisharmony> detectSignificantDuplication(List<ClassMetrics> allMetrics) {
         List<MethodEntry> eligibleMethods = new ArrayList<>();
+        // methods measured by a visitor were interned into the dictionary of their analysis,
+        // only methods whose lines were set directly are interned here
+        LineDictionary lineDictionary = new LineDictionary();
         long totalLoc = 0;
         int totalCount = 0;
 
         for (ClassMetrics classMetrics : allMetrics) {
             for (MethodMetrics method : classMetrics.getMethods().values()) {
-                if (!method.isConstructor()
-                        && !method.isAccessor()
-                        && method.getNormalizedBodyLines().size() >= FEW) {
-                    eligibleMethods.add(new MethodEntry(classMetrics, method));
+                if (!method.isConstructor() && !method.isAccessor() && method.getNormalizedBodyLineCount() >= FEW) {
+                    eligibleMethods.add(new MethodEntry(classMetrics, method, lineDictionary));
                     totalLoc += method.getLinesOfCode();
                     totalCount++;
                 }
@@ -562,71 +620,23 @@ public class DisharmonyDetector {
             classMetricsMap.put(cm.getFullyQualifiedName(), cm);
         }
 
-        Map<String, FlaggedClassData> flaggedClasses = new HashMap<>();
-
-        for (int i = 0; i < eligibleMethods.size(); i++) {
-            for (int j = i + 1; j < eligibleMethods.size(); j++) {
-                MethodEntry entryA = eligibleMethods.get(i);
-                MethodEntry entryB = eligibleMethods.get(j);
-
-                List<Clone> clones =
-                        findExactClones(entryA.method.getNormalizedBodyLines(), entryB.method.getNormalizedBodyLines());
-                if (clones.isEmpty()) {
-                    continue;
-                }
-
-                boolean significant = false;
-                int maxSEC = 0;
-                int maxSDC = 0;
-
-                for (Clone clone : clones) {
-                    if (clone.size > systemAvgMethodLoc) {
-                        significant = true;
-                        if (clone.size > maxSEC) maxSEC = clone.size;
-                    }
-                }
-
-                for (List<Clone> chain : buildChains(clones)) {
-                    int sdc = 0;
-                    int minSEC = Integer.MAX_VALUE;
-                    int maxLB = 0;
-                    int chainMaxSEC = 0;
-                    for (Clone clone : chain) {
-                        sdc += clone.size;
-                        if (clone.size < minSEC) minSEC = clone.size;
-                        if (clone.size > chainMaxSEC) chainMaxSEC = clone.size;
-                    }
-                    for (int k = 0; k < chain.size() - 1; k++) {
-                        Clone c1 = chain.get(k);
-                        Clone c2 = chain.get(k + 1);
-                        int lb = Math.min(c2.startA - (c1.startA + c1.size), c2.startB - (c1.startB + c1.size));
-                        sdc += lb;
-                        if (lb > maxLB) maxLB = lb;
-                    }
-                    if (sdc >= 2 * (FEW + 1) + 1 && minSEC > FEW && maxLB <= FEW) {
-                        significant = true;
-                        if (sdc > maxSDC) maxSDC = sdc;
-                        if (chainMaxSEC > maxSEC) maxSEC = chainMaxSEC;
-                    }
-                }
+        // Only pairs sharing a window of cloneWindowSize lines can have a significant clone,
+        // so the pairwise comparison is limited to the candidates found by the clone index
+        List<int[]> bodies = new ArrayList<>(eligibleMethods.size());
+        for (MethodEntry entry : eligibleMethods) {
+            bodies.add(entry.lineIds);
+        }
+        CloneIndex cloneIndex = new CloneIndex(bodies, cloneWindowSize(systemAvgMethodLoc));
 
-                if (significant) {
-                    String fqnA = entryA.classMetrics.getFullyQualifiedName();
-                    String fqnB = entryB.classMetrics.getFullyQualifiedName();
-                    String sigA = entryA.method.getSignature();
-                    String sigB = entryB.method.getSignature();
-                    String simpleA = fqnA.substring(fqnA.lastIndexOf('.') + 1);
-                    String simpleB = fqnB.substring(fqnB.lastIndexOf('.') + 1);
-                    flaggedClasses
-                            .computeIfAbsent(fqnA, k -> new FlaggedClassData())
-                            .update(maxSEC, maxSDC, sigA + " ↔ " + simpleB + "." + sigB);
-                    if (!fqnA.equals(fqnB)) {
-                        flaggedClasses
-                                .computeIfAbsent(fqnB, k -> new FlaggedClassData())
-                                .update(maxSEC, maxSDC, sigB + " ↔ " + simpleA + "." + sigA);
-                    }
-                }
-            }
+        Map<String, FlaggedClassData> flaggedClasses;
+        if (duplicationPool == null) {
+            long[] candidatePairs = cloneIndex.candidatePairs();
+            flaggedClasses =
+                    flagDuplicatedPairs(eligibleMethods, candidatePairs, 0, candidatePairs.length, systemAvgMethodLoc);
+        } else {
+            long[] candidatePairs = cloneIndex.candidatePairs(duplicationPool);
+            flaggedClasses = duplicationPool.invoke(
+                    new DuplicationTask(eligibleMethods, candidatePairs, 0, candidatePairs.length, systemAvgMethodLoc));
         }
 
         List<ClassDisharmony> results = new ArrayList<>();
@@ -647,27 +657,124 @@ public class DisharmonyDetector {
         return results;
     }
 
-    private List<Clone> findExactClones(List<String> linesA, List<String> linesB) {
+    /**
+     * Compares the candidate pairs in [from, to) and records the significant ones per class.
+     * Classes and their partner descriptions are kept in the order the pairs were compared in.
+     */
+    private Map<String, FlaggedClassData> flagDuplicatedPairs(
+            List<MethodEntry> eligibleMethods, long[] candidatePairs, int from, int to, double systemAvgMethodLoc) {
+        Map<String, FlaggedClassData> flaggedClasses = new LinkedHashMap<>();
+
+        for (int p = from; p < to; p++) {
+            long pair = candidatePairs[p];
+            MethodEntry entryA = eligibleMethods.get(CloneIndex.firstMethod(pair));
+            MethodEntry entryB = eligibleMethods.get(CloneIndex.secondMethod(pair));
+
+            List<Clone> clones = findExactClones(entryA.lineIds, entryB.lineIds);
+            if (clones.isEmpty()) {
+                continue;
+            }
+
+            boolean significant = false;
+            int maxSEC = 0;
+            int maxSDC = 0;
+
+            for (Clone clone : clones) {
+                if (clone.size > systemAvgMethodLoc) {
+                    significant = true;
+                    if (clone.size > maxSEC) maxSEC = clone.size;
+                }
+            }
+
+            for (List<Clone> chain : buildChains(clones)) {
+                int sdc = 0;
+                int minSEC = Integer.MAX_VALUE;
+                int maxLB = 0;
+                int chainMaxSEC = 0;
+                for (Clone clone : chain) {
+                    sdc += clone.size;
+                    if (clone.size < minSEC) minSEC = clone.size;
+                    if (clone.size > chainMaxSEC) chainMaxSEC = clone.size;
+                }
+                for (int k = 0; k < chain.size() - 1; k++) {
+                    Clone c1 = chain.get(k);
+                    Clone c2 = chain.get(k + 1);
+                    int lb = Math.min(c2.startA - (c1.startA + c1.size), c2.startB - (c1.startB + c1.size));
+                    sdc += lb;
+                    if (lb > maxLB) maxLB = lb;
+                }
+                if (sdc >= 2 * (FEW + 1) + 1 && minSEC > FEW && maxLB <= FEW) {
+                    significant = true;
+                    if (sdc > maxSDC) maxSDC = sdc;
+                    if (chainMaxSEC > maxSEC) maxSEC = chainMaxSEC;
+                }
+            }
+
+            if (significant) {
+                String fqnA = entryA.classMetrics.getFullyQualifiedName();
+                String fqnB = entryB.classMetrics.getFullyQualifiedName();
+                String sigA = entryA.method.getSignature();
+                String sigB = entryB.method.getSignature();
+                String simpleA = fqnA.substring(fqnA.lastIndexOf('.') + 1);
+                String simpleB = fqnB.substring(fqnB.lastIndexOf('.') + 1);
+                flaggedClasses
+                        .computeIfAbsent(fqnA, k -> new FlaggedClassData())
+                        .update(maxSEC, maxSDC, sigA + " ↔ " + simpleB + "." + sigB);
+                if (!fqnA.equals(fqnB)) {
+                    flaggedClasses
+                            .computeIfAbsent(fqnB, k -> new FlaggedClassData())
+                            .update(maxSEC, maxSDC, sigB + " ↔ " + simpleA + "." + sigA);
+                }
+            }
+        }
+        return flaggedClasses;
+    }
+
+    /**
+     * Smallest clone that can make a pair of methods significant: either longer than the average method,
+     * or part of a chain, whose clones are all longer than FEW lines
+     */
+    static int cloneWindowSize(double systemAvgMethodLoc) {
+        return Math.max(1, Math.min(FEW, (int) Math.floor(systemAvgMethodLoc) + 1));
+    }
+
+    /**
+     * Finds the maximal runs of equal lines, ordered by their start in linesA and then in linesB.
+     * Lines of B are looked up by ID in a sorted (line ID, position) index, so only equal lines are visited.
+     */
+    private List<Clone> findExactClones(int[] linesA, int[] linesB) {
         List<Clone> clones = new ArrayList<>();
-        int m = linesA.size();
-        int n = linesB.size();
+        int m = linesA.length;
+        int n = linesB.length;
+
+        long[] positionsInB = new long[n];
+        for (int j = 0; j < n; j++) {
+            positionsInB[j] = ((long) linesB[j] << 32) | j;
+        }
+        Arrays.sort(positionsInB);
+
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                if (linesA.get(i).equals(linesB.get(j))) {
-                    if (i > 0 && j > 0 && linesA.get(i - 1).equals(linesB.get(j - 1))) {
-                        continue;
-                    }
-                    int size = 0;
-                    while (i + size < m && j + size < n && linesA.get(i + size).equals(linesB.get(j + size))) {
-                        size++;
-                    }
-                    clones.add(new Clone(i, j, size));
+            int line = linesA[i];
+            for (int p = firstPosition(positionsInB, line); p < n && (int) (positionsInB[p] >>> 32) == line; p++) {
+                int j = (int) positionsInB[p];
+                if (i > 0 && j > 0 && linesA[i - 1] == linesB[j - 1]) {
+                    continue;
+                }
+                int size = 0;
+                while (i + size < m && j + size < n && linesA[i + size] == linesB[j + size]) {
+                    size++;
                 }
+                clones.add(new Clone(i, j, size));
             }
         }
         return clones;
     }
 
+    private static int firstPosition(long[] positions, int line) {
+        int index = Arrays.binarySearch(positions, (long) line << 32);
+        return index >= 0 ? index : -index - 1;
+    }
+
     private List<List<Clone>> buildChains(List<Clone> clones) {
         List<List<Clone>> chains = new ArrayList<>();
         if (clones.isEmpty()) return chains;
@@ -706,15 +813,66 @@ public class DisharmonyDetector {
             if (sdc > maxSDC) maxSDC = sdc;
             partnerDescriptions.add(partnerDescription);
         }
+
+        void merge(FlaggedClassData later) {
+            if (later.maxSEC > maxSEC) maxSEC = later.maxSEC;
+            if (later.maxSDC > maxSDC) maxSDC = later.maxSDC;
+            partnerDescriptions.addAll(later.partnerDescriptions);
+        }
+    }
+
+    /**
+     * Splits a range of the sorted candidate pairs in halves until it is small enough to compare directly.
+     * Each leaf fills its own accumulators, and the halves are merged left before right,
+     * so the result is the same as comparing all pairs in order on one thread.
+     */
+    private final class DuplicationTask extends RecursiveTask<Map<String, FlaggedClassData>> {
+        private final List<MethodEntry> eligibleMethods;
+        private final long[] candidatePairs;
+        private final int from;
+        private final int to;
+        private final double systemAvgMethodLoc;
+
+        DuplicationTask(
+                List<MethodEntry> eligibleMethods, long[] candidatePairs, int from, int to, double systemAvgMethodLoc) {
+            this.eligibleMethods = eligibleMethods;
+            this.candidatePairs = candidatePairs;
+            this.from = from;
+            this.to = to;
+            this.systemAvgMethodLoc = systemAvgMethodLoc;
+        }
+
+        @Override
+        protected Map<String, FlaggedClassData> compute() {
+            if (to - from <= DUPLICATION_PAIRS_PER_TASK) {
+                return flagDuplicatedPairs(eligibleMethods, candidatePairs, from, to, systemAvgMethodLoc);
+            }
+
+            int middle = (from + to) >>> 1;
+            DuplicationTask left =
+                    new DuplicationTask(eligibleMethods, candidatePairs, from, middle, systemAvgMethodLoc);
+            DuplicationTask right =
+                    new DuplicationTask(eligibleMethods, candidatePairs, middle, to, systemAvgMethodLoc);
+            right.fork();
+            Map<String, FlaggedClassData> flaggedClasses = left.compute();
+            right.join()
+                    .forEach((fqn, data) -> flaggedClasses.merge(fqn, data, (earlier, later) -> {
+                        earlier.merge(later);
+                        return earlier;
+                    }));
+            return flaggedClasses;
+        }
     }
 
     private static final class MethodEntry {
         final ClassMetrics classMetrics;
         final MethodMetrics method;
+        final int[] lineIds;
 
-        MethodEntry(ClassMetrics classMetrics, MethodMetrics method) {
+        MethodEntry(ClassMetrics classMetrics, MethodMetrics method, LineDictionary lineDictionary) {
             this.classMetrics = classMetrics;
             this.method = method;
+            this.lineIds = method.getNormalizedBodyLineIds(lineDictionary);
         }
     }
 
@@ -1,7 +1,6 @@
 package org.hjug.graphbuilder.metrics;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import lombok.Getter;
@@ -15,15 +14,27 @@ public class GraphMetricsCollector implements MetricsCollector {
     private final Graph<String, DefaultWeightedEdge> packageGraph;
     private final Map<String, ClassMetrics> classMetrics = new HashMap<>();
     private final Map<String, String> classToSourceFileMapping = new HashMap<>();
-    /** Maps callee full-qualified method signature → set of caller method signatures (CM). */
-    private final Map<String, Set<String>> calleeToCallerMethods = new HashMap<>();
-    /** Maps callee full-qualified method signature → set of caller class FQNs (CC). */
-    private final Map<String, Set<String>> calleeToCallerClasses = new HashMap<>();
+    /** Callers of each method, for Changing Methods (CM) and Changing Classes (CC). */
+    private final MethodCallGraph callGraph = new MethodCallGraph();
+    /** Normalized method body lines of this analysis, so they are released with it. */
+    private final LineDictionary lineDictionary;
 
     public GraphMetricsCollector(
             Graph<String, DefaultWeightedEdge> classGraph, Graph<String, DefaultWeightedEdge> packageGraph) {
+        this(classGraph, packageGraph, new LineDictionary());
+    }
+
+    /**
+     * @param lineDictionary shared with the other collectors of the same analysis,
+     *                       so the method bodies they record can be compared with each other
+     */
+    public GraphMetricsCollector(
+            Graph<String, DefaultWeightedEdge> classGraph,
+            Graph<String, DefaultWeightedEdge> packageGraph,
+            LineDictionary lineDictionary) {
         this.classGraph = classGraph;
         this.packageGraph = packageGraph;
+        this.lineDictionary = lineDictionary;
     }
 
     @Override
@@ -149,12 +160,22 @@ public class GraphMetricsCollector implements MetricsCollector {
 
     @Override
     public void recordIncomingCall(String calleeFqnSig, String callerClassFqn, String callerMethodSig) {
-        calleeToCallerMethods
-                .computeIfAbsent(calleeFqnSig, k -> new HashSet<>())
-                .add(callerMethodSig);
-        calleeToCallerClasses
-                .computeIfAbsent(calleeFqnSig, k -> new HashSet<>())
-                .add(callerClassFqn);
+        // split "com.example.Callee.method(params)" and "com.example.Caller::method(params)" back into their parts
+        int calleeSeparator = calleeFqnSig.lastIndexOf('.', calleeFqnSig.indexOf('('));
+        String callerMethodSignature = callerMethodSig.startsWith(callerClassFqn + "::")
+                ? callerMethodSig.substring(callerClassFqn.length() + 2)
+                : callerMethodSig;
+        recordIncomingCall(
+                calleeFqnSig.substring(0, calleeSeparator),
+                calleeFqnSig.substring(calleeSeparator + 1),
+                callerClassFqn,
+                callerMethodSignature);
+    }
+
+    @Override
+    public void recordIncomingCall(
+            String calleeClassFqn, String calleeSignature, String callerClassFqn, String callerMethodSignature) {
+        callGraph.recordCall(calleeClassFqn, calleeSignature, callerClassFqn, callerMethodSignature);
     }
 
     @Override
@@ -164,14 +185,12 @@ public class GraphMetricsCollector implements MetricsCollector {
             metrics.calculateTightClassCohesion();
             // Populate CM/CC (Changing Methods / Changing Classes) for each method
             for (MethodMetrics method : metrics.getMethods().values()) {
-                String calleeFqnSig = metrics.getFullyQualifiedName() + "." + method.getSignature();
-                Set<String> callerMethods = calleeToCallerMethods.get(calleeFqnSig);
-                Set<String> callerClasses = calleeToCallerClasses.get(calleeFqnSig);
-                if (callerMethods != null) {
-                    callerMethods.forEach(method::addChangingMethod);
-                }
-                if (callerClasses != null) {
-                    callerClasses.forEach(method::addChangingClass);
+                int callerMethods =
+                        callGraph.countCallerMethods(metrics.getFullyQualifiedName(), method.getSignature());
+                if (callerMethods > 0) {
+                    method.setChangingMethodCount(callerMethods);
+                    method.setChangingClassCount(
+                            callGraph.countCallerClasses(metrics.getFullyQualifiedName(), method.getSignature()));
                 }
             }
         }
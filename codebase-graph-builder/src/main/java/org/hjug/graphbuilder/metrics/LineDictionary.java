@@ -0,0 +1,36 @@
+package org.hjug.graphbuilder.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns each distinct normalized source line an int ID, so method bodies can be stored
+ * and compared as int arrays. Each distinct line is kept once, no matter how many methods contain it.
+ * Safe for use by multiple threads.
+ *
+ * IDs can only be compared between bodies interned into the same dictionary, so there is one per analysis,
+ * owned by its {@link GraphMetricsCollector}, and its lines are released with the analysis.
+ */
+public final class LineDictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public int intern(String line) {
+        return ids.computeIfAbsent(line, k -> nextId.getAndIncrement());
+    }
+
+    public int[] intern(List<String> lines) {
+        int[] lineIds = new int[lines.size()];
+        for (int i = 0; i < lineIds.length; i++) {
+            lineIds[i] = intern(lines.get(i));
+        }
+        return lineIds;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,158 @@
+package org.hjug.graphbuilder.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+
+/**
+ * Method-level call graph used for Changing Methods (CM) and Changing Classes (CC).
+ *
+ * Class names and method signatures are interned to int IDs and each method is identified by
+ * (class ID << 32 | signature ID), so callers are kept in primitive long arrays
+ * instead of sets of concatenated class and signature strings.
+ */
+public class MethodCallGraph {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final Map<Long, Callers> callersByCallee = new HashMap<>();
+
+    /**
+     * Records that callerSignature, declared in callerClassFqn, calls calleeSignature, declared in calleeClassFqn
+     */
+    public void recordCall(
+            String calleeClassFqn, String calleeSignature, String callerClassFqn, String callerSignature) {
+        long callee = method(intern(calleeClassFqn), intern(calleeSignature));
+        long caller = method(intern(callerClassFqn), intern(callerSignature));
+        callersByCallee.computeIfAbsent(callee, k -> new Callers()).add(caller);
+    }
+
+    /**
+     * @return CM, the number of distinct methods calling the method
+     */
+    public int countCallerMethods(String classFqn, String signature) {
+        Callers callers = callersOf(classFqn, signature);
+        return callers == null ? 0 : callers.methodCount();
+    }
+
+    /**
+     * @return CC, the number of distinct classes with methods calling the method
+     */
+    public int countCallerClasses(String classFqn, String signature) {
+        Callers callers = callersOf(classFqn, signature);
+        return callers == null ? 0 : callers.classCount();
+    }
+
+    public int getCalleeCount() {
+        return callersByCallee.size();
+    }
+
+    /**
+     * Exports the call graph with an edge from each caller to each method it calls.
+     * Methods are named {@code classFqn.signature}.
+     */
+    public Graph<String, DefaultEdge> toGraph() {
+        Graph<String, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        callersByCallee.forEach((callee, callers) -> {
+            String calleeName = name(callee);
+            graph.addVertex(calleeName);
+            for (long caller : callers.distinct()) {
+                String callerName = name(caller);
+                graph.addVertex(callerName);
+                graph.addEdge(callerName, calleeName);
+            }
+        });
+        return graph;
+    }
+
+    private Callers callersOf(String classFqn, String signature) {
+        Integer classId = ids.get(classFqn);
+        Integer signatureId = ids.get(signature);
+        if (classId == null || signatureId == null) {
+            return null;
+        }
+        return callersByCallee.get(method(classId, signatureId));
+    }
+
+    private int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    private String name(long method) {
+        return names.get((int) (method >>> 32)) + "." + names.get((int) method);
+    }
+
+    private static long method(int classId, int signatureId) {
+        return ((long) classId << 32) | signatureId;
+    }
+
+    /**
+     * Callers of one method. Repeated calls from the method just recorded are skipped as they arrive,
+     * the remaining duplicates are removed by sorting when the callers are first counted.
+     */
+    private static final class Callers {
+        private long[] callers = new long[2];
+        private int size;
+        private boolean distinct = true;
+
+        void add(long caller) {
+            if (size > 0 && callers[size - 1] == caller) {
+                return;
+            }
+            if (size == callers.length) {
+                callers = Arrays.copyOf(callers, Math.max(2, size * 2));
+            }
+            if (size > 0 && callers[size - 1] > caller) {
+                distinct = false;
+            }
+            callers[size++] = caller;
+        }
+
+        /**
+         * @return the distinct callers, sorted by class ID and then signature ID
+         */
+        long[] distinct() {
+            if (!distinct) {
+                Arrays.sort(callers, 0, size);
+                int unique = 0;
+                for (int i = 0; i < size; i++) {
+                    if (unique == 0 || callers[unique - 1] != callers[i]) {
+                        callers[unique++] = callers[i];
+                    }
+                }
+                size = unique;
+                distinct = true;
+            }
+            if (callers.length != size) {
+                callers = Arrays.copyOf(callers, size);
+            }
+            return callers;
+        }
+
+        int methodCount() {
+            return distinct().length;
+        }
+
+        int classCount() {
+            long[] sorted = distinct();
+            int classes = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || (sorted[i] >>> 32) != (sorted[i - 1] >>> 32)) {
+                    classes++;
+                }
+            }
+            return classes;
+        }
+    }
+}
@@ -22,20 +22,64 @@ public class MethodMetrics {
     private Set<String> calledForeignMethods = new HashSet<>();
     /** Distinct classes that own the foreign methods called by this method (for CDISP numerator). */
     private Set<String> calledForeignMethodClasses = new HashSet<>();
-    /** CM: distinct foreign methods that call this method (Changing Methods — incoming coupling). */
-    private Set<String> changingMethods = new HashSet<>();
-    /** CC: distinct foreign classes whose methods call this method (Changing Classes — incoming coupling). */
-    private Set<String> changingClasses = new HashSet<>();
+    /**
+     * CM: distinct foreign methods that call this method (Changing Methods — incoming coupling).
+     * Null unless callers are added one by one; a {@link MethodCallGraph} sets the count only.
+     */
+    private Set<String> changingMethods;
+    /**
+     * CC: distinct foreign classes whose methods call this method (Changing Classes — incoming coupling).
+     * Null unless callers are added one by one; a {@link MethodCallGraph} sets the count only.
+     */
+    private Set<String> changingClasses;
+    /** CM count, either counted from the changing methods added or set from a {@link MethodCallGraph}. */
+    private int changingMethodCount;
+    /** CC count, either counted from the changing classes added or set from a {@link MethodCallGraph}. */
+    private int changingClassCount;
 
     private boolean isAccessor;
     private boolean isConstructor;
     private List<String> normalizedBodyLines = new ArrayList<>();
+    /** Normalized body lines as IDs from the {@link LineDictionary} of the analysis, null until fingerprinted. */
+    private int[] normalizedBodyLineIds;
 
     public MethodMetrics(String methodName, String signature) {
         this.methodName = methodName;
         this.signature = signature;
     }
 
+    public void setNormalizedBodyLines(List<String> normalizedBodyLines) {
+        this.normalizedBodyLines = normalizedBodyLines;
+        this.normalizedBodyLineIds = null;
+    }
+
+    /**
+     * Interns the normalized body lines into the {@link LineDictionary} of the analysis.
+     *
+     * @param retainLines false to drop the line text afterwards and keep only the IDs
+     */
+    public void fingerprintNormalizedBody(LineDictionary lineDictionary, boolean retainLines) {
+        normalizedBodyLineIds = lineDictionary.intern(normalizedBodyLines);
+        if (!retainLines) {
+            normalizedBodyLines = new ArrayList<>();
+        }
+    }
+
+    /**
+     * @return the line IDs of the body, interning the lines into the dictionary first if they have not been
+     */
+    public int[] getNormalizedBodyLineIds(LineDictionary lineDictionary) {
+        if (normalizedBodyLineIds == null) {
+            fingerprintNormalizedBody(lineDictionary, true);
+        }
+        return normalizedBodyLineIds;
+    }
+
+    /** Number of normalized body lines, also available after the line text has been dropped. */
+    public int getNormalizedBodyLineCount() {
+        return normalizedBodyLineIds != null ? normalizedBodyLineIds.length : normalizedBodyLines.size();
+    }
+
     public void incrementComplexity() {
         this.cyclomaticComplexity++;
     }
@@ -71,21 +115,29 @@ public class MethodMetrics {
     }
 
     public void addChangingMethod(String callerMethodSig) {
+        if (changingMethods == null) {
+            changingMethods = new HashSet<>();
+        }
         this.changingMethods.add(callerMethodSig);
+        this.changingMethodCount = changingMethods.size();
     }
 
     public void addChangingClass(String callerClassFqn) {
+        if (changingClasses == null) {
+            changingClasses = new HashSet<>();
+        }
         this.changingClasses.add(callerClassFqn);
+        this.changingClassCount = changingClasses.size();
     }
 
     /** CM: number of distinct foreign methods that call this method. */
     public int getChangingMethodCount() {
-        return changingMethods.size();
+        return changingMethodCount;
     }
 
     /** CC: number of distinct foreign classes whose methods call this method. */
     public int getChangingClassCount() {
-        return changingClasses.size();
+        return changingClassCount;
     }
 
     public int getNumberOfAccessedVariables() {
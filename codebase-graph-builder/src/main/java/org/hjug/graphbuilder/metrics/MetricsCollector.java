@@ -14,8 +14,23 @@ public interface MetricsCollector extends DependencyCollector {
         // no-op default for implementations that don't track incoming calls
     }
 
+    /**
+     * Record that callerMethodSignature (in callerClassFqn) calls calleeSignature (in calleeClassFqn).
+     * Implementations that intern names can avoid concatenating them.
+     */
+    default void recordIncomingCall(
+            String calleeClassFqn, String calleeSignature, String callerClassFqn, String callerMethodSignature) {
+        recordIncomingCall(
+                calleeClassFqn + "." + calleeSignature, callerClassFqn, callerClassFqn + "::" + callerMethodSignature);
+    }
+
     ClassMetrics getClassMetrics(String className);
 
+    /**
+     * @return the dictionary the method bodies of this analysis are interned into
+     */
+    LineDictionary getLineDictionary();
+
     Map<String, ClassMetrics> getAllClassMetrics();
 
     void finalizeMetrics();
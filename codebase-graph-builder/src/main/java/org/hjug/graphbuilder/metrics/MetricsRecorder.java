@@ -0,0 +1,362 @@
+package org.hjug.graphbuilder.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.java.tree.*;
+
+/**
+ * Records class and method metrics as a visitor enters and leaves compilation units, classes and methods.
+ * Holds no traversal logic of its own, so the same metrics can be collected by {@link MetricsCollectingVisitor}
+ * or alongside dependency collection by {@link org.hjug.graphbuilder.visitor.FusedJavaVisitor}.
+ */
+public class MetricsRecorder {
+
+    private final MetricsCollector metricsCollector;
+    private final boolean retainNormalizedBodyLines;
+    private String currentPackageName;
+    private String currentClassName;
+    private String currentMethodSignature;
+    private ClassMetrics currentClassMetrics;
+    private MethodMetrics currentMethodMetrics;
+    private String currentSourcePath;
+    private int unmeasuredClassDepth;
+
+    /**
+     * @param retainNormalizedBodyLines false to keep only the line IDs of method bodies, which is all
+     *                                  duplication detection needs
+     */
+    public MetricsRecorder(MetricsCollector metricsCollector, boolean retainNormalizedBodyLines) {
+        this.metricsCollector = metricsCollector;
+        this.retainNormalizedBodyLines = retainNormalizedBodyLines;
+    }
+
+    /**
+     * The class or method being measured when a nested one was entered, restored when it is exited
+     */
+    public static final class Scope {
+        private final String packageName;
+        private final String className;
+        private final String methodSignature;
+        private final ClassMetrics classMetrics;
+        private final MethodMetrics methodMetrics;
+        private final boolean measured;
+        private final int linesOfCode;
+        private final int parameters;
+
+        private Scope(MetricsRecorder recorder, boolean measured, int linesOfCode, int parameters) {
+            this.packageName = recorder.currentPackageName;
+            this.className = recorder.currentClassName;
+            this.methodSignature = recorder.currentMethodSignature;
+            this.classMetrics = recorder.currentClassMetrics;
+            this.methodMetrics = recorder.currentMethodMetrics;
+            this.measured = measured;
+            this.linesOfCode = linesOfCode;
+            this.parameters = parameters;
+        }
+    }
+
+    public void enterCompilationUnit(J.CompilationUnit cu) {
+        currentSourcePath = cu.getSourcePath().toString(); // .toUri().toString();
+    }
+
+    /**
+     * Classes without a type are not measured, and neither is anything declared inside them.
+     * @return the scope to pass to {@link #exitClass(Scope)} once the class body has been visited
+     */
+    public Scope enterClass(J.ClassDeclaration classDecl) {
+        JavaType.FullyQualified type = classDecl.getType();
+        if (type == null || unmeasuredClassDepth > 0) {
+            Scope scope = new Scope(this, false, 0, 0);
+            unmeasuredClassDepth++;
+            currentPackageName = null;
+            currentClassName = null;
+            currentClassMetrics = null;
+            currentMethodSignature = null;
+            currentMethodMetrics = null;
+            return scope;
+        }
+
+        Scope scope = new Scope(this, true, calculateLinesOfCode(classDecl), 0);
+
+        currentClassName = type.getFullyQualifiedName();
+        currentPackageName = type.getPackageName();
+
+        // Get or create metrics - this ensures it's stored in the collector
+        if (metricsCollector instanceof GraphMetricsCollector) {
+            GraphMetricsCollector gmc = (GraphMetricsCollector) metricsCollector;
+            currentClassMetrics = gmc.getAllClassMetrics().computeIfAbsent(currentClassName, ClassMetrics::new);
+        } else {
+            currentClassMetrics = metricsCollector.getClassMetrics(currentClassName);
+            if (currentClassMetrics == null) {
+                currentClassMetrics = new ClassMetrics(currentClassName);
+            }
+        }
+
+        currentClassMetrics.setSourceFilePath(currentSourcePath);
+
+        currentClassMetrics.setPackageName(type.getPackageName());
+        currentClassMetrics.setClassName(type.getClassName());
+
+        currentClassMetrics.setLinesOfCode(scope.linesOfCode);
+
+        // Track parent class
+        if (classDecl.getExtends() != null && classDecl.getExtends().getType() instanceof JavaType.FullyQualified) {
+            JavaType.FullyQualified parentType =
+                    (JavaType.FullyQualified) classDecl.getExtends().getType();
+            currentClassMetrics.setParentClass(parentType.getFullyQualifiedName());
+        }
+
+        // Count protected members
+        int protectedMembers = 0;
+        for (Statement statement : classDecl.getBody().getStatements()) {
+            if (statement instanceof J.VariableDeclarations) {
+                J.VariableDeclarations varDecl = (J.VariableDeclarations) statement;
+                if (varDecl.getModifiers().stream().anyMatch(mod -> mod.getType() == J.Modifier.Type.Protected)) {
+                    protectedMembers++;
+                }
+            } else if (statement instanceof J.MethodDeclaration) {
+                J.MethodDeclaration methodDecl = (J.MethodDeclaration) statement;
+                if (methodDecl.getModifiers().stream().anyMatch(mod -> mod.getType() == J.Modifier.Type.Protected)) {
+                    protectedMembers++;
+                }
+            }
+        }
+        currentClassMetrics.setNumberOfProtectedMembers(protectedMembers);
+
+        return scope;
+    }
+
+    public void exitClass(Scope scope) {
+        if (scope.measured) {
+            metricsCollector.recordClassMetric(currentClassName, "LOC", scope.linesOfCode);
+        } else {
+            unmeasuredClassDepth--;
+            // a method enclosing an unmeasured class is still being measured
+            currentMethodSignature = scope.methodSignature;
+            currentMethodMetrics = scope.methodMetrics;
+        }
+
+        currentPackageName = scope.packageName;
+        currentClassName = scope.className;
+        currentClassMetrics = scope.classMetrics;
+    }
+
+    /**
+     * @return the scope to pass to {@link #exitMethod(Scope)} once the method has been visited,
+     * or null if the method is not declared in a measured class
+     */
+    public Scope enterMethod(J.MethodDeclaration method, ExecutionContext ctx) {
+        if (currentClassName == null) {
+            return null;
+        }
+
+        String methodName = method.getSimpleName();
+        int parameters = method.getParameters().size();
+        Scope scope = new Scope(this, true, calculateLinesOfCode(method), parameters);
+
+        currentMethodSignature = buildMethodSignature(method);
+        currentMethodMetrics = new MethodMetrics(methodName, currentMethodSignature);
+
+        currentMethodMetrics.setNumberOfParameters(parameters);
+        currentMethodMetrics.setLinesOfCode(scope.linesOfCode);
+
+        if (method.getBody() != null) {
+            String bodyText = method.getBody().printTrimmed();
+            List<String> bodyLines = new ArrayList<>();
+            for (String line : bodyText.split("\n")) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty()
+                        && !trimmed.equals("{")
+                        && !trimmed.equals("}")
+                        && !trimmed.startsWith("//")
+                        && !trimmed.startsWith("*")) {
+                    bodyLines.add(trimmed);
+                }
+            }
+            currentMethodMetrics.setNormalizedBodyLines(bodyLines);
+            currentMethodMetrics.fingerprintNormalizedBody(
+                    metricsCollector.getLineDictionary(), retainNormalizedBodyLines);
+        }
+
+        boolean isAccessor = isAccessorMethod(method);
+        currentMethodMetrics.setAccessor(isAccessor);
+
+        boolean isConstructor = method.isConstructor();
+        currentMethodMetrics.setConstructor(isConstructor);
+
+        // Track overridden methods
+        boolean isOverridden = method.getLeadingAnnotations().stream()
+                .anyMatch(annotation -> annotation.getSimpleName().equals("Override"));
+        if (isOverridden) {
+            currentClassMetrics.addOverriddenMethod(currentMethodSignature);
+        }
+
+        if (method.getBody() != null) {
+            ComplexityCalculator complexityCalculator = new ComplexityCalculator();
+            complexityCalculator.visit(method.getBody(), ctx);
+            currentMethodMetrics.setCyclomaticComplexity(complexityCalculator.getCyclomaticComplexity());
+            currentMethodMetrics.setMaxNestingDepth(complexityCalculator.getMaxNestingDepth());
+        }
+
+        return scope;
+    }
+
+    public void exitMethod(Scope scope) {
+        if (scope == null) {
+            return;
+        }
+
+        if (currentClassMetrics != null) {
+            currentClassMetrics.addMethod(currentMethodMetrics);
+        }
+
+        metricsCollector.recordMethodMetric(currentClassName, currentMethodSignature, "LOC", scope.linesOfCode);
+        metricsCollector.recordMethodMetric(
+                currentClassName, currentMethodSignature, "CYCLO", currentMethodMetrics.getCyclomaticComplexity());
+        metricsCollector.recordMethodMetric(
+                currentClassName, currentMethodSignature, "MAXNESTING", currentMethodMetrics.getMaxNestingDepth());
+        metricsCollector.recordMethodMetric(currentClassName, currentMethodSignature, "NOP", scope.parameters);
+
+        currentMethodSignature = scope.methodSignature;
+        currentMethodMetrics = scope.methodMetrics;
+    }
+
+    public void visitVariableDeclarations(J.VariableDeclarations multiVariable) {
+        if (currentClassName != null && currentMethodSignature == null) {
+            for (J.VariableDeclarations.NamedVariable var : multiVariable.getVariables()) {
+                String varName = var.getSimpleName();
+                boolean isPublic = multiVariable.hasModifier(J.Modifier.Type.Public);
+                if (currentClassMetrics != null) {
+                    currentClassMetrics.addAttribute(varName, isPublic);
+                }
+            }
+        }
+
+        if (currentMethodMetrics != null) {
+            for (J.VariableDeclarations.NamedVariable var : multiVariable.getVariables()) {
+                currentMethodMetrics.addAccessedVariable(var.getSimpleName());
+            }
+        }
+    }
+
+    public void visitIdentifier(J.Identifier identifier) {
+        if (currentMethodMetrics != null && identifier.getFieldType() != null) {
+            JavaType.Variable fieldType = identifier.getFieldType();
+            if (fieldType.getOwner() instanceof JavaType.FullyQualified) {
+                JavaType.FullyQualified owner = (JavaType.FullyQualified) fieldType.getOwner();
+                String ownerFqn = owner.getFullyQualifiedName();
+                String attributeName = identifier.getSimpleName();
+                if (!ownerFqn.equals(currentClassName)) {
+                    currentMethodMetrics.addAccessedForeignClass(ownerFqn);
+                    currentMethodMetrics.addAccessedForeignAttribute(ownerFqn + "." + attributeName);
+                    if (currentClassMetrics != null && ownerFqn.equals(currentClassMetrics.getParentClass())) {
+                        currentClassMetrics.addUsedParentMember(attributeName);
+                    }
+                } else {
+                    currentMethodMetrics.addAccessedOwnAttribute(attributeName);
+                }
+            }
+            currentMethodMetrics.addAccessedVariable(identifier.getSimpleName());
+        }
+    }
+
+    public void visitMethodInvocation(J.MethodInvocation method) {
+        if (currentMethodMetrics != null) {
+            JavaType.Method methodType = method.getMethodType();
+            if (methodType != null && !methodType.isConstructor()) {
+                JavaType declaringType = methodType.getDeclaringType();
+                if (declaringType instanceof JavaType.FullyQualified) {
+                    String declaringFqn = ((JavaType.FullyQualified) declaringType).getFullyQualifiedName();
+                    if (!declaringFqn.equals(currentClassName)) {
+                        StringBuilder calleeSig = new StringBuilder();
+                        calleeSig.append(methodType.getName()).append("(");
+                        java.util.List<JavaType> params = methodType.getParameterTypes();
+                        for (int i = 0; i < params.size(); i++) {
+                            if (i > 0) calleeSig.append(",");
+                            calleeSig.append(params.get(i));
+                        }
+                        calleeSig.append(")");
+                        currentMethodMetrics.addCalledForeignMethod(declaringFqn + "." + calleeSig);
+                        currentMethodMetrics.addCalledForeignMethodClass(declaringFqn);
+                        if (currentClassMetrics != null && declaringFqn.equals(currentClassMetrics.getParentClass())) {
+                            currentClassMetrics.addUsedParentMember(methodType.getName());
+                        }
+                        // Record the reverse (incoming) edge for Shotgun Surgery (CM/CC)
+                        metricsCollector.recordIncomingCall(
+                                declaringFqn, calleeSig.toString(), currentClassName, currentMethodSignature);
+                    }
+                }
+            }
+        }
+    }
+
+    public void visitFieldAccess(J.FieldAccess fieldAccess) {
+        if (currentMethodMetrics != null && fieldAccess.getType() != null) {
+            JavaType type = fieldAccess.getType();
+            if (type instanceof JavaType.Variable) {
+                JavaType.Variable varType = (JavaType.Variable) type;
+                if (varType.getOwner() instanceof JavaType.FullyQualified) {
+                    JavaType.FullyQualified owner = (JavaType.FullyQualified) varType.getOwner();
+                    String ownerFqn = owner.getFullyQualifiedName();
+                    String attributeName = fieldAccess.getSimpleName();
+                    if (!ownerFqn.equals(currentClassName)) {
+                        currentMethodMetrics.addAccessedForeignClass(ownerFqn);
+                        currentMethodMetrics.addAccessedForeignAttribute(ownerFqn + "." + attributeName);
+                        if (currentClassMetrics != null && ownerFqn.equals(currentClassMetrics.getParentClass())) {
+                            currentClassMetrics.addUsedParentMember(attributeName);
+                        }
+                    } else {
+                        currentMethodMetrics.addAccessedOwnAttribute(attributeName);
+                    }
+                }
+            }
+            currentMethodMetrics.addAccessedVariable(fieldAccess.getSimpleName());
+        }
+    }
+
+    private int calculateLinesOfCode(J tree) {
+        if (tree.getMarkers()
+                .findFirst(org.openrewrite.marker.SearchResult.class)
+                .isPresent()) {
+            return 0;
+        }
+        String source = tree.printTrimmed();
+        if (source.isEmpty()) {
+            return 0;
+        }
+        return (int) source.lines().count();
+    }
+
+    private String buildMethodSignature(J.MethodDeclaration method) {
+        StringBuilder sig = new StringBuilder();
+        sig.append(method.getSimpleName()).append("(");
+        boolean first = true;
+        for (org.openrewrite.java.tree.Statement param : method.getParameters()) {
+            if (param instanceof J.VariableDeclarations) {
+                J.VariableDeclarations varDecl = (J.VariableDeclarations) param;
+                if (!first) {
+                    sig.append(",");
+                }
+                if (varDecl.getTypeExpression() != null) {
+                    sig.append(varDecl.getTypeExpression().getType());
+                }
+                first = false;
+            }
+        }
+        sig.append(")");
+        return sig.toString();
+    }
+
+    private boolean isAccessorMethod(J.MethodDeclaration method) {
+        String name = method.getSimpleName();
+        if (name.startsWith("get") || name.startsWith("is") || name.startsWith("set")) {
+            if (method.getBody() == null) {
+                return false;
+            }
+            int statements = method.getBody().getStatements().size();
+            return statements <= 1;
+        }
+        return false;
+    }
+}
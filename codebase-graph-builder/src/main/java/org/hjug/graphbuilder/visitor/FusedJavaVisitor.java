@@ -0,0 +1,82 @@
+package org.hjug.graphbuilder.visitor;
+
+import org.hjug.graphbuilder.DependencyCollector;
+import org.hjug.graphbuilder.metrics.MetricsCollectingVisitor;
+import org.hjug.graphbuilder.metrics.MetricsCollector;
+import org.hjug.graphbuilder.metrics.MetricsRecorder;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.java.tree.*;
+
+/**
+ * Collects class dependencies and class & method metrics in a single traversal of each compilation unit,
+ * producing the same results as running {@link JavaVisitor} and then {@link MetricsCollectingVisitor}.
+ */
+public class FusedJavaVisitor extends JavaVisitor<ExecutionContext> {
+
+    private final MetricsRecorder metricsRecorder;
+
+    // JavaVisitor skips compilation units without a package declaration, but their metrics are still collected
+    private final MetricsCollectingVisitor unpackagedMetricsVisitor;
+
+    public FusedJavaVisitor(
+            String repositoryPath,
+            DependencyCollector dependencyCollector,
+            MetricsCollector metricsCollector,
+            boolean retainNormalizedBodyLines) {
+        super(repositoryPath, dependencyCollector);
+        this.metricsRecorder = new MetricsRecorder(metricsCollector, retainNormalizedBodyLines);
+        this.unpackagedMetricsVisitor = new MetricsCollectingVisitor(metricsCollector, retainNormalizedBodyLines);
+    }
+
+    @Override
+    public J.CompilationUnit visitCompilationUnit(J.CompilationUnit compilationUnit, ExecutionContext ctx) {
+        if (compilationUnit.getPackageDeclaration() == null) {
+            unpackagedMetricsVisitor.visit(compilationUnit, ctx);
+            return compilationUnit;
+        }
+
+        metricsRecorder.enterCompilationUnit(compilationUnit);
+        return super.visitCompilationUnit(compilationUnit, ctx);
+    }
+
+    @Override
+    public J.ClassDeclaration visitClassDeclaration(J.ClassDeclaration classDecl, ExecutionContext ctx) {
+        MetricsRecorder.Scope scope = metricsRecorder.enterClass(classDecl);
+        J.ClassDeclaration result = super.visitClassDeclaration(classDecl, ctx);
+        metricsRecorder.exitClass(scope);
+        return result;
+    }
+
+    @Override
+    public J.MethodDeclaration visitMethodDeclaration(J.MethodDeclaration method, ExecutionContext ctx) {
+        MetricsRecorder.Scope scope = metricsRecorder.enterMethod(method, ctx);
+        J.MethodDeclaration result = super.visitMethodDeclaration(method, ctx);
+        metricsRecorder.exitMethod(scope);
+        return result;
+    }
+
+    @Override
+    public J.VariableDeclarations visitVariableDeclarations(
+            J.VariableDeclarations multiVariable, ExecutionContext ctx) {
+        metricsRecorder.visitVariableDeclarations(multiVariable);
+        return super.visitVariableDeclarations(multiVariable, ctx);
+    }
+
+    @Override
+    public J.Identifier visitIdentifier(J.Identifier identifier, ExecutionContext ctx) {
+        metricsRecorder.visitIdentifier(identifier);
+        return super.visitIdentifier(identifier, ctx);
+    }
+
+    @Override
+    public J.MethodInvocation visitMethodInvocation(J.MethodInvocation method, ExecutionContext ctx) {
+        metricsRecorder.visitMethodInvocation(method);
+        return super.visitMethodInvocation(method, ctx);
+    }
+
+    @Override
+    public J.FieldAccess visitFieldAccess(J.FieldAccess fieldAccess, ExecutionContext ctx) {
+        metricsRecorder.visitFieldAccess(fieldAccess);
+        return super.visitFieldAccess(fieldAccess, ctx);
+    }
+}
@@ -0,0 +1,39 @@
+package org.hjug.graphbuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CodebaseGraphFragmentTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsWhatWasWritten() throws IOException {
+        CodebaseGraphFragment fragment = new CodebaseGraphFragment(
+                Set.of("com.example", ""),
+                Map.of("com.example.A", "com/example/A.java", "com.example.A$Inner", "com/example/A.java"),
+                List.of(
+                        new CodebaseGraphFragment.ClassReference("com.example.A", "com.example.B", 3),
+                        new CodebaseGraphFragment.ClassReference("com.example.A$Inner", "java.util.List", 1)));
+
+        Path file = tempDir.resolve("fragments").resolve("a.graph");
+        fragment.write(file);
+
+        Assertions.assertEquals(fragment, CodebaseGraphFragment.read(file));
+    }
+
+    @Test
+    void ignoresFilesFromOtherVersions() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("old.graph"), "# refactorfirst graph fragment v0\n");
+
+        Assertions.assertNull(CodebaseGraphFragment.read(file));
+    }
+}
@@ -0,0 +1,133 @@
+package org.hjug.graphbuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.hjug.graphbuilder.metrics.ClassMetrics;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.MethodDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyMetric;
+import org.hjug.graphbuilder.metrics.DisharmonyMetric.Direction;
+import org.hjug.graphbuilder.metrics.DisharmonyTypes;
+import org.hjug.graphbuilder.metrics.MethodMetrics;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CodebaseGraphSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsWhatWasWritten() throws IOException {
+        Graph<String, DefaultWeightedEdge> classGraph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        classGraph.addVertex("a.A");
+        classGraph.addVertex("a.B");
+        classGraph.addVertex("b.Ü");
+        classGraph.setEdgeWeight(classGraph.addEdge("a.A", "a.B"), 3);
+        DefaultWeightedEdge bToU = classGraph.addEdge("a.B", "b.Ü");
+        DefaultWeightedEdge uToA = classGraph.addEdge("b.Ü", "a.A");
+        classGraph.setEdgeWeight(uToA, 2);
+
+        Graph<String, DefaultWeightedEdge> packageGraph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        packageGraph.addVertex("a");
+        packageGraph.addVertex("b");
+        DefaultWeightedEdge aToB = packageGraph.addEdge("a", "b");
+        DefaultWeightedEdge bToA = packageGraph.addEdge("b", "a");
+        packageGraph.setEdgeWeight(bToA, 2);
+
+        ClassMetrics classMetrics = new ClassMetrics("a.A");
+        classMetrics.setSourceFilePath("a/A.java");
+        classMetrics.setClassName("A");
+        classMetrics.setPackageName("a");
+        classMetrics.setAccessToForeignData(7);
+        classMetrics.setTightClassCohesion(0.25);
+        DisharmonyMetric atfd = new DisharmonyMetric("ATFD", 7, Direction.ASCENDING);
+        atfd.setRank(1);
+        ClassDisharmony godClass = new ClassDisharmony(
+                "a.A",
+                DisharmonyTypes.GOD_CLASS,
+                "God Class detected",
+                classMetrics,
+                List.of(atfd, new DisharmonyMetric("TCC", 0.25, Direction.DESCENDING)));
+        godClass.setDuplicationPartners("a.B");
+
+        MethodMetrics methodMetrics = new MethodMetrics("run", "run(int)");
+        methodMetrics.setCyclomaticComplexity(12);
+        methodMetrics.setAccessor(true);
+        MethodDisharmony brainMethod = new MethodDisharmony(
+                "a.B",
+                "run(int)",
+                DisharmonyTypes.BRAIN_METHOD,
+                null,
+                methodMetrics,
+                List.of(new DisharmonyMetric("CYCLO", 12, Direction.ASCENDING)));
+
+        CodebaseGraphDTO codebaseGraph = new CodebaseGraphDTO(
+                classGraph,
+                packageGraph,
+                Map.of(aToB, Set.of(bToU), bToA, Set.of(uToA)),
+                Map.of("a.A", "a/A.java", "b.Ü", "b/Ü.java"),
+                List.of(godClass),
+                List.of(brainMethod));
+
+        Path file = tempDir.resolve("snapshots").resolve("codebase.snapshot");
+        CodebaseGraphSnapshot.write(codebaseGraph, file);
+        CodebaseGraphDTO read = CodebaseGraphSnapshot.read(file);
+
+        assertSameGraph(classGraph, read.getClassReferencesGraph());
+        assertSameGraph(packageGraph, read.getPackageReferencesGraph());
+
+        Graph<String, DefaultWeightedEdge> readClassGraph = read.getClassReferencesGraph();
+        Graph<String, DefaultWeightedEdge> readPackageGraph = read.getPackageReferencesGraph();
+        Assertions.assertEquals(
+                Set.of(readClassGraph.getEdge("a.B", "b.Ü")),
+                read.getClassRelationshipsInPackageRelationship().get(readPackageGraph.getEdge("a", "b")));
+        Assertions.assertEquals(
+                Set.of(readClassGraph.getEdge("b.Ü", "a.A")),
+                read.getClassRelationshipsInPackageRelationship().get(readPackageGraph.getEdge("b", "a")));
+        Assertions.assertEquals(
+                codebaseGraph.getClassToSourceFilePathMapping(), read.getClassToSourceFilePathMapping());
+
+        ClassDisharmony readGodClass = read.getClassDisharmonies().get(0);
+        Assertions.assertEquals("a.A", readGodClass.getClassName());
+        Assertions.assertEquals(DisharmonyTypes.GOD_CLASS, readGodClass.getDisharmonyType());
+        Assertions.assertEquals("God Class detected", readGodClass.getDescription());
+        Assertions.assertEquals("a.B", readGodClass.getDuplicationPartners());
+        Assertions.assertEquals(godClass.getMetricValues(), readGodClass.getMetricValues());
+        Assertions.assertEquals("a.A", readGodClass.getMetrics().getFullyQualifiedName());
+        Assertions.assertEquals("a/A.java", readGodClass.getMetrics().getSourceFilePath());
+        Assertions.assertEquals("A", readGodClass.getMetrics().getClassName());
+        Assertions.assertEquals("a", readGodClass.getMetrics().getPackageName());
+        Assertions.assertNull(readGodClass.getMetrics().getParentClass());
+        Assertions.assertEquals(7, readGodClass.getMetrics().getAccessToForeignData());
+        Assertions.assertEquals(0.25, readGodClass.getMetrics().getTightClassCohesion());
+
+        Assertions.assertEquals(brainMethod, read.getMethodDisharmonies().get(0));
+    }
+
+    @Test
+    void ignoresFilesFromOtherVersions() throws IOException {
+        Path file = Files.write(tempDir.resolve("old.snapshot"), new byte[] {0x52, 0x46, 0x47, 0x53, 0, 0, 0, 0});
+
+        Assertions.assertNull(CodebaseGraphSnapshot.read(file));
+    }
+
+    private static void assertSameGraph(
+            Graph<String, DefaultWeightedEdge> expected, Graph<String, DefaultWeightedEdge> actual) {
+        Assertions.assertEquals(expected.vertexSet(), actual.vertexSet());
+        Assertions.assertEquals(expected.edgeSet().size(), actual.edgeSet().size());
+        for (DefaultWeightedEdge edge : expected.edgeSet()) {
+            DefaultWeightedEdge actualEdge = actual.getEdge(expected.getEdgeSource(edge), expected.getEdgeTarget(edge));
+            Assertions.assertNotNull(actualEdge);
+            Assertions.assertEquals(expected.getEdgeWeight(edge), actual.getEdgeWeight(actualEdge));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.hjug.graphbuilder;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class HeapBudgetTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void chunksShrinkOverBudgetAndGrowBackUnderHalfOfIt() {
+        AtomicLong heapInUse = new AtomicLong(150 * MB);
+        HeapBudget heapBudget = new HeapBudget(100 * MB, 400, heapInUse::get);
+
+        Assertions.assertEquals(200, heapBudget.nextChunkSize(400));
+        Assertions.assertEquals(100, heapBudget.nextChunkSize(200));
+
+        heapInUse.set(75 * MB);
+        Assertions.assertEquals(100, heapBudget.nextChunkSize(100));
+
+        heapInUse.set(10 * MB);
+        Assertions.assertEquals(150, heapBudget.nextChunkSize(100));
+        Assertions.assertEquals(400, heapBudget.nextChunkSize(300));
+    }
+
+    @Test
+    void chunksNeverShrinkBelowOneFile() {
+        HeapBudget heapBudget = new HeapBudget(MB, 10, () -> 2 * MB);
+
+        Assertions.assertEquals(1, heapBudget.nextChunkSize(1));
+    }
+
+    @Test
+    void chunkSizeIsFixedWithoutABudget() {
+        HeapBudget heapBudget = new HeapBudget(0, 10, () -> Long.MAX_VALUE);
+
+        Assertions.assertEquals(10, heapBudget.nextChunkSize(10));
+        Assertions.assertTrue(heapBudget.peakHeapBytes() > 0);
+    }
+}
@@ -4,13 +4,23 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
+import javax.tools.ToolProvider;
+import org.hjug.graphbuilder.metrics.DisharmonyDetectionEngine;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class JavaGraphBuilderTest {
 
@@ -69,6 +79,233 @@ class JavaGraphBuilderTest {
                         "com.ideacrest.parser.testclasses.D"));
     }
 
+    @DisplayName("Parsing a file at a time resolves the other files from the compiled classes.")
+    @Test
+    void parseSourceDirectoryInChunksTest(@TempDir Path classesDirectory) throws IOException {
+        File srcDirectory = new File("src/test/resources/javaSrcDirectory");
+        compile(srcDirectory, classesDirectory);
+        CodebaseGraphDTO dto = javaGraphBuilder.getCodebaseGraphDTO(srcDirectory.getAbsolutePath(), false, "");
+        CodebaseGraphDTO chunkedDto = javaGraphBuilder.getCodebaseGraphDTO(
+                srcDirectory.getAbsolutePath(),
+                GraphBuilderConfig.builder()
+                        .excludeTests(false)
+                        .testSourceDirectory("")
+                        .parseChunkSize(1)
+                        .heapBudgetMegabytes(Runtime.getRuntime().maxMemory() / (1024 * 1024))
+                        .classesDirectory(classesDirectory)
+                        .build());
+
+        Graph<String, DefaultWeightedEdge> chunkedClassReferencesGraph = chunkedDto.getClassReferencesGraph();
+        // every file is in a chunk of its own, so each of these edges crosses a chunk boundary
+        assertEquals(
+                1,
+                getEdgeWeight(
+                        chunkedClassReferencesGraph,
+                        "com.ideacrest.parser.testclasses.A",
+                        "com.ideacrest.parser.testclasses.B"));
+        assertEquals(
+                2,
+                getEdgeWeight(
+                        chunkedClassReferencesGraph,
+                        "com.ideacrest.parser.testclasses.E",
+                        "com.ideacrest.parser.testclasses.D"));
+        assertSameClassGraph(dto, chunkedDto);
+    }
+
+    @DisplayName("Without compiled classes, files are parsed together instead of in chunks.")
+    @Test
+    void parseSourceDirectoryInChunksWithoutClassesTest() throws IOException {
+        File srcDirectory = new File("src/test/resources/javaSrcDirectory");
+        CodebaseGraphDTO dto = javaGraphBuilder.getCodebaseGraphDTO(srcDirectory.getAbsolutePath(), false, "");
+        CodebaseGraphDTO chunkedDto = javaGraphBuilder.getCodebaseGraphDTO(
+                srcDirectory.getAbsolutePath(),
+                GraphBuilderConfig.builder()
+                        .excludeTests(false)
+                        .testSourceDirectory("")
+                        .parseChunkSize(1)
+                        .build());
+
+        assertSameClassGraph(dto, chunkedDto);
+    }
+
+    private static void compile(File srcDirectory, Path classesDirectory) throws IOException {
+        List<String> arguments = new ArrayList<>(List.of("-d", classesDirectory.toString()));
+        try (Stream<Path> paths = Files.walk(srcDirectory.toPath())) {
+            paths.filter(path -> path.toString().endsWith(".java")).forEach(path -> arguments.add(path.toString()));
+        }
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, arguments.toArray(new String[0])));
+    }
+
+    private static void assertSameClassGraph(CodebaseGraphDTO expected, CodebaseGraphDTO actual) {
+        Graph<String, DefaultWeightedEdge> classReferencesGraph = expected.getClassReferencesGraph();
+        Graph<String, DefaultWeightedEdge> actualClassReferencesGraph = actual.getClassReferencesGraph();
+        assertEquals(classReferencesGraph.vertexSet(), actualClassReferencesGraph.vertexSet());
+        assertEquals(
+                classReferencesGraph.edgeSet().size(),
+                actualClassReferencesGraph.edgeSet().size());
+        for (DefaultWeightedEdge edge : classReferencesGraph.edgeSet()) {
+            String source = classReferencesGraph.getEdgeSource(edge);
+            String target = classReferencesGraph.getEdgeTarget(edge);
+            assertEquals(
+                    classReferencesGraph.getEdgeWeight(edge),
+                    getEdgeWeight(actualClassReferencesGraph, source, target));
+        }
+        assertEquals(expected.getClassToSourceFilePathMapping(), actual.getClassToSourceFilePathMapping());
+    }
+
+    @DisplayName("A source root's fragment merged on its own builds the same class graph.")
+    @Test
+    void mergeSingleFragmentTest() throws IOException {
+        File srcDirectory = new File("src/test/resources/javaSrcDirectory");
+        CodebaseGraphDTO dto = javaGraphBuilder.getCodebaseGraphDTO(srcDirectory.getAbsolutePath(), false, "");
+        CodebaseGraphFragment fragment = javaGraphBuilder.getCodebaseGraphFragment(
+                srcDirectory.getAbsolutePath(),
+                GraphBuilderConfig.builder()
+                        .excludeTests(false)
+                        .testSourceDirectory("")
+                        .build());
+        CodebaseGraphDTO mergedDto = javaGraphBuilder.mergeFragments(Map.of("", fragment));
+
+        Graph<String, DefaultWeightedEdge> classReferencesGraph = dto.getClassReferencesGraph();
+        Graph<String, DefaultWeightedEdge> mergedClassReferencesGraph = mergedDto.getClassReferencesGraph();
+        assertEquals(classReferencesGraph.vertexSet(), mergedClassReferencesGraph.vertexSet());
+        assertEquals(
+                classReferencesGraph.edgeSet().size(),
+                mergedClassReferencesGraph.edgeSet().size());
+        for (DefaultWeightedEdge edge : classReferencesGraph.edgeSet()) {
+            String source = classReferencesGraph.getEdgeSource(edge);
+            String target = classReferencesGraph.getEdgeTarget(edge);
+            assertEquals(
+                    classReferencesGraph.getEdgeWeight(edge),
+                    getEdgeWeight(mergedClassReferencesGraph, source, target));
+        }
+        assertEquals(
+                dto.getPackageReferencesGraph().vertexSet(),
+                mergedDto.getPackageReferencesGraph().vertexSet());
+        assertEquals(dto.getClassToSourceFilePathMapping(), mergedDto.getClassToSourceFilePathMapping());
+    }
+
+    @DisplayName("Merged fragments keep references between source roots and drop references outside all of them.")
+    @Test
+    void mergeFragmentsTest() {
+        CodebaseGraphFragment api = new CodebaseGraphFragment(
+                Set.of("com.example.api"),
+                Map.of("com.example.api.Service", "com/example/api/Service.java"),
+                List.of(new CodebaseGraphFragment.ClassReference(
+                        "com.example.api.Service", "com.example.impl.Impl", 1)));
+        CodebaseGraphFragment impl = new CodebaseGraphFragment(
+                Set.of("com.example.impl"),
+                Map.of("com.example.impl.Impl", "com/example/impl/Impl.java"),
+                List.of(
+                        new CodebaseGraphFragment.ClassReference("com.example.impl.Impl", "com.example.api.Service", 2),
+                        new CodebaseGraphFragment.ClassReference("com.example.impl.Impl", "java.util.List", 5)));
+        Map<String, CodebaseGraphFragment> fragments = new LinkedHashMap<>();
+        fragments.put("api/src/main/java/", api);
+        fragments.put("impl/src/main/java/", impl);
+
+        CodebaseGraphDTO dto = javaGraphBuilder.mergeFragments(fragments);
+
+        Graph<String, DefaultWeightedEdge> classReferencesGraph = dto.getClassReferencesGraph();
+        assertEquals(Set.of("com.example.api.Service", "com.example.impl.Impl"), classReferencesGraph.vertexSet());
+        assertEquals(2, getEdgeWeight(classReferencesGraph, "com.example.impl.Impl", "com.example.api.Service"));
+        assertTrue(classReferencesGraph.containsEdge("com.example.api.Service", "com.example.impl.Impl"));
+
+        Graph<String, DefaultWeightedEdge> packageReferencesGraph = dto.getPackageReferencesGraph();
+        assertEquals(Set.of("com.example.api", "com.example.impl"), packageReferencesGraph.vertexSet());
+        DefaultWeightedEdge packageEdge = packageReferencesGraph.getEdge("com.example.impl", "com.example.api");
+        assertEquals(2, packageReferencesGraph.getEdgeWeight(packageEdge));
+        assertEquals(
+                Set.of(classReferencesGraph.getEdge("com.example.impl.Impl", "com.example.api.Service")),
+                dto.getClassRelationshipsInPackageRelationship().get(packageEdge));
+        assertEquals(2, dto.getClassRelationshipsInPackageRelationship().size());
+
+        assertEquals(
+                "impl/src/main/java/com/example/impl/Impl.java",
+                dto.getClassToSourceFilePathMapping().get("com.example.impl.Impl"));
+    }
+
+    @DisplayName("Files analyzed one at a time against the rest of the source root merge into the same class graph.")
+    @Test
+    void analyzeSourceFilesTest() throws IOException {
+        File srcDirectory = new File("src/test/resources/javaSrcDirectory");
+        GraphBuilderConfig config = GraphBuilderConfig.builder()
+                .excludeTests(false)
+                .testSourceDirectory("")
+                .build();
+        CodebaseGraphDTO dto = javaGraphBuilder.getCodebaseGraphDTO(srcDirectory.getAbsolutePath(), config);
+
+        String packagePath = "com/ideacrest/parser/testclasses/";
+        List<String> sourceFiles = List.of(packagePath + "A.java", packagePath + "C.java");
+        Map<String, SourceFileAnalysis> analyses =
+                javaGraphBuilder.analyzeSourceFiles(srcDirectory.getAbsolutePath(), sourceFiles, config);
+        assertEquals(Set.copyOf(sourceFiles), analyses.keySet());
+
+        Map<String, SourceFileAnalysis> otherAnalyses = javaGraphBuilder.analyzeSourceFiles(
+                srcDirectory.getAbsolutePath(),
+                List.of(packagePath + "B.java", packagePath + "D.java", packagePath + "E.java"),
+                config);
+        List<CodebaseGraphFragment> fragments = new ArrayList<>();
+        analyses.values().forEach(analysis -> fragments.add(analysis.getFragment()));
+        otherAnalyses.values().forEach(analysis -> fragments.add(analysis.getFragment()));
+        CodebaseGraphDTO mergedDto = javaGraphBuilder.mergeFragments(fragments);
+
+        Graph<String, DefaultWeightedEdge> classReferencesGraph = dto.getClassReferencesGraph();
+        Graph<String, DefaultWeightedEdge> mergedClassReferencesGraph = mergedDto.getClassReferencesGraph();
+        assertEquals(classReferencesGraph.vertexSet(), mergedClassReferencesGraph.vertexSet());
+        for (DefaultWeightedEdge edge : classReferencesGraph.edgeSet()) {
+            String source = classReferencesGraph.getEdgeSource(edge);
+            String target = classReferencesGraph.getEdgeTarget(edge);
+            assertEquals(
+                    classReferencesGraph.getEdgeWeight(edge),
+                    getEdgeWeight(mergedClassReferencesGraph, source, target));
+        }
+        assertTrue(analyses.get(packagePath + "A.java").getClassDisharmonies().isEmpty());
+    }
+
+    @Test
+    void patchCodebaseGraphTest() throws IOException {
+        File srcDirectory = new File("src/test/resources/javaSrcDirectory");
+        GraphBuilderConfig config = GraphBuilderConfig.builder()
+                .excludeTests(false)
+                .testSourceDirectory("")
+                .build();
+        CodebaseGraphDTO dto = javaGraphBuilder.getCodebaseGraphDTO(srcDirectory.getAbsolutePath(), config);
+
+        String sourceFile = "com/ideacrest/parser/testclasses/A.java";
+        Map<String, SourceFileAnalysis> analyses =
+                javaGraphBuilder.analyzeSourceFiles(srcDirectory.getAbsolutePath(), List.of(sourceFile), config);
+        CodebaseGraphDTO patchedDto = javaGraphBuilder.patchCodebaseGraph(dto, List.of(sourceFile), analyses.values());
+
+        // replacing a file with its own analysis leaves the references as they were
+        Graph<String, DefaultWeightedEdge> classReferencesGraph = dto.getClassReferencesGraph();
+        Graph<String, DefaultWeightedEdge> patchedClassReferencesGraph = patchedDto.getClassReferencesGraph();
+        assertEquals(
+                classReferencesGraph.edgeSet().size(),
+                patchedClassReferencesGraph.edgeSet().size());
+        for (DefaultWeightedEdge edge : classReferencesGraph.edgeSet()) {
+            String source = classReferencesGraph.getEdgeSource(edge);
+            String target = classReferencesGraph.getEdgeTarget(edge);
+            assertEquals(
+                    classReferencesGraph.getEdgeWeight(edge),
+                    getEdgeWeight(patchedClassReferencesGraph, source, target));
+        }
+
+        // disharmonies of the whole codebase are not carried over from the graph before the change
+        assertTrue(patchedDto.getClassDisharmonies().stream()
+                .allMatch(disharmony -> DisharmonyDetectionEngine.isLocal(disharmony.getDisharmonyType())));
+        assertTrue(patchedDto.getMethodDisharmonies().stream()
+                .allMatch(disharmony -> DisharmonyDetectionEngine.isLocal(disharmony.getDisharmonyType())));
+
+        // without its file, the references from A are gone
+        CodebaseGraphDTO deletedDto = javaGraphBuilder.patchCodebaseGraph(dto, List.of(sourceFile), List.of());
+        Graph<String, DefaultWeightedEdge> deletedClassReferencesGraph = deletedDto.getClassReferencesGraph();
+        String a = "com.ideacrest.parser.testclasses.A";
+        assertTrue(!deletedClassReferencesGraph.containsVertex(a) || deletedClassReferencesGraph.outDegreeOf(a) == 0);
+        assertEquals(
+                dto.getClassToSourceFilePathMapping().size() - 1,
+                deletedDto.getClassToSourceFilePathMapping().size());
+    }
+
     private static double getEdgeWeight(
             Graph<String, DefaultWeightedEdge> classReferencesGraph, String sourceVertex, String targetVertex) {
         return classReferencesGraph.getEdgeWeight(classReferencesGraph.getEdge(sourceVertex, targetVertex));
@@ -0,0 +1,57 @@
+package org.hjug.graphbuilder;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SourceFileHeaderTest {
+
+    @Test
+    void readsPackageAndImportsUpToTheFirstDeclaration() {
+        SourceFileHeader header = SourceFileHeader.parse("/* licence; import x.Y; */\n"
+                + "@Deprecated package a.b;\n"
+                + "// import c.D;\n"
+                + "import e.F;\n"
+                + "import static g.H.i;\n"
+                + "import j .k.*;\n"
+                + "public class Z { String s = \"import l.M;\"; }\n"
+                + "import n.O;");
+
+        Assertions.assertEquals("a.b", header.getPackageName());
+        Assertions.assertEquals(List.of("e.F", "g.H.i", "j.k.*"), header.getImports());
+        Assertions.assertEquals(Set.of("a.b", "e", "g.H", "j.k"), header.resolutionPackages());
+    }
+
+    @Test
+    void defaultPackageIsEmpty() {
+        SourceFileHeader header = SourceFileHeader.parse("class Z { }");
+
+        Assertions.assertEquals("", header.getPackageName());
+        Assertions.assertEquals(List.of(), header.getImports());
+    }
+
+    @Test
+    void followsPackagesAndImportsToTheFilesTheyReach() {
+        Path a = Paths.get("p/A.java");
+        Path b = Paths.get("p/B.java");
+        Path c = Paths.get("q/C.java");
+        Path d = Paths.get("r/D.java");
+        Path e = Paths.get("s/E.java");
+        Path f = Paths.get("t/F.java");
+        Map<Path, SourceFileHeader> headers = Map.of(
+                a, SourceFileHeader.parse("package p; class A { }"),
+                b, SourceFileHeader.parse("package p; import q.C.Nested; class B { }"),
+                c, SourceFileHeader.parse("package q; import r.*; class C { }"),
+                d, SourceFileHeader.parse("package r; class D { }"),
+                e, SourceFileHeader.parse("package s; import p.A; class E { }"),
+                f, SourceFileHeader.parse("package t; class F { }"));
+
+        Assertions.assertEquals(Set.of(a, b, c, d), SourceFileHeader.reachableFrom(headers, List.of(a)));
+        Assertions.assertEquals(Set.of(a, b, c, d, e), SourceFileHeader.reachableFrom(headers, List.of(e)));
+        Assertions.assertEquals(Set.of(d), SourceFileHeader.reachableFrom(headers, List.of(d)));
+    }
+}
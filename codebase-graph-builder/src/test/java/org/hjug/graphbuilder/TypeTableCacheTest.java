@@ -0,0 +1,94 @@
+package org.hjug.graphbuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TypeTableCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void dropsEntriesThatCannotContributeTypes() throws IOException {
+        Path library = jar("library.jar", "com/example/Foo.class", "com/example/Bar.class");
+        Path copy = Files.copy(library, tempDir.resolve("library-copy.jar"));
+        Path shadowed = jar("shadowed.jar", "com/example/Foo.class");
+        Path resourcesOnly = jar("resources.jar", "META-INF/MANIFEST.MF", "com/example/module-info.class");
+        Path other = jar("other.jar", "com/example/Foo.class", "org/example/Baz.class");
+        Path classes = Files.createDirectories(tempDir.resolve("classes"));
+        Path missing = tempDir.resolve("missing.jar");
+
+        List<Path> resolved = new TypeTableCache(tempDir.resolve("cache"))
+                .resolve(List.of(library, copy, shadowed, resourcesOnly, other, classes, missing));
+
+        Assertions.assertEquals(List.of(library, other, classes), resolved);
+    }
+
+    @Test
+    void reusesTypeTablesOfUnchangedJars() throws IOException {
+        Path library = jar("library.jar", "com/example/Foo.class");
+        Path other = jar("other.jar", "org/example/Baz.class");
+        Path cacheDirectory = tempDir.resolve("cache");
+
+        TypeTableCache firstRun = new TypeTableCache(cacheDirectory);
+        firstRun.resolve(List.of(library, other));
+        // each jar is read once for its checksum and once for its types
+        Assertions.assertEquals(4, firstRun.getScannedJarCount());
+
+        TypeTableCache secondRun = new TypeTableCache(cacheDirectory);
+        Assertions.assertEquals(List.of(library, other), secondRun.resolve(List.of(library, other)));
+        Assertions.assertEquals(0, secondRun.getScannedJarCount());
+
+        // the same jar at another path is hashed but its type table is reused
+        Path moved = Files.copy(library, tempDir.resolve("moved.jar"));
+        TypeTableCache thirdRun = new TypeTableCache(cacheDirectory);
+        Assertions.assertEquals(List.of(moved), thirdRun.resolve(List.of(moved)));
+        Assertions.assertEquals(1, thirdRun.getScannedJarCount());
+    }
+
+    @Test
+    void checksumsChangeWhenAnEntryIsRebuiltInPlace() throws IOException {
+        Path library = jar("library-1.0-SNAPSHOT.jar", "com/example/Foo.class");
+        Path classes = Files.createDirectories(tempDir.resolve("module/target/classes/com/example"));
+        Files.write(classes.resolve("Bar.class"), new byte[] {(byte) 0xCA, (byte) 0xFE});
+        Path classDirectory = tempDir.resolve("module/target/classes");
+        Path cacheDirectory = tempDir.resolve("cache");
+
+        List<String> checksums = new TypeTableCache(cacheDirectory).checksums(List.of(library, classDirectory));
+        Assertions.assertEquals(2, checksums.size());
+        Assertions.assertEquals(
+                checksums, new TypeTableCache(cacheDirectory).checksums(List.of(library, classDirectory)));
+
+        // a rebuilt SNAPSHOT jar keeps its name
+        jar("library-1.0-SNAPSHOT.jar", "com/example/Foo.class", "com/example/Baz.class");
+        Files.setLastModifiedTime(library, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+        // every output directory is named classes
+        Files.write(classes.resolve("Qux.class"), new byte[] {(byte) 0xCA, (byte) 0xFE});
+
+        List<String> rebuiltChecksums = new TypeTableCache(cacheDirectory).checksums(List.of(library, classDirectory));
+        Assertions.assertNotEquals(checksums.get(0), rebuiltChecksums.get(0));
+        Assertions.assertNotEquals(checksums.get(1), rebuiltChecksums.get(1));
+    }
+
+    private Path jar(String name, String... entries) throws IOException {
+        Path jar = tempDir.resolve(name);
+        try (OutputStream out = Files.newOutputStream(jar);
+                JarOutputStream jarOut = new JarOutputStream(out)) {
+            for (String entry : entries) {
+                jarOut.putNextEntry(new JarEntry(entry));
+                jarOut.write(new byte[] {(byte) 0xCA, (byte) 0xFE});
+                jarOut.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
@@ -0,0 +1,180 @@
+package org.hjug.graphbuilder.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CloneIndexTest {
+
+    private static final LineDictionary LINE_DICTIONARY = new LineDictionary();
+
+    @Test
+    void candidatePairsIncludeEveryPairSharingAWindow() {
+        Random random = new Random(42);
+        List<List<String>> bodies = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            List<String> lines = new ArrayList<>();
+            int size = 5 + random.nextInt(20);
+            for (int j = 0; j < size; j++) {
+                // a small alphabet produces plenty of shared windows
+                lines.add("line" + random.nextInt(3) + ";");
+            }
+            bodies.add(lines);
+        }
+
+        int windowSize = 3;
+        long[] candidates = new CloneIndex(intern(bodies), windowSize).candidatePairs();
+
+        for (int i = 1; i < candidates.length; i++) {
+            Assertions.assertTrue(candidates[i - 1] < candidates[i], "Pairs should be sorted and distinct");
+        }
+        for (int i = 0; i < bodies.size(); i++) {
+            for (int j = i + 1; j < bodies.size(); j++) {
+                if (shareRun(bodies.get(i), bodies.get(j), windowSize)) {
+                    long pair = ((long) i << 32) | j;
+                    Assertions.assertTrue(
+                            Arrays.binarySearch(candidates, pair) >= 0,
+                            "Methods " + i + " and " + j + " share a window and should be candidates");
+                }
+            }
+        }
+    }
+
+    @Test
+    void methodsWithoutSharedWindowsAreNotCandidates() {
+        List<List<String>> bodies = List.of(
+                List.of("a;", "b;", "c;", "d;", "e;"),
+                List.of("a;", "b;", "x;", "d;", "e;"),
+                List.of("q;", "a;", "b;", "c;", "d;", "e;"));
+
+        long[] candidates = new CloneIndex(intern(bodies), 5).candidatePairs();
+
+        Assertions.assertEquals(1, candidates.length);
+        Assertions.assertEquals(0, CloneIndex.firstMethod(candidates[0]));
+        Assertions.assertEquals(2, CloneIndex.secondMethod(candidates[0]));
+    }
+
+    @Test
+    void windowCoversShortestSignificantClone() {
+        Assertions.assertEquals(5, DisharmonyDetector.cloneWindowSize(12.5));
+        Assertions.assertEquals(5, DisharmonyDetector.cloneWindowSize(4.0));
+        Assertions.assertEquals(4, DisharmonyDetector.cloneWindowSize(3.9));
+        Assertions.assertEquals(1, DisharmonyDetector.cloneWindowSize(0.0));
+    }
+
+    @Test
+    void detectsDuplicationFoundThroughTheIndex() {
+        List<String> duplicated = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            duplicated.add("total += values[" + i + "];");
+        }
+
+        List<ClassMetrics> allMetrics = new ArrayList<>();
+        allMetrics.add(classWithMethod("com.example.First", "sum()", duplicated));
+        allMetrics.add(classWithMethod("com.example.Second", "add()", duplicated));
+        for (int c = 0; c < 5; c++) {
+            List<String> unique = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                unique.add("call" + c + "_" + i + "();");
+            }
+            allMetrics.add(classWithMethod("com.example.Other" + c, "run()", unique));
+        }
+
+        List<DisharmonyDetector.ClassDisharmony> detected =
+                new DisharmonyDetector().detectSignificantDuplication(allMetrics);
+
+        Assertions.assertEquals(2, detected.size());
+        for (DisharmonyDetector.ClassDisharmony disharmony : detected) {
+            Assertions.assertEquals("Significant Duplication: SEC=12, SDC=0", disharmony.getDescription());
+        }
+    }
+
+    @Test
+    void parallelDetectionMatchesSequentialDetection() {
+        Random random = new Random(7);
+        List<List<String>> templates = new ArrayList<>();
+        for (int t = 0; t < 20; t++) {
+            List<String> lines = new ArrayList<>();
+            int size = 8 + random.nextInt(16);
+            for (int i = 0; i < size; i++) {
+                lines.add("step" + random.nextInt(10) + "();");
+            }
+            templates.add(lines);
+        }
+
+        // enough copies of the templates to split the candidate pairs across several tasks
+        List<ClassMetrics> allMetrics = new ArrayList<>();
+        for (int c = 0; c < 300; c++) {
+            List<String> lines = new ArrayList<>(templates.get(random.nextInt(templates.size())));
+            if (random.nextBoolean()) {
+                lines.set(random.nextInt(lines.size()), "local" + c + "();");
+            }
+            allMetrics.add(classWithMethod("com.example.Class" + c, "method" + c + "()", lines));
+        }
+
+        List<DisharmonyDetector.ClassDisharmony> sequential =
+                new DisharmonyDetector().detectSignificantDuplication(allMetrics);
+        List<DisharmonyDetector.ClassDisharmony> parallel =
+                new DisharmonyDetector(new ForkJoinPool(4)).detectSignificantDuplication(allMetrics);
+
+        Assertions.assertFalse(sequential.isEmpty());
+        Assertions.assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            Assertions.assertEquals(
+                    sequential.get(i).getClassName(), parallel.get(i).getClassName());
+            Assertions.assertEquals(
+                    sequential.get(i).getDescription(), parallel.get(i).getDescription());
+            Assertions.assertEquals(
+                    sequential.get(i).getDuplicationPartners(), parallel.get(i).getDuplicationPartners());
+        }
+    }
+
+    @Test
+    void droppedBodyLinesKeepTheirFingerprint() {
+        MethodMetrics method = new MethodMetrics("run", "run()");
+        method.setNormalizedBodyLines(new ArrayList<>(List.of("int a = 1;", "a++;", "int a = 1;")));
+
+        LineDictionary lineDictionary = new LineDictionary();
+        method.fingerprintNormalizedBody(lineDictionary, false);
+
+        Assertions.assertTrue(method.getNormalizedBodyLines().isEmpty());
+        Assertions.assertEquals(3, method.getNormalizedBodyLineCount());
+        int[] lineIds = method.getNormalizedBodyLineIds();
+        Assertions.assertEquals(lineIds[0], lineIds[2]);
+        Assertions.assertNotEquals(lineIds[0], lineIds[1]);
+        Assertions.assertEquals(lineDictionary.intern("a++;"), lineIds[1]);
+    }
+
+    private static ClassMetrics classWithMethod(String fqn, String signature, List<String> bodyLines) {
+        ClassMetrics classMetrics = new ClassMetrics(fqn);
+        MethodMetrics method = new MethodMetrics(signature.substring(0, signature.indexOf('(')), signature);
+        method.setLinesOfCode(bodyLines.size());
+        method.setNormalizedBodyLines(new ArrayList<>(bodyLines));
+        method.fingerprintNormalizedBody(LINE_DICTIONARY, false);
+        classMetrics.getMethods().put(signature, method);
+        return classMetrics;
+    }
+
+    private static List<int[]> intern(List<List<String>> bodies) {
+        List<int[]> lineIds = new ArrayList<>();
+        for (List<String> lines : bodies) {
+            lineIds.add(LINE_DICTIONARY.intern(lines));
+        }
+        return lineIds;
+    }
+
+    private static boolean shareRun(List<String> a, List<String> b, int length) {
+        for (int i = 0; i + length <= a.size(); i++) {
+            for (int j = 0; j + length <= b.size(); j++) {
+                if (a.subList(i, i + length).equals(b.subList(j, j + length))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,156 @@
+package org.hjug.graphbuilder.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.MethodDisharmony;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DisharmonyDetectionEngineTest {
+
+    @Test
+    void parallelDetectionMatchesDetectorsRunInSequence() {
+        List<ClassMetrics> allMetrics = randomMetrics(new Random(11), 400);
+        DisharmonyDetector detector = new DisharmonyDetector();
+
+        List<ClassDisharmony> expectedClassDisharmonies = new ArrayList<>();
+        expectedClassDisharmonies.addAll(detector.detectGodClasses(allMetrics));
+        expectedClassDisharmonies.addAll(detector.detectDataClasses(allMetrics));
+        expectedClassDisharmonies.addAll(detector.detectBrainClasses(allMetrics));
+        expectedClassDisharmonies.addAll(detector.detectRefusedParentBequest(allMetrics));
+        expectedClassDisharmonies.addAll(detector.detectTraditionBreaker(allMetrics));
+        expectedClassDisharmonies.addAll(detector.detectSignificantDuplication(allMetrics));
+
+        List<MethodDisharmony> expectedMethodDisharmonies = new ArrayList<>();
+        expectedMethodDisharmonies.addAll(detector.detectBrainMethods(allMetrics));
+        expectedMethodDisharmonies.addAll(detector.detectFeatureEnvy(allMetrics));
+        expectedMethodDisharmonies.addAll(detector.detectIntensiveCoupling(allMetrics));
+        expectedMethodDisharmonies.addAll(detector.detectDispersedCoupling(allMetrics));
+        expectedMethodDisharmonies.addAll(detector.detectShotgunSurgery(allMetrics));
+
+        DisharmonyDetectionEngine.Result sequential = new DisharmonyDetectionEngine(detector).detect(allMetrics);
+        DisharmonyDetectionEngine.Result parallel =
+                new DisharmonyDetectionEngine(detector, new ForkJoinPool(4)).detect(allMetrics);
+
+        Assertions.assertEquals(expectedClassDisharmonies, sequential.getClassDisharmonies());
+        Assertions.assertEquals(expectedMethodDisharmonies, sequential.getMethodDisharmonies());
+        Assertions.assertEquals(expectedClassDisharmonies, parallel.getClassDisharmonies());
+        Assertions.assertEquals(expectedMethodDisharmonies, parallel.getMethodDisharmonies());
+
+        for (String type : List.of(
+                DisharmonyTypes.GOD_CLASS,
+                DisharmonyTypes.REFUSED_PARENT_BEQUEST,
+                DisharmonyTypes.TRADITION_BREAKER,
+                DisharmonyTypes.SIGNIFICANT_DUPLICATION)) {
+            Assertions.assertTrue(
+                    expectedClassDisharmonies.stream()
+                            .anyMatch(d -> d.getDisharmonyType().equals(type)),
+                    "Expected some " + type);
+        }
+        Assertions.assertFalse(expectedMethodDisharmonies.isEmpty());
+    }
+
+    @Test
+    void localDetectionMatchesTheLocalDisharmoniesOfAFullDetection() {
+        List<ClassMetrics> allMetrics = randomMetrics(new Random(11), 400);
+        DisharmonyDetectionEngine engine = new DisharmonyDetectionEngine(new DisharmonyDetector());
+
+        DisharmonyDetectionEngine.Result all = engine.detect(allMetrics);
+        DisharmonyDetectionEngine.Result local = engine.detectLocal(allMetrics);
+
+        Assertions.assertEquals(
+                all.getClassDisharmonies().stream()
+                        .filter(d -> DisharmonyDetectionEngine.isLocal(d.getDisharmonyType()))
+                        .collect(Collectors.toList()),
+                local.getClassDisharmonies());
+        Assertions.assertEquals(
+                all.getMethodDisharmonies().stream()
+                        .filter(d -> DisharmonyDetectionEngine.isLocal(d.getDisharmonyType()))
+                        .collect(Collectors.toList()),
+                local.getMethodDisharmonies());
+        Assertions.assertFalse(DisharmonyDetectionEngine.isLocal(DisharmonyTypes.SHOTGUN_SURGERY));
+    }
+
+    @Test
+    void parentIndexKeepsTheFirstClassWithEachName() {
+        ClassMetrics parent = new ClassMetrics("com.example.Parent");
+        parent.setNumberOfProtectedMembers(9);
+        ClassMetrics duplicateParent = new ClassMetrics("com.example.Parent");
+        duplicateParent.setNumberOfProtectedMembers(0);
+
+        // the first class with the parent's name is used, as with the linear scan it replaces
+        Assertions.assertSame(
+                parent,
+                DisharmonyDetector.indexByFullyQualifiedName(List.of(parent, duplicateParent))
+                        .get("com.example.Parent"));
+    }
+
+    private static List<ClassMetrics> randomMetrics(Random random, int classCount) {
+        LineDictionary lineDictionary = new LineDictionary();
+        List<List<String>> bodies = new ArrayList<>();
+        for (int b = 0; b < 10; b++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 14; i++) {
+                lines.add("body" + b + "_" + i + "();");
+            }
+            bodies.add(lines);
+        }
+
+        List<ClassMetrics> allMetrics = new ArrayList<>();
+        for (int c = 0; c < classCount; c++) {
+            ClassMetrics metrics = new ClassMetrics("com.example.Class" + c);
+            if (c > 0 && random.nextInt(3) > 0) {
+                metrics.setParentClass("com.example.Class" + random.nextInt(c));
+            }
+            metrics.setAccessToForeignData(random.nextInt(10));
+            metrics.setTightClassCohesion(random.nextDouble());
+            metrics.setLinesOfCode(random.nextInt(500));
+            metrics.setNumberOfPublicAttributes(random.nextInt(10));
+            metrics.setNumberOfProtectedMembers(random.nextInt(10));
+
+            int methodCount = random.nextInt(20);
+            for (int m = 0; m < methodCount; m++) {
+                MethodMetrics method = new MethodMetrics("method" + m, "method" + m + "()");
+                method.setLinesOfCode(random.nextInt(120));
+                method.setCyclomaticComplexity(1 + random.nextInt(8));
+                method.setMaxNestingDepth(random.nextInt(7));
+                method.setAccessor(random.nextInt(4) == 0);
+                for (int v = random.nextInt(12); v > 0; v--) {
+                    method.addAccessedVariable("var" + v);
+                    method.addAccessedForeignAttribute("com.example.Other" + random.nextInt(3) + ".field" + v);
+                    method.addAccessedForeignClass("com.example.Other" + random.nextInt(3));
+                }
+                for (int call = random.nextInt(12); call > 0; call--) {
+                    String provider = "com.example.Provider" + random.nextInt(1 + random.nextInt(8));
+                    method.addCalledForeignMethod(provider + ".call" + call + "()");
+                    method.addCalledForeignMethodClass(provider);
+                }
+                for (int caller = random.nextInt(12); caller > 0; caller--) {
+                    method.addChangingMethod("com.example.Caller" + caller + "::run()");
+                    method.addChangingClass("com.example.Caller" + caller);
+                }
+                if (random.nextInt(10) == 0) {
+                    List<String> body = bodies.get(random.nextInt(bodies.size()));
+                    // a clone of the whole body is longer than the average method, so it is significant
+                    method.setLinesOfCode(body.size() - 4);
+                    method.setAccessor(false);
+                    method.setNormalizedBodyLines(new ArrayList<>(body));
+                    method.fingerprintNormalizedBody(lineDictionary, false);
+                }
+                if (random.nextInt(5) == 0) {
+                    metrics.addOverriddenMethod(method.getSignature());
+                }
+                if (random.nextInt(5) == 0) {
+                    metrics.addUsedParentMember("member" + m);
+                }
+                metrics.addMethod(method);
+            }
+            allMetrics.add(metrics);
+        }
+        return allMetrics;
+    }
+}
@@ -0,0 +1,75 @@
+package org.hjug.graphbuilder.metrics;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MethodCallGraphTest {
+
+    private static final String CALLEE = "com.example.Callee";
+
+    @Test
+    void countsDistinctCallerMethodsAndClasses() {
+        MethodCallGraph callGraph = new MethodCallGraph();
+        callGraph.recordCall(CALLEE, "update(int)", "com.example.B", "run()");
+        callGraph.recordCall(CALLEE, "update(int)", "com.example.B", "run()");
+        callGraph.recordCall(CALLEE, "update(int)", "com.example.A", "start()");
+        callGraph.recordCall(CALLEE, "update(int)", "com.example.B", "stop()");
+        // repeated after other callers, so only removed when counting
+        callGraph.recordCall(CALLEE, "update(int)", "com.example.B", "run()");
+        callGraph.recordCall(CALLEE, "reset()", "com.example.A", "start()");
+
+        Assertions.assertEquals(3, callGraph.countCallerMethods(CALLEE, "update(int)"));
+        Assertions.assertEquals(2, callGraph.countCallerClasses(CALLEE, "update(int)"));
+        Assertions.assertEquals(1, callGraph.countCallerMethods(CALLEE, "reset()"));
+        Assertions.assertEquals(0, callGraph.countCallerMethods(CALLEE, "unused()"));
+        Assertions.assertEquals(0, callGraph.countCallerClasses("com.example.Unknown", "update(int)"));
+
+        // counting again after more calls arrive
+        callGraph.recordCall(CALLEE, "update(int)", "com.example.C", "run()");
+        Assertions.assertEquals(4, callGraph.countCallerMethods(CALLEE, "update(int)"));
+        Assertions.assertEquals(3, callGraph.countCallerClasses(CALLEE, "update(int)"));
+    }
+
+    @Test
+    void exportsMethodLevelCallGraph() {
+        MethodCallGraph callGraph = new MethodCallGraph();
+        callGraph.recordCall(CALLEE, "update(int)", "com.example.A", "start()");
+        callGraph.recordCall(CALLEE, "update(int)", "com.example.B", "run()");
+        callGraph.recordCall("com.example.A", "start()", "com.example.B", "run()");
+
+        Graph<String, DefaultEdge> graph = callGraph.toGraph();
+
+        Assertions.assertEquals(3, graph.vertexSet().size());
+        Assertions.assertEquals(3, graph.edgeSet().size());
+        Assertions.assertTrue(graph.containsEdge("com.example.B.run()", "com.example.Callee.update(int)"));
+        Assertions.assertTrue(graph.containsEdge("com.example.B.run()", "com.example.A.start()"));
+    }
+
+    @Test
+    void finalizeMetricsSetsChangingMethodsAndClasses() {
+        GraphMetricsCollector collector = new GraphMetricsCollector(
+                new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class),
+                new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class));
+        collector.recordMethodMetric(CALLEE, "update(int)", "LOC", 3);
+        collector.recordMethodMetric(CALLEE, "reset()", "LOC", 1);
+
+        collector.recordIncomingCall(CALLEE, "update(int)", "com.example.A", "start()");
+        collector.recordIncomingCall(CALLEE, "update(int)", "com.example.B", "run()");
+        // concatenated names are split back into class and signature
+        collector.recordIncomingCall(
+                "com.example.Callee.update(int)", "com.example.B", "com.example.B::stop(java.lang.String)");
+
+        collector.finalizeMetrics();
+
+        MethodMetrics update = collector.getClassMetrics(CALLEE).getMethods().get("update(int)");
+        Assertions.assertEquals(3, update.getChangingMethodCount());
+        Assertions.assertEquals(2, update.getChangingClassCount());
+        MethodMetrics reset = collector.getClassMetrics(CALLEE).getMethods().get("reset()");
+        Assertions.assertEquals(0, reset.getChangingMethodCount());
+        Assertions.assertEquals(0, reset.getChangingClassCount());
+    }
+}
@@ -0,0 +1,176 @@
+package org.hjug.graphbuilder.visitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hjug.graphbuilder.GraphDependencyCollector;
+import org.hjug.graphbuilder.metrics.ClassMetrics;
+import org.hjug.graphbuilder.metrics.GraphMetricsCollector;
+import org.hjug.graphbuilder.metrics.MetricsCollectingVisitor;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaParser;
+
+/**
+ * Compares collecting dependencies and metrics in separate traversals against a single fused traversal.
+ * A larger codebase can be included with -DfusedVisitorBenchmark.sourceDirectory=/path/to/src
+ */
+class FusedJavaVisitorBenchmarkTest {
+
+    private static final int ITERATIONS = 5;
+
+    private static final String[] SOURCE_DIRECTORIES = {
+        "../test-resources/src/main/resources",
+        "src/test/java/org/hjug/graphbuilder/metrics/testclasses",
+        "src/test/java/org/hjug/graphbuilder/visitor/testclasses",
+        "src/test/resources/javaSrcDirectory"
+    };
+
+    @Test
+    @DisplayName("Benchmark: two-pass vs fused dependency and metrics collection")
+    void benchmarkFusedTraversal() throws IOException {
+        List<String> directories = new ArrayList<>(List.of(SOURCE_DIRECTORIES));
+        String largeProject = System.getProperty("fusedVisitorBenchmark.sourceDirectory");
+        if (largeProject != null) {
+            directories.add(largeProject);
+        }
+
+        System.out.println("=== Fused Visitor Benchmark ===");
+        System.out.printf(
+                "%-60s %-10s %-10s %-15s %-15s%n", "Source", "Files", "Classes", "Two-pass (ms)", "Fused (ms)");
+
+        for (String directory : directories) {
+            File srcDirectory = new File(directory);
+            if (!srcDirectory.isDirectory()) {
+                continue;
+            }
+
+            ExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+            List<SourceFile> sourceFiles = parse(srcDirectory, ctx);
+            String repositoryPath = srcDirectory.toURI().toString();
+
+            Collected twoPass = null;
+            Collected fused = null;
+            long twoPassNanos = 0;
+            long fusedNanos = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                twoPass = collectInTwoPasses(repositoryPath, sourceFiles, ctx);
+                twoPassNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                fused = collectInOnePass(repositoryPath, sourceFiles, ctx);
+                fusedNanos += System.nanoTime() - start;
+            }
+
+            assertSameResults(twoPass, fused);
+
+            System.out.printf(
+                    "%-60s %-10d %-10d %-15d %-15d%n",
+                    directory,
+                    sourceFiles.size(),
+                    fused.metricsCollector.getAllClassMetrics().size(),
+                    twoPassNanos / ITERATIONS / 1_000_000,
+                    fusedNanos / ITERATIONS / 1_000_000);
+        }
+    }
+
+    private static List<SourceFile> parse(File srcDirectory, ExecutionContext ctx) throws IOException {
+        JavaParser javaParser = JavaParser.fromJavaVersion().build();
+        try (Stream<Path> pathStream = Files.walk(Paths.get(srcDirectory.getAbsolutePath()))) {
+            List<Path> list = pathStream.collect(Collectors.toList());
+            return javaParser
+                    .parse(list, Paths.get(srcDirectory.getAbsolutePath()), ctx)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Collected collectInTwoPasses(
+            String repositoryPath, List<SourceFile> sourceFiles, ExecutionContext ctx) {
+        Collected collected = new Collected();
+        JavaVisitor<ExecutionContext> javaVisitor = new JavaVisitor<>(repositoryPath, collected.dependencyCollector);
+        MetricsCollectingVisitor metricsVisitor = new MetricsCollectingVisitor(collected.metricsCollector);
+        for (SourceFile sourceFile : sourceFiles) {
+            javaVisitor.visit(sourceFile, ctx);
+            metricsVisitor.visit(sourceFile, ctx);
+        }
+        collected.classToSourceFilePathMapping = javaVisitor.getClassToSourceFilePathMapping();
+        return collected;
+    }
+
+    private static Collected collectInOnePass(
+            String repositoryPath, List<SourceFile> sourceFiles, ExecutionContext ctx) {
+        Collected collected = new Collected();
+        FusedJavaVisitor visitor =
+                new FusedJavaVisitor(repositoryPath, collected.dependencyCollector, collected.metricsCollector, true);
+        for (SourceFile sourceFile : sourceFiles) {
+            visitor.visit(sourceFile, ctx);
+        }
+        collected.classToSourceFilePathMapping = visitor.getClassToSourceFilePathMapping();
+        return collected;
+    }
+
+    private static void assertSameResults(Collected expected, Collected actual) {
+        Assertions.assertEquals(edgeWeights(expected.classGraph), edgeWeights(actual.classGraph));
+        Assertions.assertEquals(edgeWeights(expected.packageGraph), edgeWeights(actual.packageGraph));
+        Assertions.assertEquals(expected.classGraph.vertexSet(), actual.classGraph.vertexSet());
+        Assertions.assertEquals(expected.classToSourceFilePathMapping, actual.classToSourceFilePathMapping);
+
+        Map<String, ClassMetrics> expectedMetrics = expected.metricsCollector.getAllClassMetrics();
+        Map<String, ClassMetrics> actualMetrics = actual.metricsCollector.getAllClassMetrics();
+        Assertions.assertEquals(expectedMetrics.keySet(), actualMetrics.keySet());
+        for (Map.Entry<String, ClassMetrics> entry : expectedMetrics.entrySet()) {
+            ClassMetrics expectedClass = entry.getValue();
+            ClassMetrics actualClass = actualMetrics.get(entry.getKey());
+            Assertions.assertEquals(expectedClass.getLinesOfCode(), actualClass.getLinesOfCode(), entry.getKey());
+            Assertions.assertEquals(expectedClass.getAttributes(), actualClass.getAttributes(), entry.getKey());
+            Assertions.assertEquals(
+                    expectedClass.getNumberOfPublicAttributes(),
+                    actualClass.getNumberOfPublicAttributes(),
+                    entry.getKey());
+            Assertions.assertEquals(
+                    expectedClass.getNumberOfProtectedMembers(),
+                    actualClass.getNumberOfProtectedMembers(),
+                    entry.getKey());
+            Assertions.assertEquals(expectedClass.getParentClass(), actualClass.getParentClass(), entry.getKey());
+            Assertions.assertEquals(
+                    expectedClass.getOverriddenMethods(), actualClass.getOverriddenMethods(), entry.getKey());
+            Assertions.assertEquals(
+                    expectedClass.getUsedParentMembers(), actualClass.getUsedParentMembers(), entry.getKey());
+            Assertions.assertEquals(expectedClass.getMethods(), actualClass.getMethods(), entry.getKey());
+        }
+    }
+
+    private static Map<String, Double> edgeWeights(Graph<String, DefaultWeightedEdge> graph) {
+        Map<String, Double> weights = new TreeMap<>();
+        for (DefaultWeightedEdge edge : graph.edgeSet()) {
+            weights.put(graph.getEdgeSource(edge) + " -> " + graph.getEdgeTarget(edge), graph.getEdgeWeight(edge));
+        }
+        return weights;
+    }
+
+    private static class Collected {
+        final Graph<String, DefaultWeightedEdge> classGraph =
+                new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        final Graph<String, DefaultWeightedEdge> packageGraph =
+                new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        final GraphDependencyCollector dependencyCollector = new GraphDependencyCollector(classGraph, packageGraph);
+        final GraphMetricsCollector metricsCollector = new GraphMetricsCollector(classGraph, packageGraph);
+        Map<String, String> classToSourceFilePathMapping;
+    }
+}
@@ -22,6 +22,7 @@ import org.hjug.graphbuilder.CodebaseGraphDTO;
 import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
 import org.hjug.graphbuilder.metrics.DisharmonyDetector.MethodDisharmony;
 import org.hjug.graphbuilder.metrics.DisharmonyTypes;
+import org.hjug.instrumentation.PhaseTimer;
 import org.hjug.metrics.*;
 import org.hjug.metrics.DisharmonyInstance;
 import org.hjug.metrics.DisharmonyRanker;
@@ -227,9 +228,17 @@ public class CostBenefitCalculator implements AutoCloseable {
 
     public <T extends Disharmony> List<ScmLogInfo> getRankedChangeProneness(List<T> disharmonies) {
         log.info("Calculating Change Proneness");
+        try (PhaseTimer.Phase phase = PhaseTimer.start("cbc.changeProneness")) {
+            List<ScmLogInfo> scmLogInfos = rankChangeProneness(disharmonies);
+            phase.count("disharmonies", disharmonies.size()).count("fileLogs", scmLogInfos.size());
+            return scmLogInfos;
+        }
+    }
 
+    private <T extends Disharmony> List<ScmLogInfo> rankChangeProneness(List<T> disharmonies) {
+        // file logs are read on the common pool, and counted in the run of the calling thread
         List<Optional<ScmLogInfo>> scmLogInfos = disharmonies.parallelStream()
-                .map(disharmony -> {
+                .map(PhaseTimer.inCurrentRun((T disharmony) -> {
                     String className = disharmony.getClassName();
                     String path = null;
                     ScmLogInfo scmLogInfo = null;
@@ -252,8 +261,10 @@ public class CostBenefitCalculator implements AutoCloseable {
                     } catch (NullPointerException e) {
                         // Should not be reached
                         log.error(
-                                "Error looking up class SCM info.  If this error is encountered, "
-                                        + "please log a bug on the RefactorFirst project and describe if the class is a nested class, lambda, etc. \nClass: {}, Path: {}",
+                                "Error looking up class SCM info.  If this error is encountered, please log a bug on"
+                                    + " the RefactorFirst project and describe if the class is a nested class, lambda,"
+                                    + " etc. \n"
+                                    + "Class: {}, Path: {}",
                                 className,
                                 path,
                                 e);
@@ -264,7 +275,7 @@ public class CostBenefitCalculator implements AutoCloseable {
                         log.warn("No scmLogInfo found for class: {} at path: {}", className, path);
                     }
                     return scmLogInfoOptional;
-                })
+                }))
                 .collect(Collectors.toList());
 
         List<ScmLogInfo> sortedScmInfos = scmLogInfos.stream()
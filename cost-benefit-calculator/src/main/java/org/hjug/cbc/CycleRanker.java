@@ -1,13 +1,17 @@
 package org.hjug.cbc;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.hjug.dsm.CircularReferenceChecker;
+import org.hjug.dsm.SccDecomposition;
 import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.hjug.graphbuilder.GraphBuilderConfig;
 import org.hjug.graphbuilder.JavaGraphBuilder;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.AsSubgraph;
@@ -19,14 +23,50 @@ public class CycleRanker {
 
     private final String repositoryPath;
 
+    /**
+     * Generated from the repository, or set when the graph was built elsewhere, e.g. merged from the modules of a build
+     */
     @Getter
+    @Setter
     private CodebaseGraphDTO codebaseGraphDTO;
 
+    /**
+     * Dependency jars and class directories used to resolve library types
+     */
+    @Setter
+    private List<Path> classpath = List.of();
+
+    /**
+     * Parse this many Java files at a time, resolving the others from {@link #classesDirectory}. 0 parses all together.
+     */
+    @Setter
+    private int parseChunkSize = 0;
+
+    /**
+     * Heap in use, in megabytes, above which the parse chunk size is halved. 0 keeps the chunk size fixed.
+     */
+    @Setter
+    private long heapBudgetMegabytes = 0;
+
+    /**
+     * Compiled classes of the repository, needed to parse in chunks
+     */
+    @Setter
+    private Path classesDirectory;
+
     // TODO: should this method belong in this class?
     public CodebaseGraphDTO generateClassReferencesGraph(boolean excludeTests, String testSourceDirectory) {
         try {
             JavaGraphBuilder javaGraphBuilder = new JavaGraphBuilder();
-            codebaseGraphDTO = javaGraphBuilder.getCodebaseGraphDTO(repositoryPath, excludeTests, testSourceDirectory);
+            GraphBuilderConfig config = GraphBuilderConfig.builder()
+                    .excludeTests(excludeTests)
+                    .testSourceDirectory(testSourceDirectory)
+                    .classpath(classpath)
+                    .parseChunkSize(parseChunkSize)
+                    .heapBudgetMegabytes(heapBudgetMegabytes)
+                    .classesDirectory(classesDirectory)
+                    .build();
+            codebaseGraphDTO = javaGraphBuilder.getCodebaseGraphDTO(repositoryPath, config);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -35,9 +75,17 @@ public class CycleRanker {
     }
 
     public List<RankedCycle> rankCycles(Graph<String, DefaultWeightedEdge> graph) {
+        return rankCycles(graph, SccDecomposition.of(graph));
+    }
+
+    /**
+     * Same as {@link #rankCycles(Graph)}, reusing the already computed strongly connected components of the graph
+     */
+    public List<RankedCycle> rankCycles(
+            Graph<String, DefaultWeightedEdge> graph, SccDecomposition<String> sccDecomposition) {
         List<RankedCycle> rankedCycles;
         try {
-            rankedCycles = new ArrayList<>(identifyRankedCycles(graph));
+            rankedCycles = new ArrayList<>(identifyRankedCycles(graph, sccDecomposition));
             setPriorities(rankedCycles);
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -46,13 +94,14 @@ public class CycleRanker {
         return rankedCycles;
     }
 
-    private List<RankedCycle> identifyRankedCycles(Graph<String, DefaultWeightedEdge> classReferencesGraph)
+    private List<RankedCycle> identifyRankedCycles(
+            Graph<String, DefaultWeightedEdge> classReferencesGraph, SccDecomposition<String> sccDecomposition)
             throws IOException {
         List<RankedCycle> rankedCycles = new ArrayList<>();
         CircularReferenceChecker<String, DefaultWeightedEdge> circularReferenceChecker =
                 new CircularReferenceChecker<>();
         Map<String, AsSubgraph<String, DefaultWeightedEdge>> cycles =
-                circularReferenceChecker.getCycles(classReferencesGraph);
+                circularReferenceChecker.getCycles(classReferencesGraph, sccDecomposition);
         cycles.forEach((vertex, subGraph) -> {
             List<CycleNode> cycleNodes = subGraph.vertexSet().stream()
                     .map(classInCycle -> new CycleNode(classInCycle, getClassRepoPath(classInCycle)))
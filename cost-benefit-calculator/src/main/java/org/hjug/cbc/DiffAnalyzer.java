@@ -0,0 +1,428 @@
+package org.hjug.cbc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.hjug.cbc.DiffResult.CycleChange;
+import org.hjug.cbc.DiffResult.DisharmonyChange;
+import org.hjug.cbc.DiffResult.RelationshipChange;
+import org.hjug.dsm.SccDecomposition;
+import org.hjug.git.GitLogReader;
+import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.hjug.graphbuilder.CodebaseGraphSnapshot;
+import org.hjug.graphbuilder.GraphBuilderConfig;
+import org.hjug.graphbuilder.GraphFragmentCache;
+import org.hjug.graphbuilder.JavaGraphBuilder;
+import org.hjug.graphbuilder.SourceFileAnalysis;
+import org.hjug.graphbuilder.metrics.DisharmonyDetectionEngine;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.MethodDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyMetric;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+/**
+ * Finds the cycles, class relationships and local disharmonies the changes since HEAD forked from a base ref
+ * introduced, removed or made worse, parsing only the Java files that changed and the files they import.
+ * Disharmonies that depend on the whole codebase are listed as not evaluated.
+ *
+ * The graph of the commit HEAD forked at is read from a snapshot kept by commit ID,
+ * and built once from the Java files of the commit when there is none.
+ * The changed files are parsed from the working tree, which is expected to be checked out at HEAD,
+ * and patched into the graph of the base commit to give the graph of HEAD.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class DiffAnalyzer {
+
+    public static final Path DEFAULT_SNAPSHOT_DIRECTORY =
+            Paths.get(System.getProperty("user.home"), ".refactorfirst", "snapshots");
+
+    private final File baseDir;
+
+    /**
+     * Dependency jars and class directories used to resolve library types
+     */
+    @Setter
+    private List<Path> classpath = List.of();
+
+    /**
+     * Directory holding the snapshot of the graph of each base commit.
+     * Null uses .refactorfirst/snapshots in the user's home directory.
+     */
+    @Setter
+    private Path snapshotDirectory;
+
+    /**
+     * @param baseRef the branch, tag or commit the changes are relative to
+     */
+    public DiffResult analyze(String baseRef, boolean excludeTests, String testSourceDirectory) throws IOException {
+        GraphBuilderConfig config = GraphBuilderConfig.builder()
+                .excludeTests(excludeTests)
+                .testSourceDirectory(testSourceDirectory)
+                .classpath(classpath)
+                .build();
+        JavaGraphBuilder javaGraphBuilder = new JavaGraphBuilder();
+
+        // paths in commits are relative to the root of the repository, which may be above the base directory
+        File sourceRoot = baseDir.getCanonicalFile();
+        String prefix = RepositoryPaths.prefixOf(baseDir);
+
+        try (GitLogReader gitLogReader = new GitLogReader(baseDir)) {
+            String baseCommitId = gitLogReader.findMergeBase(baseRef);
+            if (baseCommitId == null) {
+                throw new IOException("Could not find the commit HEAD forked from " + baseRef + " at");
+            }
+            String headCommitId = gitLogReader.getCurrentCommitHash();
+
+            CodebaseGraphDTO baseGraph = readBaseGraph(gitLogReader, baseCommitId, prefix, config, javaGraphBuilder);
+
+            List<String> changedFiles = new ArrayList<>();
+            List<String> filesToAnalyze = new ArrayList<>();
+            for (Map.Entry<String, String> change :
+                    gitLogReader.diffJavaFilesToHead(baseCommitId).entrySet()) {
+                String path = RepositoryPaths.toSourcePath(change.getKey(), prefix, config);
+                if (path == null) {
+                    continue;
+                }
+                changedFiles.add(path);
+                if (change.getValue() != null) {
+                    filesToAnalyze.add(path);
+                }
+            }
+
+            Collection<SourceFileAnalysis> analyses = filesToAnalyze.isEmpty()
+                    ? List.of()
+                    : javaGraphBuilder
+                            .analyzeSourceFiles(sourceRoot.getPath(), filesToAnalyze, config)
+                            .values();
+            CodebaseGraphDTO headGraph = javaGraphBuilder.patchCodebaseGraph(baseGraph, changedFiles, analyses);
+            log.info(
+                    "Compared HEAD with {}, where it forked from {}, parsing {} changed Java files",
+                    baseCommitId,
+                    baseRef,
+                    filesToAnalyze.size());
+
+            return compare(baseCommitId, headCommitId, changedFiles.size(), baseGraph, headGraph);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private CodebaseGraphDTO readBaseGraph(
+            GitLogReader gitLogReader,
+            String baseCommitId,
+            String prefix,
+            GraphBuilderConfig config,
+            JavaGraphBuilder javaGraphBuilder)
+            throws IOException {
+        List<String> keyParts = new ArrayList<>(List.of(
+                baseCommitId,
+                prefix,
+                String.valueOf(config.isExcludeTests()),
+                String.valueOf(config.getTestSourceDirectory())));
+        config.getClasspath().forEach(path -> keyParts.add(path.toString()));
+        Path snapshot = (snapshotDirectory != null ? snapshotDirectory : DEFAULT_SNAPSHOT_DIRECTORY)
+                .resolve(GraphFragmentCache.combine(keyParts) + ".snapshot");
+
+        if (Files.isRegularFile(snapshot)) {
+            try {
+                CodebaseGraphDTO baseGraph = CodebaseGraphSnapshot.read(snapshot);
+                if (baseGraph != null) {
+                    return baseGraph;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Ignoring unreadable snapshot {}: {}", snapshot, e.getMessage());
+            }
+        }
+
+        log.info("Building the graph of base commit {}", baseCommitId);
+        Path sourceTree = Files.createTempDirectory("refactorfirst-diff").toRealPath();
+        try {
+            for (Map.Entry<String, String> file :
+                    gitLogReader.listJavaFiles(baseCommitId).entrySet()) {
+                String path = RepositoryPaths.toSourcePath(file.getKey(), prefix, config);
+                if (path == null) {
+                    continue;
+                }
+                Path target = sourceTree.resolve(path);
+                Files.createDirectories(target.getParent());
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    gitLogReader.copyBlob(file.getValue(), out);
+                }
+            }
+            CodebaseGraphDTO baseGraph = javaGraphBuilder.getCodebaseGraphDTO(sourceTree.toString(), config);
+            CodebaseGraphSnapshot.write(baseGraph, snapshot);
+            return baseGraph;
+        } finally {
+            RepositoryPaths.deleteRecursively(sourceTree);
+        }
+    }
+
+    static DiffResult compare(
+            String baseCommitId,
+            String headCommitId,
+            int changedFiles,
+            CodebaseGraphDTO baseGraph,
+            CodebaseGraphDTO headGraph) {
+        List<Set<String>> baseClassCycles = cyclesOf(baseGraph.getClassReferencesGraph());
+        List<Set<String>> headClassCycles = cyclesOf(headGraph.getClassReferencesGraph());
+        List<Set<String>> basePackageCycles = cyclesOf(baseGraph.getPackageReferencesGraph());
+        List<Set<String>> headPackageCycles = cyclesOf(headGraph.getPackageReferencesGraph());
+
+        Map<String, Set<String>> baseClassCycleByVertex = cycleIndex(baseClassCycles);
+        Map<String, Set<String>> headClassCycleByVertex = cycleIndex(headClassCycles);
+        Map<String, Set<String>> basePackageCycleByVertex = cycleIndex(basePackageCycles);
+        Map<String, Set<String>> headPackageCycleByVertex = cycleIndex(headPackageCycles);
+
+        List<RelationshipChange> newClassRelationships = new ArrayList<>();
+        List<RelationshipChange> removedClassRelationships = new ArrayList<>();
+        List<RelationshipChange> worsenedClassRelationships = new ArrayList<>();
+        compareRelationships(
+                baseGraph.getClassReferencesGraph(),
+                headGraph.getClassReferencesGraph(),
+                baseClassCycleByVertex,
+                headClassCycleByVertex,
+                newClassRelationships,
+                removedClassRelationships,
+                worsenedClassRelationships);
+
+        List<DisharmonyChange> newDisharmonies = new ArrayList<>();
+        List<DisharmonyChange> removedDisharmonies = new ArrayList<>();
+        List<DisharmonyChange> worsenedDisharmonies = new ArrayList<>();
+        compareDisharmonies(
+                disharmoniesByKey(baseGraph),
+                disharmoniesByKey(headGraph),
+                newDisharmonies,
+                removedDisharmonies,
+                worsenedDisharmonies);
+
+        return new DiffResult(
+                baseCommitId,
+                headCommitId,
+                changedFiles,
+                newCycles(headClassCycles, baseClassCycleByVertex),
+                removedCycles(baseClassCycles, headClassCycleByVertex),
+                worsenedCycles(headClassCycles, baseClassCycleByVertex),
+                newCycles(headPackageCycles, basePackageCycleByVertex),
+                removedCycles(basePackageCycles, headPackageCycleByVertex),
+                worsenedCycles(headPackageCycles, basePackageCycleByVertex),
+                newClassRelationships,
+                removedClassRelationships,
+                worsenedClassRelationships,
+                newDisharmonies,
+                removedDisharmonies,
+                worsenedDisharmonies,
+                DisharmonyDetectionEngine.NON_LOCAL_TYPES);
+    }
+
+    private static List<Set<String>> cyclesOf(Graph<String, DefaultWeightedEdge> graph) {
+        return SccDecomposition.of(graph).getCyclicComponents().stream()
+                .filter(component -> component.size() > 1)
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, Set<String>> cycleIndex(List<Set<String>> cycles) {
+        Map<String, Set<String>> cycleByVertex = new HashMap<>();
+        for (Set<String> cycle : cycles) {
+            cycle.forEach(vertex -> cycleByVertex.put(vertex, cycle));
+        }
+        return cycleByVertex;
+    }
+
+    private static List<CycleChange> newCycles(
+            List<Set<String>> headCycles, Map<String, Set<String>> baseCycleByVertex) {
+        return headCycles.stream()
+                .filter(cycle -> overlapped(cycle, baseCycleByVertex).isEmpty())
+                .map(cycle -> new CycleChange(List.of(), sorted(cycle)))
+                .collect(Collectors.toList());
+    }
+
+    private static List<CycleChange> removedCycles(
+            List<Set<String>> baseCycles, Map<String, Set<String>> headCycleByVertex) {
+        return baseCycles.stream()
+                .filter(cycle -> overlapped(cycle, headCycleByVertex).isEmpty())
+                .map(cycle -> new CycleChange(sorted(cycle), List.of()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the cycles at HEAD holding vertexes that none of the base cycles they overlap held,
+     * e.g. when a cycle grew or two cycles merged
+     */
+    private static List<CycleChange> worsenedCycles(
+            List<Set<String>> headCycles, Map<String, Set<String>> baseCycleByVertex) {
+        List<CycleChange> worsenedCycles = new ArrayList<>();
+        for (Set<String> cycle : headCycles) {
+            Set<String> overlapped = overlapped(cycle, baseCycleByVertex);
+            if (!overlapped.isEmpty() && !overlapped.containsAll(cycle)) {
+                worsenedCycles.add(new CycleChange(sorted(overlapped), sorted(cycle)));
+            }
+        }
+        return worsenedCycles;
+    }
+
+    /**
+     * @return the vertexes of the other cycles the cycle shares a vertex with
+     */
+    private static Set<String> overlapped(Set<String> cycle, Map<String, Set<String>> otherCycleByVertex) {
+        Set<String> overlapped = new HashSet<>();
+        for (String vertex : cycle) {
+            Set<String> otherCycle = otherCycleByVertex.get(vertex);
+            if (otherCycle != null) {
+                overlapped.addAll(otherCycle);
+            }
+        }
+        return overlapped;
+    }
+
+    private static List<String> sorted(Collection<String> values) {
+        return values.stream().sorted().collect(Collectors.toList());
+    }
+
+    private static void compareRelationships(
+            Graph<String, DefaultWeightedEdge> baseGraph,
+            Graph<String, DefaultWeightedEdge> headGraph,
+            Map<String, Set<String>> baseCycleByVertex,
+            Map<String, Set<String>> headCycleByVertex,
+            List<RelationshipChange> newRelationships,
+            List<RelationshipChange> removedRelationships,
+            List<RelationshipChange> worsenedRelationships) {
+        for (DefaultWeightedEdge headEdge : headGraph.edgeSet()) {
+            String source = headGraph.getEdgeSource(headEdge);
+            String target = headGraph.getEdgeTarget(headEdge);
+            double headWeight = headGraph.getEdgeWeight(headEdge);
+            boolean inCycle = inSameCycle(headCycleByVertex, source, target);
+            DefaultWeightedEdge baseEdge = baseGraph.containsVertex(source) && baseGraph.containsVertex(target)
+                    ? baseGraph.getEdge(source, target)
+                    : null;
+            if (baseEdge == null) {
+                newRelationships.add(new RelationshipChange(source, target, 0, headWeight, inCycle));
+            } else if (inCycle && headWeight > baseGraph.getEdgeWeight(baseEdge)) {
+                worsenedRelationships.add(
+                        new RelationshipChange(source, target, baseGraph.getEdgeWeight(baseEdge), headWeight, true));
+            }
+        }
+        for (DefaultWeightedEdge baseEdge : baseGraph.edgeSet()) {
+            String source = baseGraph.getEdgeSource(baseEdge);
+            String target = baseGraph.getEdgeTarget(baseEdge);
+            if (!headGraph.containsVertex(source)
+                    || !headGraph.containsVertex(target)
+                    || headGraph.getEdge(source, target) == null) {
+                removedRelationships.add(new RelationshipChange(
+                        source,
+                        target,
+                        baseGraph.getEdgeWeight(baseEdge),
+                        0,
+                        inSameCycle(baseCycleByVertex, source, target)));
+            }
+        }
+    }
+
+    private static boolean inSameCycle(Map<String, Set<String>> cycleByVertex, String source, String target) {
+        Set<String> cycle = cycleByVertex.get(source);
+        return cycle != null && cycle.contains(target);
+    }
+
+    /**
+     * @return the local disharmonies of the graph, as the others are not found in the patched graph of HEAD
+     */
+    private static Map<String, Disharmony> disharmoniesByKey(CodebaseGraphDTO codebaseGraph) {
+        Map<String, Disharmony> disharmonies = new LinkedHashMap<>();
+        for (ClassDisharmony disharmony : codebaseGraph.getClassDisharmonies()) {
+            if (!DisharmonyDetectionEngine.isLocal(disharmony.getDisharmonyType())) {
+                continue;
+            }
+            disharmonies.put(
+                    disharmony.getDisharmonyType() + "\n" + disharmony.getClassName(),
+                    new Disharmony(
+                            disharmony.getDisharmonyType(),
+                            disharmony.getClassName(),
+                            null,
+                            disharmony.getDescription(),
+                            disharmony.getMetricValues()));
+        }
+        for (MethodDisharmony disharmony : codebaseGraph.getMethodDisharmonies()) {
+            if (!DisharmonyDetectionEngine.isLocal(disharmony.getDisharmonyType())) {
+                continue;
+            }
+            disharmonies.put(
+                    disharmony.getDisharmonyType() + "\n" + disharmony.getClassName() + "\n"
+                            + disharmony.getMethodSignature(),
+                    new Disharmony(
+                            disharmony.getDisharmonyType(),
+                            disharmony.getClassName(),
+                            disharmony.getMethodSignature(),
+                            disharmony.getDescription(),
+                            disharmony.getMetricValues()));
+        }
+        return disharmonies;
+    }
+
+    private static void compareDisharmonies(
+            Map<String, Disharmony> baseDisharmonies,
+            Map<String, Disharmony> headDisharmonies,
+            List<DisharmonyChange> newDisharmonies,
+            List<DisharmonyChange> removedDisharmonies,
+            List<DisharmonyChange> worsenedDisharmonies) {
+        headDisharmonies.forEach((key, head) -> {
+            Disharmony base = baseDisharmonies.get(key);
+            if (base == null) {
+                newDisharmonies.add(head.change(null, head.getMetrics()));
+            } else if (isWorse(base.getMetrics(), head.getMetrics())) {
+                worsenedDisharmonies.add(head.change(base.getMetrics(), head.getMetrics()));
+            }
+        });
+        baseDisharmonies.forEach((key, base) -> {
+            if (!headDisharmonies.containsKey(key)) {
+                removedDisharmonies.add(base.change(base.getMetrics(), null));
+            }
+        });
+    }
+
+    /**
+     * @return true if a metric went up where higher values are worse, or down where lower values are worse
+     */
+    private static boolean isWorse(List<DisharmonyMetric> baseMetrics, List<DisharmonyMetric> headMetrics) {
+        Map<String, Double> baseValues = new HashMap<>();
+        baseMetrics.forEach(metric -> baseValues.put(metric.getName(), metric.getValue()));
+        for (DisharmonyMetric metric : headMetrics) {
+            Double baseValue = baseValues.get(metric.getName());
+            if (baseValue == null) {
+                continue;
+            }
+            boolean worse = metric.getDirection() == DisharmonyMetric.Direction.ASCENDING
+                    ? metric.getValue() > baseValue
+                    : metric.getValue() < baseValue;
+            if (worse) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Value
+    private static class Disharmony {
+        String disharmonyType;
+        String className;
+        String methodSignature;
+        String description;
+        List<DisharmonyMetric> metrics;
+
+        DisharmonyChange change(List<DisharmonyMetric> baseMetrics, List<DisharmonyMetric> headMetrics) {
+            return new DisharmonyChange(
+                    disharmonyType, className, methodSignature, description, baseMetrics, headMetrics);
+        }
+    }
+}
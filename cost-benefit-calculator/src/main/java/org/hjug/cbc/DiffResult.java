@@ -0,0 +1,106 @@
+package org.hjug.cbc;
+
+import java.util.List;
+import lombok.Value;
+import org.hjug.graphbuilder.metrics.DisharmonyMetric;
+
+/**
+ * Cycles, class relationships and disharmonies a branch introduced, removed or made worse
+ * relative to the commit it forked from
+ */
+@Value
+public class DiffResult {
+
+    /**
+     * The commit HEAD forked from the base ref at
+     */
+    String baseCommitId;
+
+    String headCommitId;
+
+    /**
+     * Java files changed, added or deleted since the base commit
+     */
+    int changedFiles;
+
+    List<CycleChange> newClassCycles;
+    List<CycleChange> removedClassCycles;
+    List<CycleChange> worsenedClassCycles;
+
+    List<CycleChange> newPackageCycles;
+    List<CycleChange> removedPackageCycles;
+    List<CycleChange> worsenedPackageCycles;
+
+    List<RelationshipChange> newClassRelationships;
+    List<RelationshipChange> removedClassRelationships;
+
+    /**
+     * Relationships in a class cycle with a greater weight than at the base commit
+     */
+    List<RelationshipChange> worsenedClassRelationships;
+
+    List<DisharmonyChange> newDisharmonies;
+    List<DisharmonyChange> removedDisharmonies;
+    List<DisharmonyChange> worsenedDisharmonies;
+
+    /**
+     * Disharmony types that depend on the whole codebase, which are not compared since only the changed files
+     * are parsed. New or worsened disharmonies of these types are not reported.
+     */
+    List<String> disharmonyTypesNotEvaluated;
+
+    /**
+     * @return true if the branch introduced or worsened a cycle, a relationship in a cycle, or a disharmony
+     */
+    public boolean hasRegressions() {
+        return !newClassCycles.isEmpty()
+                || !worsenedClassCycles.isEmpty()
+                || !newPackageCycles.isEmpty()
+                || !worsenedPackageCycles.isEmpty()
+                || newClassRelationships.stream().anyMatch(RelationshipChange::isInCycle)
+                || !worsenedClassRelationships.isEmpty()
+                || !newDisharmonies.isEmpty()
+                || !worsenedDisharmonies.isEmpty();
+    }
+
+    /**
+     * A strongly connected component with more than one vertex, at the base commit and at HEAD.
+     * A new cycle has no base vertexes and a removed cycle no head vertexes.
+     * A worsened cycle holds vertexes at HEAD that were not in any cycle it overlapped at the base commit.
+     */
+    @Value
+    public static class CycleChange {
+        List<String> baseVertexes;
+        List<String> headVertexes;
+    }
+
+    /**
+     * A class relationship, with a weight of 0 where it does not exist
+     */
+    @Value
+    public static class RelationshipChange {
+        String source;
+        String target;
+        double baseWeight;
+        double headWeight;
+
+        /**
+         * True if the relationship is in a class cycle at HEAD, or at the base commit if it was removed
+         */
+        boolean inCycle;
+    }
+
+    /**
+     * A disharmony of a class, or of a method if the method signature is not null.
+     * A new disharmony has no base metrics and a removed disharmony no head metrics.
+     */
+    @Value
+    public static class DisharmonyChange {
+        String disharmonyType;
+        String className;
+        String methodSignature;
+        String description;
+        List<DisharmonyMetric> baseMetrics;
+        List<DisharmonyMetric> headMetrics;
+    }
+}
@@ -0,0 +1,63 @@
+package org.hjug.cbc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.hjug.git.GitLogReader;
+import org.hjug.graphbuilder.GraphBuilderConfig;
+
+/**
+ * Maps the paths of files in commits, which are relative to the root of the repository, to the base directory
+ * analyzed, which may be below it
+ */
+@Slf4j
+final class RepositoryPaths {
+
+    private RepositoryPaths() {}
+
+    /**
+     * @return the path of the base directory relative to the root of its repository, ending with a slash,
+     * or empty if the base directory is the root
+     */
+    static String prefixOf(File baseDir) throws IOException {
+        Path workTree = GitLogReader.getGitDir(baseDir)
+                .getCanonicalFile()
+                .getParentFile()
+                .toPath();
+        String basePath = workTree.relativize(baseDir.getCanonicalFile().toPath())
+                .toString()
+                .replace(File.separatorChar, '/');
+        return basePath.isEmpty() ? "" : basePath + "/";
+    }
+
+    /**
+     * @return the path relative to the base directory, or null if the file is outside it or an excluded test
+     */
+    static String toSourcePath(String repositoryPath, String prefix, GraphBuilderConfig config) {
+        if (!repositoryPath.startsWith(prefix)) {
+            return null;
+        }
+        String path = repositoryPath.substring(prefix.length());
+        if (config.isExcludeTests() && Paths.get(path).toString().contains(config.getTestSourceDirectory())) {
+            return null;
+        }
+        return path;
+    }
+
+    /**
+     * Deletes a temporary source tree, logging rather than failing if part of it cannot be deleted
+     */
+    static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.hjug.cbc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hjug.dsm.SccDecomposition;
+import org.hjug.feedback.CycleRemovalComputer;
+import org.hjug.feedback.FeedbackArcSetStrategy;
+import org.hjug.feedback.FeedbackArcSetStrategySelector;
+import org.hjug.git.CommitChanges;
+import org.hjug.git.GitLogReader;
+import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.hjug.graphbuilder.CodebaseGraphFragment;
+import org.hjug.graphbuilder.GraphBuilderConfig;
+import org.hjug.graphbuilder.GraphFragmentCache;
+import org.hjug.graphbuilder.JavaGraphBuilder;
+import org.hjug.graphbuilder.SourceFileAnalysis;
+import org.hjug.graphbuilder.SourceFileHeader;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyTypes;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+/**
+ * Measures the codebase at each of the most recent commits without checking them out or parsing every file of each.
+ *
+ * The Java files of the oldest commit are written to a source tree in a temporary directory,
+ * and each later commit writes only the files it changed.
+ * Files are analyzed one at a time and their analysis is kept by the ID of their blob and the files of the packages
+ * their type names resolve against, so a file is parsed again only when its content is new or a type it may refer to
+ * was added, moved or removed, and a file reverted to an earlier version is not parsed again.
+ * The graph of each commit is merged from the analyses of its files and measured.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class TrendAnalyzer {
+
+    private final File baseDir;
+
+    /**
+     * Dependency jars and class directories used to resolve library types
+     */
+    @Setter
+    private List<Path> classpath = List.of();
+
+    /**
+     * Cycle removal algorithm to use for every strongly connected component.
+     * Null or "auto" picks an algorithm per component based on its size and density.
+     */
+    @Setter
+    private String cycleRemovalStrategy;
+
+    /**
+     * @param maxCommits the number of commits along the first parent of HEAD to measure
+     * @return a measure of each commit, oldest first
+     */
+    public List<TrendPoint> analyze(int maxCommits, boolean excludeTests, String testSourceDirectory)
+            throws IOException {
+        GraphBuilderConfig config = GraphBuilderConfig.builder()
+                .excludeTests(excludeTests)
+                .testSourceDirectory(testSourceDirectory)
+                .classpath(classpath)
+                .build();
+        JavaGraphBuilder javaGraphBuilder = new JavaGraphBuilder();
+        CycleRemovalComputer cycleRemovalComputer = new CycleRemovalComputer(
+                FeedbackArcSetStrategySelector.withOverride(FeedbackArcSetStrategy.fromName(cycleRemovalStrategy)));
+
+        // paths in commits are relative to the root of the repository, which may be above the base directory
+        String prefix = RepositoryPaths.prefixOf(baseDir);
+
+        Path sourceTree = Files.createTempDirectory("refactorfirst-trend");
+        try (GitLogReader gitLogReader = new GitLogReader(baseDir)) {
+            List<CommitChanges> commits = gitLogReader.walkJavaFileChanges(maxCommits);
+            Map<String, String> blobIdsByPath = new HashMap<>();
+            Map<String, SourceFileHeader> headersByBlobId = new HashMap<>();
+            Map<String, SourceFileAnalysis> analysesByKey = new HashMap<>();
+            List<TrendPoint> trend = new ArrayList<>(commits.size());
+
+            for (CommitChanges commit : commits) {
+                for (Map.Entry<String, String> change : commit.getChangedFiles().entrySet()) {
+                    String path = RepositoryPaths.toSourcePath(change.getKey(), prefix, config);
+                    if (path == null) {
+                        continue;
+                    }
+
+                    Path file = sourceTree.resolve(path);
+                    String blobId = change.getValue();
+                    if (blobId == null) {
+                        Files.deleteIfExists(file);
+                        blobIdsByPath.remove(path);
+                        continue;
+                    }
+                    Files.createDirectories(file.getParent());
+                    try (OutputStream out = Files.newOutputStream(file)) {
+                        gitLogReader.copyBlob(blobId, out);
+                    }
+                    blobIdsByPath.put(path, blobId);
+                    if (!headersByBlobId.containsKey(blobId)) {
+                        headersByBlobId.put(blobId, SourceFileHeader.read(file));
+                    }
+                }
+
+                Map<String, String> keysByPath = analysisKeys(blobIdsByPath, headersByBlobId);
+                List<String> pathsToAnalyze = keysByPath.entrySet().stream()
+                        .filter(entry -> !analysesByKey.containsKey(entry.getValue()))
+                        .map(Map.Entry::getKey)
+                        .sorted()
+                        .collect(Collectors.toList());
+                if (!pathsToAnalyze.isEmpty()) {
+                    javaGraphBuilder
+                            .analyzeSourceFiles(sourceTree.toString(), pathsToAnalyze, config)
+                            .forEach((path, analysis) -> analysesByKey.put(keysByPath.get(path), analysis));
+                }
+
+                List<SourceFileAnalysis> analyses = keysByPath.values().stream()
+                        .map(analysesByKey::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+                trend.add(measure(
+                        commit,
+                        blobIdsByPath.size(),
+                        pathsToAnalyze.size(),
+                        analyses,
+                        javaGraphBuilder,
+                        cycleRemovalComputer));
+                log.info(
+                        "Measured commit {} ({} of {}), parsing {} of {} Java files",
+                        commit.getCommitId(),
+                        trend.size(),
+                        commits.size(),
+                        pathsToAnalyze.size(),
+                        blobIdsByPath.size());
+            }
+            return trend;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        } finally {
+            RepositoryPaths.deleteRecursively(sourceTree);
+        }
+    }
+
+    /**
+     * The attribution of a file depends on its content and on which types exist in the packages its names
+     * resolve against, so the key combines its blob ID with the paths of the files of each of those packages.
+     *
+     * @return the key of the analysis of each file, keyed by its path
+     */
+    private static Map<String, String> analysisKeys(
+            Map<String, String> blobIdsByPath, Map<String, SourceFileHeader> headersByBlobId) {
+        Map<String, SortedSet<String>> pathsByPackage = new HashMap<>();
+        blobIdsByPath.forEach((path, blobId) -> pathsByPackage
+                .computeIfAbsent(headersByBlobId.get(blobId).getPackageName(), packageName -> new TreeSet<>())
+                .add(path));
+        Map<String, String> packageKeys = new HashMap<>();
+        pathsByPackage.forEach((packageName, paths) -> packageKeys.put(packageName, GraphFragmentCache.combine(paths)));
+
+        Map<String, String> keysByPath = new HashMap<>();
+        blobIdsByPath.forEach((path, blobId) -> {
+            List<String> keyParts = new ArrayList<>();
+            keyParts.add(blobId);
+            for (String packageName : headersByBlobId.get(blobId).resolutionPackages()) {
+                keyParts.add(packageName);
+                keyParts.add(packageKeys.getOrDefault(packageName, ""));
+            }
+            keysByPath.put(path, GraphFragmentCache.combine(keyParts));
+        });
+        return keysByPath;
+    }
+
+    private static TrendPoint measure(
+            CommitChanges commit,
+            int javaFiles,
+            int javaFilesParsed,
+            List<SourceFileAnalysis> analyses,
+            JavaGraphBuilder javaGraphBuilder,
+            CycleRemovalComputer cycleRemovalComputer) {
+        List<CodebaseGraphFragment> fragments =
+                analyses.stream().map(SourceFileAnalysis::getFragment).collect(Collectors.toList());
+        CodebaseGraphDTO codebaseGraph = javaGraphBuilder.mergeFragments(fragments);
+        Graph<String, DefaultWeightedEdge> classGraph = codebaseGraph.getClassReferencesGraph();
+        Graph<String, DefaultWeightedEdge> packageGraph = codebaseGraph.getPackageReferencesGraph();
+
+        SccDecomposition<String> classSccs = SccDecomposition.of(classGraph);
+        List<Set<String>> classCycles = cyclesOf(classSccs);
+        List<Set<String>> packageCycles = cyclesOf(SccDecomposition.of(packageGraph));
+        Set<String> godClasses = analyses.stream()
+                .flatMap(analysis -> analysis.getClassDisharmonies().stream())
+                .filter(disharmony -> DisharmonyTypes.GOD_CLASS.equals(disharmony.getDisharmonyType()))
+                .map(ClassDisharmony::getClassName)
+                .collect(Collectors.toSet());
+
+        return new TrendPoint(
+                commit.getCommitId(),
+                commit.getCommitTime(),
+                javaFiles,
+                javaFilesParsed,
+                classGraph.vertexSet().size(),
+                classGraph.edgeSet().size(),
+                packageGraph.vertexSet().size(),
+                classCycles.size(),
+                classCycles.stream().mapToInt(Set::size).sum(),
+                packageCycles.size(),
+                classCycles.isEmpty()
+                        ? 0
+                        : cycleRemovalComputer
+                                .computeEdgesToRemove(classGraph, classSccs)
+                                .size(),
+                godClasses.size());
+    }
+
+    private static List<Set<String>> cyclesOf(SccDecomposition<String> sccDecomposition) {
+        return sccDecomposition.getCyclicComponents().stream()
+                .filter(component -> component.size() > 1)
+                .collect(Collectors.toList());
+    }
+}
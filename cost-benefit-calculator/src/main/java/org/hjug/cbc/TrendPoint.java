@@ -0,0 +1,39 @@
+package org.hjug.cbc;
+
+import lombok.Value;
+
+/**
+ * Size, cycle and God Class measures of the codebase at one commit
+ */
+@Value
+public class TrendPoint {
+
+    String commitId;
+    int commitTime;
+
+    int javaFiles;
+
+    /**
+     * Java files parsed for the commit, those with content not seen in an earlier commit
+     */
+    int javaFilesParsed;
+
+    int classes;
+    int classRelationships;
+    int packages;
+
+    /**
+     * Strongly connected components of the class graph with more than one class
+     */
+    int classCycles;
+
+    int classesInCycles;
+    int packageCycles;
+
+    /**
+     * Size of the feedback arc set of the class graph, the relationships to remove to break every class cycle
+     */
+    int classRelationshipsToRemove;
+
+    int godClasses;
+}
@@ -0,0 +1,55 @@
+package org.hjug.cbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.hjug.dsm.SccDecomposition;
+import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CycleRankerTest {
+
+    @Test
+    void ranksCyclesFromASharedDecomposition() {
+        Graph<String, DefaultWeightedEdge> graph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        addEdge(graph, "a.A", "a.B");
+        addEdge(graph, "a.B", "a.A");
+        addEdge(graph, "a.B", "a.C");
+        addEdge(graph, "a.D", "a.E");
+        addEdge(graph, "a.E", "a.F");
+        addEdge(graph, "a.F", "a.D");
+
+        CycleRanker cycleRanker = new CycleRanker("");
+        cycleRanker.setCodebaseGraphDTO(new CodebaseGraphDTO(
+                graph,
+                new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class),
+                Map.of(),
+                graph.vertexSet().stream().collect(Collectors.toMap(name -> name, name -> name + ".java")),
+                new ArrayList<>(),
+                new ArrayList<>()));
+
+        List<RankedCycle> shared = cycleRanker.rankCycles(graph, SccDecomposition.of(graph));
+        List<RankedCycle> own = cycleRanker.rankCycles(graph);
+
+        Assertions.assertEquals(2, shared.size());
+        Assertions.assertEquals(vertexSets(own), vertexSets(shared));
+        Assertions.assertEquals(1, shared.get(0).getPriority());
+    }
+
+    private static List<String> vertexSets(List<RankedCycle> cycles) {
+        return cycles.stream()
+                .map(cycle -> cycle.getVertexSet().stream().sorted().collect(Collectors.joining(",")))
+                .collect(Collectors.toList());
+    }
+
+    private static void addEdge(Graph<String, DefaultWeightedEdge> graph, String source, String target) {
+        graph.addVertex(source);
+        graph.addVertex(target);
+        graph.setEdgeWeight(graph.addEdge(source, target), 1);
+    }
+}
@@ -0,0 +1,186 @@
+package org.hjug.cbc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.hjug.cbc.DiffResult.CycleChange;
+import org.hjug.cbc.DiffResult.RelationshipChange;
+import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyMetric;
+import org.hjug.graphbuilder.metrics.DisharmonyMetric.Direction;
+import org.hjug.graphbuilder.metrics.DisharmonyTypes;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiffAnalyzerTest {
+
+    @TempDir
+    public File tempFolder;
+
+    private Git git;
+
+    @BeforeEach
+    public void setUp() throws GitAPIException {
+        git = Git.init().setDirectory(tempFolder).call();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    void reportsCyclesTheBranchIntroduced() throws Exception {
+        writeFile("src/main/java/p/A.java", "package p; public class A { B b; }");
+        writeFile("src/main/java/p/B.java", "package p; public class B { }");
+        writeFile("src/main/java/p/C.java", "package p; public class C { }");
+        commit();
+        git.branchCreate().setName("base").call();
+
+        // B now refers back to A, and C is gone
+        writeFile("src/main/java/p/B.java", "package p; public class B { A a; }");
+        git.rm().addFilepattern("src/main/java/p/C.java").call();
+        commit();
+
+        DiffAnalyzer diffAnalyzer = new DiffAnalyzer(new File(tempFolder, "src"));
+        diffAnalyzer.setSnapshotDirectory(new File(tempFolder, "snapshots").toPath());
+        DiffResult diff = diffAnalyzer.analyze("base", true, "src" + File.separator + "test");
+
+        Assertions.assertEquals(2, diff.getChangedFiles());
+        Assertions.assertEquals(List.of(new CycleChange(List.of(), List.of("p.A", "p.B"))), diff.getNewClassCycles());
+        Assertions.assertEquals(Set.of("p.B->p.A"), names(diff.getNewClassRelationships()));
+        Assertions.assertTrue(diff.getNewClassRelationships().get(0).isInCycle());
+        Assertions.assertTrue(diff.hasRegressions());
+
+        // the second comparison reads the graph of the base commit from its snapshot
+        Assertions.assertEquals(1, new File(tempFolder, "snapshots").list().length);
+        Assertions.assertEquals(
+                diff.getNewClassCycles(),
+                diffAnalyzer
+                        .analyze("base", true, "src" + File.separator + "test")
+                        .getNewClassCycles());
+    }
+
+    @Test
+    void comparesCyclesRelationshipsAndDisharmonies() {
+        Graph<String, DefaultWeightedEdge> baseGraph = graph(Map.of("a.A", "a.B", "a.B", "a.A", "a.D", "a.E"));
+        baseGraph.addVertex("a.C");
+        baseGraph.setEdgeWeight(baseGraph.addEdge("a.E", "a.D"), 1);
+        // A and B now cycle through C, and D no longer refers to E
+        Graph<String, DefaultWeightedEdge> headGraph = graph(Map.of("a.A", "a.B", "a.B", "a.C", "a.C", "a.A"));
+        headGraph.setEdgeWeight(headGraph.addEdge("a.B", "a.A"), 2);
+
+        ClassDisharmony baseGodClass = godClass("a.A", 5);
+        ClassDisharmony headGodClass = godClass("a.A", 8);
+        ClassDisharmony removedGodClass = godClass("a.D", 9);
+
+        DiffResult diff = DiffAnalyzer.compare(
+                "base",
+                "head",
+                3,
+                codebaseGraph(baseGraph, List.of(baseGodClass, removedGodClass)),
+                codebaseGraph(headGraph, List.of(headGodClass)));
+
+        Assertions.assertEquals(
+                List.of(new CycleChange(List.of("a.A", "a.B"), List.of("a.A", "a.B", "a.C"))),
+                diff.getWorsenedClassCycles());
+        Assertions.assertTrue(diff.getNewClassCycles().isEmpty());
+        Assertions.assertEquals(
+                List.of(new CycleChange(List.of("a.D", "a.E"), List.of())), diff.getRemovedClassCycles());
+
+        Assertions.assertEquals(Set.of("a.B->a.C", "a.C->a.A"), names(diff.getNewClassRelationships()));
+        Assertions.assertEquals(Set.of("a.D->a.E", "a.E->a.D"), names(diff.getRemovedClassRelationships()));
+        Assertions.assertEquals(
+                List.of(new RelationshipChange("a.B", "a.A", 1, 2, true)), diff.getWorsenedClassRelationships());
+
+        Assertions.assertTrue(diff.getNewDisharmonies().isEmpty());
+        Assertions.assertEquals(1, diff.getWorsenedDisharmonies().size());
+        Assertions.assertEquals(
+                baseGodClass.getMetricValues(),
+                diff.getWorsenedDisharmonies().get(0).getBaseMetrics());
+        Assertions.assertEquals("a.D", diff.getRemovedDisharmonies().get(0).getClassName());
+        Assertions.assertTrue(diff.hasRegressions());
+    }
+
+    @Test
+    void listsDisharmoniesOfTheWholeCodebaseAsNotEvaluated() {
+        Graph<String, DefaultWeightedEdge> classGraph = graph(Map.of("a.A", "a.B"));
+        ClassDisharmony duplication = new ClassDisharmony(
+                "a.A",
+                DisharmonyTypes.SIGNIFICANT_DUPLICATION,
+                "Significant Duplication detected",
+                null,
+                List.of(new DisharmonyMetric("SDL", 20, Direction.ASCENDING)));
+
+        // the patched graph of HEAD has no duplication, which is not a sign that it was removed
+        DiffResult diff = DiffAnalyzer.compare(
+                "base",
+                "head",
+                1,
+                codebaseGraph(classGraph, List.of(duplication)),
+                codebaseGraph(classGraph, List.of()));
+
+        Assertions.assertTrue(diff.getRemovedDisharmonies().isEmpty());
+        Assertions.assertTrue(diff.getDisharmonyTypesNotEvaluated().contains(DisharmonyTypes.SIGNIFICANT_DUPLICATION));
+        Assertions.assertFalse(diff.getDisharmonyTypesNotEvaluated().contains(DisharmonyTypes.GOD_CLASS));
+    }
+
+    private static Graph<String, DefaultWeightedEdge> graph(Map<String, String> edges) {
+        Graph<String, DefaultWeightedEdge> graph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        edges.forEach((source, target) -> {
+            graph.addVertex(source);
+            graph.addVertex(target);
+            graph.setEdgeWeight(graph.addEdge(source, target), 1);
+        });
+        return graph;
+    }
+
+    private static CodebaseGraphDTO codebaseGraph(
+            Graph<String, DefaultWeightedEdge> classGraph, List<ClassDisharmony> classDisharmonies) {
+        Graph<String, DefaultWeightedEdge> packageGraph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        packageGraph.addVertex("a");
+        return new CodebaseGraphDTO(classGraph, packageGraph, Map.of(), Map.of(), classDisharmonies, new ArrayList<>());
+    }
+
+    private static ClassDisharmony godClass(String className, int accessToForeignData) {
+        return new ClassDisharmony(
+                className,
+                DisharmonyTypes.GOD_CLASS,
+                "God Class detected",
+                null,
+                List.of(new DisharmonyMetric("ATFD", accessToForeignData, Direction.ASCENDING)));
+    }
+
+    private static Set<String> names(List<RelationshipChange> relationships) {
+        Set<String> names = new HashSet<>();
+        relationships.forEach(relationship -> names.add(relationship.getSource() + "->" + relationship.getTarget()));
+        return names;
+    }
+
+    private void writeFile(String name, String content) throws IOException {
+        File file = new File(tempFolder, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(UTF_8));
+    }
+
+    private void commit() throws GitAPIException {
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("message").call();
+    }
+}
@@ -0,0 +1,104 @@
+package org.hjug.cbc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TrendAnalyzerTest {
+
+    @TempDir
+    public File tempFolder;
+
+    private Git git;
+
+    @BeforeEach
+    public void setUp() throws GitAPIException {
+        git = Git.init().setDirectory(tempFolder).call();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    void measuresEachCommitParsingOnlyChangedFiles() throws Exception {
+        writeFile("src/main/java/p/A.java", "package p; public class A { B b; }");
+        writeFile("src/main/java/p/B.java", "package p; public class B { C c; }");
+        writeFile("src/main/java/p/C.java", "package p; public class C { A a; }");
+        commit();
+
+        // C no longer refers to A, which breaks the cycle
+        writeFile("src/main/java/p/C.java", "package p; public class C { }");
+        commit();
+
+        // restoring C reuses its first analysis
+        writeFile("src/main/java/p/C.java", "package p; public class C { A a; }");
+        commit();
+
+        List<TrendPoint> trend =
+                new TrendAnalyzer(new File(tempFolder, "src")).analyze(10, true, "src" + File.separator + "test");
+
+        Assertions.assertEquals(3, trend.size());
+        Assertions.assertEquals(3, trend.get(0).getJavaFiles());
+        Assertions.assertEquals(3, trend.get(0).getJavaFilesParsed());
+        Assertions.assertEquals(3, trend.get(0).getClasses());
+        Assertions.assertEquals(1, trend.get(0).getClassCycles());
+        Assertions.assertEquals(3, trend.get(0).getClassesInCycles());
+        Assertions.assertEquals(1, trend.get(0).getClassRelationshipsToRemove());
+
+        Assertions.assertEquals(1, trend.get(1).getJavaFilesParsed());
+        Assertions.assertEquals(0, trend.get(1).getClassCycles());
+        Assertions.assertEquals(0, trend.get(1).getClassRelationshipsToRemove());
+
+        Assertions.assertEquals(0, trend.get(2).getJavaFilesParsed());
+        Assertions.assertEquals(1, trend.get(2).getClassCycles());
+    }
+
+    @Test
+    void parsesUnchangedFilesAgainWhenTheTypesTheyMayReferToMove() throws Exception {
+        writeFile("src/main/java/p/A.java", "package p; import q.*; public class A { B b; }");
+        writeFile("src/main/java/r/B.java", "package r; public class B { }");
+        commit();
+
+        // B moves into the package A imports, so A now refers to it although A is unchanged
+        git.rm().addFilepattern("src/main/java/r/B.java").call();
+        writeFile("src/main/java/q/B.java", "package q; public class B { }");
+        commit();
+
+        // changing B without moving it leaves the types A may refer to as they were
+        writeFile("src/main/java/q/B.java", "package q; public class B { int size; }");
+        commit();
+
+        List<TrendPoint> trend =
+                new TrendAnalyzer(new File(tempFolder, "src")).analyze(10, true, "src" + File.separator + "test");
+
+        Assertions.assertEquals(3, trend.size());
+        Assertions.assertEquals(2, trend.get(0).getJavaFilesParsed());
+        Assertions.assertEquals(2, trend.get(1).getJavaFilesParsed());
+        Assertions.assertEquals(1, trend.get(1).getClassRelationships());
+        Assertions.assertEquals(1, trend.get(2).getJavaFilesParsed());
+        Assertions.assertEquals(1, trend.get(2).getClassRelationships());
+    }
+
+    private void writeFile(String name, String content) throws IOException {
+        File file = new File(tempFolder, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(UTF_8));
+    }
+
+    private void commit() throws GitAPIException {
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("message").call();
+    }
+}
@@ -2,6 +2,7 @@ package org.hjug.dsm;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.jgrapht.Graph;
 import org.jgrapht.alg.cycle.CycleDetector;
@@ -20,13 +21,25 @@ public class CircularReferenceChecker<V, E> {
      * @return a Map of unique cycles in the graph
      */
     public Map<V, AsSubgraph<V, E>> getCycles(Graph<V, E> graph) {
+        return getCycles(graph, SccDecomposition.of(graph));
+    }
+
+    /**
+     * Same as {@link #getCycles(Graph)}, reusing an SCC decomposition of the graph
+     * that has already been computed
+     *
+     * @param graph
+     * @param sccDecomposition the strongly connected components of the graph
+     * @return a Map of unique cycles in the graph
+     */
+    public Map<V, AsSubgraph<V, E>> getCycles(Graph<V, E> graph, SccDecomposition<V> sccDecomposition) {
 
         if (!uniqueSubGraphs.isEmpty()) {
             return uniqueSubGraphs;
         }
 
         // use CycleDetector.findCycles()?
-        Map<V, AsSubgraph<V, E>> cycles = detectCycles(graph);
+        Map<V, AsSubgraph<V, E>> cycles = detectCycles(graph, sccDecomposition);
 
         cycles.forEach((vertex, subGraph) -> {
             int vertexCount = subGraph.vertexSet().size();
@@ -56,13 +69,25 @@ public class CircularReferenceChecker<V, E> {
         return false;
     }
 
-    private Map<V, AsSubgraph<V, E>> detectCycles(Graph<V, E> graph) {
+    /**
+     * A cycle through a vertex never leaves the vertex's strongly connected component,
+     * so each CycleDetector only searches the component it is created for.
+     * Components with a single vertex are skipped since their cycles are filtered out anyway.
+     */
+    private Map<V, AsSubgraph<V, E>> detectCycles(Graph<V, E> graph, SccDecomposition<V> sccDecomposition) {
         Map<V, AsSubgraph<V, E>> cyclesForEveryVertexMap = new HashMap<>();
-        CycleDetector<V, E> cycleDetector = new CycleDetector<>(graph);
-        cycleDetector.findCycles().forEach(v -> {
-            AsSubgraph<V, E> subGraph = new AsSubgraph<>(graph, cycleDetector.findCyclesContainingVertex(v));
-            cyclesForEveryVertexMap.put(v, subGraph);
-        });
+        for (int component = 0; component < sccDecomposition.getComponentCount(); component++) {
+            if (sccDecomposition.getComponentSize(component) < 2) {
+                continue;
+            }
+
+            Set<V> componentVertices = sccDecomposition.getComponentVertices(component);
+            CycleDetector<V, E> cycleDetector = new CycleDetector<>(new AsSubgraph<>(graph, componentVertices));
+            componentVertices.forEach(v -> {
+                AsSubgraph<V, E> subGraph = new AsSubgraph<>(graph, cycleDetector.findCyclesContainingVertex(v));
+                cyclesForEveryVertexMap.put(v, subGraph);
+            });
+        }
         return cyclesForEveryVertexMap;
     }
 }
@@ -5,7 +5,6 @@ import java.util.stream.Collectors;
 import lombok.Getter;
 import org.jgrapht.Graph;
 import org.jgrapht.Graphs;
-import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
 import org.jgrapht.alg.util.Triple;
 import org.jgrapht.opt.graph.sparse.SparseIntDirectedWeightedGraph;
 
@@ -47,11 +46,22 @@ public class DSM<V, E> {
     List<Triple<Integer, Integer, Double>> sparseEdges = new ArrayList<>();
     int vertexCount = 0;
 
+    private SccDecomposition<V> sccDecomposition;
+
     public DSM(Graph<V, E> graph) {
         this.graph = graph;
         sortedActivities = new ArrayList<>();
     }
 
+    /**
+     * Reuses the strongly connected components of the graph when ordering the DSM
+     * instead of recomputing them.  Ignored if the graph has changed since the decomposition was computed.
+     */
+    public DSM(Graph<V, E> graph, SccDecomposition<V> sccDecomposition) {
+        this(graph);
+        this.sccDecomposition = sccDecomposition;
+    }
+
     public void addActivity(V activity) {
         graph.addVertex(activity);
     }
@@ -100,15 +110,26 @@ public class DSM<V, E> {
 
     /**
      * Kosaraju SCC detector avoids stack overflow.
-     * It is used by JGraphT's CycleDetector, and makes sense to use it here as well for consistency
+     * It is used by JGraphT's CycleDetector, and makes sense to use it here as well for consistency.
+     * The decomposition passed to the constructor is translated to sparse vertex IDs when it is still valid.
      *
      * @param graph
      * @return
      */
     private List<Set<Integer>> findStronglyConnectedSparseGraphComponents(Graph<Integer, Integer> graph) {
-        KosarajuStrongConnectivityInspector<Integer, Integer> kosaraju =
-                new KosarajuStrongConnectivityInspector<>(graph);
-        return kosaraju.stronglyConnectedSets();
+        if (sccDecomposition == null || !sccDecomposition.isFor(this.graph)) {
+            return SccDecomposition.of(graph).getStronglyConnectedSets();
+        }
+
+        List<Set<Integer>> sccs = new ArrayList<>(sccDecomposition.getComponentCount());
+        for (int component = 0; component < sccDecomposition.getComponentCount(); component++) {
+            Set<Integer> scc = new HashSet<>();
+            for (int vertexId : sccDecomposition.getMembers(component)) {
+                scc.add(vertexToInt.get(sccDecomposition.getVertex(vertexId)));
+            }
+            sccs.add(scc);
+        }
+        return sccs;
     }
 
     private List<Integer> topologicalSortSparseGraph(List<Set<Integer>> sccs, Graph<Integer, Integer> graph) {
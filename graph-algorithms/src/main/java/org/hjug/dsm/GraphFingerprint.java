@@ -0,0 +1,35 @@
+package org.hjug.dsm;
+
+import org.jgrapht.Graph;
+
+/**
+ * Order-independent hash of the vertexes and edges of a graph, used to tell whether results computed for a graph
+ * still describe it.
+ * Unlike vertex and edge counts, it changes when an edge is swapped for another one or a vertex is renamed.
+ * It takes one pass over the vertexes and edges, which is much less than the algorithms whose results it guards.
+ */
+public final class GraphFingerprint {
+
+    private GraphFingerprint() {}
+
+    public static <V, E> long of(Graph<V, E> graph) {
+        long fingerprint = 0;
+        for (V vertex : graph.vertexSet()) {
+            fingerprint += mix(vertex.hashCode());
+        }
+        for (E edge : graph.edgeSet()) {
+            long source = graph.getEdgeSource(edge).hashCode();
+            long target = graph.getEdgeTarget(edge).hashCode();
+            // mixed with a different constant than vertexes, and direction matters
+            fingerprint += mix(source * 0x9E3779B97F4A7C15L + target + 0x632BE59BD9B4E019L);
+        }
+        return fingerprint;
+    }
+
+    // SplitMix64 finalizer, so sums of nearby hash codes do not cancel out
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,327 @@
+package org.hjug.dsm;
+
+import java.util.*;
+import org.jgrapht.Graph;
+import org.jgrapht.util.CollectionUtil;
+
+/**
+ * Immutable strongly connected component decomposition of a directed graph.
+ *
+ * Vertices are assigned int IDs in the iteration order of the graph's vertex set.
+ * Components are found with Kosaraju's algorithm on int arrays and are numbered in topological order
+ * of the condensation DAG: every condensation edge goes from a lower to a higher component ID.
+ * The searches follow the iterative depth-first search of JGraphT's KosarajuStrongConnectivityInspector
+ * (also used by CycleDetector) step for step, so they find the same components in the same order.
+ * That search is not the textbook recursive one: it starts from each vertex in the iteration order of a hash map
+ * keyed by vertex, and pushes all successors of a vertex onto a stack, so they are visited in reverse edge order.
+ *
+ * A decomposition describes the graph as it was when the decomposition was computed.
+ * Use {@link #isFor(Graph)} to check that the graph has not changed since then.
+ *
+ * @param <V> the vertex type
+ */
+public final class SccDecomposition<V> {
+
+    private final List<V> vertices;
+    private final Map<V, Integer> vertexIds;
+    private final int edgeCount;
+    private final long fingerprint;
+
+    // component of each vertex ID
+    private final int[] componentOf;
+    // members of component c are memberIds[memberStart[c]] .. memberIds[memberStart[c + 1] - 1]
+    private final int[] memberStart;
+    private final int[] memberIds;
+    // a component is cyclic if it has more than one vertex or a self loop
+    private final boolean[] cyclic;
+    // condensation DAG in CSR form, without duplicate edges
+    private final int[] dagStart;
+    private final int[] dagTargets;
+
+    private SccDecomposition(
+            List<V> vertices,
+            Map<V, Integer> vertexIds,
+            int edgeCount,
+            long fingerprint,
+            int[] componentOf,
+            int[] memberStart,
+            int[] memberIds,
+            boolean[] cyclic,
+            int[] dagStart,
+            int[] dagTargets) {
+        this.vertices = vertices;
+        this.vertexIds = vertexIds;
+        this.edgeCount = edgeCount;
+        this.fingerprint = fingerprint;
+        this.componentOf = componentOf;
+        this.memberStart = memberStart;
+        this.memberIds = memberIds;
+        this.cyclic = cyclic;
+        this.dagStart = dagStart;
+        this.dagTargets = dagTargets;
+    }
+
+    /**
+     * Computes the strongly connected components of the graph
+     */
+    public static <V, E> SccDecomposition<V> of(Graph<V, E> graph) {
+        int n = graph.vertexSet().size();
+        List<V> vertices = new ArrayList<>(n);
+        Map<V, Integer> vertexIds = CollectionUtil.newHashMapWithExpectedSize(n);
+        for (V vertex : graph.vertexSet()) {
+            vertexIds.put(vertex, vertices.size());
+            vertices.add(vertex);
+        }
+
+        // CSR adjacency in both directions, preserving the graph's edge iteration order
+        int[] outStart = new int[n + 1];
+        int[] inStart = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            V vertex = vertices.get(v);
+            outStart[v + 1] = outStart[v] + graph.outDegreeOf(vertex);
+            inStart[v + 1] = inStart[v] + graph.inDegreeOf(vertex);
+        }
+        int[] outTargets = new int[outStart[n]];
+        int[] inSources = new int[inStart[n]];
+        boolean[] selfLoop = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            V vertex = vertices.get(v);
+            int out = outStart[v];
+            for (E edge : graph.outgoingEdgesOf(vertex)) {
+                int target = vertexIds.get(graph.getEdgeTarget(edge));
+                outTargets[out++] = target;
+                if (target == v) {
+                    selfLoop[v] = true;
+                }
+            }
+            int in = inStart[v];
+            for (E edge : graph.incomingEdgesOf(vertex)) {
+                inSources[in++] = vertexIds.get(graph.getEdgeSource(edge));
+            }
+        }
+
+        // The searches below take the same steps as JGraphT's KosarajuStrongConnectivityInspector:
+        // roots in hash map order, and successors pushed in edge order so that they are popped in reverse.
+        // The components and their order therefore match the inspector's.
+        // Stack entries >= 0 discover a vertex, entries < 0 (~vertex) finish it.
+        int[] stack = new int[2 * n + Math.max(outTargets.length, inSources.length) + 1];
+
+        // Pass 1: order vertices by decreasing DFS finish time
+        int[] finishOrder = new int[n];
+        int finished = n;
+        boolean[] discovered = new boolean[n];
+        for (int root : vertexIds.values()) {
+            if (discovered[root]) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int entry = stack[--top];
+                if (entry < 0) {
+                    finishOrder[--finished] = ~entry;
+                } else if (!discovered[entry]) {
+                    discovered[entry] = true;
+                    stack[top++] = ~entry;
+                    for (int j = outStart[entry]; j < outStart[entry + 1]; j++) {
+                        if (!discovered[outTargets[j]]) {
+                            stack[top++] = outTargets[j];
+                        }
+                    }
+                }
+            }
+        }
+
+        // Pass 2: search the reversed graph in decreasing finish time; each search is one component
+        int[] componentOf = new int[n];
+        Arrays.fill(componentOf, -1);
+        int[] memberIds = new int[n];
+        int[] memberStartTmp = new int[n + 1];
+        int componentCount = 0;
+        int memberCount = 0;
+        for (int i = 0; i < n; i++) {
+            int root = finishOrder[i];
+            if (componentOf[root] != -1) {
+                continue;
+            }
+            memberStartTmp[componentCount] = memberCount;
+            int top = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int v = stack[--top];
+                if (componentOf[v] != -1) {
+                    continue;
+                }
+                componentOf[v] = componentCount;
+                memberIds[memberCount++] = v;
+                for (int j = inStart[v]; j < inStart[v + 1]; j++) {
+                    if (componentOf[inSources[j]] == -1) {
+                        stack[top++] = inSources[j];
+                    }
+                }
+            }
+            componentCount++;
+        }
+        memberStartTmp[componentCount] = memberCount;
+        int[] memberStart = Arrays.copyOf(memberStartTmp, componentCount + 1);
+
+        boolean[] cyclic = new boolean[componentCount];
+        for (int c = 0; c < componentCount; c++) {
+            cyclic[c] = memberStart[c + 1] - memberStart[c] > 1 || selfLoop[memberIds[memberStart[c]]];
+        }
+
+        // Condensation DAG, deduplicating edges with the last source component seen per target component
+        int[] lastSource = new int[componentCount];
+        Arrays.fill(lastSource, -1);
+        int[] dagStart = new int[componentCount + 1];
+        int[] dagTargetsTmp = new int[Math.max(outTargets.length, 1)];
+        int dagEdges = 0;
+        for (int c = 0; c < componentCount; c++) {
+            dagStart[c] = dagEdges;
+            for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+                int v = memberIds[m];
+                for (int j = outStart[v]; j < outStart[v + 1]; j++) {
+                    int target = componentOf[outTargets[j]];
+                    if (target != c && lastSource[target] != c) {
+                        lastSource[target] = c;
+                        dagTargetsTmp[dagEdges++] = target;
+                    }
+                }
+            }
+        }
+        dagStart[componentCount] = dagEdges;
+
+        return new SccDecomposition<>(
+                Collections.unmodifiableList(vertices),
+                Collections.unmodifiableMap(vertexIds),
+                graph.edgeSet().size(),
+                GraphFingerprint.of(graph),
+                componentOf,
+                memberStart,
+                memberIds,
+                cyclic,
+                dagStart,
+                Arrays.copyOf(dagTargetsTmp, dagEdges));
+    }
+
+    /**
+     * @return true if the graph has the same vertexes and edges as when the decomposition was computed,
+     *     as far as their counts and {@link GraphFingerprint} tell
+     */
+    public boolean isFor(Graph<V, ?> graph) {
+        return graph.vertexSet().size() == vertices.size()
+                && graph.edgeSet().size() == edgeCount
+                && GraphFingerprint.of(graph) == fingerprint;
+    }
+
+    public int getVertexCount() {
+        return vertices.size();
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int getComponentCount() {
+        return cyclic.length;
+    }
+
+    public V getVertex(int vertexId) {
+        return vertices.get(vertexId);
+    }
+
+    /**
+     * @return the ID of the vertex, or -1 if the vertex was not part of the graph
+     */
+    public int getVertexId(V vertex) {
+        Integer id = vertexIds.get(vertex);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return the component of the vertex, or -1 if the vertex was not part of the graph
+     */
+    public int getComponentOf(V vertex) {
+        int id = getVertexId(vertex);
+        return id == -1 ? -1 : componentOf[id];
+    }
+
+    public int getComponentOfVertexId(int vertexId) {
+        return componentOf[vertexId];
+    }
+
+    public int getComponentSize(int component) {
+        return memberStart[component + 1] - memberStart[component];
+    }
+
+    /**
+     * @return a copy of the vertex IDs in the component
+     */
+    public int[] getMembers(int component) {
+        return Arrays.copyOfRange(memberIds, memberStart[component], memberStart[component + 1]);
+    }
+
+    public Set<V> getComponentVertices(int component) {
+        Set<V> members = new HashSet<>();
+        for (int m = memberStart[component]; m < memberStart[component + 1]; m++) {
+            members.add(vertices.get(memberIds[m]));
+        }
+        return members;
+    }
+
+    /**
+     * @return true if the component has more than one vertex or a self loop
+     */
+    public boolean isCyclic(int component) {
+        return cyclic[component];
+    }
+
+    public boolean hasCycles() {
+        for (boolean isCyclic : cyclic) {
+            if (isCyclic) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isInCycle(V vertex) {
+        int component = getComponentOf(vertex);
+        return component != -1 && cyclic[component];
+    }
+
+    /**
+     * @return all components in topological order, as returned by JGraphT's StrongConnectivityAlgorithm
+     */
+    public List<Set<V>> getStronglyConnectedSets() {
+        List<Set<V>> sets = new ArrayList<>(getComponentCount());
+        for (int c = 0; c < getComponentCount(); c++) {
+            sets.add(getComponentVertices(c));
+        }
+        return sets;
+    }
+
+    /**
+     * @return the components that contain a cycle, in topological order
+     */
+    public List<Set<V>> getCyclicComponents() {
+        List<Set<V>> sets = new ArrayList<>();
+        for (int c = 0; c < getComponentCount(); c++) {
+            if (cyclic[c]) {
+                sets.add(getComponentVertices(c));
+            }
+        }
+        return sets;
+    }
+
+    /**
+     * @return a copy of the components the component has edges to in the condensation DAG
+     */
+    public int[] getCondensationSuccessors(int component) {
+        return Arrays.copyOfRange(dagTargets, dagStart[component], dagStart[component + 1]);
+    }
+
+    public int getCondensationEdgeCount() {
+        return dagTargets.length;
+    }
+}
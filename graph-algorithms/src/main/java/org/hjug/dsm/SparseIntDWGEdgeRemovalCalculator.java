@@ -9,7 +9,6 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.jgrapht.Graph;
 import org.jgrapht.Graphs;
-import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
 import org.jgrapht.alg.util.Triple;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.jgrapht.opt.graph.sparse.SparseIntDirectedWeightedGraph;
@@ -23,6 +22,8 @@ class SparseIntDWGEdgeRemovalCalculator {
     int vertexCount;
     Map<String, Integer> vertexToInt;
     Map<Integer, String> intToVertex;
+    // components of sparseGraph before any edge is removed
+    private final SccDecomposition<Integer> sccDecomposition;
 
     SparseIntDWGEdgeRemovalCalculator(
             Graph<String, DefaultWeightedEdge> graph,
@@ -32,7 +33,8 @@ class SparseIntDWGEdgeRemovalCalculator {
             double sumOfEdgeWeightsAboveDiagonal,
             int vertexCount,
             Map<String, Integer> vertexToInt,
-            Map<Integer, String> intToVertex) {
+            Map<Integer, String> intToVertex,
+            SccDecomposition<Integer> sccDecomposition) {
         this.graph = graph;
         this.sparseGraph = sparseGraph;
         this.sparseEdges = new CopyOnWriteArrayList<>(sparseEdges);
@@ -41,6 +43,7 @@ class SparseIntDWGEdgeRemovalCalculator {
         this.vertexCount = vertexCount;
         this.vertexToInt = new ConcurrentHashMap<>(vertexToInt);
         this.intToVertex = new ConcurrentHashMap<>(intToVertex);
+        this.sccDecomposition = sccDecomposition != null ? sccDecomposition : SccDecomposition.of(sparseGraph);
     }
 
     public List<EdgeToRemoveInfo> getImpactOfSparseEdgesAboveDiagonalIfRemoved() {
@@ -65,7 +68,7 @@ class SparseIntDWGEdgeRemovalCalculator {
         SparseIntDirectedWeightedGraph improvedGraph = new SparseIntDirectedWeightedGraph(vertexCount, updatedEdgeList);
 
         // find edges above diagonal
-        List<Integer> sortedSparseVertices = orderVertices(improvedGraph);
+        List<Integer> sortedSparseVertices = orderVertices(improvedGraph, source, target);
         List<Integer> updatedEdges = getSparseEdgesAboveDiagonal(improvedGraph, sortedSparseVertices);
 
         // calculate new graph statistics
@@ -77,8 +80,10 @@ class SparseIntDWGEdgeRemovalCalculator {
         return new EdgeToRemoveInfo(defaultWeightedEdge, (int) weight, newEdgeCount, payoff);
     }
 
-    private List<Integer> orderVertices(SparseIntDirectedWeightedGraph sparseGraph) {
-        List<Set<Integer>> sccs = new CopyOnWriteArrayList<>(findStronglyConnectedSparseGraphComponents(sparseGraph));
+    private List<Integer> orderVertices(
+            SparseIntDirectedWeightedGraph sparseGraph, int removedSource, int removedTarget) {
+        List<Set<Integer>> sccs = new CopyOnWriteArrayList<>(
+                findStronglyConnectedSparseGraphComponents(sparseGraph, removedSource, removedTarget));
         //        List<Integer> sparseIntSortedActivities = topologicalSortSparseGraph(sccs, sparseGraph);
         List<Integer> sparseIntSortedActivities = topologicalParallelSortSparseGraph(sccs, sparseGraph);
         // reversing corrects rendering of the DSM
@@ -91,15 +96,19 @@ class SparseIntDWGEdgeRemovalCalculator {
 
     /**
      * Kosaraju SCC detector avoids stack overflow.
-     * It is used by JGraphT's CycleDetector, and makes sense to use it here as well for consistency
+     * It is used by JGraphT's CycleDetector, and makes sense to use it here as well for consistency.
+     * Removing an edge between two different components does not change any component,
+     * so the components are only recomputed when the removed edge was inside one.
      *
      * @param graph
      * @return
      */
-    private List<Set<Integer>> findStronglyConnectedSparseGraphComponents(Graph<Integer, Integer> graph) {
-        KosarajuStrongConnectivityInspector<Integer, Integer> kosaraju =
-                new KosarajuStrongConnectivityInspector<>(graph);
-        return kosaraju.stronglyConnectedSets();
+    private List<Set<Integer>> findStronglyConnectedSparseGraphComponents(
+            Graph<Integer, Integer> graph, int removedSource, int removedTarget) {
+        if (sccDecomposition.getComponentOf(removedSource) != sccDecomposition.getComponentOf(removedTarget)) {
+            return sccDecomposition.getStronglyConnectedSets();
+        }
+        return SccDecomposition.of(graph).getStronglyConnectedSets();
     }
 
     private List<Integer> topologicalSortSparseGraph(List<Set<Integer>> sccs, Graph<Integer, Integer> graph) {
@@ -1,15 +1,23 @@
 package org.hjug.feedback;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.hjug.dsm.CircularReferenceChecker;
-import org.hjug.feedback.arc.pageRank.PageRankFAS;
+import org.hjug.dsm.SccDecomposition;
 import org.hjug.feedback.vertex.kernelized.DirectedFeedbackVertexSetResult;
 import org.hjug.feedback.vertex.kernelized.DirectedFeedbackVertexSetSolver;
 import org.hjug.feedback.vertex.kernelized.EnhancedParameterComputer;
+import org.hjug.instrumentation.PhaseTimer;
+import org.hjug.instrumentation.events.ComponentId;
+import org.hjug.instrumentation.events.FeedbackArcSetSccEvent;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.AsSubgraph;
 import org.jgrapht.graph.DefaultWeightedEdge;
@@ -17,44 +25,143 @@ import org.jgrapht.graph.DefaultWeightedEdge;
 @Slf4j
 public class CycleRemovalComputer {
 
+    private final FeedbackArcSetStrategySelector strategySelector;
+
+    public CycleRemovalComputer() {
+        this(FeedbackArcSetStrategySelector.defaultSelector());
+    }
+
+    public CycleRemovalComputer(FeedbackArcSetStrategySelector strategySelector) {
+        this.strategySelector = strategySelector;
+    }
+
     public CycleRemovalResult computeCycleRemovalInformation(Graph<String, DefaultWeightedEdge> graph) {
-        Map<String, AsSubgraph<String, DefaultWeightedEdge>> cycles =
-                new CircularReferenceChecker<String, DefaultWeightedEdge>().getCycles(graph);
+        return computeCycleRemovalInformation(graph, SccDecomposition.of(graph));
+    }
+
+    /**
+     * Computes cycle removal information, sharing the strongly connected components of the graph
+     * between every algorithm instead of having each of them recompute the components
+     */
+    public CycleRemovalResult computeCycleRemovalInformation(
+            Graph<String, DefaultWeightedEdge> graph, SccDecomposition<String> sccDecomposition) {
+        Map<String, AsSubgraph<String, DefaultWeightedEdge>> cycles;
+        try (PhaseTimer.Phase phase = PhaseTimer.start("cycles.enumerate")) {
+            cycles = new CircularReferenceChecker<String, DefaultWeightedEdge>().getCycles(graph, sccDecomposition);
+            phase.count("vertexes", graph.vertexSet().size())
+                    .count("edges", graph.edgeSet().size())
+                    .count("cycles", cycles.size());
+        }
         Map<DefaultWeightedEdge, Integer> edgeCycleCounts = new HashMap<>();
         Set<String> vertexesToRemove = new HashSet<>();
         Set<DefaultWeightedEdge> edgesToRemove = new HashSet<>();
+        List<SccRemovalStatistics> sccRemovalStatistics = new ArrayList<>();
 
         // Skip vertex and edge removal analysis if there are no cycles
         if (!cycles.isEmpty()) {
             // Identify vertexes to remove
             log.info("Identifying vertexes to remove");
-            EnhancedParameterComputer<String, DefaultWeightedEdge> enhancedParameterComputer =
-                    new EnhancedParameterComputer<>(new SuperTypeToken<>() {});
-            EnhancedParameterComputer.EnhancedParameters<String> parameters =
-                    enhancedParameterComputer.computeOptimalParameters(graph, 4);
-            DirectedFeedbackVertexSetSolver<String, DefaultWeightedEdge> vertexSolver =
-                    new DirectedFeedbackVertexSetSolver<>(
-                            graph, parameters.getModulator(), null, parameters.getEta(), new SuperTypeToken<>() {});
-            DirectedFeedbackVertexSetResult<String> vertexSetResult = vertexSolver.solve(parameters.getK());
-            vertexesToRemove.addAll(vertexSetResult.getFeedbackVertices());
+            try (PhaseTimer.Phase phase = PhaseTimer.start("cycles.feedbackVertexSet")) {
+                EnhancedParameterComputer<String, DefaultWeightedEdge> enhancedParameterComputer =
+                        new EnhancedParameterComputer<>(new SuperTypeToken<>() {});
+                EnhancedParameterComputer.EnhancedParameters<String> parameters =
+                        enhancedParameterComputer.computeOptimalParameters(graph, 4, sccDecomposition);
+                log.debug("Modulator evaluation cache: {}", enhancedParameterComputer.getCacheStatistics());
+                DirectedFeedbackVertexSetSolver<String, DefaultWeightedEdge> vertexSolver =
+                        new DirectedFeedbackVertexSetSolver<>(
+                                graph, parameters.getModulator(), null, parameters.getEta(), new SuperTypeToken<>() {});
+                DirectedFeedbackVertexSetResult<String> vertexSetResult =
+                        vertexSolver.solve(parameters.getK(), sccDecomposition);
+                vertexesToRemove.addAll(vertexSetResult.getFeedbackVertices());
+                phase.count("vertexesToRemove", vertexesToRemove.size());
+            }
 
             // Identify edges to remove
             log.info("Identifying edges to remove");
-            PageRankFAS<String, DefaultWeightedEdge> pageRankFAS = new PageRankFAS<>(graph, new SuperTypeToken<>() {});
-            edgesToRemove.addAll(pageRankFAS.computeFeedbackArcSet());
+            edgesToRemove.addAll(computeEdgesToRemove(graph, sccDecomposition, sccRemovalStatistics));
 
             // capture the number of cycles each edge to remove is in
-            for (DefaultWeightedEdge edgeToRemove : edgesToRemove) {
-                int cycleCount = 0;
-                for (AsSubgraph<String, DefaultWeightedEdge> cycle : cycles.values()) {
-                    if (cycle.containsEdge(edgeToRemove)) {
-                        cycleCount++;
+            try (PhaseTimer.Phase phase = PhaseTimer.start("cycles.edgeCycleCounts")) {
+                for (DefaultWeightedEdge edgeToRemove : edgesToRemove) {
+                    int cycleCount = 0;
+                    for (AsSubgraph<String, DefaultWeightedEdge> cycle : cycles.values()) {
+                        if (cycle.containsEdge(edgeToRemove)) {
+                            cycleCount++;
+                        }
                     }
+                    edgeCycleCounts.put(edgeToRemove, cycleCount);
                 }
-                edgeCycleCounts.put(edgeToRemove, cycleCount);
+                phase.count("edgesToRemove", edgesToRemove.size());
             }
         }
 
-        return new CycleRemovalResult(cycles, edgesToRemove, vertexesToRemove, edgeCycleCounts);
+        return new CycleRemovalResult(cycles, edgesToRemove, vertexesToRemove, edgeCycleCounts, sccRemovalStatistics);
+    }
+
+    /**
+     * Computes only the edges to remove to break every cycle, without listing the cycles or the vertexes to remove,
+     * for callers that track the size of the feedback arc set, such as trends over many commits
+     */
+    public Set<DefaultWeightedEdge> computeEdgesToRemove(
+            Graph<String, DefaultWeightedEdge> graph, SccDecomposition<String> sccDecomposition) {
+        return computeEdgesToRemove(graph, sccDecomposition, new ArrayList<>());
+    }
+
+    /**
+     * Breaks the cycles of each strongly connected component with the algorithm
+     * chosen by the strategy selector, largest components first
+     */
+    private Set<DefaultWeightedEdge> computeEdgesToRemove(
+            Graph<String, DefaultWeightedEdge> graph,
+            SccDecomposition<String> sccDecomposition,
+            List<SccRemovalStatistics> sccRemovalStatistics) {
+        List<Set<String>> components = sccDecomposition.getCyclicComponents().stream()
+                .filter(scc -> scc.size() > 1)
+                .sorted(Comparator.comparingInt(Set<String>::size).reversed())
+                .collect(Collectors.toList());
+
+        Set<DefaultWeightedEdge> edgesToRemove = new HashSet<>();
+        try (PhaseTimer.Phase phase = PhaseTimer.start("cycles.feedbackArcSet")) {
+            long budgetNanos = strategySelector.getTimeBudget().toNanos();
+            long start = System.nanoTime();
+            for (Set<String> component : components) {
+                AsSubgraph<String, DefaultWeightedEdge> scc = new AsSubgraph<>(graph, component);
+                int edgeCount = scc.edgeSet().size();
+                Duration remaining = Duration.ofNanos(budgetNanos - (System.nanoTime() - start));
+                FeedbackArcSetStrategy strategy = strategySelector.select(component.size(), edgeCount, remaining);
+
+                FeedbackArcSetSccEvent event = new FeedbackArcSetSccEvent();
+                event.begin();
+                long sccStart = System.nanoTime();
+                Set<DefaultWeightedEdge> sccEdgesToRemove = strategy.computeFeedbackArcSet(
+                        scc, new SuperTypeToken<>() {}, strategySelector.budgetFor(strategy, remaining));
+                long durationMillis = (System.nanoTime() - sccStart) / 1_000_000;
+                event.end();
+                if (event.shouldCommit()) {
+                    event.setComponent(ComponentId.of(component));
+                    event.setAlgorithm(strategy.getDisplayName());
+                    event.setVertexes(component.size());
+                    event.setEdges(edgeCount);
+                    event.setEdgesRemoved(sccEdgesToRemove.size());
+                    event.commit();
+                }
+
+                edgesToRemove.addAll(sccEdgesToRemove);
+                sccRemovalStatistics.add(new SccRemovalStatistics(
+                        component.size(), edgeCount, strategy, sccEdgesToRemove.size(), durationMillis));
+                log.debug(
+                        "{} removed {} edges from SCC with {} vertexes and {} edges in {} ms",
+                        strategy.getDisplayName(),
+                        sccEdgesToRemove.size(),
+                        component.size(),
+                        edgeCount,
+                        durationMillis);
+            }
+            phase.count("components", components.size()).count("edgesToRemove", edgesToRemove.size());
+        }
+        if (!components.isEmpty()) {
+            PhaseTimer.max("largestSccVertexes", components.get(0).size());
+        }
+        return edgesToRemove;
     }
 }
@@ -1,5 +1,6 @@
 package org.hjug.feedback;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import lombok.Data;
@@ -12,4 +13,5 @@ public class CycleRemovalResult {
     private final Set<DefaultWeightedEdge> edgesToRemove;
     private final Set<String> vertexesToRemove;
     private final Map<DefaultWeightedEdge, Integer> edgeCycleCounts;
+    private final List<SccRemovalStatistics> sccRemovalStatistics;
 }
@@ -0,0 +1,77 @@
+package org.hjug.feedback;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import org.hjug.feedback.arc.approximate.BucketQueueFeedbackArcSetSolver;
+import org.hjug.feedback.arc.exact.LazyConstraintFeedbackArcSetSolver;
+import org.hjug.feedback.arc.pageRank.PageRankFAS;
+import org.jgrapht.Graph;
+
+/**
+ * Feedback arc set algorithms that can be applied to a single strongly connected component
+ */
+public enum FeedbackArcSetStrategy {
+    EXACT("Lazy Constraint (exact)") {
+        @Override
+        public <V, E> Set<E> computeFeedbackArcSet(Graph<V, E> scc, SuperTypeToken<E> edgeTypeToken, Duration budget) {
+            return new LazyConstraintFeedbackArcSetSolver<>(scc, null, budget)
+                    .solve()
+                    .getFeedbackArcSet();
+        }
+    },
+    PAGE_RANK("PageRankFAS") {
+        @Override
+        public <V, E> Set<E> computeFeedbackArcSet(Graph<V, E> scc, SuperTypeToken<E> edgeTypeToken, Duration budget) {
+            return new PageRankFAS<>(scc, edgeTypeToken).computeFeedbackArcSet();
+        }
+    },
+    GREEDY("Eades-Lin-Smyth (greedy)") {
+        @Override
+        public <V, E> Set<E> computeFeedbackArcSet(Graph<V, E> scc, SuperTypeToken<E> edgeTypeToken, Duration budget) {
+            return new BucketQueueFeedbackArcSetSolver<>(scc).solve().getFeedbackArcs();
+        }
+    };
+
+    private final String displayName;
+
+    FeedbackArcSetStrategy(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @param scc the strongly connected component to make acyclic
+     * @param edgeTypeToken type token for the edge class
+     * @param budget time the algorithm may spend; only honored by algorithms that can stop early
+     * @return edges of the component to remove
+     */
+    public abstract <V, E> Set<E> computeFeedbackArcSet(
+            Graph<V, E> scc, SuperTypeToken<E> edgeTypeToken, Duration budget);
+
+    /**
+     * Parses a strategy name as given on the command line or in the Maven configuration.
+     * Case, dashes, and underscores are ignored, so "pageRank", "page-rank" and "PAGE_RANK" are equivalent.
+     *
+     * @return the strategy, or null for a blank value or "auto" to let the selector decide
+     */
+    public static FeedbackArcSetStrategy fromName(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        String normalized = name.replace("-", "").replace("_", "").toUpperCase(Locale.ROOT);
+        if ("AUTO".equals(normalized)) {
+            return null;
+        }
+        for (FeedbackArcSetStrategy strategy : values()) {
+            if (strategy.name().replace("_", "").equals(normalized)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Unknown cycle removal strategy '" + name + "'.  Expected one of: auto, exact, pageRank, greedy");
+    }
+}
@@ -0,0 +1,79 @@
+package org.hjug.feedback;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Picks the feedback arc set algorithm for each strongly connected component
+ * from its size, its edge density, and the time left in the overall budget.
+ * Small, sparse components are solved exactly, medium ones with PageRankFAS,
+ * and huge ones (or any component once the budget is spent) with the linear time greedy algorithm.
+ */
+@Value
+@Builder
+public class FeedbackArcSetStrategySelector {
+
+    /**
+     * When set, every component is handled by this strategy
+     */
+    @Builder.Default
+    FeedbackArcSetStrategy override = null;
+
+    @Builder.Default
+    int exactMaxEdges = 200;
+
+    /**
+     * Maximum edges per vertex for the exact solver - dense components have too many cycles to enumerate
+     */
+    @Builder.Default
+    double exactMaxDensity = 4.0;
+
+    @Builder.Default
+    int greedyMinEdges = 5_000;
+
+    /**
+     * Time budget for removing edges from all components of a graph
+     */
+    @Builder.Default
+    Duration timeBudget = Duration.ofSeconds(60);
+
+    /**
+     * Upper limit on the time the exact solver may spend on a single component
+     */
+    @Builder.Default
+    Duration exactBudgetPerComponent = Duration.ofSeconds(5);
+
+    public static FeedbackArcSetStrategySelector defaultSelector() {
+        return FeedbackArcSetStrategySelector.builder().build();
+    }
+
+    public static FeedbackArcSetStrategySelector withOverride(FeedbackArcSetStrategy override) {
+        return FeedbackArcSetStrategySelector.builder().override(override).build();
+    }
+
+    public FeedbackArcSetStrategy select(int vertexCount, int edgeCount, Duration remainingBudget) {
+        if (override != null) {
+            return override;
+        }
+        if (remainingBudget.isNegative() || remainingBudget.isZero() || edgeCount >= greedyMinEdges) {
+            return FeedbackArcSetStrategy.GREEDY;
+        }
+        double density = vertexCount == 0 ? 0.0 : (double) edgeCount / vertexCount;
+        if (edgeCount <= exactMaxEdges && density <= exactMaxDensity) {
+            return FeedbackArcSetStrategy.EXACT;
+        }
+        return FeedbackArcSetStrategy.PAGE_RANK;
+    }
+
+    /**
+     * Time the selected strategy may spend on one component
+     */
+    public Duration budgetFor(FeedbackArcSetStrategy strategy, Duration remainingBudget) {
+        Duration remaining = remainingBudget.isNegative() ? Duration.ZERO : remainingBudget;
+        if (strategy == FeedbackArcSetStrategy.EXACT && exactBudgetPerComponent.compareTo(remaining) < 0) {
+            return exactBudgetPerComponent;
+        }
+        return remaining;
+    }
+}
@@ -0,0 +1,15 @@
+package org.hjug.feedback;
+
+import lombok.Data;
+
+/**
+ * Records which algorithm removed the edges of a strongly connected component and how long it took
+ */
+@Data
+public class SccRemovalStatistics {
+    private final int vertexCount;
+    private final int edgeCount;
+    private final FeedbackArcSetStrategy strategy;
+    private final int edgesRemoved;
+    private final long durationMillis;
+}
@@ -0,0 +1,215 @@
+package org.hjug.feedback.arc.approximate;
+
+import java.util.*;
+import org.jgrapht.Graph;
+
+/**
+ * Linear time implementation of Algorithm GR for the Feedback Arc Set problem
+ * Based on Eades, Lin, and Smyth's fast and effective heuristic
+ * DOI: https://doi.org/10.1016/0020-0190(93)90079-O
+ *
+ * Vertices are mapped to int IDs and kept in doubly linked bucket lists, as described in the paper:
+ * one list for sinks, one for sources, and one per δ = out-degree - in-degree value for the rest.
+ * Removing a vertex moves each of its remaining neighbours between buckets in O(1), and the pointer
+ * to the highest non-empty δ bucket only moves up by one per removed edge, so the whole run is O(V + E).
+ *
+ * Self loops are ignored while ordering the vertices and are always reported as feedback arcs.
+ */
+public class BucketQueueFeedbackArcSetSolver<V, E> {
+
+    private static final int NONE = -1;
+
+    private final Graph<V, E> graph;
+
+    private List<V> vertices;
+    private int[] inDegree;
+    private int[] outDegree;
+    private boolean[] removed;
+
+    // buckets: 0 = sinks, 1 = sources, 2.. = δ buckets offset by maxInDegree
+    private int[] bucketHead;
+    private int[] bucketOf;
+    private int[] next;
+    private int[] prev;
+    private int deltaOffset;
+    private int maxDeltaBucket;
+
+    public BucketQueueFeedbackArcSetSolver(Graph<V, E> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Executes Algorithm GR to find a feedback arc set
+     * @return FeedbackArcSetResult containing the vertex sequence and feedback arcs
+     */
+    public FeedbackArcSetResult<V, E> solve() {
+        int n = graph.vertexSet().size();
+        vertices = new ArrayList<>(graph.vertexSet());
+        Map<V, Integer> ids = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            ids.put(vertices.get(i), i);
+        }
+
+        List<E> edges = new ArrayList<>(graph.edgeSet());
+        int m = edges.size();
+        int[] edgeSource = new int[m];
+        int[] edgeTarget = new int[m];
+        inDegree = new int[n];
+        outDegree = new int[n];
+        for (int e = 0; e < m; e++) {
+            E edge = edges.get(e);
+            edgeSource[e] = ids.get(graph.getEdgeSource(edge));
+            edgeTarget[e] = ids.get(graph.getEdgeTarget(edge));
+            if (edgeSource[e] != edgeTarget[e]) {
+                outDegree[edgeSource[e]]++;
+                inDegree[edgeTarget[e]]++;
+            }
+        }
+
+        // CSR adjacency without self loops
+        int[] outStart = new int[n + 1];
+        int[] inStart = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            outStart[v + 1] = outStart[v] + outDegree[v];
+            inStart[v + 1] = inStart[v] + inDegree[v];
+        }
+        int[] outNeighbors = new int[outStart[n]];
+        int[] inNeighbors = new int[inStart[n]];
+        int[] outFill = Arrays.copyOf(outStart, n);
+        int[] inFill = Arrays.copyOf(inStart, n);
+        for (int e = 0; e < m; e++) {
+            if (edgeSource[e] != edgeTarget[e]) {
+                outNeighbors[outFill[edgeSource[e]]++] = edgeTarget[e];
+                inNeighbors[inFill[edgeTarget[e]]++] = edgeSource[e];
+            }
+        }
+
+        initializeBuckets(n);
+
+        int[] sequence = new int[n];
+        int left = 0; // s1 grows from the front
+        int right = n; // s2 grows from the back
+        int remaining = n;
+
+        while (remaining > 0) {
+            int vertex;
+            while ((vertex = bucketHead[0]) != NONE) {
+                sequence[--right] = vertex;
+                removeVertex(vertex, outStart, outNeighbors, inStart, inNeighbors);
+                remaining--;
+            }
+            while ((vertex = bucketHead[1]) != NONE) {
+                sequence[left++] = vertex;
+                removeVertex(vertex, outStart, outNeighbors, inStart, inNeighbors);
+                remaining--;
+            }
+            if (remaining > 0 && (vertex = popMaxDelta()) != NONE) {
+                sequence[left++] = vertex;
+                removeVertex(vertex, outStart, outNeighbors, inStart, inNeighbors);
+                remaining--;
+            }
+        }
+
+        int[] position = new int[n];
+        List<V> vertexSequence = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            position[sequence[i]] = i;
+            vertexSequence.add(vertices.get(sequence[i]));
+        }
+
+        Set<E> feedbackArcs = new HashSet<>();
+        for (int e = 0; e < m; e++) {
+            if (position[edgeSource[e]] >= position[edgeTarget[e]]) {
+                feedbackArcs.add(edges.get(e));
+            }
+        }
+
+        return new FeedbackArcSetResult<>(vertexSequence, feedbackArcs);
+    }
+
+    private void initializeBuckets(int n) {
+        int maxIn = 0;
+        int maxOut = 0;
+        for (int v = 0; v < n; v++) {
+            maxIn = Math.max(maxIn, inDegree[v]);
+            maxOut = Math.max(maxOut, outDegree[v]);
+        }
+
+        deltaOffset = 2 + maxIn;
+        bucketHead = new int[deltaOffset + maxOut + 1];
+        Arrays.fill(bucketHead, NONE);
+        bucketOf = new int[n];
+        next = new int[n];
+        prev = new int[n];
+        removed = new boolean[n];
+        maxDeltaBucket = 2;
+
+        for (int v = 0; v < n; v++) {
+            insert(v, bucketFor(v));
+        }
+    }
+
+    private int bucketFor(int vertex) {
+        if (outDegree[vertex] == 0) {
+            return 0;
+        }
+        if (inDegree[vertex] == 0) {
+            return 1;
+        }
+        return deltaOffset + outDegree[vertex] - inDegree[vertex];
+    }
+
+    private void insert(int vertex, int bucket) {
+        bucketOf[vertex] = bucket;
+        prev[vertex] = NONE;
+        next[vertex] = bucketHead[bucket];
+        if (bucketHead[bucket] != NONE) {
+            prev[bucketHead[bucket]] = vertex;
+        }
+        bucketHead[bucket] = vertex;
+        if (bucket > maxDeltaBucket) {
+            maxDeltaBucket = bucket;
+        }
+    }
+
+    private void unlink(int vertex) {
+        int bucket = bucketOf[vertex];
+        if (prev[vertex] != NONE) {
+            next[prev[vertex]] = next[vertex];
+        } else {
+            bucketHead[bucket] = next[vertex];
+        }
+        if (next[vertex] != NONE) {
+            prev[next[vertex]] = prev[vertex];
+        }
+    }
+
+    private int popMaxDelta() {
+        while (maxDeltaBucket >= 2 && bucketHead[maxDeltaBucket] == NONE) {
+            maxDeltaBucket--;
+        }
+        return maxDeltaBucket >= 2 ? bucketHead[maxDeltaBucket] : NONE;
+    }
+
+    private void removeVertex(int vertex, int[] outStart, int[] outNeighbors, int[] inStart, int[] inNeighbors) {
+        unlink(vertex);
+        removed[vertex] = true;
+
+        for (int i = outStart[vertex]; i < outStart[vertex + 1]; i++) {
+            int target = outNeighbors[i];
+            if (!removed[target]) {
+                unlink(target);
+                inDegree[target]--;
+                insert(target, bucketFor(target));
+            }
+        }
+        for (int i = inStart[vertex]; i < inStart[vertex + 1]; i++) {
+            int source = inNeighbors[i];
+            if (!removed[source]) {
+                unlink(source);
+                outDegree[source]--;
+                insert(source, bucketFor(source));
+            }
+        }
+    }
+}
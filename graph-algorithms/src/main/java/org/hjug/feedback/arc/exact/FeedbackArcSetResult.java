@@ -8,10 +8,17 @@ import java.util.Set;
 public class FeedbackArcSetResult<V, E> {
     private final Set<E> feedbackArcSet;
     private final double objectiveValue;
+    // NaN when the solver did not compute a lower bound
+    private final double lowerBound;
 
     public FeedbackArcSetResult(Set<E> feedbackArcSet, double objectiveValue) {
+        this(feedbackArcSet, objectiveValue, Double.NaN);
+    }
+
+    public FeedbackArcSetResult(Set<E> feedbackArcSet, double objectiveValue, double lowerBound) {
         this.feedbackArcSet = feedbackArcSet;
         this.objectiveValue = objectiveValue;
+        this.lowerBound = lowerBound;
     }
 
     public Set<E> getFeedbackArcSet() {
@@ -22,6 +29,30 @@ public class FeedbackArcSetResult<V, E> {
         return objectiveValue;
     }
 
+    /**
+     * Proven lower bound on the weight of a minimum feedback arc set
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Relative gap between the objective value and the lower bound: 0 when the result is optimal
+     */
+    public double getOptimalityGap() {
+        if (Double.isNaN(lowerBound)) {
+            return Double.NaN;
+        }
+        if (objectiveValue <= 0.0) {
+            return 0.0;
+        }
+        return Math.max(0.0, (objectiveValue - lowerBound) / objectiveValue);
+    }
+
+    public boolean isOptimal() {
+        return getOptimalityGap() == 0.0;
+    }
+
     public int size() {
         return feedbackArcSet.size();
     }
@@ -29,7 +60,7 @@ public class FeedbackArcSetResult<V, E> {
     @Override
     public String toString() {
         return String.format(
-                "FeedbackArcSetResult{arcSet=%s, objective=%.2f, size=%d}",
-                feedbackArcSet, objectiveValue, feedbackArcSet.size());
+                "FeedbackArcSetResult{arcSet=%s, objective=%.2f, size=%d, gap=%.4f}",
+                feedbackArcSet, objectiveValue, feedbackArcSet.size(), getOptimalityGap());
     }
 }
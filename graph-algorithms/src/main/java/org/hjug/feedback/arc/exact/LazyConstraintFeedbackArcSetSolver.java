@@ -0,0 +1,737 @@
+package org.hjug.feedback.arc.exact;
+
+import java.time.Duration;
+import java.util.*;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
+
+/**
+ * Exact minimum feedback arc set solver using lazy constraint generation,
+ * following Baharev et al. "An Exact Method for the Minimum Feedback Arc Set Problem"
+ * https://doi.org/10.1145/3446429
+ *
+ * Each strongly connected component is solved independently on an int-indexed copy of its edges.
+ * The cycle matrix is stored as int-array rows of edge IDs and is only ever extended, so the
+ * relaxed problem (a minimum weight hitting set of the known cycles) is re-solved incrementally:
+ * the previous optimum is a lower bound for the next one and the previous solution, extended to
+ * cover the new cycles, is its starting incumbent.
+ * When the relaxed solution leaves cycles behind, the shortest cycle through each remaining
+ * cyclic edge (found by BFS) is added to the cycle matrix as a new constraint.
+ *
+ * The search stops when the time budget is exhausted. The returned result then carries the best
+ * feasible solution found together with the best proven lower bound, so the optimality gap can be
+ * reported.
+ */
+public class LazyConstraintFeedbackArcSetSolver<V, E> {
+
+    private static final Duration DEFAULT_TIME_BUDGET = Duration.ofSeconds(30);
+    private static final double EPSILON = 1e-9;
+
+    private final Graph<V, E> graph;
+    private final Map<E, Double> edgeWeights;
+    private final Duration timeBudget;
+
+    public LazyConstraintFeedbackArcSetSolver(Graph<V, E> graph, Map<E, Double> edgeWeights) {
+        this(graph, edgeWeights, DEFAULT_TIME_BUDGET);
+    }
+
+    public LazyConstraintFeedbackArcSetSolver(Graph<V, E> graph, Map<E, Double> edgeWeights, Duration timeBudget) {
+        this.graph = graph;
+        this.edgeWeights = edgeWeights != null ? edgeWeights : Map.of();
+        this.timeBudget = timeBudget;
+    }
+
+    public FeedbackArcSetResult<V, E> solve() {
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+
+        List<Set<V>> components = new KosarajuStrongConnectivityInspector<>(graph).stronglyConnectedSets();
+
+        Set<E> feedbackArcSet = new HashSet<>();
+        double objectiveValue = 0.0;
+        double lowerBound = 0.0;
+
+        for (Set<V> component : components) {
+            SccProblem<V, E> problem = new SccProblem<>(graph, component, edgeWeights);
+            if (problem.edgeCount() == 0 || !problem.hasCycle()) {
+                continue;
+            }
+
+            problem.solve(deadline);
+
+            feedbackArcSet.addAll(problem.getFeedbackArcs());
+            objectiveValue += problem.getUpperBound();
+            lowerBound += problem.getLowerBound();
+        }
+
+        return new FeedbackArcSetResult<>(feedbackArcSet, objectiveValue, Math.min(lowerBound, objectiveValue));
+    }
+
+    /**
+     * A single strongly connected component with int vertex and edge IDs
+     */
+    private static final class SccProblem<V, E> {
+        private final List<E> edges = new ArrayList<>();
+        private final int vertexCount;
+        private final int[] edgeSource;
+        private final int[] edgeTarget;
+        private final double[] weight;
+        private final int[] outStart;
+        private final int[] outEdges;
+
+        private final CycleMatrix cycleMatrix = new CycleMatrix();
+        private boolean[] bestFeasible;
+        private double upperBound;
+        private double lowerBound;
+
+        SccProblem(Graph<V, E> graph, Set<V> component, Map<E, Double> edgeWeights) {
+            Map<V, Integer> vertexIds = new HashMap<>();
+            for (V vertex : component) {
+                vertexIds.put(vertex, vertexIds.size());
+            }
+            vertexCount = vertexIds.size();
+
+            for (V vertex : component) {
+                for (E edge : graph.outgoingEdgesOf(vertex)) {
+                    if (vertexIds.containsKey(graph.getEdgeTarget(edge))) {
+                        edges.add(edge);
+                    }
+                }
+            }
+
+            int edgeCount = edges.size();
+            edgeSource = new int[edgeCount];
+            edgeTarget = new int[edgeCount];
+            weight = new double[edgeCount];
+            outStart = new int[vertexCount + 1];
+            outEdges = new int[edgeCount];
+
+            for (int e = 0; e < edgeCount; e++) {
+                E edge = edges.get(e);
+                edgeSource[e] = vertexIds.get(graph.getEdgeSource(edge));
+                edgeTarget[e] = vertexIds.get(graph.getEdgeTarget(edge));
+                weight[e] = edgeWeights.getOrDefault(edge, 1.0);
+                outStart[edgeSource[e] + 1]++;
+            }
+            for (int v = 0; v < vertexCount; v++) {
+                outStart[v + 1] += outStart[v];
+            }
+            int[] fill = Arrays.copyOf(outStart, vertexCount);
+            for (int e = 0; e < edgeCount; e++) {
+                outEdges[fill[edgeSource[e]]++] = e;
+            }
+        }
+
+        int edgeCount() {
+            return edges.size();
+        }
+
+        boolean hasCycle() {
+            return !isAcyclic(new boolean[edgeCount()]);
+        }
+
+        void solve(long deadline) {
+            bestFeasible = completeToFeasible(new boolean[edgeCount()]);
+            upperBound = cost(bestFeasible);
+            lowerBound = 0.0;
+
+            // seed the cycle matrix with the shortest cycle through every edge
+            cycleMatrix.addAll(findViolatedCycles(new boolean[edgeCount()]));
+
+            boolean[] relaxed = new boolean[edgeCount()];
+            HittingSetSolver hittingSetSolver = new HittingSetSolver(weight);
+
+            while (upperBound > lowerBound + EPSILON && System.nanoTime() < deadline) {
+                boolean[] incumbent = hittingSetSolver.extendToCover(relaxed, cycleMatrix.rows());
+                boolean solved = hittingSetSolver.solve(cycleMatrix.rows(), incumbent, lowerBound, deadline);
+
+                lowerBound = Math.max(lowerBound, hittingSetSolver.getLowerBound());
+                if (!solved) {
+                    break;
+                }
+
+                relaxed = hittingSetSolver.getSolution();
+                if (isAcyclic(relaxed)) {
+                    bestFeasible = relaxed;
+                    upperBound = cost(relaxed);
+                    lowerBound = upperBound;
+                    break;
+                }
+
+                boolean[] repaired = completeToFeasible(relaxed);
+                double repairedCost = cost(repaired);
+                if (repairedCost < upperBound) {
+                    bestFeasible = repaired;
+                    upperBound = repairedCost;
+                }
+
+                if (cycleMatrix.addAll(findViolatedCycles(relaxed)) == 0) {
+                    break;
+                }
+            }
+
+            lowerBound = Math.min(lowerBound, upperBound);
+        }
+
+        Set<E> getFeedbackArcs() {
+            Set<E> feedbackArcs = new HashSet<>();
+            for (int e = 0; e < edgeCount(); e++) {
+                if (bestFeasible[e]) {
+                    feedbackArcs.add(edges.get(e));
+                }
+            }
+            return feedbackArcs;
+        }
+
+        double getUpperBound() {
+            return upperBound;
+        }
+
+        double getLowerBound() {
+            return lowerBound;
+        }
+
+        private double cost(boolean[] removed) {
+            double total = 0.0;
+            for (int e = 0; e < removed.length; e++) {
+                if (removed[e]) {
+                    total += weight[e];
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Kahn's algorithm over the edges that are not removed
+         */
+        private boolean isAcyclic(boolean[] removed) {
+            int[] inDegree = new int[vertexCount];
+            for (int e = 0; e < edgeCount(); e++) {
+                if (!removed[e]) {
+                    inDegree[edgeTarget[e]]++;
+                }
+            }
+
+            int[] queue = new int[vertexCount];
+            int head = 0;
+            int tail = 0;
+            for (int v = 0; v < vertexCount; v++) {
+                if (inDegree[v] == 0) {
+                    queue[tail++] = v;
+                }
+            }
+
+            while (head < tail) {
+                int v = queue[head++];
+                for (int i = outStart[v]; i < outStart[v + 1]; i++) {
+                    int e = outEdges[i];
+                    if (!removed[e] && --inDegree[edgeTarget[e]] == 0) {
+                        queue[tail++] = edgeTarget[e];
+                    }
+                }
+            }
+
+            return tail == vertexCount;
+        }
+
+        /**
+         * Adds DFS back edges of the remaining graph to the removed edges,
+         * then puts back every removed edge that does not close a cycle (heaviest first)
+         */
+        private boolean[] completeToFeasible(boolean[] removed) {
+            boolean[] result = Arrays.copyOf(removed, removed.length);
+
+            // iterative DFS, 0 = unvisited, 1 = on stack, 2 = done
+            int[] state = new int[vertexCount];
+            int[] stack = new int[vertexCount];
+            int[] nextEdge = new int[vertexCount];
+            for (int root = 0; root < vertexCount; root++) {
+                if (state[root] != 0) {
+                    continue;
+                }
+                int depth = 0;
+                stack[depth++] = root;
+                state[root] = 1;
+                nextEdge[root] = outStart[root];
+                while (depth > 0) {
+                    int v = stack[depth - 1];
+                    if (nextEdge[v] < outStart[v + 1]) {
+                        int e = outEdges[nextEdge[v]++];
+                        if (result[e]) {
+                            continue;
+                        }
+                        int w = edgeTarget[e];
+                        if (state[w] == 1) {
+                            result[e] = true;
+                        } else if (state[w] == 0) {
+                            state[w] = 1;
+                            nextEdge[w] = outStart[w];
+                            stack[depth++] = w;
+                        }
+                    } else {
+                        state[v] = 2;
+                        depth--;
+                    }
+                }
+            }
+
+            Integer[] removedEdges = new Integer[edgeCount()];
+            int count = 0;
+            for (int e = 0; e < edgeCount(); e++) {
+                if (result[e]) {
+                    removedEdges[count++] = e;
+                }
+            }
+            Arrays.sort(removedEdges, 0, count, (a, b) -> Double.compare(weight[b], weight[a]));
+            for (int i = 0; i < count; i++) {
+                int e = removedEdges[i];
+                if (shortestPath(edgeTarget[e], edgeSource[e], result) == null) {
+                    result[e] = false;
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * Shortest cycle through each edge that can still be part of a cycle once the removed edges are gone.
+         * Edges already on a cycle found in this round are skipped to keep the number of new rows small.
+         */
+        private List<int[]> findViolatedCycles(boolean[] removed) {
+            boolean[] cyclic = cyclicEdges(removed);
+            boolean[] onFoundCycle = new boolean[edgeCount()];
+            List<int[]> cycles = new ArrayList<>();
+
+            for (int e = 0; e < edgeCount(); e++) {
+                if (!cyclic[e] || onFoundCycle[e]) {
+                    continue;
+                }
+                int[] path = shortestPath(edgeTarget[e], edgeSource[e], removed);
+                if (path == null) {
+                    continue;
+                }
+                int[] cycle = Arrays.copyOf(path, path.length + 1);
+                cycle[path.length] = e;
+                for (int cycleEdge : cycle) {
+                    onFoundCycle[cycleEdge] = true;
+                }
+                cycles.add(cycle);
+            }
+
+            return cycles;
+        }
+
+        /**
+         * Edges left after repeatedly peeling vertices without remaining in- or out-edges
+         */
+        private boolean[] cyclicEdges(boolean[] removed) {
+            int[] inDegree = new int[vertexCount];
+            int[] outDegree = new int[vertexCount];
+            int[][] inEdges = new int[vertexCount][];
+            int[] inCount = new int[vertexCount];
+            for (int e = 0; e < edgeCount(); e++) {
+                if (!removed[e]) {
+                    inDegree[edgeTarget[e]]++;
+                    outDegree[edgeSource[e]]++;
+                }
+            }
+            for (int v = 0; v < vertexCount; v++) {
+                inEdges[v] = new int[inDegree[v]];
+            }
+            for (int e = 0; e < edgeCount(); e++) {
+                if (!removed[e]) {
+                    inEdges[edgeTarget[e]][inCount[edgeTarget[e]]++] = e;
+                }
+            }
+
+            boolean[] peeled = new boolean[vertexCount];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int v = 0; v < vertexCount; v++) {
+                if (inDegree[v] == 0 || outDegree[v] == 0) {
+                    peeled[v] = true;
+                    queue.add(v);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                for (int i = outStart[v]; i < outStart[v + 1]; i++) {
+                    int e = outEdges[i];
+                    int w = edgeTarget[e];
+                    if (!removed[e] && !peeled[w] && --inDegree[w] == 0) {
+                        peeled[w] = true;
+                        queue.add(w);
+                    }
+                }
+                for (int e : inEdges[v]) {
+                    int u = edgeSource[e];
+                    if (!peeled[u] && --outDegree[u] == 0) {
+                        peeled[u] = true;
+                        queue.add(u);
+                    }
+                }
+            }
+
+            boolean[] cyclic = new boolean[edgeCount()];
+            for (int e = 0; e < edgeCount(); e++) {
+                cyclic[e] = !removed[e] && !peeled[edgeSource[e]] && !peeled[edgeTarget[e]];
+            }
+            return cyclic;
+        }
+
+        /**
+         * BFS over the edges that are not removed.
+         * Returns the edge IDs of a shortest path, an empty path if start == target, or null if unreachable.
+         */
+        private int[] shortestPath(int start, int target, boolean[] removed) {
+            if (start == target) {
+                return new int[0];
+            }
+
+            int[] predecessorEdge = new int[vertexCount];
+            Arrays.fill(predecessorEdge, -1);
+            boolean[] visited = new boolean[vertexCount];
+            int[] queue = new int[vertexCount];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            visited[start] = true;
+
+            while (head < tail) {
+                int v = queue[head++];
+                for (int i = outStart[v]; i < outStart[v + 1]; i++) {
+                    int e = outEdges[i];
+                    int w = edgeTarget[e];
+                    if (removed[e] || visited[w]) {
+                        continue;
+                    }
+                    visited[w] = true;
+                    predecessorEdge[w] = e;
+                    if (w == target) {
+                        int length = 0;
+                        for (int node = target; node != start; node = edgeSource[predecessorEdge[node]]) {
+                            length++;
+                        }
+                        int[] path = new int[length];
+                        for (int node = target; node != start; node = edgeSource[predecessorEdge[node]]) {
+                            path[--length] = predecessorEdge[node];
+                        }
+                        return path;
+                    }
+                    queue[tail++] = w;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Cycle matrix rows: each row holds the sorted edge IDs of one cycle
+     */
+    private static final class CycleMatrix {
+        private final List<int[]> rows = new ArrayList<>();
+        private final Set<RowKey> known = new HashSet<>();
+
+        int addAll(List<int[]> cycles) {
+            int added = 0;
+            for (int[] cycle : cycles) {
+                int[] row = cycle.clone();
+                Arrays.sort(row);
+                if (known.add(new RowKey(row))) {
+                    rows.add(row);
+                    added++;
+                }
+            }
+            return added;
+        }
+
+        List<int[]> rows() {
+            return rows;
+        }
+    }
+
+    private static final class RowKey {
+        private final int[] row;
+        private final int hash;
+
+        RowKey(int[] row) {
+            this.row = row;
+            this.hash = Arrays.hashCode(row);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof RowKey && Arrays.equals(row, ((RowKey) obj).row);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Branch and bound minimum weight hitting set over the cycle matrix (the relaxed problem).
+     * Branches on the edges of the uncovered row with the fewest free edges and prunes with a
+     * lower bound from greedily packing edge-disjoint uncovered rows.
+     */
+    private static final class HittingSetSolver {
+        private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+        private final double[] weight;
+
+        private List<int[]> rows;
+        private int[][] rowsByEdge;
+        private int[] coverCount;
+        private boolean[] chosen;
+        private boolean[] forbidden;
+        private boolean[] packed;
+        private double cost;
+
+        private boolean[] best;
+        private double bestCost;
+        private double knownLowerBound;
+        private double lowerBound;
+        private long deadline;
+        private long nodes;
+        private boolean timedOut;
+
+        HittingSetSolver(double[] weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * Greedily adds the edge covering the most uncovered rows per unit of weight until every row is covered
+         */
+        boolean[] extendToCover(boolean[] solution, List<int[]> rows) {
+            boolean[] cover = Arrays.copyOf(solution, weight.length);
+            boolean[] covered = new boolean[rows.size()];
+            int uncovered = 0;
+            for (int r = 0; r < rows.size(); r++) {
+                covered[r] = isCovered(rows.get(r), cover);
+                if (!covered[r]) {
+                    uncovered++;
+                }
+            }
+
+            while (uncovered > 0) {
+                int[] hits = new int[weight.length];
+                for (int r = 0; r < rows.size(); r++) {
+                    if (!covered[r]) {
+                        for (int e : rows.get(r)) {
+                            hits[e]++;
+                        }
+                    }
+                }
+                int bestEdge = -1;
+                for (int e = 0; e < weight.length; e++) {
+                    if (hits[e] > 0 && (bestEdge == -1 || hits[e] / weight[e] > hits[bestEdge] / weight[bestEdge])) {
+                        bestEdge = e;
+                    }
+                }
+                cover[bestEdge] = true;
+                for (int r = 0; r < rows.size(); r++) {
+                    if (!covered[r] && Arrays.binarySearch(rows.get(r), bestEdge) >= 0) {
+                        covered[r] = true;
+                        uncovered--;
+                    }
+                }
+            }
+
+            return cover;
+        }
+
+        /**
+         * @return true if the relaxed problem was solved to optimality before the deadline
+         */
+        boolean solve(List<int[]> rows, boolean[] incumbent, double knownLowerBound, long deadline) {
+            this.rows = rows;
+            this.deadline = deadline;
+            this.knownLowerBound = knownLowerBound;
+            this.nodes = 0;
+            this.timedOut = false;
+
+            int[] edgeRowCounts = new int[weight.length];
+            for (int[] row : rows) {
+                for (int e : row) {
+                    edgeRowCounts[e]++;
+                }
+            }
+            rowsByEdge = new int[weight.length][];
+            for (int e = 0; e < weight.length; e++) {
+                rowsByEdge[e] = new int[edgeRowCounts[e]];
+            }
+            int[] fill = new int[weight.length];
+            for (int r = 0; r < rows.size(); r++) {
+                for (int e : rows.get(r)) {
+                    rowsByEdge[e][fill[e]++] = r;
+                }
+            }
+
+            coverCount = new int[rows.size()];
+            chosen = new boolean[weight.length];
+            forbidden = new boolean[weight.length];
+            packed = new boolean[weight.length];
+            cost = 0.0;
+
+            best = incumbent;
+            bestCost = 0.0;
+            for (int e = 0; e < weight.length; e++) {
+                if (incumbent[e]) {
+                    bestCost += weight[e];
+                }
+            }
+
+            double rootBound = packingBound();
+            search();
+
+            lowerBound = timedOut ? Math.max(knownLowerBound, rootBound) : bestCost;
+            return !timedOut;
+        }
+
+        boolean[] getSolution() {
+            return best;
+        }
+
+        double getLowerBound() {
+            return lowerBound;
+        }
+
+        private void search() {
+            if (timedOut || (++nodes % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline)) {
+                timedOut = true;
+                return;
+            }
+            // the incumbent already matches a proven lower bound
+            if (bestCost <= knownLowerBound + EPSILON) {
+                return;
+            }
+
+            int branchRow = -1;
+            int fewestFree = Integer.MAX_VALUE;
+            for (int r = 0; r < rows.size(); r++) {
+                if (coverCount[r] > 0) {
+                    continue;
+                }
+                int free = 0;
+                for (int e : rows.get(r)) {
+                    if (!forbidden[e]) {
+                        free++;
+                    }
+                }
+                if (free == 0) {
+                    return;
+                }
+                if (free < fewestFree) {
+                    fewestFree = free;
+                    branchRow = r;
+                }
+            }
+
+            if (branchRow == -1) {
+                if (cost < bestCost - EPSILON) {
+                    best = chosen.clone();
+                    bestCost = cost;
+                }
+                return;
+            }
+
+            if (cost + packingBound() >= bestCost - EPSILON) {
+                return;
+            }
+
+            List<Integer> candidates = new ArrayList<>(fewestFree);
+            for (int e : rows.get(branchRow)) {
+                if (!forbidden[e]) {
+                    candidates.add(e);
+                }
+            }
+            candidates.sort(Comparator.comparingInt((Integer e) -> -uncoveredRowCount(e))
+                    .thenComparingDouble(e -> weight[e]));
+
+            List<Integer> forbiddenHere = new ArrayList<>(candidates.size());
+            for (int e : candidates) {
+                chosen[e] = true;
+                cost += weight[e];
+                for (int r : rowsByEdge[e]) {
+                    coverCount[r]++;
+                }
+
+                search();
+
+                chosen[e] = false;
+                cost -= weight[e];
+                for (int r : rowsByEdge[e]) {
+                    coverCount[r]--;
+                }
+
+                // later branches must not pick e again, which would duplicate this subtree
+                forbidden[e] = true;
+                forbiddenHere.add(e);
+                if (timedOut) {
+                    break;
+                }
+            }
+            for (int e : forbiddenHere) {
+                forbidden[e] = false;
+            }
+        }
+
+        private int uncoveredRowCount(int edge) {
+            int count = 0;
+            for (int r : rowsByEdge[edge]) {
+                if (coverCount[r] == 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Sum of the cheapest free edge of pairwise edge-disjoint uncovered rows
+         */
+        private double packingBound() {
+            double bound = 0.0;
+            List<int[]> packedRows = new ArrayList<>();
+            for (int r = 0; r < rows.size(); r++) {
+                if (coverCount[r] > 0) {
+                    continue;
+                }
+                int[] row = rows.get(r);
+                boolean disjoint = true;
+                double cheapest = Double.MAX_VALUE;
+                for (int e : row) {
+                    if (forbidden[e]) {
+                        continue;
+                    }
+                    if (packed[e]) {
+                        disjoint = false;
+                        break;
+                    }
+                    cheapest = Math.min(cheapest, weight[e]);
+                }
+                if (disjoint && cheapest != Double.MAX_VALUE) {
+                    bound += cheapest;
+                    for (int e : row) {
+                        packed[e] = !forbidden[e];
+                    }
+                    packedRows.add(row);
+                }
+            }
+            for (int[] row : packedRows) {
+                for (int e : row) {
+                    packed[e] = false;
+                }
+            }
+            return bound;
+        }
+
+        private static boolean isCovered(int[] row, boolean[] solution) {
+            for (int e : row) {
+                if (solution[e]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -4,10 +4,11 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import lombok.extern.slf4j.Slf4j;
+import org.hjug.dsm.SccDecomposition;
 import org.hjug.feedback.SuperTypeToken;
+import org.hjug.instrumentation.events.ComponentId;
+import org.hjug.instrumentation.events.PageRankSccEvent;
 import org.jgrapht.Graph;
-import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
-import org.jgrapht.alg.cycle.CycleDetector;
 import org.jgrapht.graph.DefaultDirectedGraph;
 
 /**
@@ -56,21 +57,34 @@ public class PageRankFAS<V, E> {
      * @return Set of edges that form the feedback arc set
      */
     public Set<E> computeFeedbackArcSet() {
+        return computeFeedbackArcSet(SccDecomposition.of(originalGraph));
+    }
+
+    /**
+     * Computes the Feedback Arc Set, starting from already computed strongly connected components
+     * @param sccDecomposition strongly connected components of the input graph
+     * @return Set of edges that form the feedback arc set
+     */
+    public Set<E> computeFeedbackArcSet(SccDecomposition<V> sccDecomposition) {
         Set<E> feedbackArcSet = new HashSet<>();
 
         // Create a working copy of the graph
         Graph<V, E> workingGraph = createGraphCopy(originalGraph);
+        SccDecomposition<V> components =
+                sccDecomposition.isFor(originalGraph) ? sccDecomposition : SccDecomposition.of(workingGraph);
 
         // Continue until the graph becomes acyclic
-        while (hasCycles(workingGraph)) {
+        int rounds = 0;
+        while (hasCycles(components)) {
+            int round = ++rounds;
             // Find strongly connected components
-            List<Set<V>> sccs = findStronglyConnectedComponents(workingGraph);
+            List<Set<V>> sccs = findStronglyConnectedComponents(components);
 
             // Process each SCC
             sccs.stream()
                     .filter(scc -> scc.size() > 1) // Only non-trivial SCCs can have cycles
                     .forEach(scc -> {
-                        E edgeToRemove = processStronglyConnectedComponent(workingGraph, scc);
+                        E edgeToRemove = processStronglyConnectedComponent(workingGraph, scc, round);
                         if (edgeToRemove != null) {
                             synchronized (feedbackArcSet) {
                                 feedbackArcSet.add(edgeToRemove);
@@ -78,6 +92,9 @@ public class PageRankFAS<V, E> {
                             }
                         }
                     });
+
+            // Recompute the components once per round, after edges have been removed
+            components = SccDecomposition.of(workingGraph);
         }
         return feedbackArcSet;
     }
@@ -86,9 +103,13 @@ public class PageRankFAS<V, E> {
      * Process a single strongly connected component
      * @param graph The working graph
      * @param scc The strongly connected component vertices
+     * @param round The round of the algorithm, recorded in the emitted {@link PageRankSccEvent}
      * @return The edge with the highest PageRank score to remove
      */
-    private E processStronglyConnectedComponent(Graph<V, E> graph, Set<V> scc) {
+    private E processStronglyConnectedComponent(Graph<V, E> graph, Set<V> scc, int round) {
+        PageRankSccEvent event = new PageRankSccEvent();
+        event.begin();
+
         // Create subgraph for this SCC
         Graph<V, E> sccGraph = createSubgraph(graph, scc);
 
@@ -99,10 +120,21 @@ public class PageRankFAS<V, E> {
         Map<LineVertex<V, E>, Double> pageRankScores = computePageRank(lineDigraph);
 
         // Find the edge (line vertex) with highest PageRank score
-        return pageRankScores.entrySet().parallelStream()
+        E edgeToRemove = pageRankScores.entrySet().parallelStream()
                 .max(Map.Entry.comparingByValue())
                 .map(entry -> entry.getKey().getOriginalEdge())
                 .orElse(null);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setComponent(ComponentId.of(scc));
+            event.setRound(round);
+            event.setVertexes(scc.size());
+            event.setEdges(sccGraph.edgeSet().size());
+            event.setRemovedEdge(String.valueOf(edgeToRemove));
+            event.commit();
+        }
+        return edgeToRemove;
     }
 
     /**
@@ -253,19 +285,23 @@ public class PageRankFAS<V, E> {
     }
 
     /**
-     * Find strongly connected components using Kosaraju's algorithm
+     * Strongly connected components that contain a cycle
      */
-    private List<Set<V>> findStronglyConnectedComponents(Graph<V, E> graph) {
-        KosarajuStrongConnectivityInspector<V, E> inspector = new KosarajuStrongConnectivityInspector<>(graph);
-        return inspector.stronglyConnectedSets();
+    private List<Set<V>> findStronglyConnectedComponents(SccDecomposition<V> sccDecomposition) {
+        return sccDecomposition.getCyclicComponents();
     }
 
     /**
-     * Check if graph has cycles
+     * Check if graph has cycles that can be broken by removing an edge between two vertexes.
+     * Self loops are not feedback arc candidates.
      */
-    private boolean hasCycles(Graph<V, E> graph) {
-        CycleDetector<V, E> detector = new CycleDetector<>(graph);
-        return detector.detectCycles();
+    private boolean hasCycles(SccDecomposition<V> sccDecomposition) {
+        for (int component = 0; component < sccDecomposition.getComponentCount(); component++) {
+            if (sccDecomposition.getComponentSize(component) > 1) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -326,7 +362,7 @@ public class PageRankFAS<V, E> {
         stats.put("pageRankIterations", pageRankIterations);
 
         // Analyze SCCs
-        List<Set<V>> sccs = findStronglyConnectedComponents(graph);
+        List<Set<V>> sccs = SccDecomposition.of(graph).getStronglyConnectedSets();
         stats.put("sccCount", sccs.size());
         stats.put(
                 "trivialSCCs",
@@ -5,10 +5,12 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.hjug.dsm.SccDecomposition;
 import org.hjug.feedback.SuperTypeToken;
+import org.hjug.instrumentation.events.ComponentId;
+import org.hjug.instrumentation.events.FeedbackVertexSetEvent;
 import org.jgrapht.Graph;
 import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
-import org.jgrapht.alg.cycle.CycleDetector;
 import org.jgrapht.graph.AsSubgraph;
 import org.jgrapht.graph.DefaultDirectedGraph;
 
@@ -66,14 +68,33 @@ public class DirectedFeedbackVertexSetSolver<V, E> {
      * SCC size is a lower bound of k (the lower the better)
      */
     public DirectedFeedbackVertexSetResult<V> solve() {
-        KosarajuStrongConnectivityInspector<V, E> kosaraju = new KosarajuStrongConnectivityInspector<>(graph);
-        return solve(kosaraju.stronglyConnectedSets().size());
+        return solve(SccDecomposition.of(graph));
+    }
+
+    /**
+     * Same as {@link #solve()}, reusing the already computed strongly connected components of the graph
+     */
+    public DirectedFeedbackVertexSetResult<V> solve(SccDecomposition<V> sccDecomposition) {
+        return solve(sccDecomposition.getComponentCount(), sccDecomposition);
+    }
+
+    /**
+     * Same as {@link #solve(int)}, but skips the kernelization entirely when the
+     * already computed strongly connected components show the graph is acyclic
+     */
+    public DirectedFeedbackVertexSetResult<V> solve(int k, SccDecomposition<V> sccDecomposition) {
+        if (sccDecomposition.isFor(graph) && !sccDecomposition.hasCycles()) {
+            return new DirectedFeedbackVertexSetResult<>(new HashSet<>());
+        }
+        return solve(k);
     }
 
     /**
      * Main solving method implementing the three-phase kernelization algorithm[1]
      */
     public DirectedFeedbackVertexSetResult<V> solve(int k) {
+        FeedbackVertexSetEvent event = new FeedbackVertexSetEvent();
+        event.begin();
         this.k = k;
 
         // Phase 1: Zone Decomposition
@@ -83,7 +104,20 @@ public class DirectedFeedbackVertexSetSolver<V, E> {
         computeKDfvsRepresentatives(k);
 
         // Phase 3: Apply Reduction Rules and Solve
-        return solveWithReductionRules(k);
+        DirectedFeedbackVertexSetResult<V> result = solveWithReductionRules(k);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setComponent(ComponentId.of(graph.vertexSet()));
+            event.setVertexes(graph.vertexSet().size());
+            event.setEdges(graph.edgeSet().size());
+            event.setK(k);
+            event.setModulatorVertexes(modulator.size());
+            event.setZones(zones.size());
+            event.setFeedbackVertexes(result.size());
+            event.commit();
+        }
+        return result;
     }
 
     /**
@@ -747,7 +781,7 @@ public class DirectedFeedbackVertexSetSolver<V, E> {
      */
     private Set<V> computeMinimalFeedbackVertexSet(Graph<V, E> subgraph, int k) {
         Set<V> feedbackSet = new HashSet<>();
-        CycleDetector<V, E> cycleDetector = new CycleDetector<>(subgraph);
+        SccDecomposition<V> components = SccDecomposition.of(subgraph);
 
         // Greedy approach: remove vertices with highest degree until acyclic
         Graph<V, E> workingGraph = new DefaultDirectedGraph<>(edgeClass);
@@ -758,7 +792,7 @@ public class DirectedFeedbackVertexSetSolver<V, E> {
             workingGraph.addEdge(source, target);
         });
 
-        while (cycleDetector.detectCycles() && feedbackSet.size() < k) {
+        while (components.hasCycles() && feedbackSet.size() < k) {
             // Find vertex with highest degree in remaining graph
             V maxDegreeVertex = workingGraph.vertexSet().stream()
                     .max(Comparator.comparingInt(v -> workingGraph.inDegreeOf(v) + workingGraph.outDegreeOf(v)))
@@ -767,7 +801,7 @@ public class DirectedFeedbackVertexSetSolver<V, E> {
             if (maxDegreeVertex != null) {
                 feedbackSet.add(maxDegreeVertex);
                 workingGraph.removeVertex(maxDegreeVertex);
-                cycleDetector = new CycleDetector<>(workingGraph);
+                components = SccDecomposition.of(workingGraph);
             } else {
                 break;
             }
@@ -4,6 +4,7 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import org.hjug.dsm.SccDecomposition;
 import org.hjug.feedback.SuperTypeToken;
 import org.jgrapht.Graph;
 
@@ -17,21 +18,32 @@ public class EnhancedParameterComputer<V, E> {
     private final FeedbackVertexSetComputer<V, E> fvsComputer;
     private final ModulatorComputer<V, E> modulatorComputer;
     private final ExecutorService executorService;
+    // shared by all computers so candidate modulators are only evaluated once
+    private final ModulatorEvaluationCache<V, E> evaluationCache;
 
     public EnhancedParameterComputer(SuperTypeToken<E> edgeTypeToken) {
-        this.treewidthComputer = new TreewidthComputer<>();
-        this.fvsComputer = new FeedbackVertexSetComputer<>(edgeTypeToken);
-        this.modulatorComputer = new ModulatorComputer<>(edgeTypeToken);
+        this.evaluationCache = new ModulatorEvaluationCache<>();
+        this.treewidthComputer = new TreewidthComputer<>(evaluationCache);
+        this.fvsComputer = new FeedbackVertexSetComputer<>(edgeTypeToken, evaluationCache);
+        this.modulatorComputer = new ModulatorComputer<>(edgeTypeToken, evaluationCache);
         this.executorService = Executors.newWorkStealingPool();
     }
 
     public EnhancedParameterComputer(SuperTypeToken<E> edgeTypeToken, int parallelismLevel) {
-        this.treewidthComputer = new TreewidthComputer<>(parallelismLevel);
-        this.fvsComputer = new FeedbackVertexSetComputer<>(edgeTypeToken, parallelismLevel);
-        this.modulatorComputer = new ModulatorComputer<>(edgeTypeToken, parallelismLevel);
+        this.evaluationCache = new ModulatorEvaluationCache<>();
+        this.treewidthComputer = new TreewidthComputer<>(parallelismLevel, evaluationCache);
+        this.fvsComputer = new FeedbackVertexSetComputer<>(edgeTypeToken, parallelismLevel, evaluationCache);
+        this.modulatorComputer = new ModulatorComputer<>(edgeTypeToken, parallelismLevel, evaluationCache);
         this.executorService = Executors.newWorkStealingPool(parallelismLevel);
     }
 
+    /**
+     * Hit / miss counts of the η and k estimates shared across modulator candidates
+     */
+    public ModulatorEvaluationCache.CacheStatistics getCacheStatistics() {
+        return evaluationCache.getStatistics();
+    }
+
     /**
      * Computes parameters with automatic modulator optimization
      */
@@ -39,6 +51,16 @@ public class EnhancedParameterComputer<V, E> {
         return computeOptimalParameters(graph, maxModulatorSize, 3); // Default target treewidth
     }
 
+    /**
+     * Computes parameters with automatic modulator optimization,
+     * reusing the already computed strongly connected components of the graph
+     */
+    public EnhancedParameters<V> computeOptimalParameters(
+            Graph<V, E> graph, int maxModulatorSize, SccDecomposition<V> sccDecomposition) {
+        evaluationCache.useSccDecomposition(graph, sccDecomposition);
+        return computeOptimalParameters(graph, maxModulatorSize);
+    }
+
     /**
      * Computes parameters with specific target treewidth
      */
@@ -3,9 +3,10 @@ package org.hjug.feedback.vertex.kernelized;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hjug.dsm.SccDecomposition;
 import org.hjug.feedback.SuperTypeToken;
 import org.jgrapht.Graph;
-import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
 import org.jgrapht.alg.cycle.CycleDetector;
 import org.jgrapht.graph.DefaultDirectedGraph;
 
@@ -19,24 +20,52 @@ public class FeedbackVertexSetComputer<V, E> {
     private final Class<E> edgeClass;
     private final ExecutorService executorService;
     private final Map<Graph<V, E>, Set<V>> greedyFeedbackVertexSetCache;
+    private final ModulatorEvaluationCache<V, E> evaluationCache;
 
     public FeedbackVertexSetComputer(SuperTypeToken<E> edgeTypeToken) {
+        this(edgeTypeToken, new ModulatorEvaluationCache<>());
+    }
+
+    public FeedbackVertexSetComputer(SuperTypeToken<E> edgeTypeToken, int parallelismLevel) {
+        this(edgeTypeToken, parallelismLevel, new ModulatorEvaluationCache<>());
+    }
+
+    /**
+     * Shares k estimates with other computers using the same cache
+     */
+    public FeedbackVertexSetComputer(SuperTypeToken<E> edgeTypeToken, ModulatorEvaluationCache<V, E> evaluationCache) {
         this.edgeClass = edgeTypeToken.getClassFromTypeToken();
         this.executorService = ForkJoinPool.commonPool();
         this.greedyFeedbackVertexSetCache = new ConcurrentHashMap<>();
+        this.evaluationCache = evaluationCache;
     }
 
-    public FeedbackVertexSetComputer(SuperTypeToken<E> edgeTypeToken, int parallelismLevel) {
+    public FeedbackVertexSetComputer(
+            SuperTypeToken<E> edgeTypeToken, int parallelismLevel, ModulatorEvaluationCache<V, E> evaluationCache) {
         this.edgeClass = edgeTypeToken.getClassFromTypeToken();
         this.executorService = Executors.newWorkStealingPool(parallelismLevel);
         this.greedyFeedbackVertexSetCache = new ConcurrentHashMap<>();
+        this.evaluationCache = evaluationCache;
     }
 
     /**
-     * Computes k: the size of minimum directed feedback vertex set
+     * Computes k: the size of minimum directed feedback vertex set.
+     * k does not depend on the modulator, so it is memoized per graph in the evaluation cache.
      */
     public int computeK(Graph<V, E> graph) {
-        if (!hasCycles(graph)) {
+        return evaluationCache.k(graph, this::estimateK);
+    }
+
+    /**
+     * Computes k, reusing the already computed strongly connected components of the graph
+     */
+    public int computeK(Graph<V, E> graph, SccDecomposition<V> sccDecomposition) {
+        evaluationCache.useSccDecomposition(graph, sccDecomposition);
+        return computeK(graph);
+    }
+
+    private int estimateK(Graph<V, E> graph) {
+        if (!evaluationCache.sccDecomposition(graph).hasCycles()) {
             return 0;
         }
 
@@ -71,15 +100,17 @@ public class FeedbackVertexSetComputer<V, E> {
         return greedyFeedbackVertexSetCache.computeIfAbsent(graph, g -> {
             Set<V> feedbackSet = ConcurrentHashMap.newKeySet();
             Graph<V, E> workingGraph = copyGraph(g);
+            SccDecomposition<V> components = SccDecomposition.of(workingGraph);
 
-            while (hasCycles(workingGraph)) {
+            while (components.hasCycles()) {
                 // Find vertex with maximum degree in current SCCs
-                V maxDegreeVertex = findVertexInCyclesWithMaxDegree(workingGraph);
+                V maxDegreeVertex = findVertexInCyclesWithMaxDegree(workingGraph, components);
 
                 if (maxDegreeVertex == null) break;
 
                 feedbackSet.add(maxDegreeVertex);
                 workingGraph.removeVertex(maxDegreeVertex);
+                components = SccDecomposition.of(workingGraph);
             }
 
             return feedbackSet;
@@ -93,11 +124,10 @@ public class FeedbackVertexSetComputer<V, E> {
         Set<V> feedbackSet = ConcurrentHashMap.newKeySet();
         Graph<V, E> workingGraph = copyGraph(graph);
 
-        while (hasCycles(workingGraph)) {
-            KosarajuStrongConnectivityInspector<V, E> inspector =
-                    new KosarajuStrongConnectivityInspector<>(workingGraph);
+        SccDecomposition<V> components = SccDecomposition.of(workingGraph);
 
-            List<Set<V>> sccs = inspector.stronglyConnectedSets();
+        while (components.hasCycles()) {
+            List<Set<V>> sccs = components.getCyclicComponents();
 
             // Process non-trivial SCCs in parallel
             Optional<V> vertexToRemove = sccs.parallelStream()
@@ -109,6 +139,7 @@ public class FeedbackVertexSetComputer<V, E> {
                 V vertex = vertexToRemove.get();
                 feedbackSet.add(vertex);
                 workingGraph.removeVertex(vertex);
+                components = SccDecomposition.of(workingGraph);
             } else {
                 break;
             }
@@ -124,10 +155,14 @@ public class FeedbackVertexSetComputer<V, E> {
         Set<V> feedbackSet = ConcurrentHashMap.newKeySet();
         Graph<V, E> workingGraph = copyGraph(graph);
 
-        while (hasCycles(workingGraph)) {
+        SccDecomposition<V> components = SccDecomposition.of(workingGraph);
+
+        while (components.hasCycles()) {
             // Calculate degree scores in parallel
+            SccDecomposition<V> currentComponents = components;
             Map<V, Double> degreeScores = workingGraph.vertexSet().parallelStream()
-                    .collect(Collectors.toConcurrentMap(v -> v, v -> calculateDegreeScore(workingGraph, v)));
+                    .collect(Collectors.toConcurrentMap(
+                            v -> v, v -> calculateDegreeScore(workingGraph, currentComponents, v)));
 
             Optional<V> bestVertex = degreeScores.entrySet().parallelStream()
                     .filter(entry -> entry.getValue() > 0)
@@ -138,6 +173,7 @@ public class FeedbackVertexSetComputer<V, E> {
                 V vertex = bestVertex.get();
                 feedbackSet.add(vertex);
                 workingGraph.removeVertex(vertex);
+                components = SccDecomposition.of(workingGraph);
             } else {
                 break;
             }
@@ -196,12 +232,8 @@ public class FeedbackVertexSetComputer<V, E> {
     /**
      * Finds vertex in cycles with maximum degree
      */
-    private V findVertexInCyclesWithMaxDegree(Graph<V, E> graph) {
-        KosarajuStrongConnectivityInspector<V, E> inspector = new KosarajuStrongConnectivityInspector<>(graph);
-
-        return inspector.stronglyConnectedSets().parallelStream()
-                .filter(scc ->
-                        scc.size() > 1 || hasSelfLoop(graph, scc.iterator().next()))
+    private V findVertexInCyclesWithMaxDegree(Graph<V, E> graph, SccDecomposition<V> components) {
+        return components.getCyclicComponents().parallelStream()
                 .flatMap(Collection::stream)
                 .max(Comparator.comparingInt(v -> graph.inDegreeOf(v) + graph.outDegreeOf(v)))
                 .orElse(null);
@@ -210,15 +242,12 @@ public class FeedbackVertexSetComputer<V, E> {
     /**
      * Calculates degree-based score for vertex selection
      */
-    private double calculateDegreeScore(Graph<V, E> graph, V vertex) {
+    private double calculateDegreeScore(Graph<V, E> graph, SccDecomposition<V> components, V vertex) {
         int inDegree = graph.inDegreeOf(vertex);
         int outDegree = graph.outDegreeOf(vertex);
 
         // Check if vertex is in any SCC with size > 1
-        KosarajuStrongConnectivityInspector<V, E> inspector = new KosarajuStrongConnectivityInspector<>(graph);
-
-        boolean inNonTrivialSCC =
-                inspector.stronglyConnectedSets().stream().anyMatch(scc -> scc.size() > 1 && scc.contains(vertex));
+        boolean inNonTrivialSCC = components.getComponentSize(components.getComponentOf(vertex)) > 1;
 
         if (!inNonTrivialSCC && !hasSelfLoop(graph, vertex)) {
             return 0.0; // Not in any cycle
@@ -284,10 +313,10 @@ public class FeedbackVertexSetComputer<V, E> {
                 .filter(v -> graph.containsEdge(v, v))
                 .count();
 
-        KosarajuStrongConnectivityInspector<V, E> inspector = new KosarajuStrongConnectivityInspector<>(graph);
+        SccDecomposition<V> components = evaluationCache.sccDecomposition(graph);
 
-        long nonTrivialSCCs = inspector.stronglyConnectedSets().parallelStream()
-                .filter(scc -> scc.size() > 1)
+        long nonTrivialSCCs = IntStream.range(0, components.getComponentCount())
+                .filter(component -> components.getComponentSize(component) > 1)
                 .count();
 
         return (int) Math.max(1, selfLoops + Math.max(1, nonTrivialSCCs / 2));
@@ -24,19 +24,38 @@ public class ModulatorComputer<V, E> {
     private final FeedbackVertexSetComputer<V, E> fvsComputer;
     private final ExecutorService executorService;
     private final Map<Graph<V, DefaultEdge>, Map<V, Double>> betweennessCentralityCache;
+    private final ModulatorEvaluationCache<V, E> evaluationCache;
 
     public ModulatorComputer(SuperTypeToken<E> edgeTypeToken) {
-        this.treewidthComputer = new TreewidthComputer<>();
-        this.fvsComputer = new FeedbackVertexSetComputer<>(edgeTypeToken);
+        this(edgeTypeToken, new ModulatorEvaluationCache<>());
+    }
+
+    public ModulatorComputer(SuperTypeToken<E> edgeTypeToken, int parallelismLevel) {
+        this(edgeTypeToken, parallelismLevel, new ModulatorEvaluationCache<>());
+    }
+
+    /**
+     * Shares η and k estimates with other computers using the same cache
+     */
+    public ModulatorComputer(SuperTypeToken<E> edgeTypeToken, ModulatorEvaluationCache<V, E> evaluationCache) {
+        this.treewidthComputer = new TreewidthComputer<>(evaluationCache);
+        this.fvsComputer = new FeedbackVertexSetComputer<>(edgeTypeToken, evaluationCache);
         this.executorService = ForkJoinPool.commonPool();
         this.betweennessCentralityCache = new ConcurrentHashMap<>();
+        this.evaluationCache = evaluationCache;
     }
 
-    public ModulatorComputer(SuperTypeToken<E> edgeTypeToken, int parallelismLevel) {
-        this.treewidthComputer = new TreewidthComputer<>(parallelismLevel);
-        this.fvsComputer = new FeedbackVertexSetComputer<>(edgeTypeToken, parallelismLevel);
+    public ModulatorComputer(
+            SuperTypeToken<E> edgeTypeToken, int parallelismLevel, ModulatorEvaluationCache<V, E> evaluationCache) {
+        this.treewidthComputer = new TreewidthComputer<>(parallelismLevel, evaluationCache);
+        this.fvsComputer = new FeedbackVertexSetComputer<>(edgeTypeToken, parallelismLevel, evaluationCache);
         this.executorService = Executors.newWorkStealingPool(parallelismLevel);
         this.betweennessCentralityCache = new ConcurrentHashMap<>();
+        this.evaluationCache = evaluationCache;
+    }
+
+    public ModulatorEvaluationCache.CacheStatistics getCacheStatistics() {
+        return evaluationCache.getStatistics();
     }
 
     /**
@@ -150,7 +169,7 @@ public class ModulatorComputer<V, E> {
      */
     private Set<V> computeTreewidthDecompositionModulator(Graph<V, E> graph, int targetTreewidth, int maxSize) {
         Set<V> modulator = ConcurrentHashMap.newKeySet();
-        Graph<V, DefaultEdge> undirected = convertToUndirected(graph);
+        Graph<V, DefaultEdge> undirected = evaluationCache.undirectedViewWithout(graph, Collections.emptySet());
 
         // Identify vertices that appear in many high-width bags
         Map<V, Integer> bagAppearances = new ConcurrentHashMap<>();
@@ -210,7 +229,7 @@ public class ModulatorComputer<V, E> {
      */
     private Set<V> computeBottleneckVertexModulator(Graph<V, E> graph, int targetTreewidth, int maxSize) {
         Set<V> modulator = ConcurrentHashMap.newKeySet();
-        Graph<V, DefaultEdge> undirected = convertToUndirected(graph);
+        Graph<V, DefaultEdge> undirected = evaluationCache.undirectedViewWithout(graph, Collections.emptySet());
 
         // Find articulation points and vertices with high betweenness centrality
         Set<V> articulationPoints = findArticulationPoints(undirected);
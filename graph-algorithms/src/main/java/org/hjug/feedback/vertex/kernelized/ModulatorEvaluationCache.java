@@ -0,0 +1,323 @@
+package org.hjug.feedback.vertex.kernelized;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
+import org.hjug.dsm.GraphFingerprint;
+import org.hjug.dsm.SccDecomposition;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsUnmodifiableGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultUndirectedGraph;
+import org.jgrapht.graph.MaskSubgraph;
+
+/**
+ * Memoizes treewidth (η) and feedback vertex set size (k) estimates for the graph
+ * currently being parameterized.
+ *
+ * Modulator candidates are keyed by their canonical form: the sorted array of the
+ * integer IDs assigned to the modulator's vertices, so two candidates containing the
+ * same vertices share a single η estimate regardless of the Set implementation or
+ * insertion order used to build them.
+ * The undirected version of the graph is built once per graph, and modulator vertices
+ * are hidden from it with a {@link MaskSubgraph} view instead of copying the graph
+ * for every candidate.
+ *
+ * The strongly connected components of the graph are also computed at most once per graph,
+ * or supplied by the caller when they have already been computed.
+ *
+ * Only the most recently seen graph is cached. A graph is considered the same if it is
+ * the same instance with the same vertex and edge counts and {@link GraphFingerprint},
+ * so editing the graph between lookups, even by swapping one edge for another, discards the cached estimates.
+ */
+public class ModulatorEvaluationCache<V, E> {
+
+    private final AtomicReference<GraphEntry<V, E>> current = new AtomicReference<>();
+
+    private final AtomicLong etaHits = new AtomicLong();
+    private final AtomicLong etaMisses = new AtomicLong();
+    private final AtomicLong kHits = new AtomicLong();
+    private final AtomicLong kMisses = new AtomicLong();
+
+    /**
+     * Returns the cached η for the modulator, or computes it with the estimator.
+     * The estimator receives an undirected view of the graph with the modulator hidden.
+     */
+    public int eta(Graph<V, E> graph, Set<V> modulator, ToIntFunction<Graph<V, DefaultEdge>> estimator) {
+        GraphEntry<V, E> entry = entryFor(graph);
+        ModulatorKey key = entry.keyOf(modulator);
+
+        Integer cached = entry.etaByModulator.get(key);
+        if (cached != null) {
+            etaHits.incrementAndGet();
+            return cached;
+        }
+
+        // Computed outside of computeIfAbsent so long-running estimates don't block other keys
+        etaMisses.incrementAndGet();
+        int eta = estimator.applyAsInt(entry.undirectedViewWithout(key));
+        Integer previous = entry.etaByModulator.putIfAbsent(key, eta);
+        return previous != null ? previous : eta;
+    }
+
+    /**
+     * Returns the cached k for the graph, or computes it with the estimator.
+     * k does not depend on the modulator, so it is computed at most once per graph.
+     */
+    public int k(Graph<V, E> graph, ToIntFunction<Graph<V, E>> estimator) {
+        GraphEntry<V, E> entry = entryFor(graph);
+
+        synchronized (entry.kLock) {
+            if (entry.k != null) {
+                kHits.incrementAndGet();
+                return entry.k;
+            }
+
+            kMisses.incrementAndGet();
+            entry.k = estimator.applyAsInt(graph);
+            return entry.k;
+        }
+    }
+
+    /**
+     * Undirected view of the graph without the modulator vertices.
+     * The returned graph is read-only and shares its structure with the cache.
+     */
+    public Graph<V, DefaultEdge> undirectedViewWithout(Graph<V, E> graph, Set<V> modulator) {
+        GraphEntry<V, E> entry = entryFor(graph);
+        return entry.undirectedViewWithout(entry.keyOf(modulator));
+    }
+
+    /**
+     * Strongly connected components of the graph, computed on first use
+     */
+    public SccDecomposition<V> sccDecomposition(Graph<V, E> graph) {
+        return entryFor(graph).sccDecomposition();
+    }
+
+    /**
+     * Seeds the cache with components that have already been computed for the graph.
+     * Ignored if the graph has changed since the decomposition was computed.
+     */
+    public void useSccDecomposition(Graph<V, E> graph, SccDecomposition<V> sccDecomposition) {
+        if (sccDecomposition != null && sccDecomposition.isFor(graph)) {
+            GraphEntry<V, E> entry = entryFor(graph);
+            synchronized (entry) {
+                if (entry.sccDecomposition == null) {
+                    entry.sccDecomposition = sccDecomposition;
+                }
+            }
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(etaHits.get(), etaMisses.get(), kHits.get(), kMisses.get());
+    }
+
+    public void clear() {
+        current.set(null);
+    }
+
+    private GraphEntry<V, E> entryFor(Graph<V, E> graph) {
+        GraphEntry<V, E> entry = current.get();
+        while (entry == null || !entry.isFor(graph)) {
+            GraphEntry<V, E> replacement = new GraphEntry<>(graph);
+            if (current.compareAndSet(entry, replacement)) {
+                return replacement;
+            }
+            entry = current.get();
+        }
+        return entry;
+    }
+
+    /**
+     * Cached state for a single graph
+     */
+    private static class GraphEntry<V, E> {
+        private final Graph<V, E> graph;
+        private final int vertexCount;
+        private final int edgeCount;
+        private final long fingerprint;
+        private final Map<V, Integer> vertexIds;
+        private final List<V> verticesById;
+        private final Map<ModulatorKey, Integer> etaByModulator = new ConcurrentHashMap<>();
+        private final Object kLock = new Object();
+        private volatile Graph<V, DefaultEdge> undirected;
+        private volatile SccDecomposition<V> sccDecomposition;
+        private Integer k;
+
+        GraphEntry(Graph<V, E> graph) {
+            this.graph = graph;
+            this.vertexCount = graph.vertexSet().size();
+            this.edgeCount = graph.edgeSet().size();
+            this.fingerprint = GraphFingerprint.of(graph);
+            this.vertexIds = new HashMap<>(vertexCount * 2);
+            this.verticesById = new ArrayList<>(vertexCount);
+            for (V vertex : graph.vertexSet()) {
+                vertexIds.put(vertex, verticesById.size());
+                verticesById.add(vertex);
+            }
+        }
+
+        boolean isFor(Graph<V, E> other) {
+            return graph == other
+                    && vertexCount == other.vertexSet().size()
+                    && edgeCount == other.edgeSet().size()
+                    && fingerprint == GraphFingerprint.of(other);
+        }
+
+        /**
+         * Canonical key: sorted IDs of the modulator vertices that are part of the graph.
+         * Vertices outside the graph do not affect η and are ignored.
+         */
+        ModulatorKey keyOf(Set<V> modulator) {
+            int[] ids = new int[modulator.size()];
+            int count = 0;
+            for (V vertex : modulator) {
+                Integer id = vertexIds.get(vertex);
+                if (id != null && count < ids.length) {
+                    ids[count++] = id;
+                }
+            }
+            int[] canonical = Arrays.copyOf(ids, count);
+            Arrays.sort(canonical);
+            return new ModulatorKey(canonical);
+        }
+
+        Graph<V, DefaultEdge> undirectedViewWithout(ModulatorKey key) {
+            Graph<V, DefaultEdge> base = undirected();
+            if (key.ids.length == 0) {
+                return base;
+            }
+
+            Set<V> hidden = new HashSet<>(key.ids.length * 2);
+            for (int id : key.ids) {
+                hidden.add(verticesById.get(id));
+            }
+            return new MaskSubgraph<>(base, hidden::contains, edge -> false);
+        }
+
+        private Graph<V, DefaultEdge> undirected() {
+            Graph<V, DefaultEdge> result = undirected;
+            if (result == null) {
+                synchronized (this) {
+                    result = undirected;
+                    if (result == null) {
+                        result = new AsUnmodifiableGraph<>(convertToUndirected(graph));
+                        undirected = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        private SccDecomposition<V> sccDecomposition() {
+            SccDecomposition<V> result = sccDecomposition;
+            if (result == null) {
+                synchronized (this) {
+                    result = sccDecomposition;
+                    if (result == null) {
+                        result = SccDecomposition.of(graph);
+                        sccDecomposition = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static <V, E> Graph<V, DefaultEdge> convertToUndirected(Graph<V, E> directed) {
+            Graph<V, DefaultEdge> converted = new DefaultUndirectedGraph<>(DefaultEdge.class);
+            directed.vertexSet().forEach(converted::addVertex);
+
+            for (E edge : directed.edgeSet()) {
+                V source = directed.getEdgeSource(edge);
+                V target = directed.getEdgeTarget(edge);
+                if (!source.equals(target) && !converted.containsEdge(source, target)) {
+                    converted.addEdge(source, target);
+                }
+            }
+
+            return converted;
+        }
+    }
+
+    /**
+     * Sorted vertex ID array with a precomputed hash
+     */
+    private static final class ModulatorKey {
+        private final int[] ids;
+        private final int hash;
+
+        ModulatorKey(int[] ids) {
+            this.ids = ids;
+            this.hash = Arrays.hashCode(ids);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof ModulatorKey)) return false;
+            return Arrays.equals(ids, ((ModulatorKey) obj).ids);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Hit / miss counts for the η and k caches
+     */
+    public static class CacheStatistics {
+        private final long etaHits;
+        private final long etaMisses;
+        private final long kHits;
+        private final long kMisses;
+
+        public CacheStatistics(long etaHits, long etaMisses, long kHits, long kMisses) {
+            this.etaHits = etaHits;
+            this.etaMisses = etaMisses;
+            this.kHits = kHits;
+            this.kMisses = kMisses;
+        }
+
+        public long getEtaHits() {
+            return etaHits;
+        }
+
+        public long getEtaMisses() {
+            return etaMisses;
+        }
+
+        public long getKHits() {
+            return kHits;
+        }
+
+        public long getKMisses() {
+            return kMisses;
+        }
+
+        public double getEtaHitRate() {
+            return hitRate(etaHits, etaMisses);
+        }
+
+        public double getKHitRate() {
+            return hitRate(kHits, kMisses);
+        }
+
+        private static double hitRate(long hits, long misses) {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "CacheStatistics{η hits=%d, η misses=%d, η hit rate=%.2f, k hits=%d, k misses=%d, k hit rate=%.2f}",
+                    etaHits, etaMisses, getEtaHitRate(), kHits, kMisses, getKHitRate());
+        }
+    }
+}
@@ -4,11 +4,10 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import org.hjug.dsm.SccDecomposition;
 import org.jgrapht.Graph;
 import org.jgrapht.Graphs;
-import org.jgrapht.alg.cycle.CycleDetector;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.DefaultUndirectedGraph;
 
 /**
  * Multithreaded treewidth computer that implements multiple heuristic algorithms
@@ -21,23 +20,54 @@ import org.jgrapht.graph.DefaultUndirectedGraph;
 public class TreewidthComputer<V, E> {
 
     private final ExecutorService executorService;
+    private final ModulatorEvaluationCache<V, E> evaluationCache;
 
     public TreewidthComputer() {
-        this.executorService = ForkJoinPool.commonPool();
+        this(new ModulatorEvaluationCache<>());
     }
 
     public TreewidthComputer(int parallelismLevel) {
+        this(parallelismLevel, new ModulatorEvaluationCache<>());
+    }
+
+    /**
+     * Shares η estimates with other computers using the same cache
+     */
+    public TreewidthComputer(ModulatorEvaluationCache<V, E> evaluationCache) {
+        this.executorService = ForkJoinPool.commonPool();
+        this.evaluationCache = evaluationCache;
+    }
+
+    public TreewidthComputer(int parallelismLevel, ModulatorEvaluationCache<V, E> evaluationCache) {
         this.executorService = Executors.newWorkStealingPool(parallelismLevel);
+        this.evaluationCache = evaluationCache;
     }
 
     /**
      * Computes eta (η): the treewidth of the undirected version of the graph
      * after removing the modulator vertices.
+     * Results are memoized per modulator in the evaluation cache.
      */
     public int computeEta(Graph<V, E> graph, Set<V> modulator) {
-        // Convert to undirected graph and remove modulator
-        Graph<V, DefaultEdge> undirectedGraph = convertToUndirectedWithoutModulator(graph, modulator);
+        return evaluationCache.eta(graph, modulator, undirectedGraph -> estimateEta(graph, undirectedGraph));
+    }
+
+    /**
+     * Computes η, reusing the already computed strongly connected components of the graph
+     */
+    public int computeEta(Graph<V, E> graph, Set<V> modulator, SccDecomposition<V> sccDecomposition) {
+        evaluationCache.useSccDecomposition(graph, sccDecomposition);
+        return computeEta(graph, modulator);
+    }
 
+    public ModulatorEvaluationCache.CacheStatistics getCacheStatistics() {
+        return evaluationCache.getStatistics();
+    }
+
+    /**
+     * Estimates η on an undirected view of the graph that already excludes the modulator
+     */
+    private int estimateEta(Graph<V, E> graph, Graph<V, DefaultEdge> undirectedGraph) {
         // shortcuts
         if (undirectedGraph.vertexSet().isEmpty() || undirectedGraph.vertexSet().size() == 1) {
             return 0;
@@ -71,41 +101,11 @@ public class TreewidthComputer<V, E> {
     }
 
     /**
-     * Checks if the graph has cycles
+     * Checks if the graph has cycles.
+     * The components are computed once per graph and shared by every modulator candidate.
      */
     private boolean hasCycles(Graph<V, E> graph) {
-        CycleDetector<V, E> detector = new CycleDetector<>(graph);
-        return detector.detectCycles();
-    }
-
-    /**
-     * Converts directed/undirected graph to undirected and removes modulator vertices
-     */
-    private Graph<V, DefaultEdge> convertToUndirectedWithoutModulator(Graph<V, E> original, Set<V> modulator) {
-        Graph<V, DefaultEdge> undirected = new DefaultUndirectedGraph<>(DefaultEdge.class);
-
-        // Add vertices (except modulator)
-        original.vertexSet().stream().filter(v -> !modulator.contains(v)).forEach(undirected::addVertex);
-
-        // Add edges
-        original.edgeSet().parallelStream().forEach(edge -> {
-            V source = original.getEdgeSource(edge);
-            V target = original.getEdgeTarget(edge);
-
-            if (undirected.containsVertex(source)
-                    && undirected.containsVertex(target)
-                    && !source.equals(target)
-                    && !undirected.containsEdge(source, target)) {
-
-                synchronized (undirected) {
-                    if (!undirected.containsEdge(source, target)) {
-                        undirected.addEdge(source, target);
-                    }
-                }
-            }
-        });
-
-        return undirected;
+        return evaluationCache.sccDecomposition(graph).hasCycles();
     }
 
     /**
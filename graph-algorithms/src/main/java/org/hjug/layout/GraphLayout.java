@@ -0,0 +1,403 @@
+package org.hjug.layout;
+
+import java.util.*;
+import org.hjug.dsm.SccDecomposition;
+import org.jgrapht.Graph;
+
+/**
+ * Immutable drawing coordinates of a directed graph, computed once so large graphs do not have to be laid out
+ * by the browser.
+ *
+ * The condensation DAG of the strongly connected components is drawn in layers, Sugiyama style:
+ * each component is placed one layer below the lowest component referencing it (longest path layering),
+ * and the components of a layer are ordered by the barycenter of their neighbours in the adjacent layers
+ * to reduce edge crossings.
+ * Each component gets a square box sized for its vertex count.
+ * The vertexes of a cyclic component are spread over its box by a Fruchterman-Reingold force-directed layout,
+ * using the grid variant so repulsion is only computed between nearby vertexes and large components stay
+ * linear per iteration.
+ *
+ * Neighbouring vertexes are about {@link #SPACING} apart and y grows from the first layer to the last.
+ * Layouts are deterministic: the same graph, iterated in the same order, always gets the same coordinates.
+ *
+ * @param <V> the vertex type
+ */
+public final class GraphLayout<V> {
+
+    public static final double SPACING = 100;
+
+    private static final int ORDERING_SWEEPS = 4;
+    private static final int FORCE_ITERATIONS = 50;
+    // cells holding more vertexes than this repel as one mass at their centroid, so dense clusters stay linear
+    private static final int CROWDED_CELL_SIZE = 64;
+
+    private final SccDecomposition<V> scc;
+    private final double[] x;
+    private final double[] y;
+    private final int[] layerOfComponent;
+
+    private GraphLayout(SccDecomposition<V> scc, double[] x, double[] y, int[] layerOfComponent) {
+        this.scc = scc;
+        this.x = x;
+        this.y = y;
+        this.layerOfComponent = layerOfComponent;
+    }
+
+    public static <V, E> GraphLayout<V> of(Graph<V, E> graph) {
+        return of(graph, SccDecomposition.of(graph));
+    }
+
+    /**
+     * Lays out the graph using a decomposition that was already computed for it
+     */
+    public static <V, E> GraphLayout<V> of(Graph<V, E> graph, SccDecomposition<V> scc) {
+        if (!scc.isFor(graph)) {
+            throw new IllegalArgumentException("The decomposition was not computed for this graph");
+        }
+        int componentCount = scc.getComponentCount();
+
+        // longest path layering; components are numbered in topological order of the condensation DAG
+        int[] layerOf = new int[componentCount];
+        int layerCount = componentCount == 0 ? 0 : 1;
+        for (int c = 0; c < componentCount; c++) {
+            for (int successor : scc.getCondensationSuccessors(c)) {
+                layerOf[successor] = Math.max(layerOf[successor], layerOf[c] + 1);
+                layerCount = Math.max(layerCount, layerOf[successor] + 1);
+            }
+        }
+
+        int[][] successors = new int[componentCount][];
+        int[] predecessorCount = new int[componentCount];
+        for (int c = 0; c < componentCount; c++) {
+            successors[c] = scc.getCondensationSuccessors(c);
+            for (int successor : successors[c]) {
+                predecessorCount[successor]++;
+            }
+        }
+        int[][] predecessors = new int[componentCount][];
+        for (int c = 0; c < componentCount; c++) {
+            predecessors[c] = new int[predecessorCount[c]];
+            predecessorCount[c] = 0;
+        }
+        for (int c = 0; c < componentCount; c++) {
+            for (int successor : successors[c]) {
+                predecessors[successor][predecessorCount[successor]++] = c;
+            }
+        }
+
+        List<List<Integer>> layers = new ArrayList<>(layerCount);
+        for (int layer = 0; layer < layerCount; layer++) {
+            layers.add(new ArrayList<>());
+        }
+        for (int c = 0; c < componentCount; c++) {
+            layers.get(layerOf[c]).add(c);
+        }
+        orderLayers(layers, predecessors, successors, componentCount);
+
+        // a box with room for each vertex of the component
+        double[] side = new double[componentCount];
+        for (int c = 0; c < componentCount; c++) {
+            side[c] = Math.ceil(Math.sqrt(scc.getComponentSize(c))) * SPACING;
+        }
+
+        double[] x = new double[scc.getVertexCount()];
+        double[] y = new double[scc.getVertexCount()];
+        int[] localIndex = new int[scc.getVertexCount()];
+        Arrays.fill(localIndex, -1);
+        double top = 0;
+        for (List<Integer> layer : layers) {
+            double width = SPACING * (layer.size() - 1);
+            double height = 0;
+            for (int c : layer) {
+                width += side[c];
+                height = Math.max(height, side[c]);
+            }
+            double left = -width / 2;
+            for (int c : layer) {
+                double centerX = left + side[c] / 2;
+                double centerY = top + height / 2;
+                int[] members = scc.getMembers(c);
+                if (members.length == 1) {
+                    x[members[0]] = centerX;
+                    y[members[0]] = centerY;
+                } else {
+                    layoutComponent(graph, scc, members, localIndex, centerX, centerY, side[c], x, y);
+                }
+                left += side[c] + SPACING;
+            }
+            top += height + SPACING;
+        }
+        return new GraphLayout<>(scc, x, y, layerOf);
+    }
+
+    /**
+     * Orders each layer by the average position of the neighbours of its components in the previous layer,
+     * sweeping down and then up the layers
+     */
+    private static void orderLayers(
+            List<List<Integer>> layers, int[][] predecessors, int[][] successors, int componentCount) {
+        double[] position = new double[componentCount];
+        for (List<Integer> layer : layers) {
+            for (int i = 0; i < layer.size(); i++) {
+                position[layer.get(i)] = i;
+            }
+        }
+        double[] barycenter = new double[componentCount];
+        for (int sweep = 0; sweep < ORDERING_SWEEPS; sweep++) {
+            for (int l = 1; l < layers.size(); l++) {
+                orderLayer(layers.get(l), predecessors, position, barycenter);
+            }
+            for (int l = layers.size() - 2; l >= 0; l--) {
+                orderLayer(layers.get(l), successors, position, barycenter);
+            }
+        }
+    }
+
+    private static void orderLayer(List<Integer> layer, int[][] neighbours, double[] position, double[] barycenter) {
+        for (int c : layer) {
+            if (neighbours[c].length == 0) {
+                // components without neighbours keep their place
+                barycenter[c] = position[c];
+                continue;
+            }
+            double sum = 0;
+            for (int neighbour : neighbours[c]) {
+                sum += position[neighbour];
+            }
+            barycenter[c] = sum / neighbours[c].length;
+        }
+        // stable, so ties keep their current order
+        layer.sort(Comparator.comparingDouble(c -> barycenter[c]));
+        for (int i = 0; i < layer.size(); i++) {
+            position[layer.get(i)] = i;
+        }
+    }
+
+    private static <V, E> void layoutComponent(
+            Graph<V, E> graph,
+            SccDecomposition<V> scc,
+            int[] members,
+            int[] localIndex,
+            double centerX,
+            double centerY,
+            double side,
+            double[] x,
+            double[] y) {
+        int n = members.length;
+        for (int i = 0; i < n; i++) {
+            localIndex[members[i]] = i;
+        }
+
+        // edges between members, each as a pair of local indexes
+        int[] edgeEnds = new int[16];
+        int edgeCount = 0;
+        for (int i = 0; i < n; i++) {
+            for (E edge : graph.outgoingEdgesOf(scc.getVertex(members[i]))) {
+                int target = localIndex[scc.getVertexId(graph.getEdgeTarget(edge))];
+                if (target == -1 || target == i) {
+                    continue;
+                }
+                if (edgeCount * 2 + 2 > edgeEnds.length) {
+                    edgeEnds = Arrays.copyOf(edgeEnds, edgeEnds.length * 2);
+                }
+                edgeEnds[edgeCount * 2] = i;
+                edgeEnds[edgeCount * 2 + 1] = target;
+                edgeCount++;
+            }
+        }
+
+        // start from a grid, so the result does not depend on random numbers
+        int columns = (int) Math.ceil(Math.sqrt(n));
+        double[] px = new double[n];
+        double[] py = new double[n];
+        for (int i = 0; i < n; i++) {
+            px[i] = (i % columns + 0.5) * SPACING;
+            py[i] = (i / columns + 0.5) * SPACING;
+        }
+
+        double k = SPACING;
+        double cellSize = 2 * k;
+        int cellsPerSide = (int) Math.ceil(side / cellSize) + 1;
+        int[] cellStart = new int[cellsPerSide * cellsPerSide + 1];
+        int[] cellMembers = new int[n];
+        int[] cellOf = new int[n];
+        double[] cellSumX = new double[cellsPerSide * cellsPerSide];
+        double[] cellSumY = new double[cellsPerSide * cellsPerSide];
+        double[] dx = new double[n];
+        double[] dy = new double[n];
+
+        for (int iteration = 0; iteration < FORCE_ITERATIONS; iteration++) {
+            double temperature = side / 10 * (1 - (double) iteration / FORCE_ITERATIONS);
+            Arrays.fill(dx, 0);
+            Arrays.fill(dy, 0);
+
+            // bucket the vertexes by grid cell
+            Arrays.fill(cellStart, 0);
+            for (int i = 0; i < n; i++) {
+                int cell = cell(px[i], cellSize, cellsPerSide) * cellsPerSide + cell(py[i], cellSize, cellsPerSide);
+                cellOf[i] = cell;
+                cellStart[cell + 1]++;
+            }
+            for (int cell = 0; cell < cellsPerSide * cellsPerSide; cell++) {
+                cellStart[cell + 1] += cellStart[cell];
+            }
+            int[] fill = Arrays.copyOf(cellStart, cellStart.length);
+            Arrays.fill(cellSumX, 0);
+            Arrays.fill(cellSumY, 0);
+            for (int i = 0; i < n; i++) {
+                cellMembers[fill[cellOf[i]]++] = i;
+                cellSumX[cellOf[i]] += px[i];
+                cellSumY[cellOf[i]] += py[i];
+            }
+
+            // repulsion between vertexes closer than two ideal edge lengths
+            for (int i = 0; i < n; i++) {
+                int cellX = cellOf[i] / cellsPerSide;
+                int cellY = cellOf[i] % cellsPerSide;
+                for (int nx = Math.max(0, cellX - 1); nx <= Math.min(cellsPerSide - 1, cellX + 1); nx++) {
+                    for (int ny = Math.max(0, cellY - 1); ny <= Math.min(cellsPerSide - 1, cellY + 1); ny++) {
+                        int cell = nx * cellsPerSide + ny;
+                        int count = cellStart[cell + 1] - cellStart[cell];
+                        if (count > CROWDED_CELL_SIZE) {
+                            double massX = cellSumX[cell];
+                            double massY = cellSumY[cell];
+                            if (cell == cellOf[i]) {
+                                massX -= px[i];
+                                massY -= py[i];
+                                count--;
+                            }
+                            repel(i, px[i] - massX / count, py[i] - massY / count, count, i, k, dx, dy);
+                            continue;
+                        }
+                        for (int m = cellStart[cell]; m < cellStart[cell + 1]; m++) {
+                            int j = cellMembers[m];
+                            if (j != i) {
+                                repel(i, px[i] - px[j], py[i] - py[j], 1, j, k, dx, dy);
+                            }
+                        }
+                    }
+                }
+            }
+
+            // attraction along edges
+            for (int e = 0; e < edgeCount; e++) {
+                int source = edgeEnds[e * 2];
+                int target = edgeEnds[e * 2 + 1];
+                double ddx = px[source] - px[target];
+                double ddy = py[source] - py[target];
+                double distance = Math.sqrt(ddx * ddx + ddy * ddy);
+                if (distance == 0) {
+                    continue;
+                }
+                double force = distance * distance / k;
+                dx[source] -= ddx / distance * force;
+                dy[source] -= ddy / distance * force;
+                dx[target] += ddx / distance * force;
+                dy[target] += ddy / distance * force;
+            }
+
+            // move each vertex at most the temperature
+            for (int i = 0; i < n; i++) {
+                double length = Math.sqrt(dx[i] * dx[i] + dy[i] * dy[i]);
+                if (length > 0) {
+                    double step = Math.min(length, temperature);
+                    px[i] += dx[i] / length * step;
+                    py[i] += dy[i] / length * step;
+                }
+            }
+        }
+
+        // fit the result into the box; vertexes are not kept inside it while moving, since clamping stacks them
+        // on the box's edges
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, px[i]);
+            minY = Math.min(minY, py[i]);
+            maxX = Math.max(maxX, px[i]);
+            maxY = Math.max(maxY, py[i]);
+        }
+        double extent = Math.max(maxX - minX, maxY - minY);
+        double scale = extent > side ? side / extent : 1;
+        for (int i = 0; i < n; i++) {
+            x[members[i]] = centerX + (px[i] - (minX + maxX) / 2) * scale;
+            y[members[i]] = centerY + (py[i] - (minY + maxY) / 2) * scale;
+            localIndex[members[i]] = -1;
+        }
+    }
+
+    /**
+     * Adds the repulsion of a mass at the offset from vertex i, if it is closer than two ideal edge lengths
+     */
+    private static void repel(int i, double ddx, double ddy, int mass, int other, double k, double[] dx, double[] dy) {
+        double distance = Math.sqrt(ddx * ddx + ddy * ddy);
+        if (distance == 0) {
+            // push coincident vertexes apart in a direction that depends only on their order
+            ddx = i < other ? 1 : -1;
+            ddy = 0;
+            distance = 1;
+        }
+        if (distance < 2 * k) {
+            double force = mass * k * k / distance;
+            dx[i] += ddx / distance * force;
+            dy[i] += ddy / distance * force;
+        }
+    }
+
+    private static int cell(double coordinate, double cellSize, int cellsPerSide) {
+        return Math.max(0, Math.min(cellsPerSide - 1, (int) (coordinate / cellSize)));
+    }
+
+    public int getVertexCount() {
+        return scc.getVertexCount();
+    }
+
+    public V getVertex(int vertexId) {
+        return scc.getVertex(vertexId);
+    }
+
+    public double getX(int vertexId) {
+        return x[vertexId];
+    }
+
+    public double getY(int vertexId) {
+        return y[vertexId];
+    }
+
+    /**
+     * @return the x coordinate of the vertex
+     * @throws IllegalArgumentException if the vertex was not part of the graph
+     */
+    public double getX(V vertex) {
+        return x[vertexId(vertex)];
+    }
+
+    /**
+     * @return the y coordinate of the vertex
+     * @throws IllegalArgumentException if the vertex was not part of the graph
+     */
+    public double getY(V vertex) {
+        return y[vertexId(vertex)];
+    }
+
+    /**
+     * @return the layer of the vertex's strongly connected component, 0 for components nothing references
+     */
+    public int getLayer(V vertex) {
+        return layerOfComponent[scc.getComponentOfVertexId(vertexId(vertex))];
+    }
+
+    public SccDecomposition<V> getSccDecomposition() {
+        return scc;
+    }
+
+    private int vertexId(V vertex) {
+        int id = scc.getVertexId(vertex);
+        if (id == -1) {
+            throw new IllegalArgumentException("Not a vertex of the laid out graph: " + vertex);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,100 @@
+package org.hjug.dsm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SccDecompositionTest {
+
+    private Graph<String, DefaultEdge> graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        addEdge("A", "B");
+        addEdge("B", "C");
+        addEdge("C", "A");
+        addEdge("C", "D");
+        addEdge("D", "E");
+        addEdge("E", "D");
+        addEdge("E", "F");
+        addEdge("G", "G");
+        addEdge("G", "A");
+    }
+
+    @Test
+    @DisplayName("Should find the same components as JGraphT's Kosaraju inspector")
+    void testMatchesKosaraju() {
+        SccDecomposition<String> scc = SccDecomposition.of(graph);
+
+        List<Set<String>> expected = new KosarajuStrongConnectivityInspector<>(graph).stronglyConnectedSets();
+        assertEquals(expected, scc.getStronglyConnectedSets());
+        assertEquals(4, scc.getComponentCount());
+    }
+
+    @Test
+    @DisplayName("Should number components in topological order of the condensation")
+    void testCondensationOrder() {
+        SccDecomposition<String> scc = SccDecomposition.of(graph);
+
+        assertEquals(3, scc.getCondensationEdgeCount());
+        for (int c = 0; c < scc.getComponentCount(); c++) {
+            for (int successor : scc.getCondensationSuccessors(c)) {
+                assertTrue(successor > c);
+            }
+        }
+        assertTrue(scc.getComponentOf("G") < scc.getComponentOf("A"));
+        assertTrue(scc.getComponentOf("A") < scc.getComponentOf("D"));
+        assertEquals(scc.getComponentOf("A"), scc.getComponentOf("C"));
+    }
+
+    @Test
+    @DisplayName("Should flag components with more than one vertex or a self loop as cyclic")
+    void testCyclicComponents() {
+        SccDecomposition<String> scc = SccDecomposition.of(graph);
+
+        assertTrue(scc.hasCycles());
+        assertTrue(scc.isInCycle("A"));
+        assertTrue(scc.isInCycle("E"));
+        assertTrue(scc.isInCycle("G"));
+        assertFalse(scc.isInCycle("F"));
+        assertFalse(scc.isInCycle("X"));
+        assertEquals(-1, scc.getComponentOf("X"));
+        assertEquals(3, scc.getCyclicComponents().size());
+    }
+
+    @Test
+    @DisplayName("Should detect that the graph changed after the decomposition was computed")
+    void testIsFor() {
+        SccDecomposition<String> scc = SccDecomposition.of(graph);
+        assertTrue(scc.isFor(graph));
+
+        addEdge("F", "A");
+        assertFalse(scc.isFor(graph));
+    }
+
+    @Test
+    @DisplayName("Should detect an edge swapped for another one, which keeps the vertex and edge counts")
+    void testIsForSwappedEdge() {
+        SccDecomposition<String> scc = SccDecomposition.of(graph);
+
+        graph.removeEdge("E", "D");
+        addEdge("F", "D");
+        assertEquals(scc.getEdgeCount(), graph.edgeSet().size());
+        assertFalse(scc.isFor(graph));
+    }
+
+    private void addEdge(String source, String target) {
+        graph.addVertex(source);
+        graph.addVertex(target);
+        graph.addEdge(source, target);
+    }
+}
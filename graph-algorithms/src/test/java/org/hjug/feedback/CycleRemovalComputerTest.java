@@ -0,0 +1,137 @@
+package org.hjug.feedback;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Set;
+import org.hjug.dsm.SccDecomposition;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.cycle.CycleDetector;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class CycleRemovalComputerTest {
+
+    private Graph<String, DefaultWeightedEdge> graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+    }
+
+    @Test
+    @DisplayName("Should parse strategy names from the command line")
+    void testFromName() {
+        assertNull(FeedbackArcSetStrategy.fromName(null));
+        assertNull(FeedbackArcSetStrategy.fromName("auto"));
+        assertEquals(FeedbackArcSetStrategy.PAGE_RANK, FeedbackArcSetStrategy.fromName("pageRank"));
+        assertEquals(FeedbackArcSetStrategy.PAGE_RANK, FeedbackArcSetStrategy.fromName("page-rank"));
+        assertEquals(FeedbackArcSetStrategy.EXACT, FeedbackArcSetStrategy.fromName("EXACT"));
+        assertThrows(IllegalArgumentException.class, () -> FeedbackArcSetStrategy.fromName("simplex"));
+    }
+
+    @Test
+    @DisplayName("Should select algorithms by component size, density, and remaining budget")
+    void testSelect() {
+        FeedbackArcSetStrategySelector selector = FeedbackArcSetStrategySelector.defaultSelector();
+        Duration budget = Duration.ofSeconds(10);
+
+        assertEquals(FeedbackArcSetStrategy.EXACT, selector.select(20, 40, budget));
+        assertEquals(FeedbackArcSetStrategy.PAGE_RANK, selector.select(20, 150, budget));
+        assertEquals(FeedbackArcSetStrategy.PAGE_RANK, selector.select(500, 1_500, budget));
+        assertEquals(FeedbackArcSetStrategy.GREEDY, selector.select(20_000, 60_000, budget));
+        assertEquals(FeedbackArcSetStrategy.GREEDY, selector.select(20, 40, Duration.ZERO));
+        assertEquals(
+                FeedbackArcSetStrategy.PAGE_RANK,
+                FeedbackArcSetStrategySelector.withOverride(FeedbackArcSetStrategy.PAGE_RANK)
+                        .select(20_000, 60_000, Duration.ZERO));
+    }
+
+    @Test
+    @DisplayName("Should record the algorithm used for each cyclic component")
+    void testSccRemovalStatistics() {
+        addCycle("A", "B", "C");
+        addCycle("D", "E");
+        addEdge("C", "D");
+        addEdge("E", "F");
+
+        CycleRemovalResult result = new CycleRemovalComputer().computeCycleRemovalInformation(graph);
+
+        assertEquals(2, result.getSccRemovalStatistics().size());
+        SccRemovalStatistics largest = result.getSccRemovalStatistics().get(0);
+        assertEquals(3, largest.getVertexCount());
+        assertEquals(3, largest.getEdgeCount());
+        assertEquals(FeedbackArcSetStrategy.EXACT, largest.getStrategy());
+        assertEquals(1, largest.getEdgesRemoved());
+        assertEquals(2, result.getEdgesToRemove().size());
+        assertAcyclicAfterRemoval(result.getEdgesToRemove());
+    }
+
+    @Test
+    @DisplayName("Should compute only the edges to remove")
+    void testComputeEdgesToRemove() {
+        addCycle("A", "B", "C");
+        addCycle("D", "E");
+        addEdge("C", "D");
+
+        Set<DefaultWeightedEdge> edgesToRemove =
+                new CycleRemovalComputer().computeEdgesToRemove(graph, SccDecomposition.of(graph));
+
+        assertEquals(2, edgesToRemove.size());
+        assertAcyclicAfterRemoval(edgesToRemove);
+    }
+
+    @ParameterizedTest
+    @EnumSource(FeedbackArcSetStrategy.class)
+    @DisplayName("Should break all cycles with an overridden strategy")
+    void testOverride(FeedbackArcSetStrategy strategy) {
+        addCycle("A", "B", "C", "D");
+        addEdge("B", "D");
+        addEdge("D", "B");
+        addCycle("X", "Y", "Z");
+
+        CycleRemovalResult result = new CycleRemovalComputer(FeedbackArcSetStrategySelector.withOverride(strategy))
+                .computeCycleRemovalInformation(graph);
+
+        assertTrue(result.getSccRemovalStatistics().stream().allMatch(stats -> stats.getStrategy() == strategy));
+        assertAcyclicAfterRemoval(result.getEdgesToRemove());
+    }
+
+    @Test
+    @DisplayName("Should not record components for an acyclic graph")
+    void testAcyclicGraph() {
+        addEdge("A", "B");
+        addEdge("B", "C");
+
+        CycleRemovalResult result = new CycleRemovalComputer().computeCycleRemovalInformation(graph);
+
+        assertTrue(result.getEdgesToRemove().isEmpty());
+        assertTrue(result.getSccRemovalStatistics().isEmpty());
+    }
+
+    private void addCycle(String... vertices) {
+        for (int i = 0; i < vertices.length; i++) {
+            addEdge(vertices[i], vertices[(i + 1) % vertices.length]);
+        }
+    }
+
+    private void addEdge(String source, String target) {
+        graph.addVertex(source);
+        graph.addVertex(target);
+        graph.addEdge(source, target);
+    }
+
+    private void assertAcyclicAfterRemoval(Set<DefaultWeightedEdge> edgesToRemove) {
+        Graph<String, DefaultWeightedEdge> copy = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        graph.vertexSet().forEach(copy::addVertex);
+        graph.edgeSet().stream()
+                .filter(edge -> !edgesToRemove.contains(edge))
+                .forEach(edge -> copy.addEdge(graph.getEdgeSource(edge), graph.getEdgeTarget(edge)));
+        assertFalse(new CycleDetector<>(copy).detectCycles());
+    }
+}
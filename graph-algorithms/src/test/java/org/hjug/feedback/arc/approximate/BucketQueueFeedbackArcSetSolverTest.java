@@ -0,0 +1,140 @@
+package org.hjug.feedback.arc.approximate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.cycle.CycleDetector;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BucketQueueFeedbackArcSetSolverTest {
+
+    private Graph<Integer, DefaultEdge> graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+    }
+
+    @Test
+    @DisplayName("Should handle empty graph")
+    void testEmptyGraph() {
+        FeedbackArcSetResult<Integer, DefaultEdge> result = new BucketQueueFeedbackArcSetSolver<>(graph).solve();
+
+        assertTrue(result.getVertexSequence().isEmpty());
+        assertEquals(0, result.getFeedbackArcCount());
+    }
+
+    @Test
+    @DisplayName("Should return a topological order for a DAG")
+    void testAcyclicGraph() {
+        addEdge(1, 2);
+        addEdge(2, 3);
+        addEdge(1, 3);
+        addEdge(3, 4);
+
+        FeedbackArcSetResult<Integer, DefaultEdge> result = new BucketQueueFeedbackArcSetSolver<>(graph).solve();
+
+        assertEquals(0, result.getFeedbackArcCount());
+        assertEquals(List.of(1, 2, 3, 4), result.getVertexSequence());
+    }
+
+    @Test
+    @DisplayName("Should break a simple cycle with one arc")
+    void testSimpleCycle() {
+        addEdge(1, 2);
+        addEdge(2, 3);
+        addEdge(3, 1);
+
+        FeedbackArcSetResult<Integer, DefaultEdge> result = new BucketQueueFeedbackArcSetSolver<>(graph).solve();
+
+        assertEquals(1, result.getFeedbackArcCount());
+        assertAcyclicAfterRemoval(result);
+    }
+
+    @Test
+    @DisplayName("Should report self loops as feedback arcs")
+    void testSelfLoop() {
+        addEdge(1, 1);
+        addEdge(1, 2);
+
+        FeedbackArcSetResult<Integer, DefaultEdge> result = new BucketQueueFeedbackArcSetSolver<>(graph).solve();
+
+        assertEquals(Set.of(graph.getEdge(1, 1)), result.getFeedbackArcs());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 1000})
+    @DisplayName("Should break all cycles within the Eades-Lin-Smyth bound")
+    void testRandomGraphs(int size) {
+        createRandomGraph(size, size * 3, new Random(size));
+
+        FeedbackArcSetResult<Integer, DefaultEdge> result = new BucketQueueFeedbackArcSetSolver<>(graph).solve();
+
+        assertEquals(size, result.getVertexSequence().size());
+        assertAcyclicAfterRemoval(result);
+        // |FAS| <= m/2 - n/6 for graphs without 2-cycles; m/2 holds in general
+        assertTrue(result.getFeedbackArcCount() <= graph.edgeSet().size() / 2);
+    }
+
+    @Test
+    @DisplayName("Should remove one arc per 2-cycle on a chain of 2-cycles")
+    void testCycleChain() {
+        for (int i = 0; i < 20; i++) {
+            addEdge(i, i + 1);
+            addEdge(i + 1, i);
+        }
+
+        FeedbackArcSetResult<Integer, DefaultEdge> result = new BucketQueueFeedbackArcSetSolver<>(graph).solve();
+
+        assertEquals(20, result.getFeedbackArcCount());
+        assertAcyclicAfterRemoval(result);
+    }
+
+    @Test
+    @DisplayName("Should handle a 100k vertex graph quickly")
+    void testLargeGraph() {
+        createRandomGraph(100_000, 300_000, new Random(42));
+
+        long start = System.currentTimeMillis();
+        FeedbackArcSetResult<Integer, DefaultEdge> result = new BucketQueueFeedbackArcSetSolver<>(graph).solve();
+        long duration = System.currentTimeMillis() - start;
+
+        assertEquals(100_000, result.getVertexSequence().size());
+        assertTrue(duration < 10_000, "Took " + duration + "ms");
+    }
+
+    private void addEdge(int source, int target) {
+        graph.addVertex(source);
+        graph.addVertex(target);
+        graph.addEdge(source, target);
+    }
+
+    private void createRandomGraph(int vertexCount, int edgeCount, Random random) {
+        for (int i = 0; i < vertexCount; i++) {
+            graph.addVertex(i);
+        }
+        while (graph.edgeSet().size() < edgeCount) {
+            int source = random.nextInt(vertexCount);
+            int target = random.nextInt(vertexCount);
+            if (source != target) {
+                graph.addEdge(source, target);
+            }
+        }
+    }
+
+    private void assertAcyclicAfterRemoval(FeedbackArcSetResult<Integer, DefaultEdge> result) {
+        Graph<Integer, DefaultEdge> copy = new DefaultDirectedGraph<>(DefaultEdge.class);
+        graph.vertexSet().forEach(copy::addVertex);
+        graph.edgeSet().stream()
+                .filter(edge -> !result.getFeedbackArcs().contains(edge))
+                .forEach(edge -> copy.addEdge(graph.getEdgeSource(edge), graph.getEdgeTarget(edge)));
+        assertFalse(new CycleDetector<>(copy).detectCycles());
+    }
+}
@@ -0,0 +1,181 @@
+package org.hjug.feedback.arc.exact;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.*;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.cycle.CycleDetector;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LazyConstraintFeedbackArcSetSolverTest {
+
+    private Graph<String, DefaultEdge> graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+    }
+
+    @Test
+    @DisplayName("Should return an empty optimal result for an acyclic graph")
+    void testAcyclicGraph() {
+        addEdges("A", "B", "B", "C", "A", "C");
+
+        FeedbackArcSetResult<String, DefaultEdge> result =
+                new LazyConstraintFeedbackArcSetSolver<>(graph, null).solve();
+
+        assertEquals(0, result.size());
+        assertTrue(result.isOptimal());
+    }
+
+    @Test
+    @DisplayName("Should remove a single edge from a simple cycle")
+    void testSimpleCycle() {
+        addEdges("A", "B", "B", "C", "C", "A");
+
+        FeedbackArcSetResult<String, DefaultEdge> result =
+                new LazyConstraintFeedbackArcSetSolver<>(graph, null).solve();
+
+        assertEquals(1, result.size());
+        assertEquals(0.0, result.getOptimalityGap());
+        assertAcyclicAfterRemoval(result);
+    }
+
+    @Test
+    @DisplayName("Should remove self loops")
+    void testSelfLoop() {
+        graph.addVertex("A");
+        graph.addEdge("A", "A");
+        addEdges("A", "B", "B", "A");
+
+        FeedbackArcSetResult<String, DefaultEdge> result =
+                new LazyConstraintFeedbackArcSetSolver<>(graph, null).solve();
+
+        assertEquals(2, result.size());
+        assertTrue(result.getFeedbackArcSet().contains(graph.getEdge("A", "A")));
+        assertAcyclicAfterRemoval(result);
+    }
+
+    @Test
+    @DisplayName("Should prefer the cheaper edges when weights are provided")
+    void testWeightedEdges() {
+        addEdges("A", "B", "B", "C", "C", "A");
+        Map<DefaultEdge, Double> weights = new HashMap<>();
+        weights.put(graph.getEdge("A", "B"), 5.0);
+        weights.put(graph.getEdge("B", "C"), 1.0);
+        weights.put(graph.getEdge("C", "A"), 5.0);
+
+        FeedbackArcSetResult<String, DefaultEdge> result =
+                new LazyConstraintFeedbackArcSetSolver<>(graph, weights).solve();
+
+        assertEquals(Set.of(graph.getEdge("B", "C")), result.getFeedbackArcSet());
+        assertEquals(1.0, result.getObjectiveValue());
+    }
+
+    @Test
+    @DisplayName("Should find the shared edge of overlapping cycles")
+    void testOverlappingCycles() {
+        // A -> B is on every cycle
+        addEdges("A", "B", "B", "C", "C", "A", "B", "D", "D", "A", "B", "E", "E", "A");
+
+        FeedbackArcSetResult<String, DefaultEdge> result =
+                new LazyConstraintFeedbackArcSetSolver<>(graph, null).solve();
+
+        assertEquals(Set.of(graph.getEdge("A", "B")), result.getFeedbackArcSet());
+        assertTrue(result.isOptimal());
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 7, 42, 1234})
+    @DisplayName("Should match brute force on small random graphs")
+    void testMatchesBruteForce(long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < 7; i++) {
+            graph.addVertex("V" + i);
+        }
+        while (graph.edgeSet().size() < 14) {
+            int source = random.nextInt(7);
+            int target = random.nextInt(7);
+            if (source != target) {
+                graph.addEdge("V" + source, "V" + target);
+            }
+        }
+
+        FeedbackArcSetResult<String, DefaultEdge> result =
+                new LazyConstraintFeedbackArcSetSolver<>(graph, null).solve();
+
+        assertTrue(result.isOptimal());
+        assertEquals(bruteForceMinimumSize(), result.size());
+        assertAcyclicAfterRemoval(result);
+    }
+
+    @Test
+    @DisplayName("Should return a feasible solution and a gap when the time budget is exhausted")
+    void testTimeBudget() {
+        // tournament on 12 vertices: many overlapping cycles
+        for (int i = 0; i < 12; i++) {
+            for (int j = i + 1; j < 12; j++) {
+                if ((i + j) % 3 == 0) {
+                    graph.addVertex("V" + i);
+                    graph.addVertex("V" + j);
+                    graph.addEdge("V" + j, "V" + i);
+                } else {
+                    graph.addVertex("V" + i);
+                    graph.addVertex("V" + j);
+                    graph.addEdge("V" + i, "V" + j);
+                }
+            }
+        }
+
+        FeedbackArcSetResult<String, DefaultEdge> result =
+                new LazyConstraintFeedbackArcSetSolver<>(graph, null, Duration.ZERO).solve();
+
+        assertAcyclicAfterRemoval(result);
+        assertTrue(result.getLowerBound() <= result.getObjectiveValue());
+        assertTrue(result.getOptimalityGap() >= 0.0 && result.getOptimalityGap() <= 1.0);
+    }
+
+    private void addEdges(String... vertices) {
+        for (int i = 0; i < vertices.length; i += 2) {
+            graph.addVertex(vertices[i]);
+            graph.addVertex(vertices[i + 1]);
+            graph.addEdge(vertices[i], vertices[i + 1]);
+        }
+    }
+
+    private int bruteForceMinimumSize() {
+        List<DefaultEdge> edges = new ArrayList<>(graph.edgeSet());
+        int best = edges.size();
+        for (int mask = 0; mask < (1 << edges.size()); mask++) {
+            int size = Integer.bitCount(mask);
+            if (size >= best) {
+                continue;
+            }
+            Graph<String, DefaultEdge> copy = new DefaultDirectedGraph<>(DefaultEdge.class);
+            graph.vertexSet().forEach(copy::addVertex);
+            for (int e = 0; e < edges.size(); e++) {
+                if ((mask & (1 << e)) == 0) {
+                    copy.addEdge(graph.getEdgeSource(edges.get(e)), graph.getEdgeTarget(edges.get(e)));
+                }
+            }
+            if (!new CycleDetector<>(copy).detectCycles()) {
+                best = size;
+            }
+        }
+        return best;
+    }
+
+    private void assertAcyclicAfterRemoval(FeedbackArcSetResult<String, DefaultEdge> result) {
+        Graph<String, DefaultEdge> copy = new DefaultDirectedGraph<>(DefaultEdge.class);
+        graph.vertexSet().forEach(copy::addVertex);
+        graph.edgeSet().stream()
+                .filter(edge -> !result.getFeedbackArcSet().contains(edge))
+                .forEach(edge -> copy.addEdge(graph.getEdgeSource(edge), graph.getEdgeTarget(edge)));
+        assertFalse(new CycleDetector<>(copy).detectCycles());
+    }
+}
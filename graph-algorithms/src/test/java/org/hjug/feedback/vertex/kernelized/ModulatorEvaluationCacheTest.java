@@ -0,0 +1,108 @@
+package org.hjug.feedback.vertex.kernelized;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hjug.feedback.SuperTypeToken;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.*;
+
+class ModulatorEvaluationCacheTest {
+
+    private ModulatorEvaluationCache<String, DefaultEdge> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ModulatorEvaluationCache<>();
+    }
+
+    @Test
+    @DisplayName("Should evaluate equal modulators only once regardless of insertion order")
+    void testCanonicalModulatorKey() {
+        Graph<String, DefaultEdge> graph = createCycleGraph(6);
+        AtomicInteger evaluations = new AtomicInteger();
+
+        int first = cache.eta(graph, new LinkedHashSet<>(List.of("V1", "V3")), view -> evaluations.incrementAndGet());
+        int second = cache.eta(graph, new LinkedHashSet<>(List.of("V3", "V1")), view -> evaluations.incrementAndGet());
+
+        assertEquals(first, second);
+        assertEquals(1, evaluations.get());
+        assertEquals(1, cache.getStatistics().getEtaHits());
+        assertEquals(1, cache.getStatistics().getEtaMisses());
+        assertEquals(0.5, cache.getStatistics().getEtaHitRate());
+    }
+
+    @Test
+    @DisplayName("Should hide modulator vertices in the undirected view without modifying the graph")
+    void testUndirectedViewWithoutModulator() {
+        Graph<String, DefaultEdge> graph = createCycleGraph(4);
+
+        Graph<String, DefaultEdge> view = cache.undirectedViewWithout(graph, Set.of("V0"));
+
+        assertEquals(Set.of("V1", "V2", "V3"), view.vertexSet());
+        assertEquals(2, view.edgeSet().size());
+        assertEquals(4, graph.vertexSet().size());
+        assertEquals(4, graph.edgeSet().size());
+    }
+
+    @Test
+    @DisplayName("Should recompute when the graph is modified")
+    void testInvalidatedOnGraphChange() {
+        Graph<String, DefaultEdge> graph = createCycleGraph(4);
+        AtomicInteger evaluations = new AtomicInteger();
+
+        cache.k(graph, g -> evaluations.incrementAndGet());
+        cache.k(graph, g -> evaluations.incrementAndGet());
+        assertEquals(1, evaluations.get());
+
+        graph.addVertex("V4");
+        graph.addEdge("V3", "V4");
+        cache.k(graph, g -> evaluations.incrementAndGet());
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    @DisplayName("Should recompute when an edge is swapped for another one")
+    void testInvalidatedOnEdgeSwap() {
+        Graph<String, DefaultEdge> graph = createCycleGraph(4);
+        AtomicInteger evaluations = new AtomicInteger();
+
+        cache.k(graph, g -> evaluations.incrementAndGet());
+        graph.removeEdge("V3", "V0");
+        graph.addEdge("V3", "V1");
+        cache.k(graph, g -> evaluations.incrementAndGet());
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    @DisplayName("Should share estimates between the computers of an EnhancedParameterComputer")
+    void testSharedAcrossParameterComputations() {
+        EnhancedParameterComputer<String, DefaultEdge> parameterComputer =
+                new EnhancedParameterComputer<>(new SuperTypeToken<>() {});
+        try {
+            Graph<String, DefaultEdge> graph = createCycleGraph(8);
+            parameterComputer.computeMultipleParameterOptions(graph, 4, 3);
+
+            ModulatorEvaluationCache.CacheStatistics statistics = parameterComputer.getCacheStatistics();
+            assertEquals(1, statistics.getKMisses());
+            assertTrue(statistics.getKHits() > 0);
+            assertTrue(statistics.getEtaHits() > 0);
+        } finally {
+            parameterComputer.shutdown();
+        }
+    }
+
+    private Graph<String, DefaultEdge> createCycleGraph(int size) {
+        Graph<String, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (int i = 0; i < size; i++) {
+            graph.addVertex("V" + i);
+        }
+        for (int i = 0; i < size; i++) {
+            graph.addEdge("V" + i, "V" + ((i + 1) % size));
+        }
+        return graph;
+    }
+}
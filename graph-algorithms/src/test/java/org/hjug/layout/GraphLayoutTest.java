@@ -0,0 +1,128 @@
+package org.hjug.layout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class GraphLayoutTest {
+
+    private Graph<String, DefaultEdge> graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+    }
+
+    @Test
+    @DisplayName("Should place each component of a chain one layer below the component referencing it")
+    void testChainLayers() {
+        addEdge("A", "B");
+        addEdge("B", "C");
+        addEdge("A", "C");
+
+        GraphLayout<String> layout = GraphLayout.of(graph);
+
+        assertEquals(0, layout.getLayer("A"));
+        assertEquals(1, layout.getLayer("B"));
+        assertEquals(2, layout.getLayer("C"));
+        assertTrue(layout.getY("A") < layout.getY("B"));
+        assertTrue(layout.getY("B") < layout.getY("C"));
+    }
+
+    @Test
+    @DisplayName("Should spread the vertexes of a cycle over one layer, above the components it references")
+    void testCycleIsLaidOutInItsBox() {
+        addEdge("A", "B");
+        addEdge("B", "C");
+        addEdge("C", "A");
+        addEdge("C", "D");
+
+        GraphLayout<String> layout = GraphLayout.of(graph);
+
+        assertEquals(0, layout.getLayer("A"));
+        assertEquals(0, layout.getLayer("B"));
+        assertEquals(0, layout.getLayer("C"));
+        assertEquals(1, layout.getLayer("D"));
+
+        Set<String> positions = new HashSet<>();
+        for (String vertex : List.of("A", "B", "C")) {
+            positions.add(layout.getX(vertex) + "," + layout.getY(vertex));
+            assertTrue(layout.getY(vertex) < layout.getY("D"));
+        }
+        assertEquals(3, positions.size(), "cycle members should not overlap");
+    }
+
+    @Test
+    @DisplayName("Should order a layer by the positions of the components referencing it")
+    void testBarycenterOrdering() {
+        // whichever order A and B get in the first layer, their targets should get the same order
+        addEdge("B", "Y");
+        addEdge("A", "X");
+        graph.addVertex("C");
+
+        GraphLayout<String> layout = GraphLayout.of(graph);
+
+        assertEquals(
+                Double.compare(layout.getX("B"), layout.getX("A")), Double.compare(layout.getX("Y"), layout.getX("X")));
+    }
+
+    @Test
+    @DisplayName("Should lay out a large component without stacking vertexes on top of each other")
+    void testLargeCycle() {
+        int size = 2_000;
+        for (int i = 0; i < size; i++) {
+            addEdge("V" + i, "V" + ((i + 1) % size));
+            addEdge("V" + i, "V" + ((i * 7 + 3) % size));
+        }
+
+        GraphLayout<String> layout = GraphLayout.of(graph);
+
+        Set<String> positions = new HashSet<>();
+        for (int id = 0; id < layout.getVertexCount(); id++) {
+            assertTrue(Double.isFinite(layout.getX(id)) && Double.isFinite(layout.getY(id)));
+            positions.add(layout.getX(id) + "," + layout.getY(id));
+        }
+        assertEquals(size, positions.size());
+    }
+
+    @Test
+    @DisplayName("Should compute the same coordinates every time")
+    void testDeterministic() {
+        addEdge("A", "B");
+        addEdge("B", "A");
+        addEdge("B", "C");
+        addEdge("C", "D");
+        addEdge("D", "C");
+
+        GraphLayout<String> first = GraphLayout.of(graph);
+        GraphLayout<String> second = GraphLayout.of(graph);
+
+        for (String vertex : graph.vertexSet()) {
+            assertEquals(first.getX(vertex), second.getX(vertex));
+            assertEquals(first.getY(vertex), second.getY(vertex));
+        }
+    }
+
+    @Test
+    @DisplayName("Should lay out an empty graph")
+    void testEmptyGraph() {
+        GraphLayout<String> layout = GraphLayout.of(graph);
+
+        assertEquals(0, layout.getVertexCount());
+        assertThrows(IllegalArgumentException.class, () -> layout.getX("A"));
+    }
+
+    private void addEdge(String source, String target) {
+        graph.addVertex(source);
+        graph.addVertex(target);
+        graph.addEdge(source, target);
+    }
+}
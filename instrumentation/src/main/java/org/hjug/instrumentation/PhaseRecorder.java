@@ -0,0 +1,58 @@
+package org.hjug.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The phases and counters of one run of an analysis, e.g. the report of one module.
+ * Runs on different threads, such as the modules of a parallel build, each record to their own.
+ *
+ * @see PhaseTimer#startRun()
+ */
+public final class PhaseRecorder {
+
+    private final List<PhaseTiming> timings = Collections.synchronizedList(new ArrayList<>());
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    void add(PhaseTiming timing) {
+        timings.add(timing);
+    }
+
+    /**
+     * Adds value to a counter of the run
+     */
+    public void count(String name, long value) {
+        counters.computeIfAbsent(name, key -> new AtomicLong()).addAndGet(value);
+    }
+
+    /**
+     * Raises a counter of the run to value if it is lower
+     */
+    public void max(String name, long value) {
+        counters.computeIfAbsent(name, key -> new AtomicLong()).accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @return the phases closed in the run, in the order they were closed
+     */
+    public List<PhaseTiming> getTimings() {
+        synchronized (timings) {
+            return List.copyOf(timings);
+        }
+    }
+
+    /**
+     * @return the counters of the run, sorted by name
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> sortedCounters = new TreeMap<>();
+        counters.forEach((name, value) -> sortedCounters.put(name, value.get()));
+        return sortedCounters;
+    }
+}
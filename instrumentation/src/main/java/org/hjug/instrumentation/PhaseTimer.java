@@ -0,0 +1,191 @@
+package org.hjug.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Records the wall time, CPU time and allocated bytes of each phase of an analysis, and counters of the sizes
+ * the analysis worked on, to the {@link PhaseRecorder} of the current run.
+ * Phases are timed with try-with-resources:
+ * <pre>
+ * try (PhaseTimer.Phase phase = PhaseTimer.start("parse")) {
+ *     ...
+ *     phase.count("files", files.size());
+ * }
+ * </pre>
+ * CPU time and allocated bytes are measured for the thread that started the phase only,
+ * so work a phase hands to a thread pool shows up in its wall time but not in its CPU time.
+ *
+ * The recorder of a run is held by the thread that started it with {@link #startRun()}.
+ * Work handed to other threads records to the same run when wrapped with {@code inCurrentRun},
+ * so concurrent runs, e.g. the modules of a build run with -T, do not mix their phases.
+ */
+public final class PhaseTimer {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static final ThreadLocal<PhaseRecorder> CURRENT = ThreadLocal.withInitial(PhaseRecorder::new);
+
+    private PhaseTimer() {}
+
+    /**
+     * Starts a new run on the current thread, so the phases and counters recorded so far are not part of it
+     *
+     * @return the recorder of the run
+     */
+    public static PhaseRecorder startRun() {
+        PhaseRecorder recorder = new PhaseRecorder();
+        CURRENT.set(recorder);
+        return recorder;
+    }
+
+    /**
+     * @return the recorder of the run on the current thread
+     */
+    public static PhaseRecorder current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return the task, recording to the run of the current thread on whichever thread it is called
+     */
+    public static <T> Callable<T> inCurrentRun(Callable<T> task) {
+        PhaseRecorder recorder = current();
+        return () -> {
+            PhaseRecorder previous = CURRENT.get();
+            CURRENT.set(recorder);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @return the function, recording to the run of the current thread on whichever thread it is applied,
+     * e.g. in a parallel stream
+     */
+    public static <T, R> Function<T, R> inCurrentRun(Function<T, R> function) {
+        PhaseRecorder recorder = current();
+        return value -> {
+            PhaseRecorder previous = CURRENT.get();
+            CURRENT.set(recorder);
+            try {
+                return function.apply(value);
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Starts timing a phase on the current thread, to be closed on the same thread
+     */
+    public static Phase start(String name) {
+        return new Phase(name, current());
+    }
+
+    /**
+     * Adds value to a counter of the run, e.g. the number of commits walked across every phase
+     */
+    public static void count(String name, long value) {
+        current().count(name, value);
+    }
+
+    /**
+     * Raises a counter of the run to value if it is lower, e.g. the size of the largest strongly connected component
+     */
+    public static void max(String name, long value) {
+        current().max(name, value);
+    }
+
+    /**
+     * @return the phases of the run closed so far, in the order they were closed
+     */
+    public static List<PhaseTiming> getTimings() {
+        return current().getTimings();
+    }
+
+    /**
+     * @return the counters of the run, sorted by name
+     */
+    public static Map<String, Long> getCounters() {
+        return current().getCounters();
+    }
+
+    private static long currentThreadCpuTime() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled()
+                ? THREAD_MX_BEAN.getCurrentThreadCpuTime()
+                : -1;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+            if (threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return threadMXBean.getThreadAllocatedBytes(
+                        Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static long elapsed(long start, long end) {
+        return start < 0 || end < 0 ? -1 : end - start;
+    }
+
+    /**
+     * A phase being timed, recorded when closed
+     */
+    public static final class Phase implements AutoCloseable {
+
+        private final String name;
+        private final PhaseRecorder recorder;
+        private final long startNanos;
+        private final long startCpuNanos;
+        private final long startAllocatedBytes;
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private boolean closed;
+
+        private Phase(String name, PhaseRecorder recorder) {
+            this.name = name;
+            this.recorder = recorder;
+            this.startAllocatedBytes = currentThreadAllocatedBytes();
+            this.startCpuNanos = currentThreadCpuTime();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Adds value to a size recorded with the phase
+         */
+        public Phase count(String key, long value) {
+            counts.merge(key, value, Long::sum);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long wallNanos = System.nanoTime() - startNanos;
+            long cpuNanos = elapsed(startCpuNanos, currentThreadCpuTime());
+            long allocatedBytes = elapsed(startAllocatedBytes, currentThreadAllocatedBytes());
+            recorder.add(new PhaseTiming(
+                    name,
+                    Thread.currentThread().getName(),
+                    wallNanos,
+                    cpuNanos,
+                    allocatedBytes,
+                    Collections.unmodifiableMap(counts)));
+        }
+    }
+}
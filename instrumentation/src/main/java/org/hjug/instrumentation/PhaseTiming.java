@@ -0,0 +1,37 @@
+package org.hjug.instrumentation;
+
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * Time and memory a phase of an analysis took, and the sizes it recorded
+ */
+@Value
+public class PhaseTiming {
+
+    String name;
+
+    /**
+     * Name of the thread the phase ran on
+     */
+    String thread;
+
+    long wallNanos;
+
+    /**
+     * CPU time of the thread the phase ran on, or -1 if the JVM does not measure it.
+     * Work the phase handed to other threads is not included.
+     */
+    long cpuNanos;
+
+    /**
+     * Bytes allocated by the thread the phase ran on, or -1 if the JVM does not measure them.
+     * Allocations of other threads are not included.
+     */
+    long allocatedBytes;
+
+    /**
+     * Sizes recorded during the phase, e.g. the number of files parsed
+     */
+    Map<String, Long> counts;
+}
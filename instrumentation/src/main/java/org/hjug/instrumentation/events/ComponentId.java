@@ -0,0 +1,23 @@
+package org.hjug.instrumentation.events;
+
+import java.util.Collection;
+
+/**
+ * Identifies a strongly connected component in events by the least of its vertex names,
+ * which stays the same from run to run as long as the component keeps that vertex
+ */
+public final class ComponentId {
+
+    private ComponentId() {}
+
+    public static String of(Collection<?> vertexes) {
+        String least = null;
+        for (Object vertex : vertexes) {
+            String name = String.valueOf(vertex);
+            if (least == null || name.compareTo(least) < 0) {
+                least = name;
+            }
+        }
+        return least;
+    }
+}
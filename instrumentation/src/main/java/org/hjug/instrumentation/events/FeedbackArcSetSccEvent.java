@@ -0,0 +1,31 @@
+package org.hjug.instrumentation.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("org.hjug.refactorfirst.FeedbackArcSetScc")
+@Label("Feedback Arc Set of a Strongly Connected Component")
+@Category({"RefactorFirst", "Cycle Removal"})
+@Description("Breaking the cycles of one strongly connected component with the algorithm chosen for it")
+@Setter
+public class FeedbackArcSetSccEvent extends jdk.jfr.Event {
+
+    @Label("Component")
+    @Description("See ComponentId")
+    String component;
+
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Vertexes")
+    int vertexes;
+
+    @Label("Edges")
+    int edges;
+
+    @Label("Edges Removed")
+    int edgesRemoved;
+}
@@ -0,0 +1,38 @@
+package org.hjug.instrumentation.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("org.hjug.refactorfirst.FeedbackVertexSet")
+@Label("Directed Feedback Vertex Set")
+@Category({"RefactorFirst", "Cycle Removal"})
+@Description("A run of the kernelized directed feedback vertex set solver")
+@Setter
+public class FeedbackVertexSetEvent extends jdk.jfr.Event {
+
+    @Label("Component")
+    @Description("See ComponentId, for the graph the solver was given")
+    String component;
+
+    @Label("Vertexes")
+    int vertexes;
+
+    @Label("Edges")
+    int edges;
+
+    @Label("k")
+    @Description("Size bound of the solution")
+    int k;
+
+    @Label("Modulator Vertexes")
+    int modulatorVertexes;
+
+    @Label("Zones")
+    int zones;
+
+    @Label("Feedback Vertexes")
+    int feedbackVertexes;
+}
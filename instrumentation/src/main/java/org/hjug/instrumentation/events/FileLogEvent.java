@@ -0,0 +1,24 @@
+package org.hjug.instrumentation.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("org.hjug.refactorfirst.FileLog")
+@Label("File Log")
+@Category({"RefactorFirst", "Git"})
+@Description("Reading the commits that changed one file")
+@Setter
+public class FileLogEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    String path;
+
+    @Label("Commits")
+    int commits;
+
+    @Label("Cached")
+    boolean cached;
+}
@@ -0,0 +1,27 @@
+package org.hjug.instrumentation.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("org.hjug.refactorfirst.GitDiff")
+@Label("Git Diff")
+@Category({"RefactorFirst", "Git"})
+@Description("Listing the files changed from the tree of one commit to the tree of another")
+@Setter
+public class GitDiffEvent extends jdk.jfr.Event {
+
+    @Label("From Commit")
+    String fromCommit;
+
+    @Label("To Commit")
+    String toCommit;
+
+    @Label("Changed Files")
+    int changedFiles;
+
+    @Label("Changed Java Files")
+    int changedJavaFiles;
+}
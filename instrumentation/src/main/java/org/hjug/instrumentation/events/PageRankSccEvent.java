@@ -0,0 +1,33 @@
+package org.hjug.instrumentation.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("org.hjug.refactorfirst.PageRankScc")
+@Label("PageRankFAS Strongly Connected Component")
+@Category({"RefactorFirst", "Cycle Removal"})
+@Description("One round of PageRankFAS on a strongly connected component, removing the edge with the highest rank")
+@Setter
+public class PageRankSccEvent extends jdk.jfr.Event {
+
+    @Label("Component")
+    @Description("See ComponentId")
+    String component;
+
+    @Label("Round")
+    @Description("Rounds of PageRankFAS run so far on the graph it was given, starting at 1")
+    int round;
+
+    @Label("Vertexes")
+    int vertexes;
+
+    @Label("Edges")
+    @Description("Edges of the component, which are the vertexes of its line digraph")
+    int edges;
+
+    @Label("Removed Edge")
+    String removedEdge;
+}
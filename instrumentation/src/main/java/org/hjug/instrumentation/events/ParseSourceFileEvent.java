@@ -0,0 +1,22 @@
+package org.hjug.instrumentation.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("org.hjug.refactorfirst.ParseSourceFile")
+@Label("Parse Source File")
+@Category({"RefactorFirst", "Codebase Graph"})
+@Description("Parsing of one Java source file into a syntax tree")
+@Setter
+public class ParseSourceFileEvent extends jdk.jfr.Event {
+
+    @Label("Source Path")
+    String sourcePath;
+
+    @Label("Classes")
+    @Description("Top level classes declared in the file")
+    int classes;
+}
@@ -0,0 +1,25 @@
+package org.hjug.instrumentation.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("org.hjug.refactorfirst.ReportSection")
+@Label("Report Section")
+@Category({"RefactorFirst", "Report"})
+@Description("Rendering one section of a report")
+@Setter
+public class ReportSectionEvent extends jdk.jfr.Event {
+
+    @Label("Report")
+    String report;
+
+    @Label("Section")
+    String section;
+
+    @Label("Items")
+    @Description("Rows, classes or relationships rendered by the section")
+    int items;
+}
@@ -0,0 +1,25 @@
+package org.hjug.instrumentation.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("org.hjug.refactorfirst.VisitSourceFile")
+@Label("Visit Source File")
+@Category({"RefactorFirst", "Codebase Graph"})
+@Description("A visitor pass collecting the dependencies and metrics of one parsed Java source file")
+@Setter
+public class VisitSourceFileEvent extends jdk.jfr.Event {
+
+    @Label("Source Path")
+    String sourcePath;
+
+    @Label("Visitor")
+    String visitor;
+
+    @Label("Classes")
+    @Description("Top level classes declared in the file")
+    int classes;
+}
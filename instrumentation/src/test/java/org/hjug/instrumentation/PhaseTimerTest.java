@@ -0,0 +1,100 @@
+package org.hjug.instrumentation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PhaseTimerTest {
+
+    @BeforeEach
+    void setUp() {
+        PhaseTimer.startRun();
+    }
+
+    @Test
+    void recordsPhasesInTheOrderTheyClose() {
+        try (PhaseTimer.Phase outer = PhaseTimer.start("outer")) {
+            try (PhaseTimer.Phase inner = PhaseTimer.start("inner")) {
+                List<String> allocated = new ArrayList<>();
+                for (int i = 0; i < 10_000; i++) {
+                    allocated.add(String.valueOf(i));
+                }
+                inner.count("items", allocated.size());
+            }
+            outer.count("files", 2).count("files", 3);
+        }
+
+        List<PhaseTiming> timings = PhaseTimer.getTimings();
+        Assertions.assertEquals(2, timings.size());
+
+        PhaseTiming inner = timings.get(0);
+        Assertions.assertEquals("inner", inner.getName());
+        Assertions.assertEquals(Map.of("items", 10_000L), inner.getCounts());
+        Assertions.assertEquals(Thread.currentThread().getName(), inner.getThread());
+        Assertions.assertTrue(inner.getAllocatedBytes() == -1 || inner.getAllocatedBytes() > 0);
+
+        PhaseTiming outer = timings.get(1);
+        Assertions.assertEquals("outer", outer.getName());
+        Assertions.assertEquals(Map.of("files", 5L), outer.getCounts());
+        Assertions.assertTrue(outer.getWallNanos() >= inner.getWallNanos());
+    }
+
+    @Test
+    void closingAPhaseTwiceRecordsItOnce() {
+        PhaseTimer.Phase phase = PhaseTimer.start("phase");
+        phase.close();
+        phase.close();
+
+        Assertions.assertEquals(1, PhaseTimer.getTimings().size());
+    }
+
+    @Test
+    void countsAndMaximaAreKeptForTheRun() {
+        PhaseTimer.count("commits", 3);
+        PhaseTimer.count("commits", 4);
+        PhaseTimer.max("largestScc", 5);
+        PhaseTimer.max("largestScc", 2);
+
+        Assertions.assertEquals(Map.of("commits", 7L, "largestScc", 5L), PhaseTimer.getCounters());
+
+        PhaseRecorder previousRun = PhaseTimer.current();
+        PhaseTimer.startRun();
+        Assertions.assertTrue(PhaseTimer.getCounters().isEmpty());
+        Assertions.assertTrue(PhaseTimer.getTimings().isEmpty());
+        Assertions.assertEquals(7L, previousRun.getCounters().get("commits"));
+    }
+
+    @Test
+    void runsOnOtherThreadsAreKeptApart() throws Exception {
+        PhaseTimer.count("files", 1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PhaseRecorder otherRun = executor.submit(() -> {
+                        PhaseRecorder recorder = PhaseTimer.startRun();
+                        PhaseTimer.count("files", 10);
+                        return recorder;
+                    })
+                    .get();
+            executor.submit(PhaseTimer.inCurrentRun(() -> {
+                        try (PhaseTimer.Phase phase = PhaseTimer.start("handedOff")) {
+                            PhaseTimer.count("files", 2);
+                        }
+                        return null;
+                    }))
+                    .get();
+
+            Assertions.assertEquals(Map.of("files", 10L), otherRun.getCounters());
+            Assertions.assertTrue(otherRun.getTimings().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(Map.of("files", 3L), PhaseTimer.getCounters());
+        Assertions.assertEquals("handedOff", PhaseTimer.getTimings().get(0).getName());
+    }
+}
@@ -0,0 +1,55 @@
+package org.hjug.instrumentation.events;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void componentsAreIdentifiedByTheirLeastVertex() {
+        Assertions.assertEquals("a.B", ComponentId.of(Set.of("a.C", "a.B", "b.A")));
+        Assertions.assertNull(ComponentId.of(List.of()));
+    }
+
+    @Test
+    void eventsAreRecordedWithTheirSizesAndIdentifiers() throws Exception {
+        Path file = tempDir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(FeedbackArcSetSccEvent.class);
+            recording.start();
+
+            FeedbackArcSetSccEvent event = new FeedbackArcSetSccEvent();
+            event.begin();
+            event.setComponent("a.A");
+            event.setAlgorithm("PageRankFAS");
+            event.setVertexes(3);
+            event.setEdges(4);
+            event.setEdgesRemoved(1);
+            event.commit();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Assertions.assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        Assertions.assertEquals(
+                "org.hjug.refactorfirst.FeedbackArcSetScc", event.getEventType().getName());
+        Assertions.assertEquals("a.A", event.getString("component"));
+        Assertions.assertEquals("PageRankFAS", event.getString("algorithm"));
+        Assertions.assertEquals(3, event.getInt("vertexes"));
+        Assertions.assertEquals(4, event.getInt("edges"));
+        Assertions.assertEquals(1, event.getInt("edgesRemoved"));
+    }
+}
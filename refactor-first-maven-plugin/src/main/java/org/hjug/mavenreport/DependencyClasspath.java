@@ -0,0 +1,28 @@
+package org.hjug.mavenreport;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * The dependency jars Maven resolved for a project, used to resolve library types while building the class graph
+ */
+class DependencyClasspath {
+
+    private DependencyClasspath() {}
+
+    static List<Path> of(MavenProject project) {
+        if (project == null || project.getArtifacts() == null) {
+            return List.of();
+        }
+        return project.getArtifacts().stream()
+                .map(Artifact::getFile)
+                .filter(Objects::nonNull)
+                .map(File::toPath)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,278 @@
+package org.hjug.mavenreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.hjug.graphbuilder.CodebaseGraphFragment;
+import org.hjug.graphbuilder.GraphBuilderConfig;
+import org.hjug.graphbuilder.GraphFragmentCache;
+import org.hjug.graphbuilder.JavaGraphBuilder;
+import org.hjug.instrumentation.PhaseTimer;
+import org.hjug.refactorfirst.report.HtmlReport;
+
+/**
+ * Reports on the cycles and relationships of every module in the reactor as one codebase,
+ * so cycles spanning modules are found.
+ *
+ * The class references of each source root are found in parallel, using as many threads as the build (-T),
+ * and cached by a hash of the sources so unchanged modules are not parsed again.
+ * References to other modules are resolved from their compiled classes, so run this goal after compile.
+ * Disharmonies are reported per module by the report goals.
+ */
+@Slf4j
+@Mojo(
+        name = "aggregateReport",
+        defaultPhase = LifecyclePhase.SITE,
+        aggregator = true,
+        requiresDependencyResolution = ResolutionScope.COMPILE,
+        threadSafe = true)
+public class RefactorFirstAggregateReport extends AbstractMojo {
+
+    @Parameter(property = "showDetails")
+    private boolean showDetails = false;
+
+    @Parameter(property = "backEdgeAnalysisCount")
+    protected int backEdgeAnalysisCount = 50;
+
+    @Parameter(property = "analyzeCycles")
+    private boolean analyzeCycles = true;
+
+    @Parameter(property = "minifyHtml")
+    private boolean minifyHtml = false;
+
+    /**
+     * Add the time, CPU time and memory each phase of the analysis took to the footer of the report.
+     * They are always written to refactor-first-report-timings.json next to the report.
+     */
+    @Parameter(property = "showTimings")
+    private boolean showTimings = false;
+
+    /**
+     * Write the rows of each table to a data file next to the report, loaded a page at a time when the table is viewed,
+     * so reports of large codebases open quickly.
+     */
+    @Parameter(property = "pagedSections")
+    private boolean pagedSections = false;
+
+    /**
+     * Cycle removal algorithm: auto, exact, pageRank, or greedy.
+     * auto picks one per strongly connected component.
+     */
+    @Parameter(property = "cycleRemovalStrategy")
+    private String cycleRemovalStrategy = "auto";
+
+    @Parameter(property = "excludeTests")
+    private boolean excludeTests = true;
+
+    /**
+     * The test source directory containing test class sources.
+     */
+    @Parameter(property = "testSourceDirectory")
+    private String testSourceDirectory;
+
+    /**
+     * Directory holding the graph fragment of each module, keyed by a hash of its sources.
+     * Defaults to ~/.refactorfirst/graph-fragments.
+     */
+    @Parameter(property = "graphFragmentCacheDirectory")
+    private File graphFragmentCacheDirectory;
+
+    @Parameter(defaultValue = "${project.name}")
+    private String projectName;
+
+    @Parameter(defaultValue = "${project.version}")
+    private String projectVersion;
+
+    @Parameter(readonly = true, defaultValue = "${project}")
+    private MavenProject project;
+
+    @Parameter(readonly = true, defaultValue = "${session}")
+    private MavenSession session;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        PhaseTimer.startRun();
+        if (testSourceDirectory == null || testSourceDirectory.isEmpty()) {
+            testSourceDirectory = "src" + File.separator + "test";
+        }
+        GraphBuilderConfig hashConfig = GraphBuilderConfig.builder()
+                .excludeTests(excludeTests)
+                .testSourceDirectory(testSourceDirectory)
+                .build();
+        GraphFragmentCache cache = new GraphFragmentCache(
+                graphFragmentCacheDirectory != null ? graphFragmentCacheDirectory.toPath() : null);
+        Path baseDir = project.getBasedir().toPath().toAbsolutePath().normalize();
+
+        Map<MavenProject, List<Path>> sourceRootsByModule = new LinkedHashMap<>();
+        for (MavenProject module : session.getProjects()) {
+            sourceRootsByModule.put(module, sourceRoots(module));
+        }
+
+        int threads = Math.max(1, session.getRequest().getDegreeOfConcurrency());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // every hash is queued before any fragment, so fragments waiting on hashes cannot starve the pool
+            Map<Path, Future<String>> sourceHashes = new HashMap<>();
+            sourceRootsByModule.values().stream()
+                    .flatMap(List::stream)
+                    .forEach(sourceRoot -> sourceHashes.put(
+                            sourceRoot,
+                            executor.submit(PhaseTimer.inCurrentRun(
+                                    () -> GraphFragmentCache.sourceHash(sourceRoot, hashConfig)))));
+
+            Map<String, Future<CodebaseGraphFragment>> fragments = new LinkedHashMap<>();
+            for (Map.Entry<MavenProject, List<Path>> entry : sourceRootsByModule.entrySet()) {
+                MavenProject module = entry.getKey();
+                List<Path> upstream = new ArrayList<>();
+                List<Path> classpath = new ArrayList<>();
+                for (MavenProject upstreamModule :
+                        session.getProjectDependencyGraph().getUpstreamProjects(module, true)) {
+                    upstream.addAll(sourceRootsByModule.getOrDefault(upstreamModule, List.of()));
+                    Path outputDirectory = Paths.get(upstreamModule.getBuild().getOutputDirectory());
+                    if (Files.isDirectory(outputDirectory)) {
+                        classpath.add(outputDirectory);
+                    }
+                }
+                classpath.addAll(DependencyClasspath.of(module));
+
+                GraphBuilderConfig config = graphBuilderConfig(classpath);
+                // tests refer to the main classes of their own module, which are parsed from another source root
+                List<Path> testClasspath = new ArrayList<>(classpath);
+                Path outputDirectory = Paths.get(module.getBuild().getOutputDirectory());
+                if (Files.isDirectory(outputDirectory)) {
+                    testClasspath.add(0, outputDirectory);
+                }
+                GraphBuilderConfig testConfig = graphBuilderConfig(testClasspath);
+                List<Path> testSourceRoots = normalize(module.getTestCompileSourceRoots());
+                for (Path sourceRoot : entry.getValue()) {
+                    GraphBuilderConfig sourceRootConfig = testSourceRoots.contains(sourceRoot) ? testConfig : config;
+                    fragments.put(
+                            relativeSourceRoot(baseDir, sourceRoot),
+                            executor.submit(PhaseTimer.inCurrentRun(
+                                    () -> fragment(cache, sourceRoot, upstream, sourceHashes, sourceRootConfig))));
+                }
+            }
+
+            Map<String, CodebaseGraphFragment> fragmentsBySourceRoot = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<CodebaseGraphFragment>> entry : fragments.entrySet()) {
+                fragmentsBySourceRoot.put(entry.getKey(), entry.getValue().get());
+            }
+            CodebaseGraphDTO codebaseGraph = new JavaGraphBuilder().mergeFragments(fragmentsBySourceRoot);
+            log.info(
+                    "Merged {} source roots into {} classes and {} packages",
+                    fragmentsBySourceRoot.size(),
+                    codebaseGraph.getClassReferencesGraph().vertexSet().size(),
+                    codebaseGraph.getPackageReferencesGraph().vertexSet().size());
+
+            HtmlReport htmlReport = new HtmlReport();
+            htmlReport.setCycleRemovalStrategy(cycleRemovalStrategy);
+            htmlReport.setPagedSections(pagedSections);
+            htmlReport.setShowTimings(showTimings);
+            htmlReport.setCodebaseGraph(codebaseGraph);
+            htmlReport.execute(
+                    backEdgeAnalysisCount,
+                    analyzeCycles,
+                    showDetails,
+                    minifyHtml,
+                    excludeTests,
+                    testSourceDirectory,
+                    projectName,
+                    projectVersion,
+                    project.getBasedir(),
+                    project.getModel()
+                            .getReporting()
+                            .getOutputDirectory()
+                            .replace("${project.basedir}" + File.separator, ""));
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Unable to build the graph of a module", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while building module graphs", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A fragment depends on the sources of the modules it depends on as well as its own, since their classes
+     * are what references to other modules resolve to.
+     */
+    private static CodebaseGraphFragment fragment(
+            GraphFragmentCache cache,
+            Path sourceRoot,
+            List<Path> upstreamSourceRoots,
+            Map<Path, Future<String>> sourceHashes,
+            GraphBuilderConfig config)
+            throws IOException, ExecutionException, InterruptedException {
+        List<String> keyParts = new ArrayList<>();
+        keyParts.add(sourceHashes.get(sourceRoot).get());
+        for (Path upstream : upstreamSourceRoots) {
+            keyParts.add(sourceHashes.get(upstream).get());
+        }
+        keyParts.add(GraphFragmentCache.classpathHash(config.getClasspath(), config.getTypeTableCacheDirectory()));
+        String key = GraphFragmentCache.combine(keyParts);
+
+        CodebaseGraphFragment fragment = cache.get(key);
+        if (fragment != null) {
+            log.debug("Reusing graph fragment of {}", sourceRoot);
+            return fragment;
+        }
+        log.info("Building graph fragment of {}", sourceRoot);
+        fragment = new JavaGraphBuilder().getCodebaseGraphFragment(sourceRoot.toString(), config);
+        cache.put(key, fragment);
+        return fragment;
+    }
+
+    private GraphBuilderConfig graphBuilderConfig(List<Path> classpath) {
+        return GraphBuilderConfig.builder()
+                .excludeTests(excludeTests)
+                .testSourceDirectory(testSourceDirectory)
+                .classpath(classpath)
+                .build();
+    }
+
+    private List<Path> sourceRoots(MavenProject module) {
+        List<String> roots = new ArrayList<>(module.getCompileSourceRoots());
+        if (!excludeTests) {
+            roots.addAll(module.getTestCompileSourceRoots());
+        }
+        List<Path> sourceRoots = new ArrayList<>();
+        for (Path sourceRoot : normalize(roots)) {
+            if (Files.isDirectory(sourceRoot)) {
+                sourceRoots.add(sourceRoot);
+            }
+        }
+        return sourceRoots;
+    }
+
+    private static List<Path> normalize(List<String> roots) {
+        List<Path> paths = new ArrayList<>();
+        for (String root : roots) {
+            paths.add(Paths.get(root).toAbsolutePath().normalize());
+        }
+        return paths;
+    }
+
+    private static String relativeSourceRoot(Path baseDir, Path sourceRoot) {
+        String relative =
+                sourceRoot.startsWith(baseDir) ? baseDir.relativize(sourceRoot).toString() : sourceRoot.toString();
+        return relative.replace(File.separatorChar, '/') + "/";
+    }
+}
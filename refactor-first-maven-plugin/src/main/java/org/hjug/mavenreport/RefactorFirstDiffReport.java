@@ -0,0 +1,89 @@
+package org.hjug.mavenreport;
+
+import java.io.File;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.hjug.cbc.DiffResult;
+import org.hjug.refactorfirst.report.DiffReport;
+
+/**
+ * Reports the cycles, class relationships and disharmonies introduced, removed or made worse since HEAD forked
+ * from a base ref, parsing only the Java files that changed.
+ */
+@Slf4j
+@Mojo(
+        name = "diff",
+        requiresDependencyResolution = ResolutionScope.RUNTIME,
+        requiresProject = false,
+        threadSafe = true,
+        inheritByDefault = false)
+public class RefactorFirstDiffReport extends AbstractMojo {
+
+    /**
+     * Branch, tag or commit to compare HEAD with, from the commit HEAD forked from it at.
+     * The graph of that commit is cached in ~/.refactorfirst/snapshots.
+     */
+    @Parameter(property = "baseRef", required = true)
+    private String baseRef;
+
+    /**
+     * Fail the build if the changes introduced or worsened a cycle or a disharmony, or could not be compared
+     */
+    @Parameter(property = "failOnRegression")
+    private boolean failOnRegression = false;
+
+    /**
+     * Resolve types declared in the project's dependencies while building the class graph.
+     * The types in each dependency jar are cached in ~/.refactorfirst/type-tables.
+     */
+    @Parameter(property = "resolveDependencyTypes")
+    private boolean resolveDependencyTypes = false;
+
+    @Parameter(property = "excludeTests")
+    private boolean excludeTests = true;
+
+    /**
+     * The test source directory containing test class sources.
+     */
+    @Parameter(property = "testSourceDirectory")
+    private String testSourceDirectory;
+
+    @Parameter(readonly = true, defaultValue = "${project}")
+    private MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        DiffReport diffReport = new DiffReport();
+        if (resolveDependencyTypes) {
+            diffReport.setClasspath(DependencyClasspath.of(project));
+        }
+        DiffResult diff = diffReport.execute(
+                baseRef,
+                excludeTests,
+                testSourceDirectory,
+                project.getBasedir(),
+                project.getModel()
+                        .getReporting()
+                        .getOutputDirectory()
+                        .replace("${project.basedir}" + File.separator, ""));
+
+        if (diff == null) {
+            if (failOnRegression) {
+                // a gate that cannot compare must not pass the build
+                throw new MojoExecutionException("Could not compare the changes since " + baseRef
+                        + " to check for regressions, see the log for the cause");
+            }
+            return;
+        }
+        if (failOnRegression && diff.hasRegressions()) {
+            throw new MojoFailureException("The changes since " + baseRef + " introduced or worsened cycles or"
+                    + " disharmonies, see " + DiffReport.FILE_NAME);
+        }
+    }
+}
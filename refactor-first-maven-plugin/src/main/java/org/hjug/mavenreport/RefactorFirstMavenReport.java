@@ -1,5 +1,6 @@
 package org.hjug.mavenreport;
 
+import java.nio.file.Paths;
 import java.util.*;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +13,7 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.reporting.AbstractMavenReport;
+import org.hjug.instrumentation.PhaseTimer;
 import org.hjug.refactorfirst.report.HtmlReport;
 
 @Slf4j
@@ -33,6 +35,34 @@ public class RefactorFirstMavenReport extends AbstractMavenReport {
     @Parameter(property = "analyzeCycles")
     private boolean analyzeCycles = true;
 
+    /**
+     * Cycle removal algorithm: auto, exact, pageRank, or greedy.
+     * auto picks one per strongly connected component.
+     */
+    @Parameter(property = "cycleRemovalStrategy")
+    private String cycleRemovalStrategy = "auto";
+
+    /**
+     * Resolve types declared in the project's dependencies while building the class graph.
+     * The types in each dependency jar are cached in ~/.refactorfirst/type-tables.
+     */
+    @Parameter(property = "resolveDependencyTypes")
+    private boolean resolveDependencyTypes = false;
+
+    /**
+     * Parse this many Java files at a time to bound the heap used while parsing.
+     * Types declared in other chunks are resolved from the project's compiled classes, so run this goal after compile.
+     * 0 parses all files together.
+     */
+    @Parameter(property = "parseChunkSize")
+    private int parseChunkSize = 0;
+
+    /**
+     * Heap in use, in megabytes, above which the parse chunk size is halved. 0 keeps the chunk size fixed.
+     */
+    @Parameter(property = "heapBudgetMegabytes")
+    private long heapBudgetMegabytes = 0;
+
     @Parameter(property = "excludeTests")
     private boolean excludeTests = true;
 
@@ -67,7 +97,15 @@ public class RefactorFirstMavenReport extends AbstractMavenReport {
     @SneakyThrows
     @Override
     public void executeReport(Locale locale) {
+        PhaseTimer.startRun();
         HtmlReport htmlReport = new HtmlReport();
+        htmlReport.setCycleRemovalStrategy(cycleRemovalStrategy);
+        if (resolveDependencyTypes) {
+            htmlReport.setClasspath(DependencyClasspath.of(project));
+        }
+        htmlReport.setParseChunkSize(parseChunkSize);
+        htmlReport.setHeapBudgetMegabytes(heapBudgetMegabytes);
+        htmlReport.setClassesDirectory(Paths.get(project.getBuild().getOutputDirectory()));
 
         Sink mainSink = getSink();
         printHead(mainSink);
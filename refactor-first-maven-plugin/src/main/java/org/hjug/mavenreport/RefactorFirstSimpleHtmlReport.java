@@ -1,6 +1,7 @@
 package org.hjug.mavenreport;
 
 import java.io.File;
+import java.nio.file.Paths;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -8,6 +9,7 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
+import org.hjug.instrumentation.PhaseTimer;
 import org.hjug.refactorfirst.report.SimpleHtmlReport;
 
 @Slf4j
@@ -32,6 +34,41 @@ public class RefactorFirstSimpleHtmlReport extends AbstractMojo {
     @Parameter(property = "minifyHtml")
     private boolean minifyHtml = false;
 
+    /**
+     * Add the time, CPU time and memory each phase of the analysis took to the footer of the report.
+     * They are always written to refactor-first-report-timings.json next to the report.
+     */
+    @Parameter(property = "showTimings")
+    private boolean showTimings = false;
+
+    /**
+     * Cycle removal algorithm: auto, exact, pageRank, or greedy.
+     * auto picks one per strongly connected component.
+     */
+    @Parameter(property = "cycleRemovalStrategy")
+    private String cycleRemovalStrategy = "auto";
+
+    /**
+     * Resolve types declared in the project's dependencies while building the class graph.
+     * The types in each dependency jar are cached in ~/.refactorfirst/type-tables.
+     */
+    @Parameter(property = "resolveDependencyTypes")
+    private boolean resolveDependencyTypes = false;
+
+    /**
+     * Parse this many Java files at a time to bound the heap used while parsing.
+     * Types declared in other chunks are resolved from the project's compiled classes, so run this goal after compile.
+     * 0 parses all files together.
+     */
+    @Parameter(property = "parseChunkSize")
+    private int parseChunkSize = 0;
+
+    /**
+     * Heap in use, in megabytes, above which the parse chunk size is halved. 0 keeps the chunk size fixed.
+     */
+    @Parameter(property = "heapBudgetMegabytes")
+    private long heapBudgetMegabytes = 0;
+
     @Parameter(property = "excludeTests")
     private boolean excludeTests = true;
 
@@ -57,7 +94,16 @@ public class RefactorFirstSimpleHtmlReport extends AbstractMojo {
     public void execute() {
 
         log.info(outputDirectory.getPath());
+        PhaseTimer.startRun();
         SimpleHtmlReport htmlReport = new SimpleHtmlReport();
+        htmlReport.setShowTimings(showTimings);
+        htmlReport.setCycleRemovalStrategy(cycleRemovalStrategy);
+        if (resolveDependencyTypes) {
+            htmlReport.setClasspath(DependencyClasspath.of(project));
+        }
+        htmlReport.setParseChunkSize(parseChunkSize);
+        htmlReport.setHeapBudgetMegabytes(heapBudgetMegabytes);
+        htmlReport.setClassesDirectory(Paths.get(project.getBuild().getOutputDirectory()));
         htmlReport.execute(
                 backEdgeAnalysisCount,
                 analyzeCycles,
@@ -0,0 +1,78 @@
+package org.hjug.refactorfirst.report;
+
+import static org.hjug.refactorfirst.report.ReportWriter.openReport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.List;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hjug.cbc.DiffAnalyzer;
+import org.hjug.cbc.DiffResult;
+
+/**
+ * Writes the cycles, class relationships and disharmonies a branch introduced, removed or made worse
+ * relative to the commit it forked from a base ref at, as JSON.
+ * Only the Java files the branch changed are parsed, so the report suits pull request checks.
+ */
+@Slf4j
+public class DiffReport {
+
+    public static final String FILE_NAME = "refactor-first-diff.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Dependency jars and class directories used to resolve library types
+     */
+    @Setter
+    private List<Path> classpath = List.of();
+
+    /**
+     * @param baseRef the branch, tag or commit the branch is compared with
+     * @return the comparison, or null if it could not be made
+     */
+    public DiffResult execute(
+            String baseRef, boolean excludeTests, String testSourceDirectory, File baseDir, String outputDirectory) {
+        if (testSourceDirectory == null || testSourceDirectory.isEmpty()) {
+            testSourceDirectory = "src" + File.separator + "test";
+        }
+
+        DiffAnalyzer diffAnalyzer = new DiffAnalyzer(baseDir != null ? baseDir : new File("."));
+        diffAnalyzer.setClasspath(classpath);
+        DiffResult diff;
+        try {
+            diff = diffAnalyzer.analyze(baseRef, excludeTests, testSourceDirectory);
+            try (Writer writer = openReport(outputDirectory, FILE_NAME, false)) {
+                writeJson(writer, diff);
+            }
+        } catch (IOException e) {
+            log.error("Could not generate a diff report", e);
+            return null;
+        }
+
+        log.info(
+                "{} new and {} worsened class cycles, {} new and {} worsened disharmonies since {}",
+                diff.getNewClassCycles().size(),
+                diff.getWorsenedClassCycles().size(),
+                diff.getNewDisharmonies().size(),
+                diff.getWorsenedDisharmonies().size(),
+                baseRef);
+        log.info("Not evaluated, as they depend on the whole codebase: {}", diff.getDisharmonyTypesNotEvaluated());
+        if (diff.hasRegressions()) {
+            log.warn("The changes since {} introduced or worsened cycles or disharmonies", baseRef);
+        }
+        log.info("Done! View the diff at {}", FILE_NAME);
+        return diff;
+    }
+
+    static void writeJson(Writer writer, DiffResult diff) throws IOException {
+        ObjectNode json = MAPPER.valueToTree(diff);
+        json.put("regressions", diff.hasRegressions());
+        MAPPER.writeValue(writer, json);
+    }
+}
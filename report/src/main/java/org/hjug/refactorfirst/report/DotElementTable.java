@@ -0,0 +1,126 @@
+package org.hjug.refactorfirst.report;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.jgrapht.Graph;
+
+/**
+ * DOT statements of the vertexes and edges of a graph, each rendered once and identified by its index in the graph,
+ * so the DOT graphs drawn from the same graph, e.g. the class map and its cycles, refer to statements by ID
+ * instead of repeating them.
+ *
+ * Statements are rendered in parallel the first time they are referenced.
+ * The statements referenced are written to the page once, by {@link #printTable()}, into dotElementTables,
+ * and a reference is assembled into DOT by graphDot in the browser.
+ * An empty statement leaves its vertex or edge out of the DOT.
+ *
+ * @param <V> the vertex type
+ * @param <E> the edge type
+ */
+class DotElementTable<V, E> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String name;
+    private final Graph<V, E> graph;
+    private final Function<V, String> vertexStatement;
+    private final Function<E, String> edgeStatement;
+
+    private final Map<V, Integer> vertexIds = new HashMap<>();
+    private final Map<E, Integer> edgeIds = new HashMap<>();
+    private final Map<Integer, String> vertexStatements = new ConcurrentHashMap<>();
+    private final Map<Integer, String> edgeStatements = new ConcurrentHashMap<>();
+
+    DotElementTable(
+            String name, Graph<V, E> graph, Function<V, String> vertexStatement, Function<E, String> edgeStatement) {
+        this.name = name;
+        this.graph = graph;
+        this.vertexStatement = vertexStatement;
+        this.edgeStatement = edgeStatement;
+        for (V vertex : graph.vertexSet()) {
+            vertexIds.put(vertex, vertexIds.size());
+        }
+        for (E edge : graph.edgeSet()) {
+            edgeIds.put(edge, edgeIds.size());
+        }
+    }
+
+    /**
+     * @return true if the statements are of the given graph
+     */
+    boolean isFor(Graph<?, ?> graph) {
+        return this.graph == graph;
+    }
+
+    /**
+     * @return a JavaScript object referring to the statements of the edges and vertexes, in the order given,
+     * for graphDot to assemble
+     */
+    String reference(Collection<E> edges, Collection<V> vertexes) {
+        int[] edgeIdsReferenced = render(edges, edgeIds, edgeStatements, edgeStatement);
+        int[] vertexIdsReferenced = render(vertexes, vertexIds, vertexStatements, vertexStatement);
+        return "{table: \"" + name + "\", edges: " + Arrays.toString(edgeIdsReferenced) + ", vertexes: "
+                + Arrays.toString(vertexIdsReferenced) + "}";
+    }
+
+    /**
+     * @return the DOT of the edges and vertexes, as graphDot would assemble it, as a JavaScript template literal
+     */
+    String dot(Collection<E> edges, Collection<V> vertexes) {
+        StringBuilder dot = new StringBuilder("`strict digraph G {\n");
+        for (int id : render(edges, edgeIds, edgeStatements, edgeStatement)) {
+            dot.append(edgeStatements.get(id));
+        }
+        for (int id : render(vertexes, vertexIds, vertexStatements, vertexStatement)) {
+            dot.append(vertexStatements.get(id));
+        }
+        // $ is escaped so ${ in a statement is not read as a placeholder of the template literal
+        return dot.toString().replace("$", "\\$") + "}`;";
+    }
+
+    /**
+     * @return a script adding the statements referenced so far to dotElementTables
+     */
+    String printTable() throws IOException {
+        StringWriter table = new StringWriter();
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(table)) {
+            json.writeStartObject();
+            writeStatements(json, "edges", edgeStatements);
+            writeStatements(json, "vertexes", vertexStatements);
+            json.writeEndObject();
+        }
+        return "<script>\ndotElementTables[\"" + name + "\"] = " + table + ";\n</script>\n";
+    }
+
+    private static <T> int[] render(
+            Collection<T> elements,
+            Map<T, Integer> ids,
+            Map<Integer, String> statements,
+            Function<T, String> statement) {
+        return elements.parallelStream()
+                .filter(ids::containsKey)
+                .mapToInt(element -> {
+                    int id = ids.get(element);
+                    statements.computeIfAbsent(id, key -> statement.apply(element));
+                    return id;
+                })
+                .filter(id -> !statements.get(id).isEmpty())
+                .toArray();
+    }
+
+    private static void writeStatements(JsonGenerator json, String fieldName, Map<Integer, String> statements)
+            throws IOException {
+        json.writeObjectFieldStart(fieldName);
+        for (Map.Entry<Integer, String> statement : new TreeMap<>(statements).entrySet()) {
+            if (!statement.getValue().isEmpty()) {
+                json.writeStringField(String.valueOf(statement.getKey()), statement.getValue());
+            }
+        }
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,122 @@
+package org.hjug.refactorfirst.report;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import org.hjug.layout.GraphLayout;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+/**
+ * Writes the coordinates of a laid out class graph as a script calling loadGraphLayout,
+ * so the report draws large graphs without laying them out in the browser.
+ *
+ * Classes are grouped by package and each package is placed at the centroid of its classes,
+ * so the page can show packages first and expand them into their classes on demand.
+ * Classes and edges are written as arrays rather than objects, and coordinates are rounded, to keep the file compact:
+ * packages as [name, x, y, class count], classes as [name, package index, x, y, remove, source path]
+ * and edges as [source class index, target class index, weight, remove].
+ */
+class GraphLayoutWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private GraphLayoutWriter() {}
+
+    static void write(
+            Writer writer,
+            String graphName,
+            String repoUrl,
+            Graph<String, DefaultWeightedEdge> classGraph,
+            GraphLayout<String> layout,
+            Set<String> classesToRemove,
+            Set<DefaultWeightedEdge> relationshipsToRemove,
+            Map<String, String> classToSourceFilePath)
+            throws IOException {
+        int classCount = layout.getVertexCount();
+
+        Map<String, Integer> packageIndexes = new LinkedHashMap<>();
+        int[] packageOfClass = new int[classCount];
+        for (int id = 0; id < classCount; id++) {
+            packageOfClass[id] =
+                    packageIndexes.computeIfAbsent(getPackageName(layout.getVertex(id)), name -> packageIndexes.size());
+        }
+
+        int packageCount = packageIndexes.size();
+        double[] packageX = new double[packageCount];
+        double[] packageY = new double[packageCount];
+        int[] classesInPackage = new int[packageCount];
+        for (int id = 0; id < classCount; id++) {
+            int packageIndex = packageOfClass[id];
+            packageX[packageIndex] += layout.getX(id);
+            packageY[packageIndex] += layout.getY(id);
+            classesInPackage[packageIndex]++;
+        }
+
+        Map<String, Integer> classIndexes = new HashMap<>();
+        for (int id = 0; id < classCount; id++) {
+            classIndexes.put(layout.getVertex(id), id);
+        }
+
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(writer)) {
+            json.writeRaw("loadGraphLayout(\"" + graphName + "\", ");
+            json.writeStartObject();
+            json.writeStringField("repoUrl", repoUrl);
+
+            json.writeArrayFieldStart("packages");
+            int packageIndex = 0;
+            for (String packageName : packageIndexes.keySet()) {
+                json.writeStartArray();
+                json.writeString(packageName);
+                json.writeNumber(Math.round(packageX[packageIndex] / classesInPackage[packageIndex]));
+                json.writeNumber(Math.round(packageY[packageIndex] / classesInPackage[packageIndex]));
+                json.writeNumber(classesInPackage[packageIndex]);
+                json.writeEndArray();
+                packageIndex++;
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("classes");
+            for (int id = 0; id < classCount; id++) {
+                String className = layout.getVertex(id);
+                json.writeStartArray();
+                json.writeString(getSimpleName(className));
+                json.writeNumber(packageOfClass[id]);
+                json.writeNumber(Math.round(layout.getX(id)));
+                json.writeNumber(Math.round(layout.getY(id)));
+                json.writeNumber(classesToRemove.contains(className) ? 1 : 0);
+                json.writeString(classToSourceFilePath.getOrDefault(className, ""));
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+
+            json.writeArrayFieldStart("edges");
+            for (DefaultWeightedEdge edge : classGraph.edgeSet()) {
+                json.writeStartArray();
+                json.writeNumber(classIndexes.get(classGraph.getEdgeSource(edge)));
+                json.writeNumber(classIndexes.get(classGraph.getEdgeTarget(edge)));
+                json.writeNumber((int) classGraph.getEdgeWeight(edge));
+                json.writeNumber(relationshipsToRemove.contains(edge) ? 1 : 0);
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+
+            json.writeEndObject();
+            json.writeRaw(");\n");
+        }
+    }
+
+    static String getPackageName(String className) {
+        // nested classes belong to the package of their outermost class
+        int nested = className.indexOf('$');
+        String outerClassName = nested < 0 ? className : className.substring(0, nested);
+        int lastDot = outerClassName.lastIndexOf('.');
+        return lastDot < 0 ? "" : outerClassName.substring(0, lastDot);
+    }
+
+    private static String getSimpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+}
@@ -1,11 +1,22 @@
 package org.hjug.refactorfirst.report;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.Stream;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.hjug.cbc.RankedCycle;
 import org.hjug.cbc.RankedDisharmony;
 import org.hjug.gdg.GraphDataGenerator;
 import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.hjug.layout.GraphLayout;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultWeightedEdge;
 
@@ -14,6 +25,21 @@ public class HtmlReport extends SimpleHtmlReport {
 
     int dotGraphThreshold = 4000;
 
+    static final int PAGED_TABLE_PAGE_SIZE = 100;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // DOT statements of the graphs drawn so far, written once at the end of the report
+    private DotElementTable<String, DefaultWeightedEdge> classDotElements;
+    private DotElementTable<String, DefaultWeightedEdge> packageDotElements;
+
+    /**
+     * Write the rows of each table to a script in a directory next to the report, loaded when the table is scrolled to
+     * and shown a page at a time, so reports of large codebases open quickly
+     */
+    @Setter
+    boolean pagedSections;
+
     // use Files.readString(Path.of(file))
     // Created by generative AI and modified slightly
     public static final String SUGIYAMA_SIGMA_GRAPH = "<script>\n"
@@ -91,7 +117,7 @@ public class HtmlReport extends SimpleHtmlReport {
             + "\n"
             + "function renderGraph(dot) {\n"
             + "    // Parse the DOT graph using graphlib-dot\n"
-            + "    const graphlibGraph = graphlibDot.read(dot);\n"
+            + "    const graphlibGraph = graphlibDot.read(graphDot(dot));\n"
             + "\n"
             + "    // Convert graphlib graph to graphology graph\n"
             + "    const graphologyGraph = new graphology.Graph();\n"
@@ -334,6 +360,22 @@ public class HtmlReport extends SimpleHtmlReport {
             + "        }\n"
             + "    </style>";
 
+    // Assembles the DOT of a graph from the statements in dotElementTables, written by DotElementTable
+    public static final String DOT_ELEMENT_FUNCTIONS = "<script>\n"
+            + "    var dotElementTables = {};\n"
+            + "    function graphDot(reference) {\n"
+            + "        var table = dotElementTables[reference.table];\n"
+            + "        var dot = 'strict digraph G {\\n';\n"
+            + "        reference.edges.forEach(function (id) {\n"
+            + "            dot += table.edges[id];\n"
+            + "        });\n"
+            + "        reference.vertexes.forEach(function (id) {\n"
+            + "            dot += table.vertexes[id];\n"
+            + "        });\n"
+            + "        return dot + '}';\n"
+            + "    }\n"
+            + "</script>\n";
+
     // Created by generative AI and modified
     public static final String POPUP_FUNCTIONS = "<script>\n"
             + "    function showPopup(popupId, containerName, dot) {\n"
@@ -377,6 +419,147 @@ public class HtmlReport extends SimpleHtmlReport {
             + "    }\n"
             + "</script>";
 
+    // Loads the data file of a paged table when it comes into view and renders one page of its rows at a time.
+    // Data files are scripts rather than JSON fetched by the page, since browsers block fetching local files.
+    public static final String PAGED_TABLE_FUNCTIONS = "<script>\n"
+            + "    var reportSections = {};\n"
+            + "    function loadReportSection(sectionId, section) {\n"
+            + "        reportSections[sectionId] = section;\n"
+            + "        showReportSectionPage(sectionId, 0);\n"
+            + "    }\n"
+            + "\n"
+            + "    function showReportSectionPage(sectionId, page) {\n"
+            + "        var section = reportSections[sectionId];\n"
+            + "        var pageSize = " + PAGED_TABLE_PAGE_SIZE + ";\n"
+            + "        var pageCount = Math.max(1, Math.ceil(section.rows.length / pageSize));\n"
+            + "        page = Math.min(Math.max(page, 0), pageCount - 1);\n"
+            + "        var html = '<table align=\"center\" border=\"5px\">\\n<thead>\\n<tr>\\n';\n"
+            + "        section.columns.forEach(function (column) {\n"
+            + "            html += '<th>' + column + '</th>\\n';\n"
+            + "        });\n"
+            + "        html += '</tr>\\n</thead>\\n<tbody>\\n';\n"
+            + "        section.rows.slice(page * pageSize, (page + 1) * pageSize).forEach(function (row) {\n"
+            + "            html += '<tr>\\n';\n"
+            + "            row.forEach(function (cell) {\n"
+            + "                // numbers and dates are right aligned, as in inlined tables\n"
+            + "                var align = /^-?\\d+(\\.\\d+)?$/.test(cell) || cell.indexOf(', ') >= 0 ? 'right' : 'left';\n"
+            + "                html += '<td align=\"' + align + '\">' + cell + '</td>\\n';\n"
+            + "            });\n"
+            + "            html += '</tr>\\n';\n"
+            + "        });\n"
+            + "        html += '</tbody>\\n</table>\\n';\n"
+            + "        if (pageCount > 1) {\n"
+            + "            html += '<div align=\"center\">'\n"
+            + "                + '<button onclick=\"showReportSectionPage(\\'' + sectionId + '\\', ' + (page - 1) + ')\"'\n"
+            + "                + (page === 0 ? ' disabled' : '') + '>Previous</button> '\n"
+            + "                + 'Page ' + (page + 1) + ' of ' + pageCount + ' '\n"
+            + "                + '<button onclick=\"showReportSectionPage(\\'' + sectionId + '\\', ' + (page + 1) + ')\"'\n"
+            + "                + (page === pageCount - 1 ? ' disabled' : '') + '>Next</button></div>\\n';\n"
+            + "        }\n"
+            + "        document.getElementById(sectionId + '_table').innerHTML = html;\n"
+            + "    }\n"
+            + "\n"
+            + "    function requestReportSection(placeholder) {\n"
+            + "        var script = document.createElement('script');\n"
+            + "        script.src = placeholder.dataset.src;\n"
+            + "        script.charset = 'utf-8';\n"
+            + "        document.head.appendChild(script);\n"
+            + "    }\n"
+            + "\n"
+            + "    document.addEventListener('DOMContentLoaded', function () {\n"
+            + "        var placeholders = document.querySelectorAll('.paged-table');\n"
+            + "        if (!('IntersectionObserver' in window)) {\n"
+            + "            placeholders.forEach(requestReportSection);\n"
+            + "            return;\n"
+            + "        }\n"
+            + "        var observer = new IntersectionObserver(function (entries) {\n"
+            + "            entries.forEach(function (entry) {\n"
+            + "                if (entry.isIntersecting) {\n"
+            + "                    observer.unobserve(entry.target);\n"
+            + "                    requestReportSection(entry.target);\n"
+            + "                }\n"
+            + "            });\n"
+            + "        }, {rootMargin: '500px'});\n"
+            + "        placeholders.forEach(function (placeholder) {\n"
+            + "            observer.observe(placeholder);\n"
+            + "        });\n"
+            + "    });\n"
+            + "</script>\n";
+
+    // Draws a class graph laid out by GraphLayoutWriter, showing packages at first.
+    // Clicking a package expands it into its classes, clicking a class collapses its package again,
+    // and double clicking a class opens its source file.
+    public static final String GRAPH_LAYOUT_FUNCTIONS = "<script>\n"
+            + "    function loadGraphLayout(graphName, layout) {\n"
+            + "        var view = {layout: layout, expanded: {}, graph: new graphology.Graph(), packageClasses: []};\n"
+            + "        layout.packages.forEach(function () {\n"
+            + "            view.packageClasses.push([]);\n"
+            + "        });\n"
+            + "        layout.classes.forEach(function (cls, classIndex) {\n"
+            + "            view.packageClasses[cls[1]].push(classIndex);\n"
+            + "        });\n"
+            + "        drawGraphLayout(view);\n"
+            + "\n"
+            + "        var renderer = new Sigma(view.graph, document.getElementById(graphName));\n"
+            + "        renderer.on('clickNode', function (event) {\n"
+            + "            var index = +event.node.substring(1);\n"
+            + "            var packageIndex = event.node.charAt(0) === 'p' ? index : layout.classes[index][1];\n"
+            + "            view.expanded[packageIndex] = !view.expanded[packageIndex];\n"
+            + "            drawGraphLayout(view);\n"
+            + "        });\n"
+            + "        renderer.on('doubleClickNode', function (event) {\n"
+            + "            if (event.node.charAt(0) === 'c') {\n"
+            + "                event.preventSigmaDefault();\n"
+            + "                window.open(layout.repoUrl + layout.classes[+event.node.substring(1)][5], '_blank');\n"
+            + "            }\n"
+            + "        });\n"
+            + "    }\n"
+            + "\n"
+            + "    function drawGraphLayout(view) {\n"
+            + "        var layout = view.layout;\n"
+            + "        var graph = view.graph;\n"
+            + "        graph.clear();\n"
+            + "        // y is negated so the first layer is drawn at the top\n"
+            + "        layout.packages.forEach(function (pkg, packageIndex) {\n"
+            + "            if (!view.expanded[packageIndex]) {\n"
+            + "                graph.addNode('p' + packageIndex, {label: pkg[0] + ' (' + pkg[3] + ')',"
+            + " x: pkg[1], y: -pkg[2], size: 4 + Math.log(pkg[3]), color: '#1f77b4'});\n"
+            + "                return;\n"
+            + "            }\n"
+            + "            view.packageClasses[packageIndex].forEach(function (classIndex) {\n"
+            + "                var cls = layout.classes[classIndex];\n"
+            + "                graph.addNode('c' + classIndex, {label: cls[0], x: cls[2], y: -cls[3], size: 3,"
+            + " color: cls[4] ? 'red' : '#666'});\n"
+            + "            });\n"
+            + "        });\n"
+            + "\n"
+            + "        // edges between classes of collapsed packages are merged into one edge between the packages\n"
+            + "        function visibleNode(classIndex) {\n"
+            + "            var packageIndex = layout.classes[classIndex][1];\n"
+            + "            return view.expanded[packageIndex] ? 'c' + classIndex : 'p' + packageIndex;\n"
+            + "        }\n"
+            + "        layout.edges.forEach(function (edge) {\n"
+            + "            var source = visibleNode(edge[0]);\n"
+            + "            var target = visibleNode(edge[1]);\n"
+            + "            if (source === target) {\n"
+            + "                return;\n"
+            + "            }\n"
+            + "            var key = source + '>' + target;\n"
+            + "            if (graph.hasEdge(key)) {\n"
+            + "                graph.updateEdgeAttribute(key, 'weight', function (weight) {\n"
+            + "                    return weight + edge[2];\n"
+            + "                });\n"
+            + "                if (edge[3]) {\n"
+            + "                    graph.setEdgeAttribute(key, 'color', 'red');\n"
+            + "                }\n"
+            + "            } else {\n"
+            + "                graph.addDirectedEdgeWithKey(key, source, target, {weight: edge[2], size: 1,"
+            + " type: 'arrow', color: edge[3] ? 'red' : '#ccc'});\n"
+            + "            }\n"
+            + "        });\n"
+            + "    }\n"
+            + "</script>\n";
+
     @Override
     public String printHead() {
         // !Remember to update RefactorFirstMavenReport if this is modified
@@ -385,18 +568,81 @@ public class HtmlReport extends SimpleHtmlReport {
                 // google chart import
                 + "<script type=\"text/javascript\" src=\"https://www.gstatic.com/charts/loader.js\"></script>\n"
                 // graphing imports - sigma, graphology, vizdom
-                + "<script src=\"https://cdn.jsdelivr.net/npm/svg-pan-zoom@3.6.1/dist/svg-pan-zoom.min.js\"></script>"
-                + "<script src=\"https://cdnjs.cloudflare.com/ajax/libs/sigma.js/2.4.0/sigma.min.js\"></script>\n"
-                + "<script src=\"https://cdnjs.cloudflare.com/ajax/libs/graphology/0.25.4/graphology.umd.min.js\"></script>\n"
-                + "<script src=\"https://cdn.jsdelivr.net/npm/graphlib-dot@0.6.4/dist/graphlib-dot.min.js\"></script>\n"
+                + "<script"
+                + " src=\"https://cdn.jsdelivr.net/npm/svg-pan-zoom@3.6.1/dist/svg-pan-zoom.min.js\"></script><script"
+                + " src=\"https://cdnjs.cloudflare.com/ajax/libs/sigma.js/2.4.0/sigma.min.js\"></script>\n"
+                + "<script"
+                + " src=\"https://cdnjs.cloudflare.com/ajax/libs/graphology/0.25.4/graphology.umd.min.js\"></script>\n"
+                + "<script"
+                + " src=\"https://cdn.jsdelivr.net/npm/graphlib-dot@0.6.4/dist/graphlib-dot.min.js\"></script>\n"
                 + "<script src=\"https://cdn.jsdelivr.net/npm/3d-force-graph\"></script>\n"
-                + "<script type=\"module\" src=\"https://cdn.jsdelivr.net/npm/@vizdom/vizdom-ts-web@0.1.19/vizdom_ts.min.js\"></script>\n"
+                + "<script type=\"module\""
+                + " src=\"https://cdn.jsdelivr.net/npm/@vizdom/vizdom-ts-web@0.1.19/vizdom_ts.min.js\"></script>\n"
                 // Make the output look decent.  Don't use in RefactorFirstMavenReport.
                 + "<link rel=\"stylesheet\" href=\"https://unpkg.com/mvp.css\">\n";
     }
 
     String printScripts() {
-        return SUGIYAMA_SIGMA_GRAPH + FORCE_3D_GRAPH + POPUP_FUNCTIONS + POPUP_STYLE;
+        return DOT_ELEMENT_FUNCTIONS
+                + SUGIYAMA_SIGMA_GRAPH
+                + FORCE_3D_GRAPH
+                + POPUP_FUNCTIONS
+                + POPUP_STYLE
+                + (pagesTables() ? PAGED_TABLE_FUNCTIONS : "")
+                + (reportDataDirectory != null ? GRAPH_LAYOUT_FUNCTIONS : "");
+    }
+
+    /**
+     * @return true to write the rows of large tables to data files loaded by the page, instead of inlining them
+     */
+    boolean pagesTables() {
+        // the body of a Maven site page has nowhere to write data files to
+        return pagedSections && reportDataDirectory != null;
+    }
+
+    @Override
+    void writeTable(Appendable out, String sectionId, String[] headings, Stream<String[]> rows) throws IOException {
+        if (pagesTables()) {
+            writePagedTable(out, sectionId, headings, rows);
+        } else {
+            super.writeTable(out, sectionId, headings, rows);
+        }
+    }
+
+    /**
+     * Writes the rows of a table to a data file next to the report and a placeholder the page loads them into
+     */
+    void writePagedTable(Appendable out, String sectionId, String[] headings, Stream<String[]> rows)
+            throws IOException {
+        Path dataDirectory = reportDataDirectory.toPath();
+        Files.createDirectories(dataDirectory);
+        String fileName = sectionId + ".js";
+
+        int rowCount = 0;
+        try (Writer writer = Files.newBufferedWriter(dataDirectory.resolve(fileName), StandardCharsets.UTF_8);
+                JsonGenerator json = JSON_FACTORY.createGenerator(writer)) {
+            json.writeRaw("loadReportSection(\"" + sectionId + "\", ");
+            json.writeStartObject();
+            json.writeArrayFieldStart("columns");
+            for (String heading : headings) {
+                json.writeString(heading);
+            }
+            json.writeEndArray();
+            json.writeArrayFieldStart("rows");
+            for (Iterator<String[]> iterator = rows.iterator(); iterator.hasNext(); rowCount++) {
+                json.writeStartArray();
+                for (String cell : iterator.next()) {
+                    json.writeString(cell);
+                }
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw(");\n");
+        }
+
+        out.append("<div class=\"paged-table\" id=\"" + sectionId + "_table\" align=\"center\" data-src=\""
+                + reportDataDirectory.getName() + "/" + fileName + "\">Loading " + rowCount + " rows...</div>\n");
     }
 
     @Override
@@ -423,12 +669,23 @@ public class HtmlReport extends SimpleHtmlReport {
 
     @Override
     String renderGithubButtons() {
-        return "<div align=\"center\">\n" + "<h2>Show RefactorFirst some &#10084;&#65039;</h2>\n"
-                + "<a class=\"github-button\" href=\"https://github.com/refactorfirst/refactorfirst\" data-icon=\"octicon-star\" data-size=\"large\" data-show-count=\"true\" aria-label=\"Star refactorfirst/refactorfirst on GitHub\">Star</a>\n"
-                + "<a class=\"github-button\" href=\"https://github.com/refactorfirst/refactorfirst/fork\" data-icon=\"octicon-repo-forked\" data-size=\"large\" data-show-count=\"true\" aria-label=\"Fork refactorfirst/refactorfirst on GitHub\">Fork</a>\n"
-                + "<a class=\"github-button\" href=\"https://github.com/refactorfirst/refactorfirst/subscription\" data-icon=\"octicon-eye\" data-size=\"large\" data-show-count=\"true\" aria-label=\"Watch refactorfirst/refactorfirst on GitHub\">Watch</a>\n"
-                + "<a class=\"github-button\" href=\"https://github.com/refactorfirst/refactorfirst/issues\" data-icon=\"octicon-issue-opened\" data-size=\"large\" data-show-count=\"false\" aria-label=\"Issue refactorfirst/refactorfirst on GitHub\">Issue</a>\n"
-                + "<a class=\"github-button\" href=\"https://github.com/sponsors/jimbethancourt\" data-icon=\"octicon-heart\" data-size=\"large\" aria-label=\"Sponsor @jimbethancourt on GitHub\">Sponsor</a>\n"
+        return "<div align=\"center\">\n"
+                + "<h2>Show RefactorFirst some &#10084;&#65039;</h2>\n"
+                + "<a class=\"github-button\" href=\"https://github.com/refactorfirst/refactorfirst\""
+                + " data-icon=\"octicon-star\" data-size=\"large\" data-show-count=\"true\" aria-label=\"Star"
+                + " refactorfirst/refactorfirst on GitHub\">Star</a>\n"
+                + "<a class=\"github-button\" href=\"https://github.com/refactorfirst/refactorfirst/fork\""
+                + " data-icon=\"octicon-repo-forked\" data-size=\"large\" data-show-count=\"true\" aria-label=\"Fork"
+                + " refactorfirst/refactorfirst on GitHub\">Fork</a>\n"
+                + "<a class=\"github-button\" href=\"https://github.com/refactorfirst/refactorfirst/subscription\""
+                + " data-icon=\"octicon-eye\" data-size=\"large\" data-show-count=\"true\" aria-label=\"Watch"
+                + " refactorfirst/refactorfirst on GitHub\">Watch</a>\n"
+                + "<a class=\"github-button\" href=\"https://github.com/refactorfirst/refactorfirst/issues\""
+                + " data-icon=\"octicon-issue-opened\" data-size=\"large\" data-show-count=\"false\" aria-label=\"Issue"
+                + " refactorfirst/refactorfirst on GitHub\">Issue</a>\n"
+                + "<a class=\"github-button\" href=\"https://github.com/sponsors/jimbethancourt\""
+                + " data-icon=\"octicon-heart\" data-size=\"large\" aria-label=\"Sponsor @jimbethancourt on"
+                + " GitHub\">Sponsor</a>\n"
                 + "</div>";
     }
 
@@ -469,8 +726,15 @@ public class HtmlReport extends SimpleHtmlReport {
 
     @Override
     public String renderClassGraphVisuals(String repoUrl, CodebaseGraphDTO codebaseGraphDTO) {
-        String dot = buildClassGraphDot(classGraph, repoUrl, codebaseGraphDTO);
         String classGraphName = "classGraph";
+        int classCount = classGraph.vertexSet().size();
+        int relationshipCount = classGraph.edgeSet().size();
+        if (classCount + relationshipCount >= dotGraphThreshold && reportDataDirectory != null) {
+            return renderClassGraphLayout(classGraphName, repoUrl, codebaseGraphDTO);
+        }
+
+        String dot = getClassDotElements(classGraph, repoUrl, codebaseGraphDTO)
+                .reference(classGraph.edgeSet(), getVertexesWithEdges(classGraph));
 
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append("<h1 align=\"center\"><a id=\"CLASSMAP\">Class Map</a></h1>");
@@ -479,8 +743,6 @@ public class HtmlReport extends SimpleHtmlReport {
         stringBuilder.append(
                 "<div align=\"center\">Clicking on a node in the DOT graph (if present below) will open its source file in the repo.  Right/Alt click to open in a new browser tab.<br>Excludes classes that have no incoming and outgoing edges<br></div>");
 
-        int classCount = classGraph.vertexSet().size();
-        int relationshipCount = classGraph.edgeSet().size();
         stringBuilder.append("<div align=\"center\">Number of classes: " + classCount + "  Number of relationships: "
                 + relationshipCount + "<br></div>");
         if (classCount + relationshipCount < dotGraphThreshold) {
@@ -493,10 +755,52 @@ public class HtmlReport extends SimpleHtmlReport {
         return stringBuilder.toString();
     }
 
+    /**
+     * Graphs too big to lay out in the browser are laid out here and drawn from a data file of their coordinates,
+     * showing packages until they are expanded
+     */
+    private String renderClassGraphLayout(String classGraphName, String repoUrl, CodebaseGraphDTO codebaseGraphDTO) {
+        GraphLayout<String> layout = classSccDecomposition != null
+                ? GraphLayout.of(classGraph, classSccDecomposition)
+                : GraphLayout.of(classGraph);
+        String fileName = classGraphName + "-layout.js";
+        try {
+            Path dataDirectory = reportDataDirectory.toPath();
+            Files.createDirectories(dataDirectory);
+            try (Writer writer = Files.newBufferedWriter(dataDirectory.resolve(fileName), StandardCharsets.UTF_8)) {
+                GraphLayoutWriter.write(
+                        writer,
+                        classGraphName,
+                        repoUrl,
+                        classGraph,
+                        layout,
+                        classesToRemove,
+                        classRelationshipsToRemove,
+                        codebaseGraphDTO.getClassToSourceFilePathMapping());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return "<h1 align=\"center\"><a id=\"CLASSMAP\">Class Map</a></h1>"
+                + "<div align=\"center\">\nClick a package to show its classes and a class to hide them again."
+                + "  Double click a class to open its source file in the repo.<br>\n"
+                + "Red lines represent relationships to remove.<br>\n"
+                + "Red nodes represent classes to remove.<br>\n"
+                + "Zoom in / out with your mouse wheel and click/move to drag the image.<br>\n"
+                + "</div>\n"
+                + "<div align=\"center\">Number of classes: "
+                + classGraph.vertexSet().size()
+                + "  Number of relationships: " + classGraph.edgeSet().size() + "<br></div>"
+                + "<div id=\"" + classGraphName
+                + "\" style=\"width: 95%; height: 70vh; margin: auto; border: thin solid black\"></div>\n"
+                + "<script src=\"" + reportDataDirectory.getName() + "/" + fileName + "\"></script>\n";
+    }
+
     private StringBuilder generateGraphButtons(String graphName, String dot) {
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append("<script>\n");
-        stringBuilder.append("const " + graphName + "_dot = " + dot + "\n");
+        stringBuilder.append("const " + graphName + "_dot = " + dot + ";\n");
         stringBuilder.append("</script>\n");
         stringBuilder.append(generateForce3DPopup(graphName));
         stringBuilder.append(generate2DPopup(graphName));
@@ -514,14 +818,15 @@ public class HtmlReport extends SimpleHtmlReport {
         return "<div id=\"" + graphName
                 + "\" style=\"width: 95%; height: 70vh; margin: auto; border: thin solid black\"></div>\n"
                 + "<script type=\"module\">\n"
-                + "import init, { DotParser } from \"https://cdn.jsdelivr.net/npm/@vizdom/vizdom-ts-web@0.1.19/vizdom_ts.min.js\";\n"
+                + "import init, { DotParser } from"
+                + " \"https://cdn.jsdelivr.net/npm/@vizdom/vizdom-ts-web@0.1.19/vizdom_ts.min.js\";\n"
                 + "    if(DotParser) {\n"
                 + "        // Wait for the WASM binary to be compiled and the 'wasm' object to be populated\n"
                 + "        await init();\n"
                 + "        // Create a new Dot Parser\n"
                 + "        const parser = new DotParser();\n"
-                + "        const dotGraph = parser.parse("
-                + graphName + "_dot);\n" + "        const directedGraph = dotGraph.to_directed();\n"
+                + "        const dotGraph = parser.parse(graphDot("
+                + graphName + "_dot));\n" + "        const directedGraph = dotGraph.to_directed();\n"
                 + "        const positioned = directedGraph.layout();\n"
                 + "        let svg = positioned.to_svg().to_string();\n"
                 + "        // Modify the SVG string to include width and height attributes\n"
@@ -537,28 +842,38 @@ public class HtmlReport extends SimpleHtmlReport {
                 + "    }\n" + "</script>\n";
     }
 
-    String buildClassGraphDot(
+    /**
+     * DOT statements of the classes and relationships of the class graph, shared by the class map and cycle maps
+     */
+    DotElementTable<String, DefaultWeightedEdge> getClassDotElements(
             Graph<String, DefaultWeightedEdge> classGraph, String repoUrl, CodebaseGraphDTO codebaseGraphDTO) {
-        StringBuilder dot = new StringBuilder();
-        dot.append("`strict digraph G {\n");
-
-        for (DefaultWeightedEdge edge : classGraph.edgeSet()) {
-            renderClassGraphEdge(classGraph, edge, dot);
+        if (classDotElements == null || !classDotElements.isFor(classGraph)) {
+            classDotElements = new DotElementTable<>(
+                    "class",
+                    classGraph,
+                    vertex -> {
+                        StringBuilder dot = new StringBuilder();
+                        renderClassVertices(classGraph, repoUrl, codebaseGraphDTO, Set.of(vertex), dot);
+                        return dot.toString();
+                    },
+                    edge -> {
+                        StringBuilder dot = new StringBuilder();
+                        renderClassGraphEdge(classGraph, edge, dot);
+                        return dot.toString();
+                    });
         }
+        return classDotElements;
+    }
 
-        // capture only classes that have a relationship with one or more other classes
-        Set<String> vertexesToRender = new HashSet<>();
-        for (DefaultWeightedEdge edge : classGraph.edgeSet()) {
+    // capture only vertexes that have a relationship with one or more other vertexes
+    private static Set<String> getVertexesWithEdges(Graph<String, DefaultWeightedEdge> graph) {
+        Set<String> vertexesToRender = new LinkedHashSet<>();
+        for (DefaultWeightedEdge edge : graph.edgeSet()) {
             String[] vertexes = extractVertexes(edge);
             vertexesToRender.add(vertexes[0].trim());
             vertexesToRender.add(vertexes[1].trim());
         }
-
-        // render vertices
-        renderClassVertices(classGraph, repoUrl, codebaseGraphDTO, vertexesToRender, dot);
-
-        dot.append("}`;");
-        return dot.toString();
+        return vertexesToRender;
     }
 
     private void renderClassVertices(
@@ -582,7 +897,7 @@ public class HtmlReport extends SimpleHtmlReport {
             dot.append(" [");
             dot.append(hyperlinkClassForDot(vertex, repoUrl, codebaseGraphDTO));
             if (className.contains("$")) {
-                dot.append(" label=\"").append(className.replace("$", "\\$")).append("\"");
+                dot.append(" label=\"").append(className).append("\"");
             }
 
             if (classesToRemove.contains(vertex)) {
@@ -648,7 +963,8 @@ public class HtmlReport extends SimpleHtmlReport {
 
     @Override
     public String renderClassCycleVisuals(RankedCycle cycle, String repoUrl, CodebaseGraphDTO codebaseGraphDTO) {
-        String dot = buildClassCycleDot(classGraph, cycle, repoUrl, codebaseGraphDTO);
+        String dot = getClassDotElements(classGraph, repoUrl, codebaseGraphDTO)
+                .reference(cycle.getEdgeSet(), cycle.getVertexSet());
 
         String cycleName = getClassName(cycle.getCycleName()).replace("$", "_");
 
@@ -677,19 +993,7 @@ public class HtmlReport extends SimpleHtmlReport {
             RankedCycle cycle,
             String repoUrl,
             CodebaseGraphDTO codebaseGraphDTO) {
-        StringBuilder dot = new StringBuilder();
-        dot.append("`strict digraph G {\n");
-
-        for (DefaultWeightedEdge edge : cycle.getEdgeSet()) {
-            renderClassGraphEdge(classGraph, edge, dot);
-        }
-
-        // render vertices
-        Set<String> vertexSet = cycle.getVertexSet();
-        renderClassVertices(classGraph, repoUrl, codebaseGraphDTO, vertexSet, dot);
-
-        dot.append("}`;");
-        return dot.toString();
+        return getClassDotElements(classGraph, repoUrl, codebaseGraphDTO).dot(cycle.getEdgeSet(), cycle.getVertexSet());
     }
 
     @Override
@@ -698,7 +1002,8 @@ public class HtmlReport extends SimpleHtmlReport {
             return "";
         }
 
-        String dot = buildPackageGraphDot(packageGraph, repoUrl, codebaseGraphDTO);
+        String dot = getPackageDotElements(packageGraph)
+                .reference(packageGraph.edgeSet(), getVertexesWithEdges(packageGraph));
         String packageGraphName = "packageGraph";
 
         StringBuilder stringBuilder = new StringBuilder();
@@ -722,28 +1027,36 @@ public class HtmlReport extends SimpleHtmlReport {
         return stringBuilder.toString();
     }
 
-    String buildPackageGraphDot(
-            Graph<String, DefaultWeightedEdge> packageGraph, String repoUrl, CodebaseGraphDTO codebaseGraphDTO) {
-        StringBuilder dot = new StringBuilder();
-        dot.append("`strict digraph G {\n");
-
-        for (DefaultWeightedEdge edge : packageGraph.edgeSet()) {
-            renderPackageGraphEdge(packageGraph, edge, dot);
+    private DotElementTable<String, DefaultWeightedEdge> getPackageDotElements(
+            Graph<String, DefaultWeightedEdge> packageGraph) {
+        if (packageDotElements == null || !packageDotElements.isFor(packageGraph)) {
+            packageDotElements = new DotElementTable<>(
+                    "package",
+                    packageGraph,
+                    vertex -> {
+                        StringBuilder dot = new StringBuilder();
+                        renderPackageVertices(Set.of(vertex), dot);
+                        return dot.toString();
+                    },
+                    edge -> {
+                        StringBuilder dot = new StringBuilder();
+                        renderPackageGraphEdge(packageGraph, edge, dot);
+                        return dot.toString();
+                    });
         }
+        return packageDotElements;
+    }
 
-        // capture only classes that have a relationship with one or more other classes
-        Set<String> vertexesToRender = new HashSet<>();
-        for (DefaultWeightedEdge edge : packageGraph.edgeSet()) {
-            String[] vertexes = extractVertexes(edge);
-            vertexesToRender.add(vertexes[0].trim());
-            vertexesToRender.add(vertexes[1].trim());
+    @Override
+    String printGraphElements() throws IOException {
+        StringBuilder tables = new StringBuilder();
+        if (classDotElements != null) {
+            tables.append(classDotElements.printTable());
         }
-
-        // render vertices
-        renderPackageVertices(packageGraph, repoUrl, codebaseGraphDTO, vertexesToRender, dot);
-
-        dot.append("}`;");
-        return dot.toString();
+        if (packageDotElements != null) {
+            tables.append(packageDotElements.printTable());
+        }
+        return tables.toString();
     }
 
     private void renderPackageGraphEdge(
@@ -776,12 +1089,7 @@ public class HtmlReport extends SimpleHtmlReport {
         dot.append(" ];\n");
     }
 
-    private void renderPackageVertices(
-            Graph<String, DefaultWeightedEdge> classGraph,
-            String repoUrl,
-            CodebaseGraphDTO codebaseGraphDTO,
-            Set<String> vertexesToRender,
-            StringBuilder dot) {
+    private void renderPackageVertices(Set<String> vertexesToRender, StringBuilder dot) {
         for (String packageName : vertexesToRender) {
             dot.append(packageName.replace(".", "_"));
 
@@ -3,6 +3,7 @@ package org.hjug.refactorfirst.report;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import lombok.extern.slf4j.Slf4j;
@@ -36,4 +37,22 @@ public class ReportWriter {
 
         log.info("Done! View the report at target/site/{}", filename);
     }
+
+    /**
+     * Opens a buffered writer for a report, so the report can be written as it is rendered
+     *
+     * @param minify collapse whitespace while writing
+     */
+    public static Writer openReport(final String reportOutputDirectory, final String filename, boolean minify)
+            throws IOException {
+        final File reportOutputDir = new File(reportOutputDirectory);
+
+        if (!reportOutputDir.exists()) {
+            reportOutputDir.mkdirs();
+        }
+
+        final File reportFile = new File(reportOutputDirectory + File.separator + filename);
+        BufferedWriter writer = Files.newBufferedWriter(reportFile.toPath(), Charset.defaultCharset());
+        return minify ? new WhitespaceMinifyingWriter(writer) : writer;
+    }
 }
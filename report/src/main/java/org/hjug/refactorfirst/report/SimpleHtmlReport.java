@@ -1,10 +1,14 @@
 package org.hjug.refactorfirst.report;
 
-import static org.hjug.refactorfirst.report.ReportWriter.writeReportToDisk;
+import static org.hjug.refactorfirst.report.ReportWriter.openReport;
 
-import in.wilsonl.minifyhtml.Configuration;
-import in.wilsonl.minifyhtml.MinifyHtml;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -13,15 +17,24 @@ import java.time.format.FormatStyle;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.hjug.cbc.*;
+import org.hjug.dsm.SccDecomposition;
 import org.hjug.feedback.CycleRemovalComputer;
 import org.hjug.feedback.CycleRemovalResult;
+import org.hjug.feedback.FeedbackArcSetStrategy;
+import org.hjug.feedback.FeedbackArcSetStrategySelector;
+import org.hjug.feedback.SccRemovalStatistics;
 import org.hjug.git.GitLogReader;
 import org.hjug.graphbuilder.CodebaseGraphDTO;
 import org.hjug.graphbuilder.metrics.DisharmonyMetric;
 import org.hjug.graphbuilder.metrics.DisharmonyTypes;
+import org.hjug.instrumentation.PhaseTimer;
+import org.hjug.instrumentation.PhaseTiming;
+import org.hjug.instrumentation.events.ReportSectionEvent;
 import org.hjug.metrics.DisharmonyInstance;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.AsSubgraph;
@@ -39,6 +52,13 @@ public class SimpleHtmlReport {
 
     public static final String THE_END = "</div>\n" + "    </div>\n" + "  </body>\n" + "</html>\n";
 
+    /**
+     * Suffix of the JSON file the phase timings and counters of the analysis are written to next to the report
+     */
+    public static final String TIMINGS_FILE_SUFFIX = "-timings.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     public final String[] cboTableHeadings = {
         "Class", "Priority", "Change Proneness Rank", "Coupling Count", "Most Recent Commit Date", "Commit Count"
     };
@@ -53,18 +73,63 @@ public class SimpleHtmlReport {
     Set<String> packagesToRemove = Set.of(); // initialize for unit tests
     Set<DefaultWeightedEdge> classRelationshipsToRemove = Set.of();
     Set<DefaultWeightedEdge> packageRelationshipsToRemove = Set.of();
+    List<SccRemovalStatistics> classSccRemovalStatistics = List.of();
+    List<SccRemovalStatistics> packageSccRemovalStatistics = List.of();
+    SccDecomposition<String> classSccDecomposition;
+
+    /**
+     * Cycle removal algorithm to use for every strongly connected component.
+     * Null or "auto" picks an algorithm per component based on its size and density.
+     */
+    @Setter
+    String cycleRemovalStrategy;
+
+    /**
+     * Dependency jars and class directories used to resolve library types while building the class graph
+     */
+    @Setter
+    List<Path> classpath = List.of();
+
+    /**
+     * Parse this many Java files at a time while building the class graph, resolving the others from
+     * {@link #classesDirectory}. 0 parses all files together.
+     */
+    @Setter
+    int parseChunkSize = 0;
+
+    /**
+     * Heap in use, in megabytes, above which the parse chunk size is halved. 0 keeps the chunk size fixed.
+     */
+    @Setter
+    long heapBudgetMegabytes = 0;
+
+    /**
+     * Compiled classes of the base directory, needed to parse in chunks
+     */
+    @Setter
+    Path classesDirectory;
+
+    /**
+     * Graph to report on instead of building one from the base directory, e.g. one merged from the modules of a build
+     */
+    @Setter
+    CodebaseGraphDTO codebaseGraph;
+
+    /**
+     * Add a table of the time, CPU time and memory each phase of the analysis took to the footer of the report
+     */
+    @Setter
+    boolean showTimings;
+
+    /**
+     * Directory data files of the report are written to, null when the report is rendered into another page
+     */
+    File reportDataDirectory;
 
     DateTimeFormatter formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)
             .withLocale(Locale.getDefault())
             .withZone(ZoneId.systemDefault());
 
-    private final Configuration htmlMinifierConfig = new Configuration.Builder()
-            .setKeepHtmlAndHeadOpeningTags(true)
-            .setKeepComments(false)
-            .setMinifyJs(true)
-            .setMinifyCss(true)
-            .build();
-
     @SneakyThrows
     public void execute(
             int edgeAnalysisCount,
@@ -81,14 +146,48 @@ public class SimpleHtmlReport {
         String filename = getOutputName() + ".html";
         log.info("Generating {} for {} - {}", filename, projectName, projectVersion);
 
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append(THE_BEGINNING);
+        reportDataDirectory = new File(outputDirectory, getOutputName() + "-data");
+        try (Writer writer = openReport(outputDirectory, filename, minifyHtml)) {
+            writer.write(THE_BEGINNING);
+
+            writer.write("<head>");
+            writer.write(printTitle(projectName, projectVersion));
+            writer.write(printHead());
+            writer.write("</head>");
+            generateReport(
+                    writer,
+                    showDetails,
+                    edgeAnalysisCount,
+                    analyzeCycles,
+                    excludeTests,
+                    testSourceDirectory,
+                    projectName,
+                    projectVersion,
+                    baseDir);
+
+            if (showTimings) {
+                writer.write(renderPhaseTimings(PhaseTimer.getTimings(), PhaseTimer.getCounters()));
+            }
+            writer.write(printProjectFooter());
+            writer.write(THE_END);
+        }
+        writeTimings(outputDirectory, getOutputName() + TIMINGS_FILE_SUFFIX);
+        log.info("Done! View the report at target/site/{}", filename);
+    }
 
-        stringBuilder.append("<head>");
-        stringBuilder.append(printTitle(projectName, projectVersion));
-        stringBuilder.append(printHead());
-        stringBuilder.append("</head>");
-        stringBuilder.append(generateReport(
+    public StringBuilder generateReport(
+            boolean showDetails,
+            int edgeAnalysisCount,
+            boolean analyzeCycles,
+            boolean excludeTests,
+            String testSourceDirectory,
+            String projectName,
+            String projectVersion,
+            File baseDir)
+            throws Exception {
+        StringBuilder stringBuilder = new StringBuilder();
+        generateReport(
+                stringBuilder,
                 showDetails,
                 edgeAnalysisCount,
                 analyzeCycles,
@@ -96,22 +195,15 @@ public class SimpleHtmlReport {
                 testSourceDirectory,
                 projectName,
                 projectVersion,
-                baseDir));
-
-        stringBuilder.append(printProjectFooter());
-        stringBuilder.append(THE_END);
-
-        String reportHtml;
-        if (minifyHtml) {
-            reportHtml = MinifyHtml.minify(stringBuilder.toString(), htmlMinifierConfig);
-        } else {
-            reportHtml = stringBuilder.toString();
-        }
-        writeReportToDisk(outputDirectory, filename, reportHtml);
-        log.info("Done! View the report at target/site/{}", filename);
+                baseDir);
+        return stringBuilder;
     }
 
-    public StringBuilder generateReport(
+    /**
+     * Writes the body of the report to out one section at a time, so only the section being rendered is held in memory
+     */
+    public void generateReport(
+            Appendable out,
             boolean showDetails,
             int edgeAnalysisCount,
             boolean analyzeCycles,
@@ -136,11 +228,10 @@ public class SimpleHtmlReport {
             optionalGitDir = Optional.ofNullable(GitLogReader.getGitDir(new File(projectBaseDir)));
         }
 
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append(printOpenBodyTag());
-        stringBuilder.append(printScripts());
-        stringBuilder.append(printBreadcrumbs());
-        stringBuilder.append(printProjectHeader(projectName, projectVersion, projectBaseDir));
+        out.append(printOpenBodyTag());
+        out.append(printScripts());
+        out.append(printBreadcrumbs());
+        out.append(printProjectHeader(projectName, projectVersion, projectBaseDir));
 
         File gitDir;
         if (optionalGitDir.isPresent()) {
@@ -148,15 +239,14 @@ public class SimpleHtmlReport {
         } else {
             log.info(
                     "Done! No Git repository found!  Please initialize a Git repository and perform an initial commit.");
-            stringBuilder
-                    .append("No Git repository found in project ")
+            out.append("No Git repository found in project ")
                     .append(projectName)
                     .append(" ")
                     .append(projectVersion)
                     .append(".  ");
-            stringBuilder.append("Please initialize a Git repository and perform an initial commit.");
+            out.append("Please initialize a Git repository and perform an initial commit.");
 
-            return stringBuilder;
+            return;
         }
 
         String parentOfGitDir = gitDir.getParentFile().getPath();
@@ -165,43 +255,74 @@ public class SimpleHtmlReport {
 
         if (!projectBaseDir.equals(parentOfGitDir)) {
             log.warn("Project Base Directory does not match Git Parent Directory");
-            stringBuilder.append("Project Base Directory does not match Git Parent Directory.  "
+            out.append("Project Base Directory does not match Git Parent Directory.  "
                     + "Please refer to the report at the root of the site directory.");
-            return stringBuilder;
+            return;
         }
 
         CycleRanker cycleRanker = new CycleRanker(projectBaseDir);
+        cycleRanker.setClasspath(classpath);
+        cycleRanker.setParseChunkSize(parseChunkSize);
+        cycleRanker.setHeapBudgetMegabytes(heapBudgetMegabytes);
+        cycleRanker.setClassesDirectory(classesDirectory);
         List<RankedCycle> rankedClassCycles = List.of();
         //        List<RankedCycle> rankedPackageCycles = List.of();
         CodebaseGraphDTO codebaseGraphDTO;
-        if (analyzeCycles) {
-            log.info("Analyzing Cycles");
-            cycleRanker.generateClassReferencesGraph(excludeTests, testSourceDirectory);
-            codebaseGraphDTO = cycleRanker.getCodebaseGraphDTO();
-            rankedClassCycles = cycleRanker.rankCycles(codebaseGraphDTO.getClassReferencesGraph());
-            //            rankedPackageCycles = cycleRanker.rankCycles(codebaseGraphDTO.getPackageReferencesGraph());
+        if (codebaseGraph != null) {
+            cycleRanker.setCodebaseGraphDTO(codebaseGraph);
+            codebaseGraphDTO = codebaseGraph;
         } else {
-            codebaseGraphDTO = cycleRanker.generateClassReferencesGraph(excludeTests, testSourceDirectory);
+            try (PhaseTimer.Phase phase = PhaseTimer.start("report.buildGraph")) {
+                codebaseGraphDTO = cycleRanker.generateClassReferencesGraph(excludeTests, testSourceDirectory);
+            }
         }
-
         classGraph = codebaseGraphDTO.getClassReferencesGraph();
+        packageGraph = codebaseGraphDTO.getPackageReferencesGraph();
+
+        // strongly connected components are computed once per graph and shared by cycle ranking,
+        // every cycle removal algorithm and the graph layout
+        SccDecomposition<String> packageSccDecomposition;
+        try (PhaseTimer.Phase phase = PhaseTimer.start("report.sccDecomposition")) {
+            classSccDecomposition = SccDecomposition.of(classGraph);
+            packageSccDecomposition = SccDecomposition.of(packageGraph);
+            phase.count("classComponents", classSccDecomposition.getComponentCount())
+                    .count("packageComponents", packageSccDecomposition.getComponentCount());
+        }
 
-        CycleRemovalComputer cycleRemovalComputer = new CycleRemovalComputer();
+        if (analyzeCycles) {
+            log.info("Analyzing Cycles");
+            try (PhaseTimer.Phase phase = PhaseTimer.start("report.rankCycles")) {
+                rankedClassCycles = cycleRanker.rankCycles(classGraph, classSccDecomposition);
+                //            rankedPackageCycles =
+                // cycleRanker.rankCycles(codebaseGraphDTO.getPackageReferencesGraph());
+                phase.count("cycles", rankedClassCycles.size());
+            }
+        }
 
-        CycleRemovalResult classCycleRemovalResult = cycleRemovalComputer.computeCycleRemovalInformation(classGraph);
+        CycleRemovalComputer cycleRemovalComputer = new CycleRemovalComputer(
+                FeedbackArcSetStrategySelector.withOverride(FeedbackArcSetStrategy.fromName(cycleRemovalStrategy)));
+
+        CycleRemovalResult classCycleRemovalResult;
+        try (PhaseTimer.Phase phase = PhaseTimer.start("report.classCycleRemoval")) {
+            classCycleRemovalResult =
+                    cycleRemovalComputer.computeCycleRemovalInformation(classGraph, classSccDecomposition);
+        }
         Map<DefaultWeightedEdge, Integer> classEdgeCycleCounts = classCycleRemovalResult.getEdgeCycleCounts();
         classRelationshipsToRemove = classCycleRemovalResult.getEdgesToRemove();
         classesToRemove = classCycleRemovalResult.getVertexesToRemove();
         classCycles = classCycleRemovalResult.getCycles();
+        classSccRemovalStatistics = classCycleRemovalResult.getSccRemovalStatistics();
 
-        packageGraph = codebaseGraphDTO.getPackageReferencesGraph();
-
-        CycleRemovalResult packageCycleRemovalResult =
-                cycleRemovalComputer.computeCycleRemovalInformation(packageGraph);
+        CycleRemovalResult packageCycleRemovalResult;
+        try (PhaseTimer.Phase phase = PhaseTimer.start("report.packageCycleRemoval")) {
+            packageCycleRemovalResult =
+                    cycleRemovalComputer.computeCycleRemovalInformation(packageGraph, packageSccDecomposition);
+        }
         Map<DefaultWeightedEdge, Integer> packageEdgeCycleCounts = packageCycleRemovalResult.getEdgeCycleCounts();
         packageRelationshipsToRemove = packageCycleRemovalResult.getEdgesToRemove();
         packagesToRemove = packageCycleRemovalResult.getVertexesToRemove();
         packageCycles = packageCycleRemovalResult.getCycles();
+        packageSccRemovalStatistics = packageCycleRemovalResult.getSccRemovalStatistics();
 
         // Ordered (type, anchorId, displayTitle, isMethodLevel) for all disharmonies
         final List<DisharmonySpec> disharmonySpecs = List.of(
@@ -300,8 +421,9 @@ public class SimpleHtmlReport {
 
         List<RankedDisharmony> classRelationshipDisharmonies = List.of();
         List<RankedDisharmony> packageRelationshipDisharmonies = List.of();
-        try (CostBenefitCalculator costBenefitCalculator =
-                new CostBenefitCalculator(projectBaseDir, codebaseGraphDTO.getClassToSourceFilePathMapping())) {
+        try (PhaseTimer.Phase phase = PhaseTimer.start("report.disharmonies");
+                CostBenefitCalculator costBenefitCalculator =
+                        new CostBenefitCalculator(projectBaseDir, codebaseGraphDTO.getClassToSourceFilePathMapping())) {
             packageRelationshipDisharmonies = costBenefitCalculator.calculateRelationshipCostBenefitValues(
                     packageGraph, packageEdgeCycleCounts, codebaseGraphDTO, packagesToRemove, packageCycles, List.of());
             classRelationshipDisharmonies = costBenefitCalculator.calculateRelationshipCostBenefitValues(
@@ -340,58 +462,95 @@ public class SimpleHtmlReport {
         String repoUrl = getRepoUrl(projectBaseDir);
 
         if (!hasAnyDisharmony) {
-            stringBuilder
-                    .append("<div style=\"text-align: center;\">Congratulations!  ")
+            out.append("<div style=\"text-align: center;\">Congratulations!  ")
                     .append(projectName)
                     .append(" ")
                     .append(projectVersion)
                     .append(" has no Cycles or Disharmonies!</div>");
-            stringBuilder.append(renderClassGraphVisuals(repoUrl, codebaseGraphDTO));
+            out.append(renderClassGraphVisuals(repoUrl, codebaseGraphDTO));
+            out.append(printGraphElements());
             log.info("Done! No Disharmonies found!");
-            return stringBuilder;
+            return;
         }
 
-        stringBuilder.append(renderGithubButtons());
-        stringBuilder.append("<header>\n" + "<nav>\n" + " <ul>\n");
-        stringBuilder.append(createMenu(disharmonySpecs, rankedDisharmoniesByAnchor, rankedClassCycles));
-        stringBuilder.append("</ul>\n" + "</nav>\n" + "</header>\n");
+        out.append(renderGithubButtons());
+        out.append("<header>\n" + "<nav>\n" + " <ul>\n");
+        out.append(createMenu(disharmonySpecs, rankedDisharmoniesByAnchor, rankedClassCycles));
+        out.append("</ul>\n" + "</nav>\n" + "</header>\n");
 
         log.info("Generating HTML Report");
 
-        stringBuilder.append(renderClassGraphVisuals(repoUrl, codebaseGraphDTO));
-
-        stringBuilder.append("<br/>\n");
-        if (!classRelationshipDisharmonies.isEmpty()) {
-            stringBuilder.append(renderClassEdgeDisharmonies(
-                    classRelationshipDisharmonies, packageRelationshipDisharmonies, repoUrl, codebaseGraphDTO));
-            stringBuilder.append("<br/>\n" + "<br/>\n" + "<br/>\n" + "<br/>\n" + "<hr/>\n" + "<br/>\n" + "<br/>\n");
-        }
+        try (PhaseTimer.Phase phase = PhaseTimer.start("report.render")) {
+            ReportSectionEvent section = startSection();
+            out.append(renderClassGraphVisuals(repoUrl, codebaseGraphDTO));
+            commitSection(section, "Class Graph", classGraph.vertexSet().size());
+
+            out.append("<br/>\n");
+            if (!classRelationshipDisharmonies.isEmpty()) {
+                section = startSection();
+                writeClassEdgeDisharmonies(
+                        out, classRelationshipDisharmonies, packageRelationshipDisharmonies, repoUrl, codebaseGraphDTO);
+                out.append(renderSccRemovalStatistics("Class", classSccRemovalStatistics));
+                commitSection(section, "Class Relationships To Remove", classRelationshipDisharmonies.size());
+                out.append("<br/>\n" + "<br/>\n" + "<br/>\n" + "<br/>\n" + "<hr/>\n" + "<br/>\n" + "<br/>\n");
+            }
 
-        stringBuilder.append(renderPackageGraphVisuals(repoUrl, codebaseGraphDTO));
-        stringBuilder.append("<br/>\n");
+            section = startSection();
+            out.append(renderPackageGraphVisuals(repoUrl, codebaseGraphDTO));
+            commitSection(section, "Package Graph", packageGraph.vertexSet().size());
+            out.append("<br/>\n");
+
+            if (!packageRelationshipDisharmonies.isEmpty()) {
+                section = startSection();
+                writePackageEdgeDisharmonies(out, packageRelationshipDisharmonies, repoUrl, codebaseGraphDTO);
+                out.append(renderSccRemovalStatistics("Package", packageSccRemovalStatistics));
+                commitSection(section, "Package Relationships To Remove", packageRelationshipDisharmonies.size());
+                out.append("<br/>\n" + "<br/>\n" + "<br/>\n" + "<br/>\n" + "<hr/>\n" + "<br/>\n" + "<br/>\n");
+            } else {
+                log.info("No Package Relationship Disharmonies found");
+            }
 
-        if (!packageRelationshipDisharmonies.isEmpty()) {
-            stringBuilder.append(
-                    renderPackageEdgeDisharmonies(packageRelationshipDisharmonies, repoUrl, codebaseGraphDTO));
-            stringBuilder.append("<br/>\n" + "<br/>\n" + "<br/>\n" + "<br/>\n" + "<hr/>\n" + "<br/>\n" + "<br/>\n");
-        } else {
-            log.info("No Package Relationship Disharmonies found");
-        }
+            for (DisharmonySpec spec : disharmonySpecs) {
+                List<RankedDisharmony> rankedForType = rankedDisharmoniesByAnchor.get(spec.anchorId());
+                if (rankedForType != null && !rankedForType.isEmpty()) {
+                    section = startSection();
+                    writeDisharmonyInfo(out, repoUrl, spec, showDetails, rankedForType);
+                    commitSection(section, spec.title(), rankedForType.size());
+                    out.append("<br/>\n" + "<br/>\n" + "<br/>\n" + "<br/>\n" + "<hr/>\n" + "<br/>\n" + "<br/>\n");
+                }
+            }
 
-        for (DisharmonySpec spec : disharmonySpecs) {
-            List<RankedDisharmony> rankedForType = rankedDisharmoniesByAnchor.get(spec.anchorId());
-            if (rankedForType != null && !rankedForType.isEmpty()) {
-                stringBuilder.append(renderDisharmonyInfo(repoUrl, spec, showDetails, rankedForType));
-                stringBuilder.append("<br/>\n" + "<br/>\n" + "<br/>\n" + "<br/>\n" + "<hr/>\n" + "<br/>\n" + "<br/>\n");
+            if (!rankedClassCycles.isEmpty()) {
+                section = startSection();
+                writeCycles(out, rankedClassCycles, repoUrl, codebaseGraphDTO);
+                commitSection(section, "Class Cycles", rankedClassCycles.size());
             }
-        }
 
-        if (!rankedClassCycles.isEmpty()) {
-            stringBuilder.append(renderCycles(rankedClassCycles, repoUrl, codebaseGraphDTO));
+            section = startSection();
+            out.append(printGraphElements());
+            commitSection(section, "Graph Elements", classGraph.vertexSet().size());
         }
+    }
 
-        log.debug(stringBuilder.toString());
-        return stringBuilder;
+    private static ReportSectionEvent startSection() {
+        ReportSectionEvent section = new ReportSectionEvent();
+        section.begin();
+        return section;
+    }
+
+    /**
+     * Records the rendering of a section of the report in flight recordings
+     *
+     * @param items the rows, classes or relationships the section rendered
+     */
+    private void commitSection(ReportSectionEvent section, String name, int items) {
+        section.end();
+        if (section.shouldCommit()) {
+            section.setReport(getClass().getSimpleName());
+            section.setSection(name);
+            section.setItems(items);
+            section.commit();
+        }
     }
 
     static String getRepoUrl(String projectBaseDir) throws Exception {
@@ -459,65 +618,101 @@ public class SimpleHtmlReport {
 
     void renderPackageMapMenu(StringBuilder stringBuilder) {}
 
-    private String renderCycles(List<RankedCycle> rankedCycles, String repoUrl, CodebaseGraphDTO codebaseGraphDTO) {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append(renderClassCycleSummary(rankedCycles));
-
-        rankedCycles.stream()
-                .limit(1)
-                .map((RankedCycle cycle) -> renderSingleCycle(cycle, repoUrl, codebaseGraphDTO))
-                .forEach(stringBuilder::append);
+    private void writeCycles(
+            Appendable out, List<RankedCycle> rankedCycles, String repoUrl, CodebaseGraphDTO codebaseGraphDTO)
+            throws IOException {
+        writeClassCycleSummary(out, rankedCycles);
 
-        return stringBuilder.toString();
+        // only the largest cycle is rendered, to keep page load time fast
+        writeSingleCycle(out, rankedCycles.get(0), repoUrl, codebaseGraphDTO);
     }
 
-    private String renderClassEdgeDisharmonies(
+    private void writeClassEdgeDisharmonies(
+            Appendable out,
             List<RankedDisharmony> classRelationshipDisharmonies,
             List<RankedDisharmony> packageRelationshipDisharmonies,
             String repoUrl,
-            CodebaseGraphDTO codebaseGraphDTO) {
-        StringBuilder stringBuilder = new StringBuilder();
-
-        stringBuilder.append(
+            CodebaseGraphDTO codebaseGraphDTO)
+            throws IOException {
+        out.append(
                 "<div style=\"text-align: center;\"><a id=\"CLASSEDGES\"><h1>Class Relationship Removal Priority</h1></a></div>\n");
-        stringBuilder.append("<h2 align=\"center\">Refactor Starting with Priority 1</h2>\n");
-        stringBuilder.append("<div style=\"text-align: center;\">\n");
-        stringBuilder
-                .append("Current Class Cycle Count: ")
-                .append(classCycles.size())
+        out.append("<h2 align=\"center\">Refactor Starting with Priority 1</h2>\n");
+        out.append("<div style=\"text-align: center;\">\n");
+        out.append("Current Class Cycle Count: ")
+                .append(String.valueOf(classCycles.size()))
                 .append("<br>\n");
 
-        stringBuilder
-                .append("Number of Class Relationships to Remove: ")
-                .append(classRelationshipsToRemove.size())
+        out.append("Number of Class Relationships to Remove: ")
+                .append(String.valueOf(classRelationshipsToRemove.size()))
                 .append("<br>\n");
-        stringBuilder
-                .append("Classes with <strong>*</strong> should be broken apart")
+        out.append("Classes with <strong>*</strong> should be broken apart")
                 .append("<br>\n")
                 .append("Removing class relationships below will eliminate class cycles");
-        stringBuilder.append("</div>\n");
+        out.append("</div>\n");
+
+        writeTable(
+                out,
+                "CLASSEDGES",
+                getClassRelationshipDisharmonyTableHeadings(),
+                classRelationshipDisharmonies.stream()
+                        .map(edge -> getClassRelationshipDisharmony(edge, repoUrl, codebaseGraphDTO)));
+    }
+
+    private void writePackageEdgeDisharmonies(
+            Appendable out, List<RankedDisharmony> edgeDisharmonies, String repoUrl, CodebaseGraphDTO codebaseGraphDTO)
+            throws IOException {
+        out.append(
+                "<div style=\"text-align: center;\"><a id=\"PACKAGEEDGES\"><h1>Package Relationship Removal Priority</h1></a></div>\n");
+        out.append("<h2 align=\"center\">Refactor Starting with Priority 1</h2>\n");
+        out.append("<div style=\"text-align: center;\">\n");
+        out.append("Current Package Cycle Count: ")
+                .append(String.valueOf(packageCycles.size()))
+                .append("<br>\n");
+
+        out.append("Number of Package Relationships to Remove: ")
+                .append(String.valueOf(packageRelationshipsToRemove.size()))
+                .append("<br>\n");
+        out.append("Packages and classes with <strong>*</strong> should be broken apart")
+                .append("<br>\n")
+                .append("Removing package relationships below will eliminate package cycles");
+        out.append("</div>\n");
+
+        writeTable(
+                out,
+                "PACKAGEEDGES",
+                getPackageRelationshipDisharmonyTableHeadings(),
+                edgeDisharmonies.stream()
+                        .map(edge -> getPackageRelationshipDisharmony(edge, repoUrl, codebaseGraphDTO)));
+    }
 
-        // Content
+    String renderSccRemovalStatistics(String graphName, List<SccRemovalStatistics> sccRemovalStatistics) {
+        if (sccRemovalStatistics.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("<br/>\n");
+        stringBuilder.append("<h3 align=\"center\">").append(graphName).append(" Cycle Removal Algorithms</h3>\n");
         stringBuilder.append("<div align=\"center\">");
         stringBuilder.append("<table align=\"center\" border=\"5px\">\n");
         stringBuilder.append("<thead>\n<tr>\n");
-        for (String heading : getClassRelationshipDisharmonyTableHeadings()) {
+        for (String heading :
+                new String[] {"Strongly Connected<br>Component", "Algorithm", "Relationships<br>Removed", "Time (ms)"
+                }) {
             stringBuilder.append("<th>").append(heading).append("</th>\n");
         }
-        stringBuilder.append("</thead>\n");
+        stringBuilder.append("</tr>\n</thead>\n");
 
         stringBuilder.append("<tbody>\n");
-
-        for (RankedDisharmony edge : classRelationshipDisharmonies) {
+        for (SccRemovalStatistics statistics : sccRemovalStatistics) {
             stringBuilder.append("<tr>\n");
-
-            for (String rowData : getClassRelationshipDisharmony(edge, repoUrl, codebaseGraphDTO)) {
-                stringBuilder.append(drawTableCell(rowData));
-            }
-
+            stringBuilder.append(drawTableCell(
+                    statistics.getVertexCount() + " vertexes, " + statistics.getEdgeCount() + " relationships"));
+            stringBuilder.append(drawTableCell(statistics.getStrategy().getDisplayName()));
+            stringBuilder.append(drawTableCell(String.valueOf(statistics.getEdgesRemoved())));
+            stringBuilder.append(drawTableCell(String.valueOf(statistics.getDurationMillis())));
             stringBuilder.append("</tr>\n");
         }
-
         stringBuilder.append("</tbody>\n");
         stringBuilder.append("</table>\n");
         stringBuilder.append("</div>\n");
@@ -525,52 +720,72 @@ public class SimpleHtmlReport {
         return stringBuilder.toString();
     }
 
-    private String renderPackageEdgeDisharmonies(
-            List<RankedDisharmony> edgeDisharmonies, String repoUrl, CodebaseGraphDTO codebaseGraphDTO) {
-        StringBuilder stringBuilder = new StringBuilder();
-
-        stringBuilder.append(
-                "<div style=\"text-align: center;\"><a id=\"PACKAGEEDGES\"><h1>Package Relationship Removal Priority</h1></a></div>\n");
-        stringBuilder.append("<h2 align=\"center\">Refactor Starting with Priority 1</h2>\n");
-        stringBuilder.append("<div style=\"text-align: center;\">\n");
-        stringBuilder
-                .append("Current Package Cycle Count: ")
-                .append(packageCycles.size())
-                .append("<br>\n");
+    /**
+     * Writes the phases and counters recorded by {@link PhaseTimer} so far, for comparing the cost of each phase
+     * between runs
+     */
+    static void writeTimings(String outputDirectory, String fileName) {
+        ObjectNode json = MAPPER.createObjectNode();
+        json.set("phases", MAPPER.valueToTree(PhaseTimer.getTimings()));
+        json.set("counters", MAPPER.valueToTree(PhaseTimer.getCounters()));
+        try (Writer writer = openReport(outputDirectory, fileName, false)) {
+            MAPPER.writeValue(writer, json);
+        } catch (IOException e) {
+            log.warn("Could not write the phase timings to {}", fileName, e);
+        }
+    }
 
-        stringBuilder
-                .append("Number of Package Relationships to Remove: ")
-                .append(packageRelationshipsToRemove.size())
-                .append("<br>\n");
-        stringBuilder
-                .append("Packages and classes with <strong>*</strong> should be broken apart")
-                .append("<br>\n")
-                .append("Removing package relationships below will eliminate package cycles");
-        stringBuilder.append("</div>\n");
+    String renderPhaseTimings(List<PhaseTiming> timings, Map<String, Long> counters) {
+        if (timings.isEmpty()) {
+            return "";
+        }
 
-        // Content
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("<br/>\n");
+        stringBuilder.append("<h3 align=\"center\">Analysis Phases</h3>\n");
         stringBuilder.append("<div align=\"center\">");
         stringBuilder.append("<table align=\"center\" border=\"5px\">\n");
         stringBuilder.append("<thead>\n<tr>\n");
-        for (String heading : getPackageRelationshipDisharmonyTableHeadings()) {
+        for (String heading :
+                new String[] {"Phase", "Thread", "Time (ms)", "CPU Time (ms)", "Allocated (MB)", "Sizes"}) {
             stringBuilder.append("<th>").append(heading).append("</th>\n");
         }
         stringBuilder.append("</thead>\n");
 
         stringBuilder.append("<tbody>\n");
-
-        for (RankedDisharmony edge : edgeDisharmonies) {
+        for (PhaseTiming timing : timings) {
+            StringBuilder sizes = new StringBuilder();
+            timing.getCounts()
+                    .forEach((name, value) ->
+                            sizes.append(name).append(": ").append(value).append("<br/>"));
             stringBuilder.append("<tr>\n");
-
-            for (String rowData : getPackageRelationshipDisharmony(edge, repoUrl, codebaseGraphDTO)) {
-                stringBuilder.append(drawTableCell(rowData));
-            }
-
+            stringBuilder.append(drawTableCell(timing.getName()));
+            stringBuilder.append(drawTableCell(timing.getThread()));
+            stringBuilder.append(drawTableCell(String.valueOf(timing.getWallNanos() / 1_000_000)));
+            stringBuilder.append(
+                    drawTableCell(timing.getCpuNanos() < 0 ? "" : String.valueOf(timing.getCpuNanos() / 1_000_000)));
+            stringBuilder.append(drawTableCell(
+                    timing.getAllocatedBytes() < 0 ? "" : String.valueOf(timing.getAllocatedBytes() / (1024 * 1024))));
+            stringBuilder.append(drawTableCell(sizes.toString()));
             stringBuilder.append("</tr>\n");
         }
-
         stringBuilder.append("</tbody>\n");
         stringBuilder.append("</table>\n");
+
+        if (!counters.isEmpty()) {
+            stringBuilder.append("<br/>\n");
+            stringBuilder.append("<table align=\"center\" border=\"5px\">\n");
+            stringBuilder.append("<thead>\n<tr>\n<th>Counter</th>\n<th>Value</th>\n</thead>\n");
+            stringBuilder.append("<tbody>\n");
+            counters.forEach((name, value) -> {
+                stringBuilder.append("<tr>\n");
+                stringBuilder.append(drawTableCell(name));
+                stringBuilder.append(drawTableCell(String.valueOf(value)));
+                stringBuilder.append("</tr>\n");
+            });
+            stringBuilder.append("</tbody>\n");
+            stringBuilder.append("</table>\n");
+        }
         stringBuilder.append("</div>\n");
 
         return stringBuilder.toString();
@@ -629,37 +844,15 @@ public class SimpleHtmlReport {
         };
     }
 
-    private String renderClassCycleSummary(List<RankedCycle> rankedCycles) {
-        StringBuilder stringBuilder = new StringBuilder();
-
-        stringBuilder.append("<div style=\"text-align: center;\"><a id=\"CYCLES\"><h1>Class Cycles</h1></a></div>\n");
-
-        stringBuilder.append("<h2 align=\"center\">Class Cycles by the numbers:</h2>\n");
-        stringBuilder.append("<div align=\"center\">");
-        stringBuilder.append("<table align=\"center\" border=\"5px\">\n");
+    private void writeClassCycleSummary(Appendable out, List<RankedCycle> rankedCycles) throws IOException {
+        out.append("<div style=\"text-align: center;\"><a id=\"CYCLES\"><h1>Class Cycles</h1></a></div>\n");
 
-        // Content
-        stringBuilder.append("<thead>\n<tr>\n");
-        for (String heading : getClassCycleSummaryTableHeadings()) {
-            stringBuilder.append("<th>").append(heading).append("</th>\n");
-        }
-        stringBuilder.append("</thead>\n");
-
-        stringBuilder.append("<tbody>\n");
-        for (RankedCycle cycle : rankedCycles) {
-            stringBuilder.append("<tr>\n");
-
-            for (String rowData : getRankedCycleSummaryData(cycle)) {
-                stringBuilder.append(drawTableCell(rowData));
-            }
-
-            stringBuilder.append("</tr>\n");
-        }
-
-        stringBuilder.append("</tbody>\n");
-        stringBuilder.append("</table>\n");
-        stringBuilder.append("</div>");
-        return stringBuilder.toString();
+        out.append("<h2 align=\"center\">Class Cycles by the numbers:</h2>\n");
+        writeTable(
+                out,
+                "CYCLES",
+                getClassCycleSummaryTableHeadings(),
+                rankedCycles.stream().map(this::getRankedCycleSummaryData));
     }
 
     private String renderClassEdge(DefaultWeightedEdge edge) {
@@ -748,78 +941,87 @@ public class SimpleHtmlReport {
         };
     }
 
-    private String renderSingleCycle(RankedCycle cycle, String repoUrl, CodebaseGraphDTO codebaseGraphDTO) {
-        StringBuilder stringBuilder = new StringBuilder();
-
-        stringBuilder.append("<br/>\n");
-        stringBuilder.append("<br/>\n");
-        stringBuilder.append("<hr/>\n");
-        stringBuilder.append("<br/>\n");
-        stringBuilder.append("<br/>\n");
-
-        stringBuilder.append("<h2 align=\"center\"><a id=\"CYCLEMAP\">Largest Class Cycle : "
-                + getClassName(cycle.getCycleName()) + "</a></h2>\n");
-        stringBuilder.append(
-                "<h3 align=\"center\">Limiting number of cycles displayed to 1 to keep page load time fast</h3>\n");
-        stringBuilder.append(renderClassCycleVisuals(cycle, repoUrl, codebaseGraphDTO));
-
-        stringBuilder.append("<div align=\"center\">");
-        stringBuilder.append("<strong>");
-        stringBuilder.append(
-                "* indicates class to remove, bold text indicates relationships to remove to decompose cycle");
-        stringBuilder.append("</strong>");
+    private void writeSingleCycle(Appendable out, RankedCycle cycle, String repoUrl, CodebaseGraphDTO codebaseGraphDTO)
+            throws IOException {
+        out.append("<br/>\n");
+        out.append("<br/>\n");
+        out.append("<hr/>\n");
+        out.append("<br/>\n");
+        out.append("<br/>\n");
+
+        out.append("<h2 align=\"center\"><a id=\"CYCLEMAP\">Largest Class Cycle : " + getClassName(cycle.getCycleName())
+                + "</a></h2>\n");
+        out.append("<h3 align=\"center\">Limiting number of cycles displayed to 1 to keep page load time fast</h3>\n");
+        out.append(renderClassCycleVisuals(cycle, repoUrl, codebaseGraphDTO));
+
+        out.append("<div align=\"center\">");
+        out.append("<strong>");
+        out.append("* indicates class to remove, bold text indicates relationships to remove to decompose cycle");
+        out.append("</strong>");
         int classCount = cycle.getCycleNodes().size();
         int relationshipCount = cycle.getEdgeSet().size();
-        stringBuilder.append("<div align=\"center\">Number of classes: " + classCount + "  Number of relationships: "
+        out.append("<div align=\"center\">Number of classes: " + classCount + "  Number of relationships: "
                 + relationshipCount + "<br></div>");
-        stringBuilder.append("</div>\n");
-
-        stringBuilder.append("<div align=\"center\">");
-        stringBuilder.append("<table align=\"center\" border=\"5px\">\n");
+        out.append("</div>\n");
+
+        writeTable(
+                out,
+                "CYCLEMAP",
+                classCycleTableHeadings,
+                cycle.getVertexSet().stream()
+                        .map(vertex -> getCycleVertexRow(cycle, vertex, repoUrl, codebaseGraphDTO)));
+    }
 
-        // Content
-        stringBuilder.append("<thead>\n<tr>\n");
-        for (String heading : classCycleTableHeadings) {
-            stringBuilder.append("<th>").append(heading).append("</th>\n");
+    private String[] getCycleVertexRow(
+            RankedCycle cycle, String vertex, String repoUrl, CodebaseGraphDTO codebaseGraphDTO) {
+        String className;
+        if (classesToRemove.contains(vertex)) {
+            className = hyperlinkClass(vertex, repoUrl, codebaseGraphDTO) + "<strong>*</strong>";
+        } else {
+            className = hyperlinkClass(vertex, repoUrl, codebaseGraphDTO);
         }
-        stringBuilder.append("</thead>\n");
-
-        stringBuilder.append("<tbody>\n");
-
-        for (String vertex : cycle.getVertexSet()) {
-            stringBuilder.append("<tr>");
-            String className;
-            if (classesToRemove.contains(vertex)) {
-                className = hyperlinkClass(vertex, repoUrl, codebaseGraphDTO) + "<strong>*</strong>";
-            } else {
-                className = hyperlinkClass(vertex, repoUrl, codebaseGraphDTO);
-            }
-
-            stringBuilder.append(drawTableCell(className));
-            StringBuilder edges = new StringBuilder();
-            for (DefaultWeightedEdge edge : cycle.getEdgeSet()) {
-                if (edge.toString().startsWith("(" + vertex + " :")) {
 
-                    if (classRelationshipsToRemove.contains(edge)) {
-                        edges.append("<strong>");
-                        edges.append(renderClassEdge(edge) + "<strong>*</strong>");
-                        edges.append("</strong>");
-                    } else {
-                        edges.append(renderClassEdge(edge));
-                    }
+        StringBuilder edges = new StringBuilder();
+        for (DefaultWeightedEdge edge : cycle.getEdgeSet()) {
+            if (edge.toString().startsWith("(" + vertex + " :")) {
 
-                    edges.append("<br/>\n");
+                if (classRelationshipsToRemove.contains(edge)) {
+                    edges.append("<strong>");
+                    edges.append(renderClassEdge(edge) + "<strong>*</strong>");
+                    edges.append("</strong>");
+                } else {
+                    edges.append(renderClassEdge(edge));
                 }
+
+                edges.append("<br/>\n");
             }
-            stringBuilder.append(drawTableCell(edges.toString()));
-            stringBuilder.append("</tr>\n");
         }
+        return new String[] {className, edges.toString()};
+    }
 
-        stringBuilder.append("</tbody>\n");
+    /**
+     * Writes a table with the headings and rows inline in the report
+     */
+    void writeTable(Appendable out, String sectionId, String[] headings, Stream<String[]> rows) throws IOException {
+        out.append("<div align=\"center\">");
+        out.append("<table align=\"center\" border=\"5px\">\n");
+        out.append("<thead>\n<tr>\n");
+        for (String heading : headings) {
+            out.append("<th>").append(heading).append("</th>\n");
+        }
+        out.append("</tr>\n</thead>\n");
 
-        stringBuilder.append("</table>\n");
-        stringBuilder.append("</div>");
-        return stringBuilder.toString();
+        out.append("<tbody>\n");
+        for (Iterator<String[]> iterator = rows.iterator(); iterator.hasNext(); ) {
+            out.append("<tr>\n");
+            for (String rowData : iterator.next()) {
+                out.append(drawTableCell(rowData));
+            }
+            out.append("</tr>\n");
+        }
+        out.append("</tbody>\n");
+        out.append("</table>\n");
+        out.append("</div>\n");
     }
 
     public String renderClassGraphVisuals(String repoUrl, CodebaseGraphDTO codebaseGraphDTO) {
@@ -870,6 +1072,13 @@ public class SimpleHtmlReport {
         return ""; // empty on purpose
     }
 
+    /**
+     * @return scripts holding the elements of the graphs drawn in the report, written after the graphs refer to them
+     */
+    String printGraphElements() throws IOException {
+        return ""; // empty on purpose
+    }
+
     public String printOpenBodyTag() {
         return "  <body class=\"composite\">\n";
     }
@@ -924,127 +1133,134 @@ public class SimpleHtmlReport {
      */
     public String renderDisharmonyInfo(
             String repoUrl, DisharmonySpec spec, boolean showDetails, List<RankedDisharmony> ranked) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeDisharmonyInfo(sb, repoUrl, spec, showDetails, ranked);
+        } catch (IOException e) {
+            // appending to a StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
 
+    void writeDisharmonyInfo(
+            Appendable out, String repoUrl, DisharmonySpec spec, boolean showDetails, List<RankedDisharmony> ranked)
+            throws IOException {
         String anchorId = spec.anchorId();
         String title = spec.title();
         boolean methodLevel = spec.methodLevel();
 
         if (ranked.isEmpty()) {
-            return "";
+            return;
         }
 
         int maxPriority = ranked.get(ranked.size() - 1).getPriority();
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("<div style=\"text-align: center;\"><a id=\"")
+        out.append("<div style=\"text-align: center;\"><a id=\"")
                 .append(anchorId)
                 .append("\"><h1>")
                 .append(title)
                 .append("</h1></a></div>\n");
 
-        sb.append("<div align=\"center\">");
-        sb.append("<table border=\"5px\">\n");
-        sb.append("<tr>\n");
-        sb.append("<td><strong>Problem:</strong></td>");
-        sb.append("<td>").append(spec.problem()).append("</td>\n");
-        sb.append("</tr>\n");
-        sb.append("<tr>\n");
-        sb.append("<td><strong>Solution:</strong></td>");
-        sb.append("<td>").append(spec.solution()).append("</td>\n");
-        sb.append("</tr>\n");
-        sb.append("</table>\n");
-        sb.append("</div>\n");
-
-        sb.append(renderDisharmonyChart(anchorId, title, ranked, maxPriority));
-
-        sb.append("<h2 align=\"center\">")
+        out.append("<div align=\"center\">");
+        out.append("<table border=\"5px\">\n");
+        out.append("<tr>\n");
+        out.append("<td><strong>Problem:</strong></td>");
+        out.append("<td>").append(spec.problem()).append("</td>\n");
+        out.append("</tr>\n");
+        out.append("<tr>\n");
+        out.append("<td><strong>Solution:</strong></td>");
+        out.append("<td>").append(spec.solution()).append("</td>\n");
+        out.append("</tr>\n");
+        out.append("</table>\n");
+        out.append("</div>\n");
+
+        out.append(renderDisharmonyChart(anchorId, title, ranked, maxPriority));
+
+        out.append("<h2 align=\"center\">")
                 .append(title)
                 .append(" by the numbers: (Refactor Starting with Priority 1)</h2>\n");
-        sb.append("<div align=\"center\">");
-        sb.append("<table align=\"center\" border=\"5px\">\n");
-
         // Build headers from the first item's ranked metrics
         List<DisharmonyMetric> sampleMetrics = ranked.get(0).getRankedMetrics();
 
         boolean showPartners = ranked.get(0).getDuplicationPartners() != null;
 
-        sb.append("<thead><tr>");
-        sb.append("<th>Class</th>\n");
+        List<String> headings = new ArrayList<>();
+        headings.add("Class");
         if (methodLevel) {
-            sb.append("<th>Method</th>\n");
+            headings.add("Method");
         }
-        sb.append("<th>Priority</th>\n");
+        headings.add("Priority");
         if (showDetails) {
-            sb.append("<th>Raw Priority</th>\n");
-            sb.append("<th>Description</th>\n");
+            headings.add("Raw Priority");
+            headings.add("Description");
         }
-        sb.append("<th>Change Proneness Rank</th>\n");
-        sb.append("<th>Effort Rank</th>\n");
+        headings.add("Change Proneness Rank");
+        headings.add("Effort Rank");
         if (showDetails) {
             for (DisharmonyMetric m : sampleMetrics) {
-                sb.append("<th>").append(m.getName()).append("</th>\n");
-                sb.append("<th>").append(m.getName()).append(" Rank</th>\n");
+                headings.add(m.getName());
+                headings.add(m.getName() + " Rank");
             }
         }
         if (showPartners) {
-            sb.append("<th>Duplicate Partners</th>\n");
+            headings.add("Duplicate Partners");
         }
-        sb.append("<th>Most Recent Commit Date</th>\n");
-        sb.append("<th>Commit Count</th>\n");
+        headings.add("Most Recent Commit Date");
+        headings.add("Commit Count");
         if (showDetails) {
-            sb.append("<th>Date of First Commit</th>\n");
-            sb.append("<th>Full Path</th>\n");
-        }
-        sb.append("</tr>\n</thead>\n");
-
-        sb.append("<tbody>\n");
-        for (RankedDisharmony rd : ranked) {
-            sb.append("<tr>\n");
-            sb.append(drawTableCell(
-                    "<a href=" + repoUrl + rd.getPath() + " target=\"_blank\">" + rd.getFileName() + "</a>"));
-            if (methodLevel) {
-                String sig = rd.getMethodSignature();
-                if (!showDetails && sig != null) {
-                    // simplify the method signature to just the name and type
-                    sig = getSimpleMethodSignature(sig);
-                }
-                sb.append(drawTableCell(sig != null ? sig.replace("<", "&lt;").replace(">", "&gt;") : ""));
-            }
-            sb.append(drawTableCell(rd.getPriority().toString()));
-            if (showDetails) {
-                sb.append(drawTableCell(rd.getRawPriority().toString()));
-                sb.append(drawTableCell(rd.getDescription() != null ? rd.getDescription() : ""));
-            }
-            sb.append(drawTableCell(rd.getChangePronenessRank().toString()));
-            sb.append(drawTableCell(rd.getEffortRank().toString()));
-            if (showDetails) {
-                for (DisharmonyMetric m : rd.getRankedMetrics()) {
-                    double v = m.getValue();
-                    String formatted = (v == Math.floor(v)) ? String.valueOf((long) v) : String.valueOf(v);
-                    sb.append(drawTableCell(formatted));
-                    sb.append(drawTableCell(m.getRank() != null ? m.getRank().toString() : ""));
-                }
+            headings.add("Date of First Commit");
+            headings.add("Full Path");
+        }
+
+        writeTable(
+                out,
+                anchorId,
+                headings.toArray(new String[0]),
+                ranked.stream().map(rd -> getDisharmonyRow(rd, repoUrl, methodLevel, showDetails, showPartners)));
+    }
+
+    private String[] getDisharmonyRow(
+            RankedDisharmony rd, String repoUrl, boolean methodLevel, boolean showDetails, boolean showPartners) {
+        List<String> row = new ArrayList<>();
+        row.add("<a href=" + repoUrl + rd.getPath() + " target=\"_blank\">" + rd.getFileName() + "</a>");
+        if (methodLevel) {
+            String sig = rd.getMethodSignature();
+            if (!showDetails && sig != null) {
+                // simplify the method signature to just the name and type
+                sig = getSimpleMethodSignature(sig);
             }
-            if (showPartners) {
-                String duplicationPartners = rd.getDuplicationPartners();
-                if (!showDetails && duplicationPartners != null) {
-                    duplicationPartners = simplifyDuplicatePartners(duplicationPartners);
-                }
-                sb.append(drawTableCell(
-                        rd.getDuplicationPartners() != null ? duplicationPartners.replace(";", "<br>") : ""));
+            row.add(sig != null ? sig.replace("<", "&lt;").replace(">", "&gt;") : "");
+        }
+        row.add(rd.getPriority().toString());
+        if (showDetails) {
+            row.add(rd.getRawPriority().toString());
+            row.add(rd.getDescription() != null ? rd.getDescription() : "");
+        }
+        row.add(rd.getChangePronenessRank().toString());
+        row.add(rd.getEffortRank().toString());
+        if (showDetails) {
+            for (DisharmonyMetric m : rd.getRankedMetrics()) {
+                double v = m.getValue();
+                String formatted = (v == Math.floor(v)) ? String.valueOf((long) v) : String.valueOf(v);
+                row.add(formatted);
+                row.add(m.getRank() != null ? m.getRank().toString() : "");
             }
-            sb.append(drawTableCell(formatter.format(rd.getMostRecentCommitTime())));
-            sb.append(drawTableCell(rd.getCommitCount().toString()));
-            if (showDetails) {
-                sb.append(drawTableCell(formatter.format(rd.getFirstCommitTime())));
-                sb.append(drawTableCell(rd.getPath()));
+        }
+        if (showPartners) {
+            String duplicationPartners = rd.getDuplicationPartners();
+            if (!showDetails && duplicationPartners != null) {
+                duplicationPartners = simplifyDuplicatePartners(duplicationPartners);
             }
-            sb.append("</tr>\n");
+            row.add(rd.getDuplicationPartners() != null ? duplicationPartners.replace(";", "<br>") : "");
         }
-        sb.append("</tbody>\n");
-        sb.append("</table>\n");
-        sb.append("</div>");
-        return sb.toString();
+        row.add(formatter.format(rd.getMostRecentCommitTime()));
+        row.add(rd.getCommitCount().toString());
+        if (showDetails) {
+            row.add(formatter.format(rd.getFirstCommitTime()));
+            row.add(rd.getPath());
+        }
+        return row.toArray(new String[0]);
     }
 
     String getSimpleMethodSignature(String sig) {
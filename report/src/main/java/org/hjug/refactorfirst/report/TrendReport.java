@@ -0,0 +1,106 @@
+package org.hjug.refactorfirst.report;
+
+import static org.hjug.refactorfirst.report.ReportWriter.openReport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hjug.cbc.TrendAnalyzer;
+import org.hjug.cbc.TrendPoint;
+
+/**
+ * Writes the size, cycles, feedback arc set and God Classes of the codebase at each of the most recent commits
+ * as a time series, in CSV and JSON, oldest commit first.
+ */
+@Slf4j
+public class TrendReport {
+
+    static final String CSV_FILE_NAME = "refactor-first-trend.csv";
+    static final String JSON_FILE_NAME = "refactor-first-trend.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String[] CSV_HEADINGS = {
+        "Commit",
+        "Commit Date",
+        "Java Files",
+        "Java Files Parsed",
+        "Classes",
+        "Class Relationships",
+        "Packages",
+        "Class Cycles",
+        "Classes In Cycles",
+        "Package Cycles",
+        "Class Relationships To Remove",
+        "God Classes"
+    };
+
+    /**
+     * Cycle removal algorithm to use for every strongly connected component.
+     * Null or "auto" picks an algorithm per component based on its size and density.
+     */
+    @Setter
+    private String cycleRemovalStrategy;
+
+    /**
+     * Dependency jars and class directories used to resolve library types
+     */
+    @Setter
+    private List<Path> classpath = List.of();
+
+    public void execute(
+            int commitCount, boolean excludeTests, String testSourceDirectory, File baseDir, String outputDirectory) {
+        if (testSourceDirectory == null || testSourceDirectory.isEmpty()) {
+            testSourceDirectory = "src" + File.separator + "test";
+        }
+
+        TrendAnalyzer trendAnalyzer = new TrendAnalyzer(baseDir != null ? baseDir : new File("."));
+        trendAnalyzer.setClasspath(classpath);
+        trendAnalyzer.setCycleRemovalStrategy(cycleRemovalStrategy);
+        try {
+            List<TrendPoint> trend = trendAnalyzer.analyze(commitCount, excludeTests, testSourceDirectory);
+            try (Writer writer = openReport(outputDirectory, CSV_FILE_NAME, false)) {
+                writeCsv(writer, trend);
+            }
+            try (Writer writer = openReport(outputDirectory, JSON_FILE_NAME, false)) {
+                MAPPER.writeValue(writer, trend);
+            }
+        } catch (IOException e) {
+            log.error("Could not generate a trend report", e);
+            return;
+        }
+
+        log.info("Done! View the trend at {} and {}", CSV_FILE_NAME, JSON_FILE_NAME);
+    }
+
+    static void writeCsv(Writer writer, List<TrendPoint> trend) throws IOException {
+        writer.write(String.join(",", CSV_HEADINGS));
+        writer.write("\n");
+        for (TrendPoint point : trend) {
+            writer.write(String.join(
+                    ",",
+                    point.getCommitId(),
+                    DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(
+                            Instant.ofEpochSecond(point.getCommitTime()).atOffset(ZoneOffset.UTC)),
+                    String.valueOf(point.getJavaFiles()),
+                    String.valueOf(point.getJavaFilesParsed()),
+                    String.valueOf(point.getClasses()),
+                    String.valueOf(point.getClassRelationships()),
+                    String.valueOf(point.getPackages()),
+                    String.valueOf(point.getClassCycles()),
+                    String.valueOf(point.getClassesInCycles()),
+                    String.valueOf(point.getPackageCycles()),
+                    String.valueOf(point.getClassRelationshipsToRemove()),
+                    String.valueOf(point.getGodClasses())));
+            writer.write("\n");
+        }
+    }
+}
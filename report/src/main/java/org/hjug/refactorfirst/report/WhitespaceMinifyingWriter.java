@@ -0,0 +1,108 @@
+package org.hjug.refactorfirst.report;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Minifies HTML as it is written by collapsing each run of whitespace into a single character,
+ * a newline if the run contained one and a space otherwise, so a report is minified without holding it in memory.
+ *
+ * Newlines are kept so inline scripts relying on them, e.g. for line comments, still work.
+ * Whitespace inside pre and textarea elements is written unchanged.
+ */
+class WhitespaceMinifyingWriter extends FilterWriter {
+
+    private final char[] buffer = new char[8192];
+    private int buffered;
+
+    private boolean pendingSpace;
+    private boolean pendingNewline;
+
+    // name of the tag being read, so whitespace of preformatted elements is kept
+    private final StringBuilder tagName = new StringBuilder();
+    private boolean readingTagName;
+    private int preformattedDepth;
+
+    WhitespaceMinifyingWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        trackTag((char) c);
+        if (preformattedDepth == 0 && Character.isWhitespace(c)) {
+            if (c == '\n') {
+                pendingNewline = true;
+            } else {
+                pendingSpace = true;
+            }
+            return;
+        }
+        if (pendingNewline) {
+            buffer('\n');
+        } else if (pendingSpace) {
+            buffer(' ');
+        }
+        pendingNewline = false;
+        pendingSpace = false;
+        buffer((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            write(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            write(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        super.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        super.close();
+    }
+
+    private void trackTag(char c) {
+        if (c == '<') {
+            readingTagName = true;
+            tagName.setLength(0);
+        } else if (readingTagName) {
+            if (Character.isLetter(c) || (c == '/' && tagName.length() == 0)) {
+                tagName.append(Character.toLowerCase(c));
+            } else {
+                readingTagName = false;
+                String name = tagName.toString();
+                if ("pre".equals(name) || "textarea".equals(name)) {
+                    preformattedDepth++;
+                } else if (("/pre".equals(name) || "/textarea".equals(name)) && preformattedDepth > 0) {
+                    preformattedDepth--;
+                }
+            }
+        }
+    }
+
+    private void buffer(char c) throws IOException {
+        if (buffered == buffer.length) {
+            flushBuffer();
+        }
+        buffer[buffered++] = c;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, buffered);
+        buffered = 0;
+    }
+}
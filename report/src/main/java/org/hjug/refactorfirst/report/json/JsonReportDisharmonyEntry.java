@@ -3,10 +3,13 @@ package org.hjug.refactorfirst.report.json;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import lombok.Builder;
 import lombok.Data;
 import org.hjug.cbc.RankedDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyMetric;
 
 @Data
 @Builder
@@ -15,6 +18,8 @@ class JsonReportDisharmonyEntry {
             .withLocale(Locale.getDefault())
             .withZone(ZoneId.systemDefault());
 
+    private final String disharmonyType;
+
     private final String fileName;
 
     private final String className;
@@ -33,8 +38,25 @@ class JsonReportDisharmonyEntry {
 
     private final String mostRecentCommitTime;
 
+    private final String methodSignature;
+
+    private final String description;
+
+    private final String duplicationPartners;
+
+    private final Map<String, Double> metrics;
+
     public static JsonReportDisharmonyEntry fromRankedDisharmony(RankedDisharmony entry) {
+        Map<String, Double> metrics = null;
+        if (entry.getRankedMetrics() != null) {
+            metrics = new LinkedHashMap<>();
+            for (DisharmonyMetric metric : entry.getRankedMetrics()) {
+                metrics.put(metric.getName(), metric.getValue());
+            }
+        }
+
         return JsonReportDisharmonyEntry.builder()
+                .disharmonyType(entry.getDisharmonyType())
                 .fileName(entry.getFileName())
                 .className(entry.getClassName())
                 .effortRank(entry.getEffortRank())
@@ -42,8 +64,15 @@ class JsonReportDisharmonyEntry {
                 .priority(entry.getRawPriority())
                 .weightedMethodCount(entry.getWmc())
                 .commitCount(entry.getCommitCount())
-                .mostRecentCommitTime(formatter.format(entry.getMostRecentCommitTime()))
+                .mostRecentCommitTime(
+                        entry.getMostRecentCommitTime() != null
+                                ? formatter.format(entry.getMostRecentCommitTime())
+                                : null)
                 .fullFilePath(entry.getPath())
+                .methodSignature(entry.getMethodSignature())
+                .description(entry.getDescription())
+                .duplicationPartners(entry.getDuplicationPartners())
+                .metrics(metrics)
                 .build();
     }
 }
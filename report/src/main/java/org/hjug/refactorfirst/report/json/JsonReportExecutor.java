@@ -1,29 +1,89 @@
 package org.hjug.refactorfirst.report.json;
 
+import static org.hjug.refactorfirst.report.ReportWriter.openReport;
 import static org.hjug.refactorfirst.report.ReportWriter.writeReportToDisk;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.hjug.cbc.CostBenefitCalculator;
+import org.hjug.cbc.CycleRanker;
+import org.hjug.cbc.RankedCycle;
 import org.hjug.cbc.RankedDisharmony;
+import org.hjug.dsm.SccDecomposition;
+import org.hjug.feedback.CycleRemovalComputer;
+import org.hjug.feedback.CycleRemovalResult;
+import org.hjug.feedback.FeedbackArcSetStrategy;
+import org.hjug.feedback.FeedbackArcSetStrategySelector;
+import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.hjug.graphbuilder.metrics.DisharmonyTypes;
+import org.hjug.metrics.DisharmonyInstance;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsSubgraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
 
+/**
+ * Writes every disharmony, the class and package cycles, and the relationships to remove to break them as JSON.
+ *
+ * The report is written with a JsonGenerator as each section is ranked,
+ * so only the section being ranked is held in memory rather than the whole report.
+ */
 @Slf4j
 public class JsonReportExecutor {
 
     private static final String FILE_NAME = "refactor-first-data.json";
 
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // entries are written one at a time to a buffered writer, which is flushed when the report is closed
+    private static final ObjectMapper MAPPER = new ObjectMapper().disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private static final List<String> CLASS_DISHARMONY_TYPES = List.of(
+            DisharmonyTypes.GOD_CLASS,
+            DisharmonyTypes.DATA_CLASS,
+            DisharmonyTypes.BRAIN_CLASS,
+            DisharmonyTypes.REFUSED_PARENT_BEQUEST,
+            DisharmonyTypes.TRADITION_BREAKER,
+            DisharmonyTypes.SIGNIFICANT_DUPLICATION);
+
+    private static final List<String> METHOD_DISHARMONY_TYPES = List.of(
+            DisharmonyTypes.BRAIN_METHOD,
+            DisharmonyTypes.FEATURE_ENVY,
+            DisharmonyTypes.INTENSIVE_COUPLING,
+            DisharmonyTypes.DISPERSED_COUPLING,
+            DisharmonyTypes.SHOTGUN_SURGERY);
+
+    /**
+     * Cycle removal algorithm to use for every strongly connected component.
+     * Null or "auto" picks an algorithm per component based on its size and density.
+     */
+    @Setter
+    private String cycleRemovalStrategy;
+
+    /**
+     * Dependency jars and class directories used to resolve library types while building the class graph
+     */
+    @Setter
+    private List<Path> classpath = List.of();
+
+    /**
+     * Graph to report on instead of building one from the base directory
+     */
+    @Setter
+    private CodebaseGraphDTO codebaseGraph;
 
     public void execute(File baseDir, String outputDirectory) {
+        execute(true, null, baseDir, outputDirectory);
+    }
+
+    public void execute(boolean excludeTests, String testSourceDirectory, File baseDir, String outputDirectory) {
         String projectBaseDir;
 
         if (baseDir != null) {
@@ -32,37 +92,182 @@ public class JsonReportExecutor {
             projectBaseDir = Paths.get("").toAbsolutePath().toString();
         }
 
-        // TODO: revisit
-        final CostBenefitCalculator costBenefitCalculator = new CostBenefitCalculator(projectBaseDir, new HashMap<>());
-        try {
-            costBenefitCalculator.runPmdAnalysis();
-        } catch (IOException e) {
-            log.error("Error running PMD analysis.");
-            throw new RuntimeException(e);
+        if (testSourceDirectory == null || testSourceDirectory.isEmpty()) {
+            testSourceDirectory = "src" + File.separator + "test";
         }
-        final List<RankedDisharmony> rankedDisharmonies =
-                costBenefitCalculator.calculateGodClassCostBenefitValues(costBenefitCalculator.getGodClasses());
-        final List<JsonReportDisharmonyEntry> disharmonyEntries = rankedDisharmonies.stream()
-                .map(JsonReportDisharmonyEntry::fromRankedDisharmony)
-                .collect(Collectors.toList());
 
-        final JsonReport report =
-                JsonReport.builder().rankedDisharmonies(disharmonyEntries).build();
+        try (Writer writer = openReport(outputDirectory, FILE_NAME, false);
+                JsonGenerator json = MAPPER.getFactory().createGenerator(writer)) {
+            writeReport(json, projectBaseDir, excludeTests, testSourceDirectory);
+        } catch (Exception e) {
+            final String errorMessage = "Could not generate a json report: " + e;
 
-        try {
-            final String reportJson = MAPPER.writeValueAsString(report);
-
-            writeReportToDisk(outputDirectory, FILE_NAME, new StringBuilder(reportJson).toString());
-        } catch (final JsonProcessingException jsonProcessingException) {
-            final String errorMessage = "Could not generate a json report: " + jsonProcessingException;
-
-            log.error(errorMessage);
+            log.error(errorMessage, e);
             final JsonReport errorReport = JsonReport.builder()
                     .errors(new ArrayList<>(Collections.singletonList(errorMessage)))
                     .build();
 
             writeErrorReport(errorReport, outputDirectory);
+            return;
+        }
+
+        log.info("Done! View the report at target/site/{}", FILE_NAME);
+    }
+
+    void writeReport(JsonGenerator json, String projectBaseDir, boolean excludeTests, String testSourceDirectory)
+            throws Exception {
+        CycleRanker cycleRanker = new CycleRanker(projectBaseDir);
+        cycleRanker.setClasspath(classpath);
+        CodebaseGraphDTO codebaseGraphDTO;
+        if (codebaseGraph != null) {
+            cycleRanker.setCodebaseGraphDTO(codebaseGraph);
+            codebaseGraphDTO = codebaseGraph;
+        } else {
+            codebaseGraphDTO = cycleRanker.generateClassReferencesGraph(excludeTests, testSourceDirectory);
+        }
+
+        Graph<String, DefaultWeightedEdge> classGraph = codebaseGraphDTO.getClassReferencesGraph();
+        Graph<String, DefaultWeightedEdge> packageGraph = codebaseGraphDTO.getPackageReferencesGraph();
+        // computed once per graph and shared by cycle removal and cycle ranking
+        SccDecomposition<String> classSccDecomposition = SccDecomposition.of(classGraph);
+        SccDecomposition<String> packageSccDecomposition = SccDecomposition.of(packageGraph);
+
+        CycleRemovalComputer cycleRemovalComputer = new CycleRemovalComputer(
+                FeedbackArcSetStrategySelector.withOverride(FeedbackArcSetStrategy.fromName(cycleRemovalStrategy)));
+        CycleRemovalResult classCycleRemovalResult =
+                cycleRemovalComputer.computeCycleRemovalInformation(classGraph, classSccDecomposition);
+        CycleRemovalResult packageCycleRemovalResult =
+                cycleRemovalComputer.computeCycleRemovalInformation(packageGraph, packageSccDecomposition);
+
+        json.writeStartObject();
+
+        log.info("Identifying Object Oriented Disharmonies");
+        try (CostBenefitCalculator costBenefitCalculator =
+                new CostBenefitCalculator(projectBaseDir, codebaseGraphDTO.getClassToSourceFilePathMapping())) {
+            json.writeArrayFieldStart("rankedDisharmonies");
+            for (String disharmonyType : CLASS_DISHARMONY_TYPES) {
+                writeDisharmonies(
+                        json,
+                        costBenefitCalculator,
+                        costBenefitCalculator.getClassDisharmonies(codebaseGraphDTO, disharmonyType));
+            }
+            for (String disharmonyType : METHOD_DISHARMONY_TYPES) {
+                writeDisharmonies(
+                        json,
+                        costBenefitCalculator,
+                        costBenefitCalculator.getMethodDisharmonies(codebaseGraphDTO, disharmonyType));
+            }
+            json.writeEndArray();
+
+            List<RankedDisharmony> packageRelationshipDisharmonies =
+                    costBenefitCalculator.calculateRelationshipCostBenefitValues(
+                            packageGraph,
+                            packageCycleRemovalResult.getEdgeCycleCounts(),
+                            codebaseGraphDTO,
+                            packageCycleRemovalResult.getVertexesToRemove(),
+                            packageCycleRemovalResult.getCycles(),
+                            List.of());
+            List<RankedDisharmony> classRelationshipDisharmonies =
+                    costBenefitCalculator.calculateRelationshipCostBenefitValues(
+                            classGraph,
+                            classCycleRemovalResult.getEdgeCycleCounts(),
+                            codebaseGraphDTO,
+                            classCycleRemovalResult.getVertexesToRemove(),
+                            packageCycleRemovalResult.getCycles(),
+                            packageRelationshipDisharmonies);
+            writeRelationships(json, "classRelationshipsToRemove", classGraph, classRelationshipDisharmonies);
+            writeRelationships(json, "packageRelationshipsToRemove", packageGraph, packageRelationshipDisharmonies);
+        }
+
+        writeStrings(json, "classesToRemove", classCycleRemovalResult.getVertexesToRemove());
+        writeStrings(json, "packagesToRemove", packageCycleRemovalResult.getVertexesToRemove());
+
+        log.info("Analyzing Cycles");
+        json.writeArrayFieldStart("classCycles");
+        for (RankedCycle cycle : cycleRanker.rankCycles(classGraph, classSccDecomposition)) {
+            json.writeStartObject();
+            json.writeStringField("name", cycle.getCycleName());
+            json.writeNumberField("priority", cycle.getPriority());
+            writeStrings(json, "classes", cycle.getVertexSet());
+            writeEdges(json, classGraph, cycle.getEdgeSet());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+
+        json.writeArrayFieldStart("packageCycles");
+        for (Map.Entry<String, AsSubgraph<String, DefaultWeightedEdge>> cycle :
+                packageCycleRemovalResult.getCycles().entrySet()) {
+            json.writeStartObject();
+            json.writeStringField("name", cycle.getKey());
+            writeStrings(json, "packages", cycle.getValue().vertexSet());
+            writeEdges(json, packageGraph, cycle.getValue().edgeSet());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+
+        json.writeEndObject();
+    }
+
+    private static void writeDisharmonies(
+            JsonGenerator json, CostBenefitCalculator costBenefitCalculator, List<DisharmonyInstance> instances)
+            throws IOException {
+        if (instances.isEmpty()) {
+            return;
+        }
+        for (RankedDisharmony rankedDisharmony :
+                costBenefitCalculator.calculateDisharmonyCostBenefitValues(instances)) {
+            MAPPER.writeValue(json, JsonReportDisharmonyEntry.fromRankedDisharmony(rankedDisharmony));
+        }
+    }
+
+    private static void writeRelationships(
+            JsonGenerator json,
+            String fieldName,
+            Graph<String, DefaultWeightedEdge> graph,
+            List<RankedDisharmony> relationshipDisharmonies)
+            throws IOException {
+        json.writeArrayFieldStart(fieldName);
+        for (RankedDisharmony relationship : relationshipDisharmonies) {
+            DefaultWeightedEdge edge = relationship.getEdge();
+            json.writeStartObject();
+            json.writeStringField("source", graph.getEdgeSource(edge));
+            json.writeStringField("target", graph.getEdgeTarget(edge));
+            json.writeNumberField("weight", (int) graph.getEdgeWeight(edge));
+            json.writeNumberField("priority", relationship.getPriority());
+            json.writeNumberField("cycleCount", relationship.getCycleCount());
+            json.writeBooleanField("sourceShouldBeRemoved", relationship.getSourceNodeShouldBeRemoved() == 1);
+            json.writeBooleanField("targetShouldBeRemoved", relationship.getTargetNodeShouldBeRemoved() == 1);
+            if (relationship.getPackageCycleCount() != null) {
+                json.writeNumberField("packageCycleCount", relationship.getPackageCycleCount());
+            }
+            json.writeBooleanField(
+                    "packageRelationshipShouldBeRemoved", relationship.isPackageRelationshipShouldBeRemoved());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    private static void writeEdges(
+            JsonGenerator json, Graph<String, DefaultWeightedEdge> graph, Set<DefaultWeightedEdge> edges)
+            throws IOException {
+        json.writeArrayFieldStart("relationships");
+        for (DefaultWeightedEdge edge : edges) {
+            json.writeStartObject();
+            json.writeStringField("source", graph.getEdgeSource(edge));
+            json.writeStringField("target", graph.getEdgeTarget(edge));
+            json.writeNumberField("weight", (int) graph.getEdgeWeight(edge));
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    private static void writeStrings(JsonGenerator json, String fieldName, Collection<String> values)
+            throws IOException {
+        json.writeArrayFieldStart(fieldName);
+        for (String value : values) {
+            json.writeString(value);
         }
+        json.writeEndArray();
     }
 
     private void writeErrorReport(final JsonReport errorReport, String outputDirectory) {
@@ -0,0 +1,52 @@
+package org.hjug.refactorfirst.report;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.StringWriter;
+import java.util.List;
+import org.hjug.cbc.DiffResult;
+import org.hjug.cbc.DiffResult.CycleChange;
+import org.hjug.cbc.DiffResult.RelationshipChange;
+import org.junit.jupiter.api.Test;
+
+class DiffReportTest {
+
+    @Test
+    void writesChangesAndWhetherTheyRegress() throws Exception {
+        DiffResult diff = new DiffResult(
+                "abc",
+                "def",
+                2,
+                List.of(new CycleChange(List.of(), List.of("p.A", "p.B"))),
+                List.of(),
+                List.of(),
+                List.of(),
+                List.of(),
+                List.of(),
+                List.of(new RelationshipChange("p.B", "p.A", 0, 1, true)),
+                List.of(),
+                List.of(),
+                List.of(),
+                List.of(),
+                List.of(),
+                List.of("Shotgun Surgery"));
+
+        StringWriter writer = new StringWriter();
+        DiffReport.writeJson(writer, diff);
+
+        JsonNode json = new ObjectMapper().readTree(writer.toString());
+        assertEquals("abc", json.get("baseCommitId").asText());
+        assertEquals(2, json.get("changedFiles").asInt());
+        assertEquals(
+                "p.B",
+                json.get("newClassCycles").get(0).get("headVertexes").get(1).asText());
+        assertTrue(json.get("newClassRelationships").get(0).get("inCycle").asBoolean());
+        assertTrue(json.get("regressions").asBoolean());
+        assertEquals(
+                "Shotgun Surgery",
+                json.get("disharmonyTypesNotEvaluated").get(0).asText());
+    }
+}
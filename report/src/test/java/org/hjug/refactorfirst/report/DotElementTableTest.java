@@ -0,0 +1,90 @@
+package org.hjug.refactorfirst.report;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DotElementTableTest {
+
+    private Graph<String, DefaultWeightedEdge> graph;
+    private Map<Object, AtomicInteger> renderCounts;
+    private DotElementTable<String, DefaultWeightedEdge> table;
+
+    @BeforeEach
+    void setUp() {
+        graph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        graph.addVertex("A");
+        graph.addVertex("B");
+        graph.addVertex("C$1");
+        graph.addEdge("A", "B");
+        graph.addEdge("B", "A");
+        graph.addEdge("B", "C$1");
+
+        renderCounts = new ConcurrentHashMap<>();
+        table = new DotElementTable<>(
+                "class",
+                graph,
+                vertex -> {
+                    renderCounts
+                            .computeIfAbsent(vertex, key -> new AtomicInteger())
+                            .incrementAndGet();
+                    // like nested classes without outgoing edges, C$1 is left out
+                    return "C$1".equals(vertex) ? "" : vertex + ";\n";
+                },
+                edge -> {
+                    renderCounts
+                            .computeIfAbsent(edge, key -> new AtomicInteger())
+                            .incrementAndGet();
+                    return graph.getEdgeSource(edge) + " -> " + graph.getEdgeTarget(edge) + ";\n";
+                });
+    }
+
+    @Test
+    void overlappingGraphsReferToStatementsById() throws Exception {
+        DefaultWeightedEdge ab = graph.getEdge("A", "B");
+        DefaultWeightedEdge ba = graph.getEdge("B", "A");
+        DefaultWeightedEdge bc = graph.getEdge("B", "C$1");
+
+        assertEquals(
+                "{table: \"class\", edges: [0, 1, 2], vertexes: [0, 1]}",
+                table.reference(List.of(ab, ba, bc), List.of("A", "B", "C$1")));
+        assertEquals(
+                "{table: \"class\", edges: [0, 1], vertexes: [0, 1]}",
+                table.reference(List.of(ab, ba), List.of("A", "B")));
+
+        // every statement is rendered once, however many graphs refer to it
+        renderCounts.values().forEach(count -> assertEquals(1, count.get()));
+        assertEquals(6, renderCounts.size());
+    }
+
+    @Test
+    void printTableHoldsReferencedStatements() throws Exception {
+        table.reference(List.of(graph.getEdge("A", "B")), List.of("A", "C$1"));
+
+        String script = table.printTable();
+
+        assertEquals(
+                "<script>\ndotElementTables[\"class\"] = {\"edges\":{\"0\":\"A -> B;\\n\"},"
+                        + "\"vertexes\":{\"0\":\"A;\\n\"}};\n</script>\n",
+                script);
+        assertFalse(script.contains("B -> A"));
+    }
+
+    @Test
+    void dotIsATemplateLiteral() {
+        String dot = table.dot(List.of(graph.getEdge("B", "C$1")), List.of("B"));
+
+        assertEquals("`strict digraph G {\nB -> C\\$1;\nB;\n}`;", dot);
+        assertTrue(table.isFor(graph));
+    }
+}
@@ -0,0 +1,90 @@
+package org.hjug.refactorfirst.report;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.Set;
+import org.hjug.layout.GraphLayout;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+
+class GraphLayoutWriterTest {
+
+    @Test
+    void getPackageName() {
+        assertEquals("org.hjug", GraphLayoutWriter.getPackageName("org.hjug.A"));
+        assertEquals("org.hjug", GraphLayoutWriter.getPackageName("org.hjug.A$B.C"));
+        assertEquals("", GraphLayoutWriter.getPackageName("A"));
+    }
+
+    @Test
+    void writesClassesGroupedByPackage() throws Exception {
+        Graph<String, DefaultWeightedEdge> classGraph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        classGraph.addVertex("a.A");
+        classGraph.addVertex("a.B");
+        classGraph.addVertex("b.C");
+        classGraph.addEdge("a.A", "a.B");
+        classGraph.setEdgeWeight("a.A", "a.B", 3);
+        DefaultWeightedEdge toRemove = classGraph.addEdge("a.B", "b.C");
+        classGraph.addEdge("b.C", "a.A");
+
+        GraphLayout<String> layout = GraphLayout.of(classGraph);
+        StringWriter writer = new StringWriter();
+        GraphLayoutWriter.write(
+                writer,
+                "classGraph",
+                "https://repo/",
+                classGraph,
+                layout,
+                Set.of("a.B"),
+                Set.of(toRemove),
+                Map.of("a.A", "a/A.java"));
+
+        String script = writer.toString();
+        assertTrue(script.startsWith("loadGraphLayout(\"classGraph\", {"));
+        assertTrue(script.endsWith("});\n"));
+        JsonNode json = new ObjectMapper().readTree(script.substring(script.indexOf('{'), script.lastIndexOf(')')));
+
+        assertEquals("https://repo/", json.get("repoUrl").asText());
+        assertEquals(2, json.get("packages").size());
+        assertEquals(3, json.get("classes").size());
+        assertEquals(3, json.get("edges").size());
+
+        JsonNode packages = json.get("packages");
+        for (JsonNode cls : json.get("classes")) {
+            JsonNode pkg = packages.get(cls.get(1).asInt());
+            String className = pkg.get(0).asText() + "." + cls.get(0).asText();
+            int id = indexOf(layout, className);
+            assertEquals(Math.round(layout.getX(id)), cls.get(2).asLong());
+            assertEquals(Math.round(layout.getY(id)), cls.get(3).asLong());
+            assertEquals("a.B".equals(className) ? 1 : 0, cls.get(4).asInt());
+            assertEquals("a.A".equals(className) ? "a/A.java" : "", cls.get(5).asText());
+            assertEquals("a".equals(pkg.get(0).asText()) ? 2 : 1, pkg.get(3).asInt());
+        }
+
+        JsonNode classes = json.get("classes");
+        for (JsonNode edge : json.get("edges")) {
+            String source = classes.get(edge.get(0).asInt()).get(0).asText();
+            String target = classes.get(edge.get(1).asInt()).get(0).asText();
+            assertEquals("A".equals(source) ? 3 : 1, edge.get(2).asInt());
+            assertEquals(
+                    "B".equals(source) && "C".equals(target) ? 1 : 0,
+                    edge.get(3).asInt());
+        }
+    }
+
+    private static int indexOf(GraphLayout<String> layout, String vertex) {
+        for (int id = 0; id < layout.getVertexCount(); id++) {
+            if (layout.getVertex(id).equals(vertex)) {
+                return id;
+            }
+        }
+        throw new AssertionError(vertex);
+    }
+}
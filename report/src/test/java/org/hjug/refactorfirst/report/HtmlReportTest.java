@@ -1,10 +1,17 @@
 package org.hjug.refactorfirst.report;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.Stream;
 import org.hjug.cbc.CycleNode;
 import org.hjug.cbc.RankedCycle;
 import org.hjug.graphbuilder.CodebaseGraphDTO;
@@ -12,6 +19,7 @@ import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultDirectedWeightedGraph;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class HtmlReportTest {
 
@@ -73,4 +81,85 @@ class HtmlReportTest {
 
         assertEquals(expectedDot, dot);
     }
+
+    @Test
+    void tablesAreInlinedUnlessPaged(@TempDir Path outputDirectory) {
+        mavenReport.reportDataDirectory =
+                outputDirectory.resolve("refactor-first-report-data").toFile();
+        assertFalse(mavenReport.pagesTables());
+
+        mavenReport.setPagedSections(true);
+        assertTrue(mavenReport.pagesTables());
+
+        // rendered into a Maven site page
+        mavenReport.reportDataDirectory = null;
+        assertFalse(mavenReport.pagesTables());
+    }
+
+    @Test
+    void writeTableInlinesRowsUnlessPaged(@TempDir Path outputDirectory) throws Exception {
+        mavenReport.setPagedSections(true);
+
+        // rendered into a Maven site page
+        StringBuilder page = new StringBuilder();
+        mavenReport.writeTable(
+                page, "CYCLES", new String[] {"Cycle Name", "Priority"}, Stream.<String[]>of(new String[] {"A", "1"}));
+
+        assertTrue(page.toString().contains("<th>Cycle Name</th>"));
+        assertTrue(page.toString().contains("<td align=\"left\">A</td>"));
+        assertFalse(Files.exists(outputDirectory.resolve("refactor-first-report-data")));
+    }
+
+    @Test
+    void writePagedTableWritesRowsToDataFile(@TempDir Path outputDirectory) throws Exception {
+        File dataDirectory =
+                outputDirectory.resolve("refactor-first-report-data").toFile();
+        mavenReport.reportDataDirectory = dataDirectory;
+        mavenReport.setPagedSections(true);
+
+        StringBuilder page = new StringBuilder();
+        mavenReport.writePagedTable(
+                page,
+                "CYCLES",
+                new String[] {"Cycle Name", "Priority"},
+                Stream.of(new String[] {"A", "1"}, new String[] {"<a href=\"B.java\">B</a>", "2"}));
+
+        assertEquals(
+                "<div class=\"paged-table\" id=\"CYCLES_table\" align=\"center\""
+                        + " data-src=\"refactor-first-report-data/CYCLES.js\">Loading 2 rows...</div>\n",
+                page.toString());
+        assertEquals(
+                "loadReportSection(\"CYCLES\", {\"columns\":[\"Cycle Name\",\"Priority\"],"
+                        + "\"rows\":[[\"A\",\"1\"],[\"<a href=\\\"B.java\\\">B</a>\",\"2\"]]});\n",
+                new String(Files.readAllBytes(dataDirectory.toPath().resolve("CYCLES.js")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void largeClassGraphIsDrawnFromLayoutFile(@TempDir Path outputDirectory) throws Exception {
+        Graph<String, DefaultWeightedEdge> classGraph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        classGraph.addVertex("a.A");
+        classGraph.addVertex("b.B");
+        classGraph.addEdge("a.A", "b.B");
+        CodebaseGraphDTO dto = mock(CodebaseGraphDTO.class);
+        when(dto.getClassToSourceFilePathMapping()).thenReturn(Map.of("a.A", "a/A.java", "b.B", "b/B.java"));
+
+        File dataDirectory =
+                outputDirectory.resolve("refactor-first-report-data").toFile();
+        mavenReport.classGraph = classGraph;
+        mavenReport.reportDataDirectory = dataDirectory;
+        mavenReport.dotGraphThreshold = 3;
+
+        String visuals = mavenReport.renderClassGraphVisuals("https://repo/", dto);
+
+        assertTrue(visuals.contains("<script src=\"refactor-first-report-data/classGraph-layout.js\"></script>"));
+        assertFalse(visuals.contains("classGraph_dot"));
+        String layout = new String(
+                Files.readAllBytes(dataDirectory.toPath().resolve("classGraph-layout.js")), StandardCharsets.UTF_8);
+        assertTrue(layout.startsWith("loadGraphLayout(\"classGraph\", {\"repoUrl\":\"https://repo/\""));
+
+        // rendered into a Maven site page
+        mavenReport.reportDataDirectory = null;
+        assertTrue(
+                mavenReport.renderClassGraphVisuals("https://repo/", dto).contains("SVG is too big to render quickly"));
+    }
 }
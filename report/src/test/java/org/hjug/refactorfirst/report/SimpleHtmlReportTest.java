@@ -1,7 +1,17 @@
 package org.hjug.refactorfirst.report;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import org.hjug.feedback.FeedbackArcSetStrategy;
+import org.hjug.feedback.SccRemovalStatistics;
+import org.hjug.instrumentation.PhaseTimer;
+import org.hjug.instrumentation.PhaseTiming;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class SimpleHtmlReportTest {
 
@@ -76,4 +86,46 @@ class SimpleHtmlReportTest {
                 "method(Outer$Inner) ↔ Other.method(Outer$Inner)",
                 htmlReport.simplifyDuplicatePartners(duplicationPartners));
     }
+
+    @Test
+    void rendersSccRemovalStatisticsWithAClosedHeaderRow() {
+        HtmlReport htmlReport = new HtmlReport();
+        String html = htmlReport.renderSccRemovalStatistics(
+                "Class", List.of(new SccRemovalStatistics(3, 4, FeedbackArcSetStrategy.GREEDY, 1, 2)));
+
+        Assertions.assertTrue(html.contains("<th>Time (ms)</th>\n</tr>\n</thead>"));
+    }
+
+    @Test
+    void rendersPhaseTimings() {
+        HtmlReport htmlReport = new HtmlReport();
+        String html = htmlReport.renderPhaseTimings(
+                List.of(new PhaseTiming(
+                        "graph.parseAndVisit", "main", 3_000_000, -1, 2 * 1024 * 1024, Map.of("files", 12L))),
+                Map.of("classes", 40L));
+
+        Assertions.assertTrue(html.contains("graph.parseAndVisit"));
+        Assertions.assertTrue(html.contains("files: 12"));
+        Assertions.assertTrue(html.contains("classes"));
+        Assertions.assertEquals("", htmlReport.renderPhaseTimings(List.of(), Map.of()));
+    }
+
+    @Test
+    void writesPhaseTimings(@TempDir File outputDirectory) throws Exception {
+        PhaseTimer.startRun();
+        try (PhaseTimer.Phase phase = PhaseTimer.start("report.render")) {
+            phase.count("sections", 3);
+        }
+        PhaseTimer.count("files", 7);
+
+        SimpleHtmlReport.writeTimings(outputDirectory.getPath(), "timings.json");
+        PhaseTimer.startRun();
+
+        JsonNode json = new ObjectMapper().readTree(new File(outputDirectory, "timings.json"));
+        Assertions.assertEquals(
+                "report.render", json.get("phases").get(0).get("name").asText());
+        Assertions.assertEquals(
+                3, json.get("phases").get(0).get("counts").get("sections").asInt());
+        Assertions.assertEquals(7, json.get("counters").get("files").asInt());
+    }
 }
@@ -0,0 +1,30 @@
+package org.hjug.refactorfirst.report;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringWriter;
+import java.util.List;
+import org.hjug.cbc.TrendPoint;
+import org.junit.jupiter.api.Test;
+
+class TrendReportTest {
+
+    @Test
+    void writesOneRowPerCommit() throws Exception {
+        StringWriter writer = new StringWriter();
+        TrendReport.writeCsv(
+                writer,
+                List.of(
+                        new TrendPoint("abc", 0, 3, 3, 3, 3, 1, 1, 3, 0, 1, 0),
+                        new TrendPoint("def", 86400, 3, 1, 3, 2, 1, 0, 0, 0, 0, 1)));
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(
+                "Commit,Commit Date,Java Files,Java Files Parsed,Classes,Class Relationships,Packages,Class Cycles,"
+                        + "Classes In Cycles,Package Cycles,Class Relationships To Remove,God Classes",
+                lines[0]);
+        assertEquals("abc,1970-01-01T00:00:00,3,3,3,3,1,1,3,0,1,0", lines[1]);
+        assertEquals("def,1970-01-02T00:00:00,3,1,3,2,1,0,0,0,0,1", lines[2]);
+    }
+}
@@ -0,0 +1,50 @@
+package org.hjug.refactorfirst.report;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import org.junit.jupiter.api.Test;
+
+class WhitespaceMinifyingWriterTest {
+
+    @Test
+    void collapsesWhitespaceRunsKeepingNewlines() throws IOException {
+        assertEquals(
+                "<div>\n<h1>Class Map</h1>\n<script>\n// comment\nconst a = 1;\n</script>\n</div>",
+                minify("<div>\n"
+                        + "    <h1>Class   Map</h1>\n\n"
+                        + "  <script>\n"
+                        + "    // comment\n"
+                        + "    const a = 1;\n"
+                        + "  </script>\n"
+                        + "</div>"));
+    }
+
+    @Test
+    void keepsWhitespaceOfPreformattedElements() throws IOException {
+        assertEquals(
+                "<p>a b</p>\n<PRE>  x\n\n  y</PRE> <p>c</p>",
+                minify("<p>a   b</p>\n  <PRE>  x\n\n  y</PRE>  <p>c</p>"));
+    }
+
+    @Test
+    void minifiesAcrossWrites() throws IOException {
+        StringWriter result = new StringWriter();
+        try (Writer writer = new WhitespaceMinifyingWriter(result)) {
+            writer.write("<td>a  ");
+            writer.write("  b</td>\n");
+            writer.write("   <td>c</td>");
+        }
+        assertEquals("<td>a b</td>\n<td>c</td>", result.toString());
+    }
+
+    private static String minify(String html) throws IOException {
+        StringWriter result = new StringWriter();
+        try (Writer writer = new WhitespaceMinifyingWriter(result)) {
+            writer.write(html);
+        }
+        return result.toString();
+    }
+}
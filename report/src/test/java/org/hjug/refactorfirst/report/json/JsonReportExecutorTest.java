@@ -0,0 +1,145 @@
+package org.hjug.refactorfirst.report.json;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.*;
+import org.eclipse.jgit.api.Git;
+import org.hjug.graphbuilder.CodebaseGraphDTO;
+import org.hjug.graphbuilder.metrics.ClassMetrics;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.ClassDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyDetector.MethodDisharmony;
+import org.hjug.graphbuilder.metrics.DisharmonyMetric;
+import org.hjug.graphbuilder.metrics.DisharmonyMetric.Direction;
+import org.hjug.graphbuilder.metrics.DisharmonyTypes;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonReportExecutorTest {
+
+    @TempDir
+    File tempFolder;
+
+    @Test
+    void writesEverySectionOfTheReport() throws Exception {
+        try (Git git = Git.init().setDirectory(tempFolder).call()) {
+            writeFile("p/A.java", "package p; public class A { q.C c; }");
+            writeFile("p/B.java", "package p; public class B { A a; }");
+            writeFile("q/C.java", "package q; public class C { p.B b; }");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("message").call();
+        }
+
+        JsonReportExecutor executor = new JsonReportExecutor();
+        executor.setCodebaseGraph(codebaseGraph());
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator json = new ObjectMapper().getFactory().createGenerator(writer)) {
+            executor.writeReport(json, tempFolder.getPath(), true, "src/test");
+        }
+
+        JsonNode report = new ObjectMapper().readTree(writer.toString());
+        for (String section : List.of(
+                "rankedDisharmonies",
+                "classRelationshipsToRemove",
+                "packageRelationshipsToRemove",
+                "classesToRemove",
+                "packagesToRemove",
+                "classCycles",
+                "packageCycles")) {
+            assertTrue(report.get(section).isArray(), section);
+        }
+
+        JsonNode rankedDisharmonies = report.get("rankedDisharmonies");
+        assertEquals(2, rankedDisharmonies.size());
+        for (JsonNode entry : rankedDisharmonies) {
+            for (String field : List.of(
+                    "fileName",
+                    "className",
+                    "fullFilePath",
+                    "effortRank",
+                    "changePronenessRank",
+                    "priority",
+                    "weightedMethodCount",
+                    "commitCount",
+                    "mostRecentCommitTime")) {
+                assertTrue(entry.has(field), field);
+            }
+            assertEquals(1, entry.get("commitCount").asInt());
+        }
+        JsonNode godClass = rankedDisharmonies.get(0);
+        assertEquals(DisharmonyTypes.GOD_CLASS, godClass.get("disharmonyType").asText());
+        assertEquals("p.A", godClass.get("className").asText());
+        assertEquals("p/A.java", godClass.get("fullFilePath").asText());
+        assertEquals(12.0, godClass.get("metrics").get("WMC").asDouble());
+        JsonNode featureEnvy = rankedDisharmonies.get(1);
+        assertEquals(
+                DisharmonyTypes.FEATURE_ENVY, featureEnvy.get("disharmonyType").asText());
+        assertEquals("b()", featureEnvy.get("methodSignature").asText());
+
+        assertEquals(1, report.get("classCycles").size());
+        assertEquals(3, report.get("classCycles").get(0).get("classes").size());
+        assertEquals(1, report.get("packageCycles").size());
+        assertEquals(
+                1,
+                report.get("classesToRemove").size()
+                        + report.get("classRelationshipsToRemove").size());
+    }
+
+    private static CodebaseGraphDTO codebaseGraph() {
+        Graph<String, DefaultWeightedEdge> classGraph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        classGraph.addVertex("p.A");
+        classGraph.addVertex("p.B");
+        classGraph.addVertex("q.C");
+        classGraph.addEdge("p.A", "q.C");
+        classGraph.addEdge("p.B", "p.A");
+        classGraph.addEdge("q.C", "p.B");
+
+        Graph<String, DefaultWeightedEdge> packageGraph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+        packageGraph.addVertex("p");
+        packageGraph.addVertex("q");
+        packageGraph.addEdge("p", "q");
+        packageGraph.addEdge("q", "p");
+
+        ClassMetrics metrics = new ClassMetrics("p.A");
+        metrics.setSourceFilePath("p/A.java");
+        metrics.setPackageName("p");
+        ClassDisharmony godClass = new ClassDisharmony(
+                "p.A",
+                DisharmonyTypes.GOD_CLASS,
+                "God Class detected",
+                metrics,
+                List.of(new DisharmonyMetric("WMC", 12, Direction.ASCENDING)));
+        MethodDisharmony featureEnvy = new MethodDisharmony(
+                "p.B",
+                "b()",
+                DisharmonyTypes.FEATURE_ENVY,
+                "Feature Envy detected",
+                null,
+                List.of(new DisharmonyMetric("ATFD", 5, Direction.ASCENDING)));
+
+        return new CodebaseGraphDTO(
+                classGraph,
+                packageGraph,
+                Map.of(),
+                Map.of("p.A", "p/A.java", "p.B", "p/B.java", "q.C", "q/C.java"),
+                new ArrayList<>(List.of(godClass)),
+                new ArrayList<>(List.of(featureEnvy)));
+    }
+
+    private void writeFile(String name, String content) throws IOException {
+        File file = new File(tempFolder, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(UTF_8));
+    }
+}